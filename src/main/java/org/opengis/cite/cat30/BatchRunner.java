@@ -0,0 +1,264 @@
+package org.opengis.cite.cat30;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.Source;
+
+import org.opengis.cite.cat30.util.TestSuiteLogger;
+import org.opengis.cite.cat30.util.XMLUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Runs the test suite against several implementations in one JVM. The suites run
+ * concurrently in a bounded pool of threads; they share the compiled schemas, the
+ * Schematron validators, and the HTTP client (with its connection pool), which are thus
+ * initialized only once. All runs use the same test run arguments apart from the
+ * {@link TestRunArg#IUT iut} argument. The results for each IUT are written to a separate
+ * subdirectory (<code>iut-<em>n</em></code>) of the output directory, and a summary table
+ * is written to the file {@value #SUMMARY_FILE}.
+ *
+ * <p>
+ * Since the runs use the same arguments, they use the same HTTP client settings (see
+ * {@link org.opengis.cite.cat30.util.ClientSettings}); deadlines, response caches, and
+ * request watchdogs are kept per run. Arguments that only make sense for a single IUT or
+ * a single run per JVM ({@link TestRunArg#LOAD_RATE load_rate},
+ * {@link TestRunArg#SHARD shard}, {@link TestRunArg#DATASET dataset}, and
+ * {@link TestRunArg#FLIGHT_RECORDING flight_recording}) are not supported.
+ * </p>
+ */
+public class BatchRunner {
+
+	/** The name of the file containing the summary of a batch run. */
+	static final String SUMMARY_FILE = "batch-summary.txt";
+
+	private final Document testRunProps;
+
+	private final List<String> iuts;
+
+	private final File outputDir;
+
+	private final int threads;
+
+	/**
+	 * Constructs a batch runner.
+	 * @param testRunProps A DOM Document containing the test run arguments common to all
+	 * runs; any iut argument is replaced.
+	 * @param iuts A list of references to the capabilities documents of the IUTs.
+	 * @param outputDir The directory in which results are written.
+	 * @param threads The maximum number of suites run at the same time.
+	 */
+	public BatchRunner(Document testRunProps, List<String> iuts, File outputDir, int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("At least one thread is required: " + threads);
+		}
+		Map<String, String> args = TestNGController.readTestRunArgs(testRunProps);
+		for (TestRunArg arg : new TestRunArg[] { TestRunArg.LOAD_RATE, TestRunArg.SHARD, TestRunArg.DATASET,
+				TestRunArg.FLIGHT_RECORDING }) {
+			if (args.containsKey(arg.toString())) {
+				throw new IllegalArgumentException(
+						String.format("Invalid argument: '%s' is not supported in batch mode.", arg));
+			}
+		}
+		this.testRunProps = testRunProps;
+		this.iuts = new ArrayList<>(iuts);
+		this.outputDir = outputDir;
+		this.threads = threads;
+	}
+
+	/**
+	 * Reads a list of IUTs from a text file containing one URI per line. Blank lines and
+	 * lines starting with '#' are ignored.
+	 * @param file A text file.
+	 * @return A list of URI references.
+	 * @throws IOException If the file cannot be read.
+	 */
+	public static List<String> readIUTs(File file) throws IOException {
+		List<String> iuts = new ArrayList<>();
+		for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+			String iut = line.trim();
+			if (!iut.isEmpty() && !iut.startsWith("#")) {
+				iuts.add(iut);
+			}
+		}
+		return iuts;
+	}
+
+	/**
+	 * Runs the test suite against each IUT and writes the summary.
+	 * @return The outcome of each run, in the order of the IUTs.
+	 * @throws IOException If the output directory or summary cannot be written.
+	 * @throws InterruptedException If interrupted while waiting for the runs to finish.
+	 */
+	public List<Outcome> run() throws IOException, InterruptedException {
+		Files.createDirectories(outputDir.toPath());
+		AtomicInteger threadCount = new AtomicInteger();
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, iuts.size())),
+				r -> new Thread(r, "ets-cat30-batch-" + threadCount.incrementAndGet()));
+		List<Future<Outcome>> futures = new ArrayList<>();
+		try {
+			for (int i = 0; i < iuts.size(); i++) {
+				String iut = iuts.get(i);
+				File runDir = new File(outputDir, "iut-" + (i + 1));
+				futures.add(pool.submit(() -> runSuite(iut, runDir)));
+			}
+			List<Outcome> outcomes = new ArrayList<>();
+			for (Future<Outcome> future : futures) {
+				try {
+					outcomes.add(future.get());
+				}
+				catch (ExecutionException e) {
+					// runSuite reports failures in its outcome
+					throw new IllegalStateException(e.getCause());
+				}
+			}
+			File summaryFile = new File(outputDir, SUMMARY_FILE);
+			Files.writeString(summaryFile.toPath(), formatSummary(outcomes), StandardCharsets.UTF_8);
+			TestSuiteLogger.log(Level.INFO, "Batch summary written to " + summaryFile);
+			return outcomes;
+		}
+		finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Runs the test suite against one IUT.
+	 * @param iut A reference to the capabilities document of the IUT.
+	 * @param runDir The directory in which the results are written.
+	 * @return The outcome of the run.
+	 */
+	Outcome runSuite(String iut, File runDir) {
+		long start = System.nanoTime();
+		try {
+			Files.createDirectories(runDir.toPath());
+			Document props = (Document) testRunProps.cloneNode(true);
+			ShardCoordinator.setEntry(props, TestRunArg.IUT.toString(), iut);
+			try (OutputStream out = new FileOutputStream(new File(runDir, "test-run-props.xml"))) {
+				XMLUtils.writeNode(props, out);
+			}
+			TestNGController controller = new TestNGController(runDir.toURI().toString());
+			Source results = controller.doTestRun(props);
+			Outcome outcome = new Outcome(iut, elapsedMillis(start));
+			outcome.resultsFile = new File(URI.create(results.getSystemId()));
+			Element root = DocumentBuilderFactory.newInstance()
+				.newDocumentBuilder()
+				.parse(outcome.resultsFile)
+				.getDocumentElement();
+			outcome.passed = parseCount(root, "passed");
+			outcome.failed = parseCount(root, "failed");
+			outcome.skipped = parseCount(root, "skipped");
+			return outcome;
+		}
+		catch (Exception e) {
+			TestSuiteLogger.log(Level.WARNING, "Test run failed for " + iut, e);
+			Outcome outcome = new Outcome(iut, elapsedMillis(start));
+			outcome.error = (null != e.getMessage()) ? e.getMessage() : e.getClass().getName();
+			return outcome;
+		}
+	}
+
+	private static long elapsedMillis(long startNanos) {
+		return (System.nanoTime() - startNanos) / 1000000;
+	}
+
+	private static int parseCount(Element root, String name) {
+		try {
+			return Integer.parseInt(root.getAttribute(name).trim());
+		}
+		catch (NumberFormatException nfe) {
+			return 0;
+		}
+	}
+
+	/**
+	 * Formats a table summarizing the outcome of each run.
+	 * @param outcomes The outcomes of the runs.
+	 * @return A multi-line table (one row per IUT).
+	 */
+	static String formatSummary(List<Outcome> outcomes) {
+		String format = "%4s %7s %7s %7s %9s  %s%n";
+		StringBuilder str = new StringBuilder();
+		str.append(String.format(format, "#", "Passed", "Failed", "Skipped", "Time (s)", "IUT"));
+		for (int i = 0; i < outcomes.size(); i++) {
+			Outcome outcome = outcomes.get(i);
+			String seconds = String.format("%.1f", outcome.elapsedMillis / 1000.0);
+			if (null != outcome.error) {
+				str.append(String.format(format, i + 1, "-", "-", "-", seconds, outcome.iut));
+				str.append("     Error: ").append(outcome.error).append(System.lineSeparator());
+			}
+			else {
+				str.append(String.format(format, i + 1, outcome.passed, outcome.failed, outcome.skipped, seconds,
+						outcome.iut));
+			}
+		}
+		return str.toString();
+	}
+
+	/**
+	 * The outcome of a test run against one IUT.
+	 */
+	public static final class Outcome {
+
+		final String iut;
+
+		final long elapsedMillis;
+
+		int passed;
+
+		int failed;
+
+		int skipped;
+
+		File resultsFile;
+
+		String error;
+
+		Outcome(String iut, long elapsedMillis) {
+			this.iut = iut;
+			this.elapsedMillis = elapsedMillis;
+		}
+
+		/**
+		 * Returns the TestNG results file.
+		 * @return A File, or null if the run failed.
+		 */
+		public File getResultsFile() {
+			return resultsFile;
+		}
+
+		/**
+		 * Returns the reason why the run failed.
+		 * @return An error message, or null if the test run was completed.
+		 */
+		public String getError() {
+			return error;
+		}
+
+		/**
+		 * Indicates whether any test failed or the run could not be completed.
+		 * @return true if there were failures; false otherwise.
+		 */
+		public boolean hasFailures() {
+			return null != error || failed > 0;
+		}
+
+	}
+
+}
@@ -92,6 +92,9 @@ public class CAT3 {
 	/** Constant <code>REC_ID_LIST="recordIds"</code> */
 	public static final String REC_ID_LIST = "recordIds";
 
+	/** Constant <code>SORT_BY="sortBy"</code> */
+	public static final String SORT_BY = "sortBy";
+
 	// response properties
 	/** Constant <code>NUM_REC_RETURNED="numberOfRecordsReturned"</code> */
 	public static final String NUM_REC_RETURNED = "numberOfRecordsReturned";
@@ -2,12 +2,21 @@ package org.opengis.cite.cat30;
 
 import java.net.URI;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 
 import javax.xml.validation.Schema;
+import javax.xml.validation.Validator;
 
 import org.glassfish.jersey.client.ClientRequest;
 import org.opengis.cite.cat30.util.ClientUtils;
+import org.opengis.cite.cat30.util.Deadline;
+import org.opengis.cite.cat30.util.LazySchema;
+import org.opengis.cite.cat30.util.TestSuiteLogger;
+import org.testng.IHookCallBack;
+import org.testng.IHookable;
 import org.testng.ITestContext;
+import org.testng.ITestResult;
 import org.testng.SkipException;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.BeforeMethod;
@@ -19,9 +28,11 @@ import jakarta.ws.rs.core.Response;
 
 /**
  * A supporting base class that sets up a common test fixture. These configuration methods
- * are invoked before those defined in a subclass.
+ * are invoked before those defined in a subclass. Every test method runs under the time
+ * budgets set by the {@link TestRunArg#TEST_TIMEOUT test_timeout} and
+ * {@link TestRunArg#RUN_TIMEOUT run_timeout} arguments (see {@link Deadline}).
  */
-public class CommonFixture {
+public class CommonFixture implements IHookable {
 
 	/**
 	 * Root test suite package (absolute path).
@@ -44,16 +55,26 @@ public class CommonFixture {
 	protected Document cswCapabilities;
 
 	/**
-	 * An immutable Schema object for validating all CSW 3.0 messages (cswAll.xsd).
+	 * An immutable Schema object for validating all CSW 3.0 messages (cswAll.xsd). It is
+	 * compiled when first needed, so it is null until {@link #getCSWSchema()} is called.
+	 * @deprecated Use {@link #getCSWSchema()} or {@link #newCSWValidator()} instead.
 	 */
+	@Deprecated
 	protected Schema cswSchema;
 
 	/**
 	 * An immutable Schema object for validating Atom feeds/entries (RFC 4287, Appendix
-	 * B).
+	 * B). It is compiled when first needed, so it is null until {@link #getAtomSchema()}
+	 * is called.
+	 * @deprecated Use {@link #getAtomSchema()} or {@link #newAtomValidator()} instead.
 	 */
+	@Deprecated
 	protected Schema atomSchema;
 
+	private LazySchema lazyCSWSchema;
+
+	private LazySchema lazyAtomSchema;
+
 	/**
 	 * An HTTP request message.
 	 */
@@ -70,11 +91,11 @@ public class CommonFixture {
 	 * <ul>
 	 * <li>a client component for interacting with HTTP endpoints</li>
 	 * <li>the CSW message schema (obtained from the suite attribute
-	 * {@link org.opengis.cite.cat30.SuiteAttribute#CSW_SCHEMA}, a thread-safe Schema
-	 * object).</li>
+	 * {@link org.opengis.cite.cat30.SuiteAttribute#CSW_SCHEMA}, a thread-safe
+	 * LazySchema or Schema object).</li>
 	 * <li>the Atom schema (obtained from the suite attribute
-	 * {@link org.opengis.cite.cat30.SuiteAttribute#ATOM_SCHEMA}, a thread-safe Schema
-	 * object).</li>
+	 * {@link org.opengis.cite.cat30.SuiteAttribute#ATOM_SCHEMA}, a thread-safe LazySchema
+	 * or Schema object).</li>
 	 * <li>the service capabilities document (obtained from the suite attribute
 	 * {@link org.opengis.cite.cat30.SuiteAttribute#TEST_SUBJECT}, which should evaluate
 	 * to a DOM Document node).</li>
@@ -97,12 +118,71 @@ public class CommonFixture {
 		if (null == obj) {
 			throw new SkipException("CSW schema not found in ITestContext.");
 		}
-		this.cswSchema = Schema.class.cast(obj);
+		this.lazyCSWSchema = toLazySchema("CSW", obj);
+		this.cswSchema = null;
 		obj = testContext.getSuite().getAttribute(SuiteAttribute.ATOM_SCHEMA.getName());
 		if (null == obj) {
 			throw new SkipException("Atom schema not found in ITestContext.");
 		}
-		this.atomSchema = Schema.class.cast(obj);
+		this.lazyAtomSchema = toLazySchema("Atom", obj);
+		this.atomSchema = null;
+	}
+
+	private static LazySchema toLazySchema(String name, Object obj) {
+		if (obj instanceof Schema) {
+			return LazySchema.of(name, (Schema) obj);
+		}
+		return LazySchema.class.cast(obj);
+	}
+
+	/**
+	 * Returns the schema for CSW 3.0 messages, compiling it if necessary.
+	 * @return An immutable Schema object.
+	 * @throws SkipException If the CSW schema cannot be compiled.
+	 */
+	protected Schema getCSWSchema() {
+		if (null == this.cswSchema) {
+			this.cswSchema = resolve(this.lazyCSWSchema);
+		}
+		return this.cswSchema;
+	}
+
+	/**
+	 * Returns the schema for Atom feeds and entries, compiling it if necessary.
+	 * @return An immutable Schema object.
+	 * @throws SkipException If the Atom schema cannot be compiled.
+	 */
+	protected Schema getAtomSchema() {
+		if (null == this.atomSchema) {
+			this.atomSchema = resolve(this.lazyAtomSchema);
+		}
+		return this.atomSchema;
+	}
+
+	private static Schema resolve(LazySchema lazySchema) {
+		Schema schema = lazySchema.get();
+		if (null == schema) {
+			throw new SkipException(lazySchema.getName() + " schema could not be compiled.");
+		}
+		return schema;
+	}
+
+	/**
+	 * Creates a validator for CSW 3.0 messages, compiling the schema if necessary.
+	 * @return A new Validator object.
+	 * @throws SkipException If the CSW schema cannot be compiled.
+	 */
+	protected Validator newCSWValidator() {
+		return getCSWSchema().newValidator();
+	}
+
+	/**
+	 * Creates a validator for Atom feeds and entries, compiling the schema if necessary.
+	 * @return A new Validator object.
+	 * @throws SkipException If the Atom schema cannot be compiled.
+	 */
+	protected Validator newAtomValidator() {
+		return getAtomSchema().newValidator();
 	}
 
 	/**
@@ -116,6 +196,45 @@ public class CommonFixture {
 		this.response = null;
 	}
 
+	/**
+	 * Runs a test method under a deadline. The test is skipped if the run time budget is
+	 * already exhausted. If an HTTP request could not be completed before the deadline,
+	 * the test fails with a message giving the budget and the elapsed time; other tests
+	 * are unaffected.
+	 * @param callBack The callback that invokes the test method.
+	 * @param testResult The result of the test.
+	 */
+	@Override
+	public void run(IHookCallBack callBack, ITestResult testResult) {
+		if (Deadline.isRunExpired()) {
+			throw new SkipException(ErrorMessage.format(ErrorMessageKeys.RUN_BUDGET_EXHAUSTED, Deadline.getRunBudget()));
+		}
+		long start = System.nanoTime();
+		Deadline.startTest();
+		try {
+			callBack.runTestMethod(testResult);
+		}
+		finally {
+			Deadline.endTest();
+		}
+		long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		Throwable cause = testResult.getThrowable();
+		while (null != cause && !(cause instanceof Deadline.ExceededException)) {
+			cause = cause.getCause();
+		}
+		if (null != cause) {
+			long budget = (Deadline.getTestBudget() > 0) ? Deadline.getTestBudget() : Deadline.getRunBudget();
+			// thrown (not set) so that it replaces the original exception in the result
+			throw new AssertionError(
+					ErrorMessage.format(ErrorMessageKeys.DEADLINE_EXCEEDED, budget, elapsedMillis, cause.getMessage()),
+					cause);
+		}
+		else if (Deadline.getTestBudget() > 0 && elapsedMillis > Deadline.getTestBudget()) {
+			TestSuiteLogger.log(Level.WARNING, String.format("%s.%s took %d ms (budget %d ms)",
+					testResult.getTestClass().getName(), testResult.getName(), elapsedMillis, Deadline.getTestBudget()));
+		}
+	}
+
 	/**
 	 * Obtains the (XML) response entity as a DOM Document. This convenience method wraps
 	 * a static method call to facilitate unit testing (Mockito workaround).
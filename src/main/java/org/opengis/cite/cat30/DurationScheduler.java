@@ -0,0 +1,119 @@
+package org.opengis.cite.cat30;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+import org.opengis.cite.cat30.util.DurationHistory;
+import org.opengis.cite.cat30.util.TestSuiteLogger;
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ITestContext;
+import org.testng.ITestNGMethod;
+
+/**
+ * A method interceptor that runs the longest tests first, using the durations recorded
+ * in previous runs against the same IUT (see {@link DurationHistory}). When tests run
+ * in parallel this shortens the overall run time, since no long test is left to start
+ * near the end.
+ *
+ * <p>
+ * The methods of a test class are kept together, so class-level configuration methods
+ * (such as <code>findRequestEndpoints</code> or <code>getDatasetInfo</code>) run once
+ * before all of them. Test classes are ordered by their total expected duration and the
+ * methods within a class by their own; a method with no recorded duration is assumed to
+ * take the mean of the known durations. The original order is kept if there is no
+ * history, or if any method declares a priority or depends on other methods or groups.
+ * </p>
+ *
+ * <p>
+ * The order is only changed if the {@link TestRunArg#SCHEDULE schedule} test run
+ * argument is true, since the tests of a class may rely on running in the declared
+ * order.
+ * </p>
+ */
+public class DurationScheduler implements IMethodInterceptor {
+
+	/** {@inheritDoc} */
+	@Override
+	public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+		if (!Boolean.parseBoolean(context.getSuite().getParameter(TestRunArg.SCHEDULE.toString()))) {
+			return methods;
+		}
+		String iut = context.getSuite().getParameter(TestRunArg.IUT.toString());
+		if (null == iut || iut.isBlank()) {
+			return methods;
+		}
+		DurationHistory history = DurationHistory.forIUT(iut);
+		if (history.isEmpty()) {
+			return methods;
+		}
+		List<IMethodInstance> schedule = schedule(methods, history);
+		TestSuiteLogger.log(Level.CONFIG, String.format("Scheduled %d test methods in %s using durations from %s",
+				schedule.size(), context.getName(), history.getFile()));
+		return schedule;
+	}
+
+	/**
+	 * Orders the given test methods by expected duration.
+	 * @param methods The test methods to run.
+	 * @param history The durations of previous runs.
+	 * @return The methods in the order in which they are to run.
+	 */
+	static List<IMethodInstance> schedule(List<IMethodInstance> methods, DurationHistory history) {
+		long knownMillis = 0;
+		int knownCount = 0;
+		for (IMethodInstance method : methods) {
+			if (hasOrderingConstraint(method.getMethod())) {
+				return methods;
+			}
+			Long millis = history.get(testName(method));
+			if (null != millis) {
+				knownMillis += millis;
+				knownCount++;
+			}
+		}
+		if (knownCount == 0) {
+			return methods;
+		}
+		long defaultMillis = knownMillis / knownCount;
+		Map<IMethodInstance, Long> expected = new LinkedHashMap<>();
+		Map<Class<?>, List<IMethodInstance>> classes = new LinkedHashMap<>();
+		for (IMethodInstance method : methods) {
+			Long millis = history.get(testName(method));
+			expected.put(method, (null != millis) ? millis : defaultMillis);
+			classes.computeIfAbsent(method.getMethod().getRealClass(), c -> new ArrayList<>()).add(method);
+		}
+		Map<Class<?>, Long> classTotals = new LinkedHashMap<>();
+		for (Map.Entry<Class<?>, List<IMethodInstance>> entry : classes.entrySet()) {
+			List<IMethodInstance> classMethods = entry.getValue();
+			classMethods.sort(Comparator.comparingLong((IMethodInstance m) -> expected.get(m)).reversed());
+			classTotals.put(entry.getKey(), classMethods.stream().mapToLong(expected::get).sum());
+		}
+		List<Class<?>> order = new ArrayList<>(classes.keySet());
+		order.sort(Comparator.comparingLong((Class<?> c) -> classTotals.get(c)).reversed());
+		List<IMethodInstance> schedule = new ArrayList<>(methods.size());
+		for (Class<?> testClass : order) {
+			schedule.addAll(classes.get(testClass));
+		}
+		return schedule;
+	}
+
+	/**
+	 * Returns the qualified name of a test method.
+	 * @param method A method instance.
+	 * @return The name of the test class, '.', and the method name.
+	 */
+	static String testName(IMethodInstance method) {
+		return method.getMethod().getRealClass().getName() + "." + method.getMethod().getMethodName();
+	}
+
+	private static boolean hasOrderingConstraint(ITestNGMethod method) {
+		return method.getPriority() != 0 || method.getMethodsDependedUpon().length > 0
+				|| method.getGroupsDependedUpon().length > 0;
+	}
+
+}
@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -13,7 +14,6 @@ import javax.xml.namespace.QName;
 import javax.xml.transform.Source;
 import javax.xml.transform.dom.DOMResult;
 import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Validator;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
@@ -22,8 +22,12 @@ import javax.xml.xpath.XPathFactory;
 
 import org.opengis.cite.cat30.util.NamespaceBindings;
 import org.opengis.cite.cat30.util.Records;
+import org.opengis.cite.cat30.util.ResourceUsage;
 import org.opengis.cite.cat30.util.SpatialUtils;
+import org.opengis.cite.cat30.util.TermMatcher;
+import org.opengis.cite.cat30.util.TestSuiteEvents;
 import org.opengis.cite.cat30.util.URIUtils;
+import org.opengis.cite.cat30.util.ValidationUtils;
 import org.opengis.cite.cat30.util.XMLUtils;
 import org.opengis.cite.geomatics.Extents;
 import org.opengis.cite.geomatics.SpatialAssert;
@@ -39,8 +43,6 @@ import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
 import jakarta.ws.rs.core.Response;
-import net.sf.saxon.s9api.SaxonApiException;
-import net.sf.saxon.s9api.XdmValue;
 
 /**
  * Provides a set of custom assertion methods.
@@ -49,6 +51,12 @@ public class ETSAssert {
 
 	private static final Logger LOGR = Logger.getLogger(ETSAssert.class.getPackage().getName());
 
+	/**
+	 * XPath 2.0 expression equivalent to the test applied by
+	 * {@link #assertAllTermsOccur(NodeList, String...)} (used in assertion messages).
+	 */
+	private static final String TERM_MATCH_EXPR = "child::*[(text() | attribute::*)[contains(lower-case(.), lower-case('%s'))]]";
+
 	private ETSAssert() {
 	}
 
@@ -90,6 +98,8 @@ public class ETSAssert {
 		XPath xpath = XPathFactory.newInstance().newXPath();
 		xpath.setNamespaceContext(bindings);
 		Boolean result;
+		TestSuiteEvents.XPathEval event = new TestSuiteEvents.XPathEval();
+		event.begin();
 		try {
 			result = (Boolean) xpath.evaluate(expr, context, XPathConstants.BOOLEAN);
 		}
@@ -98,6 +108,9 @@ public class ETSAssert {
 			LOGR.log(Level.WARNING, msg, xpe);
 			throw new AssertionError(msg);
 		}
+		finally {
+			XMLUtils.commitXPathEvent(event, expr, "1.0");
+		}
 		Element elemNode;
 		if (Document.class.isInstance(context)) {
 			elemNode = Document.class.cast(context).getDocumentElement();
@@ -116,27 +129,61 @@ public class ETSAssert {
 	public static void assertSchemaValid(Validator validator, Source source) {
 		ValidationErrorHandler errHandler = new ValidationErrorHandler();
 		validator.setErrorHandler(errHandler);
+		TestSuiteEvents.SchemaValidation event = new TestSuiteEvents.SchemaValidation();
+		event.begin();
+		long start = System.nanoTime();
 		try {
 			validator.validate(source);
 		}
 		catch (SAXException | IOException e) {
 			throw new AssertionError(ErrorMessage.format(ErrorMessageKeys.XML_ERROR, e.getMessage()));
 		}
+		finally {
+			ResourceUsage.recordValidation(System.nanoTime() - start);
+			if (event.shouldCommit()) {
+				event.test = TestSuiteEvents.currentTest();
+				event.schema = namespaceOfDocumentElement(source);
+				event.systemId = source.getSystemId();
+				event.errorCount = errHandler.getErrorCount();
+				event.commit();
+			}
+		}
 		Assert.assertFalse(errHandler.errorsDetected(), ErrorMessage.format(ErrorMessageKeys.NOT_SCHEMA_VALID,
 				errHandler.getErrorCount(), errHandler.toString()));
 	}
 
+	/**
+	 * Returns the namespace name of the document element in a DOM source.
+	 * @param source The XML Source.
+	 * @return A namespace name, or null if the source is not a DOMSource or the document
+	 * element has no namespace.
+	 */
+	private static String namespaceOfDocumentElement(Source source) {
+		if (!DOMSource.class.isInstance(source)) {
+			return null;
+		}
+		Node node = DOMSource.class.cast(source).getNode();
+		if (Document.class.isInstance(node)) {
+			node = Document.class.cast(node).getDocumentElement();
+		}
+		return (null != node) ? node.getNamespaceURI() : null;
+	}
+
 	/**
 	 * Asserts that an XML resource satisfies all applicable constraints specified in a
 	 * Schematron (ISO 19757-3) schema. The "xslt2" query language binding is supported.
-	 * All patterns are checked.
+	 * All patterns are checked. The schema is compiled only once (see
+	 * {@link ValidationUtils#getSchematronValidator(URL, String)}).
 	 * @param schemaRef A URL that denotes the location of a Schematron schema.
 	 * @param xmlSource The XML Source to be validated.
 	 */
 	public static void assertSchematronValid(URL schemaRef, Source xmlSource) {
+		TestSuiteEvents.SchematronValidation event = new TestSuiteEvents.SchematronValidation();
+		event.begin();
+		long start = System.nanoTime();
 		SchematronValidator validator;
 		try {
-			validator = new SchematronValidator(new StreamSource(schemaRef.toString()), "#ALL");
+			validator = ValidationUtils.getSchematronValidator(schemaRef, "#ALL");
 		}
 		catch (Exception e) {
 			StringBuilder msg = new StringBuilder("Failed to process Schematron schema at ");
@@ -144,9 +191,24 @@ public class ETSAssert {
 			msg.append(e.getMessage());
 			throw new AssertionError(msg);
 		}
-		DOMResult result = (DOMResult) validator.validate(xmlSource);
-		Assert.assertFalse(validator.ruleViolationsDetected(), ErrorMessage.format(ErrorMessageKeys.NOT_SCHEMA_VALID,
-				validator.getRuleViolationCount(), XMLUtils.writeNodeToString(result.getNode())));
+		DOMResult result;
+		boolean violationsDetected;
+		int violationCount;
+		synchronized (validator) {
+			result = (DOMResult) validator.validate(xmlSource);
+			violationsDetected = validator.ruleViolationsDetected();
+			violationCount = validator.getRuleViolationCount();
+		}
+		ResourceUsage.recordValidation(System.nanoTime() - start);
+		if (event.shouldCommit()) {
+			event.test = TestSuiteEvents.currentTest();
+			event.schema = schemaRef.toString();
+			event.systemId = xmlSource.getSystemId();
+			event.errorCount = violationCount;
+			event.commit();
+		}
+		Assert.assertFalse(violationsDetected, ErrorMessage.format(ErrorMessageKeys.NOT_SCHEMA_VALID, violationCount,
+				XMLUtils.writeNodeToString(result.getNode())));
 	}
 
 	/**
@@ -288,29 +350,29 @@ public class ETSAssert {
 	/**
 	 * Asserts that the given search terms all occur in the content of each record in the
 	 * given collection. The context includes the text content of all child elements and
-	 * their attributes. The comparison is not case-sensitive.
+	 * their attributes. The comparison is not case-sensitive. The terms are compiled into
+	 * a single {@link TermMatcher} so that each record is scanned only once.
 	 * @param recordList A list of nodes representing catalog records (csw:Record or
 	 * atom:entry).
-	 * @param searchTerms A list of search terms.
+	 * @param searchTerms A list of search terms; empty terms are ignored.
 	 */
 	public static void assertAllTermsOccur(NodeList recordList, String... searchTerms) {
-		for (String term : searchTerms) {
-			for (int i = 0; i < recordList.getLength(); i++) {
-				Element record = (Element) recordList.item(i);
-				String expr = String.format("child::*[(text() | attribute::*)[matches(., '%s', 'i')]]", term);
-				try {
-					XdmValue result = XMLUtils.evaluateXPath2(new DOMSource(record), expr, null);
-					Assert.assertTrue(result.size() > 0,
-							ErrorMessage.format(ErrorMessageKeys.XPATH_RESULT, Records.getRecordId(record),
-									// search term may contain non-ASCII char
-									expr.replace(term, URIUtils.getPercentEncodedString(term))));
-					LOGR.log(Level.FINE, "In {0} found {1} matching fields for ''{2}'':\n{3}", new Object[] {
-							Records.getRecordId(record), result.size(), term, XMLUtils.writeXdmValueToString(result) });
-				}
-				catch (SaxonApiException sae) {
-					throw new AssertionError(String.format("Failed to evaluate XPath expression: %s \nReason: %s", expr,
-							sae.getMessage()));
+		TermMatcher matcher = new TermMatcher(searchTerms);
+		for (int i = 0; i < recordList.getLength(); i++) {
+			Element record = (Element) recordList.item(i);
+			List<List<TermMatcher.Hit>> hits = matcher.findAll(record);
+			for (int t = 0; t < matcher.getTermCount(); t++) {
+				String term = matcher.getTerm(t);
+				if (term.isEmpty()) {
+					continue;
 				}
+				List<TermMatcher.Hit> termHits = hits.get(t);
+				// search term may contain non-ASCII char
+				String expr = String.format(TERM_MATCH_EXPR, URIUtils.getPercentEncodedString(term));
+				Assert.assertFalse(termHits.isEmpty(),
+						ErrorMessage.format(ErrorMessageKeys.XPATH_RESULT, Records.getRecordId(record), expr));
+				LOGR.log(Level.FINE, "In {0} found {1} matches for ''{2}'': {3}",
+						new Object[] { Records.getRecordId(record), termHits.size(), term, termHits });
 			}
 		}
 	}
@@ -65,4 +65,34 @@ public class ErrorMessageKeys {
 	/** Constant <code>CONSTRAINT_VIOLATION="ConstraintViolation"</code> */
 	public static final String CONSTRAINT_VIOLATION = "ConstraintViolation";
 
+	/** Constant <code>RECORD_RETRIEVAL="RecordRetrieval"</code> */
+	public static final String RECORD_RETRIEVAL = "RecordRetrieval";
+
+	/** Constant <code>PAGING_INCONSISTENT="PagingInconsistent"</code> */
+	public static final String PAGING_INCONSISTENT = "PagingInconsistent";
+
+	/** Constant <code>CROSS_INTERFACE_DISCREPANCY="CrossInterfaceDiscrepancy"</code> */
+	public static final String CROSS_INTERFACE_DISCREPANCY = "CrossInterfaceDiscrepancy";
+
+	/** Constant <code>SUPER_LINEAR_SCALING="SuperLinearScaling"</code> */
+	public static final String SUPER_LINEAR_SCALING = "SuperLinearScaling";
+
+	/** Constant <code>DEEP_PAGING_DEGRADATION="DeepPagingDegradation"</code> */
+	public static final String DEEP_PAGING_DEGRADATION = "DeepPagingDegradation";
+
+	/** Constant <code>CONCURRENT_DISCREPANCY="ConcurrentDiscrepancy"</code> */
+	public static final String CONCURRENT_DISCREPANCY = "ConcurrentDiscrepancy";
+
+	/** Constant <code>NOT_REVALIDATED="NotRevalidated"</code> */
+	public static final String NOT_REVALIDATED = "NotRevalidated";
+
+	/** Constant <code>UNACCEPTABLE_CODING="UnacceptableCoding"</code> */
+	public static final String UNACCEPTABLE_CODING = "UnacceptableCoding";
+
+	/** Constant <code>DEADLINE_EXCEEDED="DeadlineExceeded"</code> */
+	public static final String DEADLINE_EXCEEDED = "DeadlineExceeded";
+
+	/** Constant <code>RUN_BUDGET_EXHAUSTED="RunBudgetExhausted"</code> */
+	public static final String RUN_BUDGET_EXHAUSTED = "RunBudgetExhausted";
+
 }
@@ -0,0 +1,286 @@
+package org.opengis.cite.cat30;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.opengis.cite.cat30.util.CSWClient;
+import org.opengis.cite.cat30.util.DurationHistory;
+import org.opengis.cite.cat30.util.ResultsMerger;
+import org.opengis.cite.cat30.util.TestSuiteLogger;
+import org.opengis.cite.cat30.util.URIUtils;
+import org.opengis.cite.cat30.util.XMLUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import jakarta.ws.rs.core.MediaType;
+
+/**
+ * Divides a test run among several worker processes on the local host. The sample
+ * records are fetched from the IUT once and shared by all workers (see
+ * {@link TestRunArg#DATASET}); each worker runs one {@link TestRunArg#SHARD shard} of the
+ * suite in its own JVM and writes its results to a subdirectory
+ * (<code>shard-<em>i</em></code>) of the output directory. When all workers have
+ * finished, their TestNG results (and EARL results, if any) are merged into a single
+ * report in the output directory. If a worker fails (exits with a non-zero status or
+ * produces no results) the run fails; the results of the other workers are still merged
+ * so they can be inspected, but the test durations are not recorded.
+ *
+ * <p>
+ * The {@link TestRunArg#LOAD_RATE load_rate} and
+ * {@link TestRunArg#FLIGHT_RECORDING flight_recording} arguments apply to a whole test
+ * run in one process, so they are not supported.
+ * </p>
+ */
+public class ShardCoordinator {
+
+	/** The name of the file containing the shared sample records. */
+	static final String SAMPLE_FILE = "sample-records.xml";
+
+	/** The name of the TestNG results file. */
+	static final String TESTNG_RESULTS = "testng-results.xml";
+
+	/** The name of the EARL results file. */
+	static final String EARL_RESULTS = "earl-results.rdf";
+
+	private final Document testRunProps;
+
+	private final File outputDir;
+
+	private final int workers;
+
+	/**
+	 * Constructs a coordinator.
+	 * @param testRunProps A DOM Document containing the test run arguments.
+	 * @param outputDir The directory in which results are written.
+	 * @param workers The number of worker processes (at least 2).
+	 */
+	public ShardCoordinator(Document testRunProps, File outputDir, int workers) {
+		if (workers < 2) {
+			throw new IllegalArgumentException("At least two workers are required: " + workers);
+		}
+		Map<String, String> args = TestNGController.readTestRunArgs(testRunProps);
+		for (TestRunArg arg : new TestRunArg[] { TestRunArg.LOAD_RATE, TestRunArg.FLIGHT_RECORDING }) {
+			if (args.containsKey(arg.toString())) {
+				throw new IllegalArgumentException(
+						String.format("Invalid argument: '%s' is not supported with multiple workers.", arg));
+			}
+		}
+		this.testRunProps = testRunProps;
+		this.outputDir = outputDir;
+		this.workers = workers;
+	}
+
+	/**
+	 * Runs the workers and merges their results.
+	 * @return The merged TestNG results file.
+	 * @throws Exception If the workers cannot be started or any of them failed.
+	 */
+	public File run() throws Exception {
+		Files.createDirectories(outputDir.toPath());
+		Map<String, String> args = TestNGController.readTestRunArgs(testRunProps);
+		String iut = args.get(TestRunArg.IUT.toString());
+		if (null == iut) {
+			throw new IllegalArgumentException(
+					String.format("Missing argument: '%s' must be present.", TestRunArg.IUT));
+		}
+		if (!args.containsKey(TestRunArg.DATASET.toString())) {
+			File sample = fetchSampleData(iut);
+			if (null != sample) {
+				setEntry(testRunProps, TestRunArg.DATASET.toString(), sample.getAbsolutePath());
+			}
+		}
+		List<Process> processes = new ArrayList<>();
+		List<File> shardDirs = new ArrayList<>();
+		for (int i = 0; i < workers; i++) {
+			File shardDir = new File(outputDir, "shard-" + i);
+			Files.createDirectories(shardDir.toPath());
+			Document workerProps = (Document) testRunProps.cloneNode(true);
+			setEntry(workerProps, TestRunArg.SHARD.toString(), i + "/" + workers);
+			File propsFile = new File(shardDir, "test-run-props.xml");
+			try (OutputStream out = new FileOutputStream(propsFile)) {
+				XMLUtils.writeNode(workerProps, out);
+			}
+			ProcessBuilder builder = new ProcessBuilder(workerCommand(shardDir, propsFile));
+			builder.redirectErrorStream(true);
+			builder.redirectOutput(new File(shardDir, "worker.log"));
+			processes.add(builder.start());
+			shardDirs.add(shardDir);
+		}
+		TestSuiteLogger.log(Level.INFO, String.format("Started %d workers; output in %s", workers, outputDir));
+		List<Integer> failedShards = new ArrayList<>();
+		for (int i = 0; i < workers; i++) {
+			int status = processes.get(i).waitFor();
+			if (status != 0) {
+				TestSuiteLogger.log(Level.WARNING, String.format("Worker %d exited with status %d (see %s)", i,
+						status, new File(shardDirs.get(i), "worker.log")));
+				failedShards.add(i);
+			}
+		}
+		return mergeResults(iut, shardDirs, failedShards);
+	}
+
+	/**
+	 * Fetches sample records from the IUT for use by all workers. If this fails, each
+	 * worker fetches its own sample.
+	 * @param iut The value of the iut test run argument.
+	 * @return A file containing a GetRecords response, or null if the records could not
+	 * be fetched.
+	 */
+	File fetchSampleData(String iut) {
+		try {
+			Document capabilities = URIUtils.parseURI(URI.create(iut.trim()));
+			CSWClient cswClient = new CSWClient();
+			cswClient.setServiceDescription(capabilities);
+			File dataFile = cswClient.saveFullRecords(20, MediaType.APPLICATION_XML_TYPE);
+			if (null == dataFile || !dataFile.isFile()) {
+				throw new IOException("No GetRecords response");
+			}
+			File sample = new File(outputDir, SAMPLE_FILE);
+			Files.move(dataFile.toPath(), sample.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			return sample;
+		}
+		catch (Exception e) {
+			TestSuiteLogger.log(Level.WARNING, "Failed to fetch sample records; each worker will fetch its own", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Merges the results of the workers into the output directory and, if all workers
+	 * succeeded, adds the test durations to the history of the IUT.
+	 * @param iut The value of the iut test run argument.
+	 * @param shardDirs The output directories of the workers.
+	 * @param failedShards The indexes of the workers that exited with a non-zero status
+	 * (a worker that produced no results is added to this list).
+	 * @return The merged TestNG results file.
+	 * @throws Exception If a worker failed or the merged results cannot be written.
+	 */
+	File mergeResults(String iut, List<File> shardDirs, List<Integer> failedShards) throws Exception {
+		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+		factory.setNamespaceAware(true);
+		DocumentBuilder builder = factory.newDocumentBuilder();
+		List<Document> testngResults = new ArrayList<>();
+		List<Document> earlResults = new ArrayList<>();
+		for (int i = 0; i < shardDirs.size(); i++) {
+			File shardDir = shardDirs.get(i);
+			File results = findFile(shardDir, TESTNG_RESULTS);
+			if (null == results) {
+				TestSuiteLogger.log(Level.WARNING, "No test results found in " + shardDir);
+				if (!failedShards.contains(i)) {
+					failedShards.add(i);
+				}
+				continue;
+			}
+			testngResults.add(builder.parse(results));
+			File earl = findFile(shardDir, EARL_RESULTS);
+			if (null != earl) {
+				earlResults.add(builder.parse(earl));
+			}
+		}
+		if (testngResults.isEmpty()) {
+			throw new IOException("None of the workers produced test results; see worker logs in " + outputDir);
+		}
+		Document merged = ResultsMerger.mergeTestNGResults(testngResults);
+		File mergedFile = new File(outputDir, TESTNG_RESULTS);
+		try (OutputStream out = new FileOutputStream(mergedFile)) {
+			XMLUtils.writeNode(merged, out);
+		}
+		if (earlResults.size() == testngResults.size()) {
+			try (OutputStream out = new FileOutputStream(new File(outputDir, EARL_RESULTS))) {
+				XMLUtils.writeNode(ResultsMerger.mergeEarlResults(earlResults), out);
+			}
+		}
+		Element root = merged.getDocumentElement();
+		TestSuiteLogger.log(Level.INFO,
+				String.format("Merged results of %d workers: total=%s, passed=%s, failed=%s, skipped=%s",
+						testngResults.size(), root.getAttribute("total"), root.getAttribute("passed"),
+						root.getAttribute("failed"), root.getAttribute("skipped")));
+		if (!failedShards.isEmpty()) {
+			throw new IOException(String.format("Workers %s failed; see worker logs in %s (partial results in %s)",
+					failedShards, outputDir, mergedFile));
+		}
+		DurationHistory history = DurationHistory.forIUT(iut);
+		history.recordResults(merged);
+		try {
+			history.save();
+		}
+		catch (IOException iox) {
+			TestSuiteLogger.log(Level.WARNING, "Failed to record test durations in " + history.getFile(), iox);
+		}
+		return mergedFile;
+	}
+
+	/**
+	 * Builds the command that runs a worker: the {@link TestNGController} in a new JVM
+	 * with the class path of this one.
+	 * @param shardDir The output directory of the worker.
+	 * @param propsFile The test run properties of the worker.
+	 * @return A list of command arguments.
+	 */
+	static List<String> workerCommand(File shardDir, File propsFile) {
+		List<String> command = new ArrayList<>();
+		command.add(new File(System.getProperty("java.home"), "bin" + File.separator + "java").getPath());
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(TestNGController.class.getName());
+		command.add("-o");
+		command.add(shardDir.getAbsolutePath());
+		command.add(propsFile.getAbsolutePath());
+		return command;
+	}
+
+	/**
+	 * Sets the value of a test run argument, replacing any existing value.
+	 * @param testRunProps A DOM Document containing the test run arguments.
+	 * @param key The name of the argument.
+	 * @param value The new value.
+	 */
+	static void setEntry(Document testRunProps, String key, String value) {
+		NodeList entries = testRunProps.getDocumentElement().getElementsByTagName("entry");
+		for (int i = 0; i < entries.getLength(); i++) {
+			Element entry = (Element) entries.item(i);
+			if (entry.getAttribute("key").equals(key)) {
+				entry.setTextContent(value);
+				return;
+			}
+		}
+		Element entry = testRunProps.createElement("entry");
+		entry.setAttribute("key", key);
+		entry.setTextContent(value);
+		testRunProps.getDocumentElement().appendChild(entry);
+	}
+
+	/**
+	 * Finds the most recently modified file with the given name in a directory tree.
+	 * @param dir The root directory.
+	 * @param name The file name.
+	 * @return The file, or null if there is none.
+	 * @throws IOException If the directory cannot be read.
+	 */
+	static File findFile(File dir, String name) throws IOException {
+		try (Stream<Path> paths = Files.walk(dir.toPath())) {
+			List<File> files = paths.filter(p -> p.getFileName().toString().equals(name))
+				.map(Path::toFile)
+				.sorted((a, b) -> Long.compare(b.lastModified(), a.lastModified()))
+				.collect(Collectors.toList());
+			return files.isEmpty() ? null : files.get(0);
+		}
+	}
+
+}
@@ -0,0 +1,66 @@
+package org.opengis.cite.cat30;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+
+import org.opengis.cite.cat30.util.DurationHistory;
+import org.opengis.cite.cat30.util.Shard;
+import org.opengis.cite.cat30.util.TestSuiteLogger;
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ITestContext;
+
+/**
+ * A method interceptor that runs only the test classes belonging to the shard given by
+ * the {@link TestRunArg#SHARD shard} test run argument. Whole classes are selected, so
+ * class-level configuration methods run in the same worker as the tests that rely on
+ * them. The classes are balanced across shards using the durations recorded in previous
+ * runs against the IUT (see {@link Shard#select(java.util.Collection, java.util.Map)}).
+ * All methods run if the argument is absent.
+ */
+public class ShardSelector implements IMethodInterceptor {
+
+	/** {@inheritDoc} */
+	@Override
+	public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+		String spec = context.getSuite().getParameter(TestRunArg.SHARD.toString());
+		if (null == spec || spec.isBlank()) {
+			return methods;
+		}
+		Shard shard = Shard.parse(spec);
+		String iut = context.getSuite().getParameter(TestRunArg.IUT.toString());
+		DurationHistory history = (null != iut && !iut.isBlank()) ? DurationHistory.forIUT(iut) : null;
+		List<IMethodInstance> selected = select(methods, shard, history);
+		TestSuiteLogger.log(Level.INFO, String.format("Shard %s of %s: running %d of %d test methods", shard,
+				context.getName(), selected.size(), methods.size()));
+		return selected;
+	}
+
+	/**
+	 * Selects the methods of the test classes assigned to the given shard.
+	 * @param methods The test methods to run.
+	 * @param shard The shard to run.
+	 * @param history The durations of previous runs (may be null).
+	 * @return The methods to run in this shard, in their original order.
+	 */
+	static List<IMethodInstance> select(List<IMethodInstance> methods, Shard shard, DurationHistory history) {
+		Set<String> classNames = new LinkedHashSet<>();
+		for (IMethodInstance method : methods) {
+			classNames.add(method.getMethod().getRealClass().getName());
+		}
+		Set<String> shardClasses = shard.select(classNames,
+				(null != history) ? history.getClassDurations() : Collections.emptyMap());
+		List<IMethodInstance> selected = new ArrayList<>();
+		for (IMethodInstance method : methods) {
+			if (shardClasses.contains(method.getMethod().getRealClass().getName())) {
+				selected.add(method);
+			}
+		}
+		return selected;
+	}
+
+}
@@ -2,9 +2,8 @@ package org.opengis.cite.cat30;
 
 import java.io.File;
 
-import javax.xml.validation.Schema;
-
 import org.opengis.cite.cat30.util.DatasetInfo;
+import org.opengis.cite.cat30.util.LazySchema;
 import org.w3c.dom.Document;
 
 import jakarta.ws.rs.client.Client;
@@ -21,13 +20,13 @@ public enum SuiteAttribute {
 	 */
 	CLIENT("httpClient", Client.class),
 	/**
-	 * An immutable Schema object representing the complete CSW 3.0 schema.
+	 * The complete CSW 3.0 schema (compiled when first needed).
 	 */
-	CSW_SCHEMA("cswSchema", Schema.class),
+	CSW_SCHEMA("cswSchema", LazySchema.class),
 	/**
-	 * An immutable Schema object for Atom (RFC 4287).
+	 * The schema for Atom (RFC 4287), compiled when first needed.
 	 */
-	ATOM_SCHEMA("atomSchema", Schema.class),
+	ATOM_SCHEMA("atomSchema", LazySchema.class),
 	/**
 	 * Sample data obtained from the IUT.
 	 */
@@ -43,7 +42,15 @@ public enum SuiteAttribute {
 	/**
 	 * A DOM Document representing an OpenSearch 1.1 description.
 	 */
-	OPENSEARCH_DESCR("openSearchDescr", Document.class);
+	OPENSEARCH_DESCR("openSearchDescr", Document.class),
+	/**
+	 * A Boolean value indicating whether exhaustive checks are enabled.
+	 */
+	EXHAUSTIVE("exhaustive", Boolean.class),
+	/**
+	 * A Boolean value indicating whether the performance tests are enabled.
+	 */
+	PERFORMANCE("performance", Boolean.class);
 
 	private final Class attrType;
 
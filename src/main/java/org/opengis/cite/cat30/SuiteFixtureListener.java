@@ -4,12 +4,19 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
-import javax.xml.validation.Schema;
-
+import org.opengis.cite.cat30.util.CircuitBreaker;
+import org.opengis.cite.cat30.util.ClientSettings;
 import org.opengis.cite.cat30.util.ClientUtils;
+import org.opengis.cite.cat30.util.ConcurrencyLimiter;
 import org.opengis.cite.cat30.util.DatasetInfo;
+import org.opengis.cite.cat30.util.Deadline;
+import org.opengis.cite.cat30.util.LazySchema;
+import org.opengis.cite.cat30.util.RequestWatchdog;
+import org.opengis.cite.cat30.util.ResponseCache;
+import org.opengis.cite.cat30.util.RetryPolicy;
 import org.opengis.cite.cat30.util.TestSuiteLogger;
 import org.opengis.cite.cat30.util.URIUtils;
 import org.opengis.cite.cat30.util.ValidationUtils;
@@ -36,12 +43,32 @@ import jakarta.ws.rs.client.Client;
  */
 public class SuiteFixtureListener implements ISuiteListener {
 
+	/** The default time budget for a single test in seconds. */
+	static final long DEFAULT_TEST_TIMEOUT = 300;
+
+	/** The default stall threshold for an in-flight request in seconds. */
+	static final long DEFAULT_STALL_TIMEOUT = 60;
+
+	/** The name of the file (in the suite output directory) listing stalled requests. */
+	static final String STALL_REPORT_FILE = "stalled-requests.txt";
+
+	private RequestWatchdog watchdog;
+
+	private ClientSettings clientSettings;
+
 	/** {@inheritDoc} */
 	@Override
 	public void onStart(ISuite suite) {
-		processSuiteParameters(suite);
-		registerSchemas(suite);
-		registerClientComponent(suite);
+		try {
+			processSuiteParameters(suite);
+			startWatchdog(suite);
+			registerSchemas(suite);
+			registerClientComponent(suite);
+		}
+		catch (RuntimeException | Error e) {
+			releaseClientSettings();
+			throw e;
+		}
 	}
 
 	/**
@@ -49,18 +76,54 @@ public class SuiteFixtureListener implements ISuiteListener {
 	 *
 	 * Performs various cleanup tasks when the test run is completed. Any temporary files
 	 * created during the test run are deleted if TestSuiteLogger is enabled at the INFO
-	 * level or higher.
+	 * level or higher. The request watchdog is stopped, the run time budget and response
+	 * cache are released, the final state of the concurrency limiter is logged, and the
+	 * client settings are released.
 	 */
 	@Override
 	public void onFinish(ISuite suite) {
+		Deadline.endRun();
+		ResponseCache.endRun();
+		RequestWatchdog.endRun();
+		if (null != watchdog) {
+			watchdog.stop();
+			watchdog = null;
+		}
+		TestSuiteLogger.log(Level.INFO, "Concurrency limits\n" + ClientUtils.getConcurrencyLimiter());
+		releaseClientSettings();
 		deleteTempFiles(suite);
 	}
 
+	/**
+	 * Releases the client settings held by the test run, if any.
+	 */
+	void releaseClientSettings() {
+		if (null != clientSettings) {
+			clientSettings.release();
+			clientSettings = null;
+		}
+	}
+
 	/**
 	 * Processes test suite arguments and sets suite attributes accordingly. The entity
 	 * referenced by the {@link TestRunArg#IUT iut} argument--expected to be an OGC
 	 * service capabilities document--is parsed and the resulting Document is set as the
-	 * value of the {@link SuiteAttribute#TEST_SUBJECT testSubject} attribute.
+	 * value of the {@link SuiteAttribute#TEST_SUBJECT testSubject} attribute. The value
+	 * of the optional {@link TestRunArg#EXHAUSTIVE exhaustive} argument is set as the
+	 * value of the {@link SuiteAttribute#EXHAUSTIVE exhaustive} attribute, and likewise
+	 * for the optional {@link TestRunArg#PERFORMANCE performance} argument. If the
+	 * optional {@link TestRunArg#COMPRESSION compression} argument is true, HTTP clients
+	 * request compressed response entities. The optional {@link TestRunArg#TRANSPORT
+	 * transport} argument selects the HTTP transport, the optional
+	 * {@link TestRunArg#MAX_CONCURRENCY max_concurrency} argument bounds the concurrency
+	 * limit, and the optional {@link TestRunArg#MAX_RETRIES max_retries} and
+	 * {@link TestRunArg#CIRCUIT_THRESHOLD circuit_threshold} arguments configure the
+	 * handling of transient IUT errors. These client settings are shared by all test
+	 * runs in the JVM; they are held for the duration of the run (see
+	 * {@link ClientSettings#acquire()}) and take effect before the IUT is dereferenced.
+	 * The time budgets given by the optional {@link TestRunArg#TEST_TIMEOUT
+	 * test_timeout} and {@link TestRunArg#RUN_TIMEOUT run_timeout} arguments are set
+	 * (for this run only), and the run budget starts.
 	 * @param suite An ISuite object representing a TestNG test suite.
 	 */
 	void processSuiteParameters(ISuite suite) {
@@ -70,6 +133,18 @@ public class SuiteFixtureListener implements ISuiteListener {
 		if ((null == iutParam) || iutParam.isEmpty()) {
 			throw new IllegalArgumentException("Required test run parameter not found: " + TestRunArg.IUT.toString());
 		}
+		ClientSettings settings = readClientSettings(params);
+		try {
+			settings.acquire();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for client settings.", e);
+		}
+		this.clientSettings = settings;
+		Deadline.setTestBudget(TimeUnit.SECONDS.toMillis(parseNonNegative(params, TestRunArg.TEST_TIMEOUT,
+				DEFAULT_TEST_TIMEOUT)));
+		Deadline.startRun(TimeUnit.SECONDS.toMillis(parseNonNegative(params, TestRunArg.RUN_TIMEOUT, 0)));
 		URI iutRef = URI.create(iutParam.trim());
 		File entityFile = null;
 		try {
@@ -87,6 +162,10 @@ public class SuiteFixtureListener implements ISuiteListener {
 			throw new RuntimeException("Failed to parse resource retrieved from " + iutRef, x);
 		}
 		suite.setAttribute(SuiteAttribute.TEST_SUBJECT.getName(), iutDoc);
+		String exhaustiveParam = params.get(TestRunArg.EXHAUSTIVE.toString());
+		suite.setAttribute(SuiteAttribute.EXHAUSTIVE.getName(), Boolean.parseBoolean(exhaustiveParam));
+		String performanceParam = params.get(TestRunArg.PERFORMANCE.toString());
+		suite.setAttribute(SuiteAttribute.PERFORMANCE.getName(), Boolean.parseBoolean(performanceParam));
 		if (TestSuiteLogger.isLoggable(Level.FINE)) {
 			StringBuilder logMsg = new StringBuilder("Parsed resource retrieved from ");
 			logMsg.append(iutRef).append("\n");
@@ -95,23 +174,108 @@ public class SuiteFixtureListener implements ISuiteListener {
 		}
 	}
 
+	/**
+	 * Starts a watchdog that reports HTTP requests stalled for longer than the time
+	 * given by the optional {@link TestRunArg#STALL_TIMEOUT stall_timeout} argument. The
+	 * reports are appended to the file {@value #STALL_REPORT_FILE} in the suite output
+	 * directory. If the optional {@link TestRunArg#ABORT_STALLED abort_stalled} argument
+	 * is true, the connection of a stalled request is closed. The watchdog tracks the
+	 * requests submitted during this test run only.
+	 * @param suite An ISuite object representing a TestNG test suite.
+	 */
+	void startWatchdog(ISuite suite) {
+		Map<String, String> params = suite.getXmlSuite().getParameters();
+		long stallSeconds = parseNonNegative(params, TestRunArg.STALL_TIMEOUT, DEFAULT_STALL_TIMEOUT);
+		if (stallSeconds == 0) {
+			return;
+		}
+		boolean aborting = Boolean.parseBoolean(params.get(TestRunArg.ABORT_STALLED.toString()));
+		File reportFile = (null != suite.getOutputDirectory())
+				? new File(suite.getOutputDirectory(), STALL_REPORT_FILE) : null;
+		if (null != reportFile) {
+			reportFile.getParentFile().mkdirs();
+		}
+		this.watchdog = new RequestWatchdog(TimeUnit.SECONDS.toMillis(stallSeconds), aborting, reportFile);
+		this.watchdog.start();
+		RequestWatchdog.startRun(this.watchdog);
+	}
+
+	/**
+	 * Reads the settings of the HTTP clients from the test run arguments.
+	 * @param params The test run arguments.
+	 * @return The client settings of the test run.
+	 */
+	static ClientSettings readClientSettings(Map<String, String> params) {
+		int maxConcurrency = ConcurrencyLimiter.DEFAULT_MAX_LIMIT;
+		String maxConcurrencyParam = params.get(TestRunArg.MAX_CONCURRENCY.toString());
+		if (null != maxConcurrencyParam && !maxConcurrencyParam.isBlank()) {
+			try {
+				maxConcurrency = Integer.parseInt(maxConcurrencyParam.trim());
+			}
+			catch (NumberFormatException e) {
+				maxConcurrency = 0;
+			}
+			if (maxConcurrency < 1) {
+				throw new IllegalArgumentException(String.format("Invalid argument: '%s' must be a positive integer.",
+						TestRunArg.MAX_CONCURRENCY));
+			}
+		}
+		return new ClientSettings(params.get(TestRunArg.TRANSPORT.toString()),
+				Boolean.parseBoolean(params.get(TestRunArg.COMPRESSION.toString())),
+				(int) parseNonNegative(params, TestRunArg.MAX_RETRIES, RetryPolicy.DEFAULT_MAX_RETRIES),
+				(int) parseNonNegative(params, TestRunArg.CIRCUIT_THRESHOLD, CircuitBreaker.DEFAULT_FAILURE_THRESHOLD),
+				maxConcurrency);
+	}
+
+	/**
+	 * Parses a test run argument that specifies a non-negative integer (such as a
+	 * duration in seconds).
+	 * @param params The test run arguments.
+	 * @param arg The argument to parse.
+	 * @param defaultValue The value to use if the argument is absent.
+	 * @return A non-negative integer.
+	 */
+	static long parseNonNegative(Map<String, String> params, TestRunArg arg, long defaultValue) {
+		String value = params.get(arg.toString());
+		if (null == value || value.isBlank()) {
+			return defaultValue;
+		}
+		try {
+			long seconds = Long.parseLong(value.trim());
+			if (seconds >= 0) {
+				return seconds;
+			}
+		}
+		catch (NumberFormatException e) {
+			// reported below
+		}
+		throw new IllegalArgumentException(
+				String.format("Invalid argument: '%s' must be a non-negative integer.", arg));
+	}
+
 	/**
 	 * A client component is added to the suite fixture as the value of the
 	 * {@link SuiteAttribute#CLIENT} attribute; it may be subsequently accessed via the
-	 * {@link org.testng.ITestContext#getSuite()} method.
+	 * {@link org.testng.ITestContext#getSuite()} method. The
+	 * {@link ClientUtils#getSharedClient() shared client} is used, so suites run in the
+	 * same JVM share its connection pool. Service descriptions retrieved during the run
+	 * are cached using this client (see {@link ResponseCache#startRun(ResponseCache)}).
 	 * @param suite The test suite instance.
 	 */
 	void registerClientComponent(ISuite suite) {
-		Client client = ClientUtils.buildClient();
+		Client client = ClientUtils.getSharedClient();
 		if (null != client) {
 			suite.setAttribute(SuiteAttribute.CLIENT.getName(), client);
+			ResponseCache.startRun(new ResponseCache(client));
 		}
 	}
 
 	/**
-	 * Builds immutable {@link Schema Schema} objects suitable for validating the content
-	 * of CSW 3.0 response entities. The schemas are added to the suite fixture as the
-	 * value of the attributes identified in the following table.
+	 * Registers the schemas used to validate the content of CSW 3.0 response entities.
+	 * The schemas are added to the suite fixture as {@link LazySchema} objects, which are
+	 * the values of the attributes identified in the following table. A schema is
+	 * compiled when it is first needed, so a test run that does not use it does not pay
+	 * for compiling it.
 	 *
 	 * <table border="1" style="border-collapse: collapse;">
 	 * <caption>Application schemas</caption> <thead>
@@ -130,17 +294,19 @@ public class SuiteFixtureListener implements ISuiteListener {
 	 * </tr>
 	 * </tbody>
 	 * </table>
+	 * <p>
+	 * The CSW schema is needed by the first tests (the capabilities document is validated
+	 * against it), so it is compiled in the background while the suite preconditions are
+	 * checked. The schemas are compiled only once per JVM and shared by all suites.
+	 * </p>
 	 * @param suite The test suite to be run.
 	 */
 	void registerSchemas(ISuite suite) {
-		Schema csw3Schema = ValidationUtils.createCSWSchema();
-		if (null != csw3Schema) {
-			suite.setAttribute(SuiteAttribute.CSW_SCHEMA.getName(), csw3Schema);
-		}
-		Schema atomSchema = ValidationUtils.createAtomSchema();
-		if (null != atomSchema) {
-			suite.setAttribute(SuiteAttribute.ATOM_SCHEMA.getName(), atomSchema);
-		}
+		LazySchema cswSchema = new LazySchema("CSW", ValidationUtils::getCSWSchema);
+		cswSchema.prefetch();
+		suite.setAttribute(SuiteAttribute.CSW_SCHEMA.getName(), cswSchema);
+		LazySchema atomSchema = new LazySchema("Atom", ValidationUtils::getAtomSchema);
+		suite.setAttribute(SuiteAttribute.ATOM_SCHEMA.getName(), atomSchema);
 	}
 
 	/**
@@ -0,0 +1,225 @@
+package org.opengis.cite.cat30;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import org.opengis.cite.cat30.util.ResourceUsage;
+import org.opengis.cite.cat30.util.TestSuiteLogger;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestResult;
+
+/**
+ * A listener that records the cost of every test method: the elapsed (wall) time, the
+ * number of HTTP requests submitted and response entity bytes received, the time spent
+ * parsing and validating XML entities, and the number of bytes allocated by the thread
+ * running the test. The values are set as attributes of the test result, so they appear
+ * in the XML report. When the suite finishes, a summary listing the test methods in
+ * order of decreasing elapsed time is logged and written to the file
+ * {@value #REPORT_FILE} in the suite output directory.
+ *
+ * <p>
+ * Requests and XML processing are charged to a test method if they occur in the thread
+ * running it or in a thread that it creates (see {@link ResourceUsage}). Allocations are
+ * only counted in the thread running the test method, and only if the JVM supports
+ * per-thread allocation accounting.
+ * </p>
+ */
+public class TestCostListener implements IInvokedMethodListener, ISuiteListener {
+
+	/** The name of the file to which the summary is written. */
+	public static final String REPORT_FILE = "test-costs.txt";
+
+	/** Test result attribute: elapsed time (ms). */
+	public static final String ELAPSED_MILLIS = "elapsedMillis";
+
+	/** Test result attribute: number of HTTP requests. */
+	public static final String HTTP_REQUESTS = "httpRequests";
+
+	/** Test result attribute: number of response entity bytes received. */
+	public static final String HTTP_BYTES = "httpBytes";
+
+	/** Test result attribute: time spent parsing XML entities (ms). */
+	public static final String PARSE_MILLIS = "parseMillis";
+
+	/** Test result attribute: time spent validating XML entities (ms). */
+	public static final String VALIDATION_MILLIS = "validationMillis";
+
+	/** Test result attribute: bytes allocated by the test thread. */
+	public static final String ALLOCATED_BYTES = "allocatedBytes";
+
+	private static final ThreadLocal<long[]> START = new ThreadLocal<>();
+
+	private final List<TestCost> costs = new ArrayList<>();
+
+	/** {@inheritDoc} */
+	@Override
+	public void beforeInvocation(IInvokedMethod method, ITestResult testResult) {
+		if (!method.isTestMethod()) {
+			return;
+		}
+		START.set(new long[] { System.nanoTime(), allocatedBytes() });
+		ResourceUsage.start();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * Sets the cost attributes of the test result.
+	 */
+	@Override
+	public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+		if (!method.isTestMethod()) {
+			return;
+		}
+		ResourceUsage usage = ResourceUsage.stop();
+		long[] start = START.get();
+		START.remove();
+		if (null == start || null == usage) {
+			return;
+		}
+		long allocated = allocatedBytes();
+		TestCost cost = new TestCost(
+				testResult.getTestClass().getName() + "." + testResult.getMethod().getMethodName(),
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start[0]), usage,
+				(allocated >= 0 && start[1] >= 0) ? allocated - start[1] : -1);
+		testResult.setAttribute(ELAPSED_MILLIS, cost.elapsedMillis);
+		testResult.setAttribute(HTTP_REQUESTS, cost.requests);
+		testResult.setAttribute(HTTP_BYTES, cost.bytes);
+		testResult.setAttribute(PARSE_MILLIS, cost.parseMillis);
+		testResult.setAttribute(VALIDATION_MILLIS, cost.validationMillis);
+		if (cost.allocatedBytes >= 0) {
+			testResult.setAttribute(ALLOCATED_BYTES, cost.allocatedBytes);
+		}
+		synchronized (costs) {
+			costs.add(cost);
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void onStart(ISuite suite) {
+		synchronized (costs) {
+			costs.clear();
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void onFinish(ISuite suite) {
+		List<TestCost> snapshot;
+		synchronized (costs) {
+			snapshot = new ArrayList<>(costs);
+		}
+		if (snapshot.isEmpty()) {
+			return;
+		}
+		String report = formatReport(snapshot);
+		TestSuiteLogger.log(Level.INFO, "Test costs\n" + report);
+		if (null == suite.getOutputDirectory()) {
+			return;
+		}
+		File reportFile = new File(suite.getOutputDirectory(), REPORT_FILE);
+		try {
+			Files.writeString(reportFile.toPath(), report, StandardCharsets.UTF_8);
+		}
+		catch (IOException iox) {
+			TestSuiteLogger.log(Level.WARNING, "Failed to write test costs to " + reportFile, iox);
+		}
+	}
+
+	/**
+	 * Returns the number of bytes allocated so far by the current thread.
+	 * @return The allocated bytes, or -1 if allocation accounting is not available.
+	 */
+	static long allocatedBytes() {
+		ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		if (threadBean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threadBean;
+			if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+				return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Formats a summary of the given test costs, in order of decreasing elapsed time.
+	 * @param costs A list of test costs.
+	 * @return A table with one row per test method followed by the totals.
+	 */
+	static String formatReport(List<TestCost> costs) {
+		List<TestCost> sorted = new ArrayList<>(costs);
+		sorted.sort(Comparator.comparingLong((TestCost cost) -> cost.elapsedMillis).reversed());
+		long totalMillis = 0;
+		long totalRequests = 0;
+		long totalBytes = 0;
+		long totalParse = 0;
+		long totalValidation = 0;
+		long totalAllocated = 0;
+		for (TestCost cost : sorted) {
+			totalMillis += cost.elapsedMillis;
+			totalRequests += cost.requests;
+			totalBytes += cost.bytes;
+			totalParse += cost.parseMillis;
+			totalValidation += cost.validationMillis;
+			totalAllocated += Math.max(0, cost.allocatedBytes);
+		}
+		String format = "%10s %6s %8s %10s %9s %9s %10s  %s%n";
+		StringBuilder str = new StringBuilder();
+		str.append(String.format(format, "Time (ms)", "Share", "Requests", "KiB", "Parse ms", "Valid ms", "Alloc MiB",
+				"Test"));
+		for (TestCost cost : sorted) {
+			double share = (totalMillis > 0) ? 100.0 * cost.elapsedMillis / totalMillis : 0;
+			str.append(String.format(format, cost.elapsedMillis, String.format("%.1f%%", share), cost.requests,
+					cost.bytes / 1024, cost.parseMillis, cost.validationMillis,
+					(cost.allocatedBytes >= 0) ? String.valueOf(cost.allocatedBytes >> 20) : "-", cost.testName));
+		}
+		str.append(String.format(format, totalMillis, "100%", totalRequests, totalBytes / 1024, totalParse,
+				totalValidation, totalAllocated >> 20, "(total)"));
+		return str.toString();
+	}
+
+	/**
+	 * The cost of a test method.
+	 */
+	static final class TestCost {
+
+		final String testName;
+
+		final long elapsedMillis;
+
+		final long requests;
+
+		final long bytes;
+
+		final long parseMillis;
+
+		final long validationMillis;
+
+		final long allocatedBytes;
+
+		TestCost(String testName, long elapsedMillis, ResourceUsage usage, long allocatedBytes) {
+			this.testName = testName;
+			this.elapsedMillis = elapsedMillis;
+			this.requests = usage.getRequestCount();
+			this.bytes = usage.getByteCount();
+			this.parseMillis = usage.getParseMillis();
+			this.validationMillis = usage.getValidationMillis();
+			this.allocatedBytes = allocatedBytes;
+		}
+
+	}
+
+}
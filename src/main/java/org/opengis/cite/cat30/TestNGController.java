@@ -5,9 +5,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 import javax.xml.parsers.DocumentBuilder;
@@ -15,6 +19,12 @@ import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.transform.Source;
 
 import org.apache.commons.io.FilenameUtils;
+import org.opengis.cite.cat30.util.ClientUtils;
+import org.opengis.cite.cat30.util.DurationHistory;
+import org.opengis.cite.cat30.util.LoadGenerator;
+import org.opengis.cite.cat30.util.RequestCatalog;
+import org.opengis.cite.cat30.util.RequestCatalog.RecordedRequest;
+import org.opengis.cite.cat30.util.Shard;
 import org.opengis.cite.cat30.util.TestSuiteLogger;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -26,6 +36,9 @@ import com.occamlab.te.spi.executors.TestRunExecutor;
 import com.occamlab.te.spi.executors.testng.TestNGExecutor;
 import com.occamlab.te.spi.jaxrs.TestSuiteController;
 
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
 /**
  * Main test run controller oversees execution of TestNG test suites.
  */
@@ -35,6 +48,18 @@ public class TestNGController implements TestSuiteController {
 
 	private Properties etsProperties = new Properties();
 
+	private File resultsDir;
+
+	/**
+	 * The default duration of a load test (in seconds).
+	 */
+	static final int DEFAULT_LOAD_DURATION = 60;
+
+	/**
+	 * The name of the file to which a flight recording is written.
+	 */
+	static final String RECORDING_FILE = "ets-cat30.jfr";
+
 	/**
 	 * A convenience method for running the test suite using a command-line interface. The
 	 * default values of the test run arguments are as follows:
@@ -46,8 +71,19 @@ public class TestNGController implements TestSuiteController {
 	 * <strong>Synopsis</strong>
 	 * </p>
 	 * <pre>
-	 * ets-cat30-${version}-aio.jar [-o|--outputDir $TMPDIR] [test-run-props.xml]
+	 * ets-cat30-${version}-aio.jar [-o|--outputDir $TMPDIR] [--shard index/count | --workers n]
+	 *     [--batch iuts.txt [--threads n]] [--daemon socket [--threads n] | --connect socket]
+	 *     [test-run-props.xml]
 	 * </pre>
+	 * <p>
+	 * If more than one worker is requested, the suite is run by a
+	 * {@link ShardCoordinator} that divides it among that number of processes and
+	 * merges their results. If a batch file is given, the suite is run by a
+	 * {@link BatchRunner} against each IUT it lists. With <code>--daemon</code> a
+	 * {@link TestRunDaemon} is started; with <code>--connect</code> the properties file is
+	 * submitted to a running daemon and the reply is written to standard output (the exit
+	 * status is 1 if the run failed).
+	 * </p>
 	 * @param args Test run arguments (optional).
 	 * @throws java.lang.Exception If the test run cannot be executed (usually due to
 	 * unsatisfied pre-conditions).
@@ -62,10 +98,40 @@ public class TestNGController implements TestSuiteController {
 			System.out.println(px.getMessage());
 			cmd.usage();
 		}
+		File xmlArgs = testRunArgs.getPropertiesFile();
+		if (null != testRunArgs.getConnectSocket()) {
+			if (!TestRunDaemon.submit(testRunArgs.getConnectSocket(), xmlArgs, System.out)) {
+				System.exit(1);
+			}
+			return;
+		}
+		String outputDir = testRunArgs.getOutputDir();
+		File dir = outputDir.startsWith("file:") ? new File(URI.create(outputDir)) : new File(outputDir);
+		if (null != testRunArgs.getDaemonSocket()) {
+			TestRunDaemon daemon = new TestRunDaemon(testRunArgs.getDaemonSocket(), dir, testRunArgs.getThreads());
+			daemon.warmUp();
+			daemon.run();
+			return;
+		}
 		DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
 		DocumentBuilder db = dbf.newDocumentBuilder();
-		File xmlArgs = testRunArgs.getPropertiesFile();
 		Document testRunProps = db.parse(xmlArgs);
+		if (null != testRunArgs.getBatchFile()) {
+			List<String> iuts = BatchRunner.readIUTs(testRunArgs.getBatchFile());
+			List<BatchRunner.Outcome> outcomes = new BatchRunner(testRunProps, iuts, dir, testRunArgs.getThreads())
+				.run();
+			System.out.print(BatchRunner.formatSummary(outcomes));
+			return;
+		}
+		if (testRunArgs.getWorkers() > 1) {
+			File testResults = new ShardCoordinator(testRunProps, dir, testRunArgs.getWorkers()).run();
+			System.out.println("Test results: " + testResults.toURI());
+			return;
+		}
+		if (null != testRunArgs.getShard()) {
+			ShardCoordinator.setEntry(testRunProps, TestRunArg.SHARD.toString(),
+					Shard.parse(testRunArgs.getShard()).toString());
+		}
 		TestNGController controller = new TestNGController(testRunArgs.getOutputDir());
 		Source testResults = controller.doTestRun(testRunProps);
 		System.out.println("Test results: " + testResults.getSystemId());
@@ -93,7 +159,6 @@ public class TestNGController implements TestSuiteController {
 			TestSuiteLogger.log(Level.WARNING, "Unable to load ets.properties. " + ex.getMessage());
 		}
 		URL tngSuite = TestNGController.class.getResource("testng.xml");
-		File resultsDir;
 		if (null == outputDir || outputDir.isEmpty()) {
 			resultsDir = new File(FilenameUtils.normalize(System.getProperty("user.home")));
 		}
@@ -127,11 +192,155 @@ public class TestNGController implements TestSuiteController {
 		return etsProperties.getProperty("ets-title");
 	}
 
-	/** {@inheritDoc} */
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>
+	 * If the {@link TestRunArg#LOAD_RATE load_rate} argument is present, the distinct GET
+	 * requests submitted during the test run are recorded and then replayed at the
+	 * specified rate for {@link TestRunArg#LOAD_DURATION load_duration} seconds. The load
+	 * report is written to the file <code>load-report.txt</code> in the directory
+	 * containing the test results.
+	 * </p>
+	 *
+	 * <p>
+	 * If the {@link TestRunArg#FLIGHT_RECORDING flight_recording} argument is true, a
+	 * flight recording is made of the test run (including any load test) and written to
+	 * the file {@value #RECORDING_FILE} in the same directory.
+	 * </p>
+	 *
+	 * <p>
+	 * If the {@link TestRunArg#SCHEDULE schedule} argument is true, the durations of the
+	 * test methods are added to the {@link DurationHistory} of the IUT, unless only a
+	 * {@link TestRunArg#SHARD shard} of the suite is run (the {@link ShardCoordinator}
+	 * then records the durations from the merged results).
+	 * </p>
+	 */
 	@Override
 	public Source doTestRun(Document testRunArgs) throws Exception {
 		validateTestRunArgs(testRunArgs);
-		return executor.execute(testRunArgs);
+		Map<String, String> args = readTestRunArgs(testRunArgs);
+		if (!Boolean.parseBoolean(args.get(TestRunArg.FLIGHT_RECORDING.toString()))) {
+			return execute(testRunArgs, args);
+		}
+		Source results = null;
+		Recording recording = new Recording(Configuration.getConfiguration("default"));
+		recording.setName(getCode());
+		recording.start();
+		try {
+			results = execute(testRunArgs, args);
+		}
+		finally {
+			recording.stop();
+			File recordingFile = new File(getReportDirectory(results), RECORDING_FILE);
+			try {
+				recording.dump(recordingFile.toPath());
+				TestSuiteLogger.log(Level.INFO, "Flight recording written to " + recordingFile);
+			}
+			catch (IOException iox) {
+				TestSuiteLogger.log(Level.WARNING, "Failed to write flight recording to " + recordingFile, iox);
+			}
+			finally {
+				recording.close();
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Executes the test suite and then the load test, if one is requested.
+	 * @param testRunArgs A DOM Document containing the test run arguments.
+	 * @param args A map containing the argument values.
+	 * @return The test results.
+	 * @throws Exception If the test run cannot be executed.
+	 */
+	private Source execute(Document testRunArgs, Map<String, String> args) throws Exception {
+		String loadRate = args.get(TestRunArg.LOAD_RATE.toString());
+		if (null == loadRate) {
+			Source results = executor.execute(testRunArgs);
+			recordDurations(args, results);
+			return results;
+		}
+		Source results;
+		RequestCatalog.clear();
+		RequestCatalog.setRecording(true);
+		try {
+			results = executor.execute(testRunArgs);
+		}
+		finally {
+			RequestCatalog.setRecording(false);
+		}
+		recordDurations(args, results);
+		String duration = args.get(TestRunArg.LOAD_DURATION.toString());
+		int seconds = (null != duration) ? Integer.parseInt(duration.trim()) : DEFAULT_LOAD_DURATION;
+		runLoadTest(Double.parseDouble(loadRate.trim()), seconds, results);
+		return results;
+	}
+
+	/**
+	 * Adds the durations of the test methods to the history of runs against the IUT, so
+	 * that the {@link DurationScheduler} can run the longest tests first next time.
+	 * Failure to read the results or to write the history is logged but otherwise
+	 * ignored. Nothing is recorded unless the {@link TestRunArg#SCHEDULE schedule}
+	 * argument is true, or if only a shard of the suite was run.
+	 * @param args A map containing the test run arguments.
+	 * @param results The test results (testng-results.xml).
+	 */
+	void recordDurations(Map<String, String> args, Source results) {
+		String resultsId = (null != results) ? results.getSystemId() : null;
+		if (null == resultsId || !resultsId.startsWith("file:") || args.containsKey(TestRunArg.SHARD.toString())
+				|| !Boolean.parseBoolean(args.get(TestRunArg.SCHEDULE.toString()))) {
+			return;
+		}
+		DurationHistory history = DurationHistory.forIUT(args.get(TestRunArg.IUT.toString()));
+		try {
+			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+			Document resultsDoc = factory.newDocumentBuilder().parse(new File(URI.create(resultsId)));
+			int count = history.recordResults(resultsDoc);
+			history.save();
+			TestSuiteLogger.log(Level.CONFIG,
+					String.format("Recorded %d test durations in %s", count, history.getFile()));
+		}
+		catch (Exception e) {
+			TestSuiteLogger.log(Level.WARNING, "Failed to record test durations in " + history.getFile(), e);
+		}
+	}
+
+	/**
+	 * Replays the recorded requests at the given rate and writes the load report.
+	 * @param rate The target rate (requests per second).
+	 * @param seconds The duration of the load test.
+	 * @param results The test results; the report is written to the same directory.
+	 * @throws InterruptedException If the load test is interrupted.
+	 * @throws IOException If the report cannot be written.
+	 */
+	void runLoadTest(double rate, int seconds, Source results) throws InterruptedException, IOException {
+		List<RecordedRequest> requests = RequestCatalog.getRequests();
+		if (requests.isEmpty()) {
+			TestSuiteLogger.log(Level.WARNING, "No requests were recorded; skipping load test.");
+			return;
+		}
+		TestSuiteLogger.log(Level.INFO, String.format("Replaying %d distinct requests at %.1f req/s for %d s",
+				requests.size(), rate, seconds));
+		LoadGenerator generator = new LoadGenerator(requests, ClientUtils.buildBareClient());
+		LoadGenerator.Report report = generator.run(rate, TimeUnit.SECONDS.toMillis(seconds));
+		File reportFile = new File(getReportDirectory(results), "load-report.txt");
+		Files.writeString(reportFile.toPath(), report.toString(), StandardCharsets.UTF_8);
+		TestSuiteLogger.log(Level.INFO, "Load report written to " + reportFile + "\n" + report);
+	}
+
+	/**
+	 * Returns the directory in which reports about a test run are written.
+	 * @param results The test results (may be null).
+	 * @return The directory containing the results file, or the root output directory if
+	 * it is not known.
+	 */
+	File getReportDirectory(Source results) {
+		String resultsId = (null != results) ? results.getSystemId() : null;
+		if (null != resultsId && resultsId.startsWith("file:")) {
+			return new File(URI.create(resultsId)).getParentFile();
+		}
+		return this.resultsDir;
 	}
 
 	/**
@@ -145,19 +354,64 @@ public class TestNGController implements TestSuiteController {
 		if (null == testRunArgs || !testRunArgs.getDocumentElement().getNodeName().equals("properties")) {
 			throw new IllegalArgumentException("Input is not an XML properties document.");
 		}
-		NodeList entries = testRunArgs.getDocumentElement().getElementsByTagName("entry");
-		if (entries.getLength() == 0) {
+		Map<String, String> args = readTestRunArgs(testRunArgs);
+		if (args.isEmpty()) {
 			throw new IllegalArgumentException("No test run arguments found.");
 		}
+		if (!args.containsKey(TestRunArg.IUT.toString())) {
+			throw new IllegalArgumentException(
+					String.format("Missing argument: '%s' must be present.", TestRunArg.IUT));
+		}
+		String loadRate = args.get(TestRunArg.LOAD_RATE.toString());
+		if (null != loadRate) {
+			try {
+				if (!(Double.parseDouble(loadRate.trim()) > 0)) {
+					throw new NumberFormatException();
+				}
+			}
+			catch (NumberFormatException nfe) {
+				throw new IllegalArgumentException(
+						String.format("Invalid argument: '%s' must be a positive number.", TestRunArg.LOAD_RATE));
+			}
+		}
+		String shard = args.get(TestRunArg.SHARD.toString());
+		if (null != shard) {
+			try {
+				Shard.parse(shard);
+			}
+			catch (IllegalArgumentException iae) {
+				throw new IllegalArgumentException(
+						String.format("Invalid argument: '%s' must be given as index/count.", TestRunArg.SHARD), iae);
+			}
+		}
+		String loadDuration = args.get(TestRunArg.LOAD_DURATION.toString());
+		if (null != loadDuration) {
+			try {
+				if (Integer.parseInt(loadDuration.trim()) < 1) {
+					throw new NumberFormatException();
+				}
+			}
+			catch (NumberFormatException nfe) {
+				throw new IllegalArgumentException(
+						String.format("Invalid argument: '%s' must be a positive integer.", TestRunArg.LOAD_DURATION));
+			}
+		}
+	}
+
+	/**
+	 * Reads the test run arguments.
+	 * @param testRunArgs A DOM Document containing a set of XML properties (key-value
+	 * pairs).
+	 * @return A map containing the argument values.
+	 */
+	static Map<String, String> readTestRunArgs(Document testRunArgs) {
+		NodeList entries = testRunArgs.getDocumentElement().getElementsByTagName("entry");
 		Map<String, String> args = new HashMap<>();
 		for (int i = 0; i < entries.getLength(); i++) {
 			Element entry = (Element) entries.item(i);
 			args.put(entry.getAttribute("key"), entry.getTextContent());
 		}
-		if (!args.containsKey(TestRunArg.IUT.toString())) {
-			throw new IllegalArgumentException(
-					String.format("Missing argument: '%s' must be present.", TestRunArg.IUT));
-		}
+		return args;
 	}
 
 }
@@ -9,7 +9,118 @@ public enum TestRunArg {
 	 * An absolute URI that refers to a representation of the test subject or metadata
 	 * about it.
 	 */
-	IUT;
+	IUT,
+
+	/**
+	 * A boolean value (default: false) indicating whether every record in the catalog is
+	 * to be retrieved by identifier. This may take a long time for a large catalog.
+	 */
+	EXHAUSTIVE,
+
+	/**
+	 * A boolean value (default: false) indicating whether the performance tests
+	 * (scalability, deep paging, and concurrency) are run. They submit many requests,
+	 * some with large responses or from many concurrent clients.
+	 */
+	PERFORMANCE,
+
+	/**
+	 * A boolean value (default: false) indicating whether compressed response entities
+	 * (gzip or deflate) are to be requested from the IUT.
+	 */
+	COMPRESSION,
+
+	/**
+	 * The HTTP transport used to submit requests (default: "urlconnection"). The value
+	 * "jdk" selects the JDK HTTP client, which reuses connections and negotiates HTTP/2
+	 * with "https" endpoints.
+	 */
+	TRANSPORT,
+
+	/**
+	 * A positive integer (default: 64) specifying the greatest number of requests that
+	 * may be submitted concurrently to a host. The actual limit adapts to the latency and
+	 * error rate of the IUT.
+	 */
+	MAX_CONCURRENCY,
+
+	/**
+	 * The time budget for a single test in seconds (default: 300). An HTTP request that
+	 * cannot be completed within the budget is abandoned and the test fails. A value of
+	 * 0 removes the limit.
+	 */
+	TEST_TIMEOUT,
+
+	/**
+	 * The time budget for the entire test run in seconds (default: unlimited). When it is
+	 * exhausted, pending requests are abandoned and the remaining tests are skipped.
+	 */
+	RUN_TIMEOUT,
+
+	/**
+	 * The time in seconds (default: 60) after which an HTTP request that is still in
+	 * flight is reported as stalled, along with the test that issued it and the stack of
+	 * the waiting thread. A value of 0 disables the watchdog.
+	 */
+	STALL_TIMEOUT,
+
+	/**
+	 * A boolean value (default: false) indicating whether the connection of a stalled
+	 * request is to be closed.
+	 */
+	ABORT_STALLED,
+
+	/**
+	 * The maximum number of times (default: 0) an idempotent request is retried after a
+	 * connection error or a 502, 503, or 504 response. A value of 0 disables retries.
+	 */
+	MAX_RETRIES,
+
+	/**
+	 * The number of consecutive failed requests (default: 0) after which further requests
+	 * to the IUT fail immediately for 30 s. A value of 0 disables the circuit breaker.
+	 */
+	CIRCUIT_THRESHOLD,
+
+	/**
+	 * A positive number specifying the target rate (requests per second) at which the
+	 * requests submitted during the test run are subsequently replayed in order to
+	 * generate load. If absent, no load test is performed.
+	 */
+	LOAD_RATE,
+
+	/**
+	 * The duration of the load test in seconds (default: 60).
+	 */
+	LOAD_DURATION,
+
+	/**
+	 * A boolean value (default: false) indicating whether a Java Flight Recorder
+	 * recording is made of the test run. It includes the events defined by the test suite
+	 * (HTTP exchanges, parsing, validation, and XPath evaluation).
+	 */
+	FLIGHT_RECORDING,
+
+	/**
+	 * The part of the suite to run, given as <code>index/count</code> (for example, "1/4"
+	 * runs the second of four shards). The test classes are divided among the shards
+	 * deterministically; if absent, all test classes are run.
+	 */
+	SHARD,
+
+	/**
+	 * A boolean value (default: false) indicating whether the test methods are scheduled
+	 * using the durations recorded in previous runs against the IUT: the tests expected
+	 * to take longest run first, and the durations of this run are recorded.
+	 */
+	SCHEDULE,
+
+	/**
+	 * A file containing a GetRecords response (full csw:Record representations) to use
+	 * as sample data instead of harvesting it from the IUT. Workers running shards of a
+	 * suite thereby use the same sample.
+	 */
+	DATASET;
 
 	/** {@inheritDoc} */
 	@Override
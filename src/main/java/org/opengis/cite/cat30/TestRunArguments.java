@@ -3,6 +3,8 @@ package org.opengis.cite.cat30;
 import com.beust.jcommander.Parameter;
 import java.io.File;
 import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -17,8 +19,18 @@ import java.util.List;
  * <strong>Synopsis</strong>
  * </p>
  * <pre>
- * ets-cat30-${version}-aio.jar [-o|--outputDir $TMPDIR] [test-run-props.xml]
+ * ets-cat30-${version}-aio.jar [-o|--outputDir $TMPDIR] [--shard index/count | --workers n]
+ *     [--batch iuts.txt [--threads n]] [--daemon socket [--threads n] | --connect socket]
+ *     [test-run-props.xml]
  * </pre>
+ * <p>
+ * A test run can be divided between several processes: <code>--shard</code> runs a
+ * single part of the suite, while <code>--workers</code> launches the given number of
+ * worker processes (one per shard) and merges their results. With <code>--batch</code>
+ * the suite is run against each IUT listed in the given file, up to
+ * <code>--threads</code> at a time. <code>--daemon</code> starts a process that runs the
+ * suite on request, and <code>--connect</code> submits the properties file to it.
+ * </p>
  */
 public class TestRunArguments {
 
@@ -28,6 +40,24 @@ public class TestRunArguments {
 	@Parameter(names = { "-o", "--outputDir" }, description = "Output directory")
 	private String outputDir;
 
+	@Parameter(names = "--shard", description = "Shard of the test suite to run (index/count)")
+	private String shard;
+
+	@Parameter(names = "--workers", description = "Number of worker processes to run the test suite")
+	private int workers = 1;
+
+	@Parameter(names = "--batch", description = "File listing the IUTs to test (one URI per line)")
+	private String batchFile;
+
+	@Parameter(names = "--threads", description = "Maximum number of IUTs tested at the same time in batch mode")
+	private int threads;
+
+	@Parameter(names = "--daemon", description = "Socket on which to accept test run requests")
+	private String daemonSocket;
+
+	@Parameter(names = "--connect", description = "Socket of a daemon to which to submit the test run")
+	private String connectSocket;
+
 	/**
 	 * <p>
 	 * Constructor for TestRunArguments.
@@ -65,4 +95,55 @@ public class TestRunArguments {
 		return (null != outputDir) ? outputDir : System.getProperty("user.home");
 	}
 
+	/**
+	 * Returns the shard of the test suite to run.
+	 * @return A shard specification (index/count), or null if the entire suite is run.
+	 */
+	public String getShard() {
+		return shard;
+	}
+
+	/**
+	 * Returns the number of worker processes among which the test suite is divided.
+	 * @return The number of workers (1 if the suite is run in this process).
+	 */
+	public int getWorkers() {
+		return workers;
+	}
+
+	/**
+	 * Returns the file listing the IUTs to test in batch mode.
+	 * @return A File, or null if a single IUT is tested.
+	 */
+	public File getBatchFile() {
+		if (null == batchFile) {
+			return null;
+		}
+		return (batchFile.startsWith("file:")) ? new File(URI.create(batchFile)) : new File(batchFile);
+	}
+
+	/**
+	 * Returns the maximum number of IUTs tested at the same time in batch mode.
+	 * @return A positive integer (by default, the number of available processors).
+	 */
+	public int getThreads() {
+		return (threads > 0) ? threads : Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * Returns the socket on which a daemon accepts test run requests.
+	 * @return A Path, or null if not running as a daemon.
+	 */
+	public Path getDaemonSocket() {
+		return (null != daemonSocket) ? Paths.get(daemonSocket) : null;
+	}
+
+	/**
+	 * Returns the socket of a daemon to which the test run is submitted.
+	 * @return A Path, or null if the test run is executed in this process.
+	 */
+	public Path getConnectSocket() {
+		return (null != connectSocket) ? Paths.get(connectSocket) : null;
+	}
+
 }
@@ -0,0 +1,262 @@
+package org.opengis.cite.cat30;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.URI;
+import java.net.URL;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.Source;
+
+import org.opengis.cite.cat30.util.ClientUtils;
+import org.opengis.cite.cat30.util.TestSuiteLogger;
+import org.opengis.cite.cat30.util.ValidationUtils;
+import org.w3c.dom.Document;
+
+/**
+ * A long-lived process that runs the test suite on request, so that repeated test runs
+ * do not pay for starting a JVM and compiling schemas each time. The daemon listens on a
+ * Unix domain socket (accessible only to its owner). A client sends a test run
+ * properties document (like test-run-props.xml) and closes its side of the connection
+ * for writing; the daemon runs the suite and replies with a status line followed, if
+ * the run was completed, by the TestNG results document:
+ *
+ * <pre>
+ * OK file:/.../testng-results.xml
+ * &lt;testng-results ...&gt;...&lt;/testng-results&gt;
+ * </pre>
+ *
+ * <p>
+ * If the run fails the status line is <code>ERROR <em>message</em></code>. Requests are
+ * handled concurrently, up to a given number at a time; the compiled schemas, Schematron
+ * validators, Saxon processor, and HTTP client are initialized when the daemon starts
+ * and shared by all runs. Runs whose HTTP client settings differ are not run at the same
+ * time (see {@link org.opengis.cite.cat30.util.ClientSettings}); deadlines, response
+ * caches, and request watchdogs are kept per run. The results of each run are written
+ * to a subdirectory (<code>run-<em>n</em></code>) of the output directory. The
+ * {@link TestRunArg#LOAD_RATE load_rate}, {@link TestRunArg#DATASET dataset}, and
+ * {@link TestRunArg#FLIGHT_RECORDING flight_recording} arguments are not supported.
+ * </p>
+ */
+public class TestRunDaemon {
+
+	/** The Schematron schemas compiled when the daemon starts. */
+	static final String[] SCHEMATRON_SCHEMAS = { "csw-capabilities-3.0.sch", "exception-report.sch",
+			"opensearch-1.1.sch", "atom-feed.sch", "gml-3.2.1.sch" };
+
+	private final Path socketPath;
+
+	private final File outputDir;
+
+	private final int threads;
+
+	private final AtomicInteger runCount = new AtomicInteger();
+
+	/**
+	 * Constructs a daemon.
+	 * @param socketPath The path of the socket on which requests are accepted.
+	 * @param outputDir The directory in which results are written.
+	 * @param threads The maximum number of test runs in progress at the same time.
+	 */
+	public TestRunDaemon(Path socketPath, File outputDir, int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("At least one thread is required: " + threads);
+		}
+		this.socketPath = socketPath;
+		this.outputDir = outputDir;
+		this.threads = threads;
+	}
+
+	/**
+	 * Initializes the resources shared by all test runs: the application schemas, the
+	 * Schematron validators, and the HTTP client. Failures are logged (the resource is
+	 * then initialized when first needed).
+	 */
+	public void warmUp() {
+		long start = System.nanoTime();
+		ValidationUtils.getCSWSchema();
+		ValidationUtils.getAtomSchema();
+		ValidationUtils.getOpenSearchSchema();
+		for (String name : SCHEMATRON_SCHEMAS) {
+			URL schemaRef = getClass().getResource(CommonFixture.ROOT_PKG_PATH + "sch/" + name);
+			try {
+				ValidationUtils.getSchematronValidator(schemaRef, "#ALL");
+			}
+			catch (Exception e) {
+				TestSuiteLogger.log(Level.WARNING, "Failed to compile Schematron schema " + schemaRef, e);
+			}
+		}
+		ClientUtils.getSharedClient();
+		TestSuiteLogger.log(Level.INFO, String.format("Shared resources initialized in %d ms",
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+	}
+
+	/**
+	 * Accepts and handles requests until the process is terminated. An existing socket
+	 * file is replaced; it is deleted when the JVM exits.
+	 * @throws IOException If the socket cannot be bound.
+	 */
+	public void run() throws IOException {
+		Files.createDirectories(outputDir.toPath());
+		Files.deleteIfExists(socketPath);
+		AtomicInteger threadCount = new AtomicInteger();
+		ExecutorService pool = Executors.newFixedThreadPool(threads,
+				r -> new Thread(r, "ets-cat30-daemon-" + threadCount.incrementAndGet()));
+		try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+			bind(server, socketPath);
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				try {
+					Files.deleteIfExists(socketPath);
+				}
+				catch (IOException iox) {
+					// exiting anyway
+				}
+			}));
+			TestSuiteLogger.log(Level.INFO, "Accepting test run requests at " + socketPath);
+			while (true) {
+				SocketChannel channel = server.accept();
+				pool.execute(() -> handle(channel));
+			}
+		}
+		finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Binds a server socket to the given path without exposing it to other users. The
+	 * socket is bound in a new directory accessible only to its owner, its permissions
+	 * are restricted to the owner, and it is then moved to the given path.
+	 * @param server An unbound server socket channel.
+	 * @param socketPath The path of the socket.
+	 * @throws IOException If the socket cannot be bound or moved.
+	 */
+	static void bind(ServerSocketChannel server, Path socketPath) throws IOException {
+		Path dir = socketPath.toAbsolutePath().getParent();
+		Path privateDir;
+		try {
+			privateDir = Files.createTempDirectory(dir, ".ets-cat30-",
+					PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+		}
+		catch (UnsupportedOperationException e) {
+			// not a POSIX file system
+			privateDir = Files.createTempDirectory(dir, ".ets-cat30-");
+		}
+		Path boundPath = privateDir.resolve(socketPath.getFileName());
+		try {
+			server.bind(UnixDomainSocketAddress.of(boundPath));
+			try {
+				Files.setPosixFilePermissions(boundPath, PosixFilePermissions.fromString("rw-------"));
+			}
+			catch (UnsupportedOperationException e) {
+				// not a POSIX file system
+			}
+			Files.move(boundPath, socketPath, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally {
+			Files.deleteIfExists(boundPath);
+			Files.deleteIfExists(privateDir);
+		}
+	}
+
+	/**
+	 * Handles a request: reads the test run properties, runs the suite, and sends the
+	 * reply.
+	 * @param channel The connection to the client.
+	 */
+	void handle(SocketChannel channel) {
+		try (channel; OutputStream out = Channels.newOutputStream(channel)) {
+			String status;
+			File resultsFile = null;
+			try {
+				byte[] request = Channels.newInputStream(channel).readAllBytes();
+				resultsFile = execute(request);
+				status = "OK " + resultsFile.toURI();
+			}
+			catch (Exception e) {
+				TestSuiteLogger.log(Level.WARNING, "Test run request failed", e);
+				status = "ERROR " + ((null != e.getMessage()) ? e.getMessage().replaceAll("\\R", " ")
+						: e.getClass().getName());
+			}
+			out.write((status + "\n").getBytes(StandardCharsets.UTF_8));
+			if (null != resultsFile) {
+				Files.copy(resultsFile.toPath(), out);
+			}
+		}
+		catch (IOException iox) {
+			TestSuiteLogger.log(Level.WARNING, "Failed to reply to client", iox);
+		}
+	}
+
+	/**
+	 * Runs the test suite with the given test run properties.
+	 * @param request An XML properties document.
+	 * @return The TestNG results file.
+	 * @throws Exception If the request is invalid or the test run cannot be executed.
+	 */
+	File execute(byte[] request) throws Exception {
+		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+		factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+		Document testRunProps = factory.newDocumentBuilder().parse(new ByteArrayInputStream(request));
+		Map<String, String> args = TestNGController.readTestRunArgs(testRunProps);
+		for (TestRunArg arg : new TestRunArg[] { TestRunArg.LOAD_RATE, TestRunArg.DATASET,
+				TestRunArg.FLIGHT_RECORDING }) {
+			if (args.containsKey(arg.toString())) {
+				throw new IllegalArgumentException(
+						String.format("Invalid argument: '%s' is not supported in daemon mode.", arg));
+			}
+		}
+		File runDir = new File(outputDir, "run-" + runCount.incrementAndGet());
+		Files.createDirectories(runDir.toPath());
+		TestNGController controller = new TestNGController(runDir.toURI().toString());
+		Source results = controller.doTestRun(testRunProps);
+		return new File(URI.create(results.getSystemId()));
+	}
+
+	/**
+	 * Submits a test run request to a daemon and copies the reply to the given stream.
+	 * @param socketPath The path of the socket on which the daemon accepts requests.
+	 * @param propsFile The test run properties file.
+	 * @param out The stream to which the reply is written.
+	 * @return true if the test run was completed; false if it failed.
+	 * @throws IOException If the daemon cannot be reached.
+	 */
+	public static boolean submit(Path socketPath, File propsFile, OutputStream out) throws IOException {
+		try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath))) {
+			Channels.newOutputStream(channel).write(Files.readAllBytes(propsFile.toPath()));
+			channel.shutdownOutput();
+			InputStream in = Channels.newInputStream(channel);
+			ByteArrayOutputStream status = new ByteArrayOutputStream();
+			int c;
+			while ((c = in.read()) != -1 && c != '\n') {
+				status.write(c);
+			}
+			status.write('\n');
+			status.writeTo(out);
+			in.transferTo(out);
+			out.flush();
+			return status.toString(StandardCharsets.UTF_8).startsWith("OK ");
+		}
+	}
+
+}
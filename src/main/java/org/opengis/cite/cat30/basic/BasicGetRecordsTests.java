@@ -19,8 +19,10 @@ import org.opengis.cite.cat30.ErrorMessage;
 import org.opengis.cite.cat30.ErrorMessageKeys;
 import org.opengis.cite.cat30.Namespaces;
 import org.opengis.cite.cat30.SuiteAttribute;
+import org.opengis.cite.cat30.util.CSWClient;
 import org.opengis.cite.cat30.util.ClientUtils;
 import org.opengis.cite.cat30.util.DatasetInfo;
+import org.opengis.cite.cat30.util.PaginationChecker;
 import org.opengis.cite.cat30.util.ServiceMetadataUtils;
 import org.opengis.cite.cat30.util.XMLUtils;
 import org.opengis.cite.validation.ValidationErrorHandler;
@@ -53,6 +55,23 @@ import jakarta.ws.rs.core.Response;
  */
 public class BasicGetRecordsTests extends CommonFixture {
 
+	/**
+	 * The number of records requested per page when paging through a result set.
+	 */
+	static final int PAGE_SIZE = 25;
+
+	/**
+	 * The maximum number of records examined when paging through a result set (unless
+	 * exhaustive checks are enabled).
+	 */
+	static final int PAGING_LIMIT = 1000;
+
+	/**
+	 * The sort criterion applied when paging through a result set (records in ascending
+	 * order of identifier).
+	 */
+	static final String PAGING_SORT_ORDER = "Identifier:A";
+
 	/**
 	 * Service endpoint for GetRecords using the GET method.
 	 */
@@ -192,7 +211,7 @@ public class BasicGetRecordsTests extends CommonFixture {
 		Map<String, String> nsBindings = Collections.singletonMap(Namespaces.ATOM, "atom");
 		String expr = "count(/atom:feed/atom:entry) > 0";
 		ETSAssert.assertXPath(expr, entity, nsBindings);
-		Validator atomValidator = this.atomSchema.newValidator();
+		Validator atomValidator = newAtomValidator();
 		ValidationErrorHandler err = new ValidationErrorHandler();
 		atomValidator.setErrorHandler(err);
 		try {
@@ -306,7 +325,7 @@ public class BasicGetRecordsTests extends CommonFixture {
 		Assert.assertEquals(response.getStatus(), Response.Status.OK.getStatusCode(),
 				ErrorMessage.get(ErrorMessageKeys.UNEXPECTED_STATUS));
 		Document entity = getResponseEntityAsDocument(response, null);
-		Validator validator = this.cswSchema.newValidator();
+		Validator validator = newCSWValidator();
 		ETSAssert.assertSchemaValid(validator, new DOMSource(entity, entity.getDocumentURI()));
 		Element results = (Element) entity.getElementsByTagNameNS(Namespaces.CSW, CAT3.SEARCH_RESULTS).item(0);
 		ETSAssert.assertXPath("not(csw:SummaryRecord[dc:type or dc:subject or dc:format or ows:BoundingBox])", results,
@@ -428,4 +447,40 @@ public class BasicGetRecordsTests extends CommonFixture {
 				ErrorMessage.format(ErrorMessageKeys.INFOSET_ITEM_VALUE, "os:itemsPerPage"));
 	}
 
+	/**
+	 * [Test] Pages through the result set of an unfiltered GetRecords request and checks
+	 * that the pages are mutually consistent: no record occurs more than once, no result
+	 * set position is skipped, and the values of the numberOfRecordsMatched,
+	 * numberOfRecordsReturned, and nextRecord attributes agree with the content. At most
+	 * {@value #PAGING_LIMIT} records are examined unless the
+	 * {@link org.opengis.cite.cat30.TestRunArg#EXHAUSTIVE exhaustive} test run argument
+	 * is true.
+	 *
+	 * <p>
+	 * The order of an unsorted result set need not be the same in successive requests,
+	 * so the records are sorted by identifier ({@value #PAGING_SORT_ORDER}). The test is
+	 * skipped if the IUT does not accept the sortBy parameter.
+	 * </p>
+	 * @param testContext The test context containing various suite attributes.
+	 *
+	 * @see "OGC 12-176r6, Table 19: KVP encoding for GetRecords operation request"
+	 * @see "OGC 12-176r6, 7.3.5: Response"
+	 */
+	@Test(description = "Requirements: 082,084")
+	public void pageThroughResultSet(ITestContext testContext) {
+		Object exhaustive = testContext.getSuite().getAttribute(SuiteAttribute.EXHAUSTIVE.getName());
+		int limit = Boolean.TRUE.equals(exhaustive) ? Integer.MAX_VALUE : PAGING_LIMIT;
+		CSWClient cswClient = new CSWClient();
+		cswClient.setServiceDescription(this.cswCapabilities);
+		Map<String, String> sortBy = Collections.singletonMap(CAT3.SORT_BY, PAGING_SORT_ORDER);
+		if (null == cswClient.getRecordPage(sortBy, 1, 1)) {
+			throw new SkipException("GetRecords request with sortBy=" + PAGING_SORT_ORDER
+					+ " failed; cannot page through a result set in a stable order.");
+		}
+		PaginationChecker checker = new PaginationChecker(cswClient, sortBy, PAGE_SIZE);
+		PaginationChecker.Report report = checker.walk(limit);
+		Assert.assertTrue(report.isConsistent(),
+				ErrorMessage.format(ErrorMessageKeys.PAGING_INCONSISTENT, report.toString()));
+	}
+
 }
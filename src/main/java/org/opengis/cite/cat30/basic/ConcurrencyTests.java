@@ -0,0 +1,214 @@
+package org.opengis.cite.cat30.basic;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+import org.opengis.cite.cat30.CAT3;
+import org.opengis.cite.cat30.CommonFixture;
+import org.opengis.cite.cat30.ErrorMessage;
+import org.opengis.cite.cat30.ErrorMessageKeys;
+import org.opengis.cite.cat30.SuiteAttribute;
+import org.opengis.cite.cat30.util.ClientUtils;
+import org.opengis.cite.cat30.util.ConcurrencyChecker;
+import org.opengis.cite.cat30.util.ConcurrencyChecker.Probe;
+import org.opengis.cite.cat30.util.ConcurrencyChecker.Snapshot;
+import org.opengis.cite.cat30.util.DatasetInfo;
+import org.opengis.cite.cat30.util.ServiceMetadataUtils;
+import org.opengis.cite.cat30.util.TermIndex;
+import org.opengis.cite.cat30.util.TestSuiteLogger;
+import org.opengis.cite.cat30.util.URIUtils;
+import org.testng.Assert;
+import org.testng.ITestContext;
+import org.testng.SkipException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Checks that the catalogue returns the same results to concurrent clients as it does to
+ * a single client. GetRecords and GetRecordById requests derived from the sample data
+ * are first submitted by one client; the same requests are then submitted
+ * simultaneously by {@link #CLIENT_COUNTS increasing numbers} of clients, and every
+ * response must match the single-client baseline (see {@link ConcurrencyChecker}); the
+ * records in a page of an unsorted result set are not compared. The
+ * growth in latency with the number of clients is reported but is not assessed.
+ *
+ * <p>
+ * The clients run on platform threads and share one client component. It submits
+ * requests directly (see {@link ClientUtils#buildBareClient()}), so that they are not
+ * queued by the concurrency limiter or retried.
+ * </p>
+ *
+ * <p>
+ * These tests are only run if the {@link org.opengis.cite.cat30.TestRunArg#PERFORMANCE
+ * performance} test run argument is true.
+ * </p>
+ *
+ * @see "OGC 12-176r6, 7.3: GetRecords operation"
+ * @see "OGC 12-176r6, 7.4: GetRecordById operation"
+ */
+public class ConcurrencyTests extends CommonFixture {
+
+	/**
+	 * The numbers of concurrent clients.
+	 */
+	static final int[] CLIENT_COUNTS = { 2, 8, 32 };
+
+	/**
+	 * The number of times each client submits every request.
+	 */
+	static final int ROUNDS = 2;
+
+	/**
+	 * The desired number of records matching the text search.
+	 */
+	static final int TEXT_SEARCH_HITS = 5;
+
+	/**
+	 * The maximum number of records retrieved by identifier.
+	 */
+	static final int MAX_RECORD_IDS = 5;
+
+	private URI getRecordsURI;
+
+	private URI getRecordByIdURI;
+
+	private DatasetInfo datasetInfo;
+
+	private Client client;
+
+	/**
+	 * Finds the GET method endpoints for the GetRecords and GetRecordById requests in the
+	 * capabilities document and builds a client component.
+	 * @param testContext The test context containing various suite attributes.
+	 */
+	@BeforeClass
+	public void initConcurrencyTestsFixture(ITestContext testContext) {
+		Object performance = testContext.getSuite().getAttribute(SuiteAttribute.PERFORMANCE.getName());
+		if (!Boolean.TRUE.equals(performance)) {
+			throw new SkipException("Performance tests not enabled.");
+		}
+		this.getRecordsURI = ServiceMetadataUtils.getOperationEndpoint(this.cswCapabilities, CAT3.GET_RECORDS,
+				HttpMethod.GET);
+		this.getRecordByIdURI = ServiceMetadataUtils.getOperationEndpoint(this.cswCapabilities,
+				CAT3.GET_RECORD_BY_ID, HttpMethod.GET);
+		this.client = ClientUtils.buildBareClient();
+	}
+
+	/**
+	 * Gets information about the sample data obtained from the IUT.
+	 * @param testContext The test context containing various suite attributes.
+	 */
+	@BeforeClass
+	public void getDatasetInfo(ITestContext testContext) {
+		DatasetInfo dataset = (DatasetInfo) testContext.getSuite().getAttribute(SuiteAttribute.DATASET.getName());
+		if (null == dataset) {
+			throw new SkipException("Dataset info not found in test context.");
+		}
+		this.datasetInfo = dataset;
+	}
+
+	/**
+	 * Releases the client component.
+	 */
+	@AfterClass(alwaysRun = true)
+	public void closeClient() {
+		if (null != this.client) {
+			this.client.close();
+		}
+	}
+
+	/**
+	 * [Test] Submits an unfiltered GetRecords request and a text search from concurrent
+	 * clients. Every response must report the same number of matching records as the
+	 * response to a single client, and present the same records if that response includes
+	 * the entire result set.
+	 */
+	@Test(description = "OGC 12-176r6, 7.3 - GetRecords under concurrent load")
+	public void getRecordsUnderConcurrentLoad() {
+		if (null == this.getRecordsURI.getScheme()) {
+			throw new SkipException("GET endpoint for GetRecords request not found.");
+		}
+		List<Probe> probes = new ArrayList<>();
+		Map<String, String> qryParams = new HashMap<>();
+		qryParams.put(CAT3.REQUEST, CAT3.GET_RECORDS);
+		qryParams.put(CAT3.SERVICE, CAT3.SERVICE_TYPE_CODE);
+		qryParams.put(CAT3.VERSION, CAT3.VERSION_3_0_0);
+		qryParams.put(CAT3.TYPE_NAMES, "Record");
+		qryParams.put(CAT3.ELEMENT_SET, CAT3.ELEMENT_SET_SUMMARY);
+		qryParams.put(CAT3.MAX_RECORDS, "10");
+		probes.add(new Probe("GetRecords", this.getRecordsURI, qryParams, MediaType.APPLICATION_XML_TYPE));
+		TermIndex termIndex = this.datasetInfo.getTermIndex();
+		String keyword = termIndex.selectTerm(TEXT_SEARCH_HITS, TermIndex.TITLE);
+		if (null != keyword) {
+			qryParams.put(CAT3.ELEMENT_SET, CAT3.ELEMENT_SET_FULL);
+			qryParams.put(CAT3.MAX_RECORDS, Integer.toString(termIndex.getDocumentFrequency(keyword) + 10));
+			qryParams.put(CAT3.Q, URIUtils.getPercentEncodedString(keyword));
+			probes.add(new Probe("GetRecords (q=" + keyword + ")", this.getRecordsURI, qryParams,
+					MediaType.APPLICATION_XML_TYPE));
+		}
+		assertConsistentUnderLoad(CAT3.GET_RECORDS, probes);
+	}
+
+	/**
+	 * [Test] Retrieves several sample records by identifier from concurrent clients.
+	 * Every response must present the same record as the response to a single client.
+	 */
+	@Test(description = "OGC 12-176r6, 7.4 - GetRecordById under concurrent load")
+	public void getRecordByIdUnderConcurrentLoad() {
+		if (null == this.getRecordByIdURI.getScheme()) {
+			throw new SkipException("GET endpoint for GetRecordById request not found.");
+		}
+		List<String> identifiers = this.datasetInfo.getRecordIdentifiers();
+		if (identifiers.isEmpty()) {
+			throw new SkipException("No dc:identifier elements found in sample data.");
+		}
+		List<Probe> probes = new ArrayList<>();
+		for (String id : identifiers.subList(0, Math.min(MAX_RECORD_IDS, identifiers.size()))) {
+			Map<String, String> qryParams = new HashMap<>();
+			qryParams.put(CAT3.REQUEST, CAT3.GET_RECORD_BY_ID);
+			qryParams.put(CAT3.SERVICE, CAT3.SERVICE_TYPE_CODE);
+			qryParams.put(CAT3.VERSION, CAT3.VERSION_3_0_0);
+			qryParams.put(CAT3.ELEMENT_SET, CAT3.ELEMENT_SET_FULL);
+			qryParams.put(CAT3.ID, id);
+			probes.add(new Probe("GetRecordById (id=" + id + ")", this.getRecordByIdURI, qryParams,
+					MediaType.APPLICATION_XML_TYPE));
+		}
+		assertConsistentUnderLoad(CAT3.GET_RECORD_BY_ID, probes);
+	}
+
+	/**
+	 * Submits the given requests from increasing numbers of concurrent clients and checks
+	 * that every response matches the single-client baseline.
+	 * @param operation The name of the request.
+	 * @param probes A list of requests.
+	 */
+	void assertConsistentUnderLoad(String operation, List<Probe> probes) {
+		ConcurrencyChecker checker = new ConcurrencyChecker(probes, this.client);
+		ConcurrencyChecker.Report report;
+		try {
+			report = checker.run(CLIENT_COUNTS, ROUNDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SkipException("Interrupted while waiting for concurrent requests to complete.");
+		}
+		for (Map.Entry<Probe, Snapshot> entry : report.getBaseline().entrySet()) {
+			Assert.assertEquals(entry.getValue().getStatus(), Response.Status.OK.getStatusCode(),
+					ErrorMessage.get(ErrorMessageKeys.UNEXPECTED_STATUS) + " " + entry.getKey().getName());
+		}
+		TestSuiteLogger.log(Level.INFO, String.format("%s under concurrent load:%n%s", operation, report));
+		Assert.assertTrue(report.isConsistent(),
+				ErrorMessage.format(ErrorMessageKeys.CONCURRENT_DISCREPANCY, operation, report.toString()));
+	}
+
+}
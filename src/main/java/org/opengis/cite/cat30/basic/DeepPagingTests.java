@@ -0,0 +1,277 @@
+package org.opengis.cite.cat30.basic;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+import org.opengis.cite.cat30.CAT3;
+import org.opengis.cite.cat30.CommonFixture;
+import org.opengis.cite.cat30.ErrorMessage;
+import org.opengis.cite.cat30.ErrorMessageKeys;
+import org.opengis.cite.cat30.SuiteAttribute;
+import org.opengis.cite.cat30.util.ClientUtils;
+import org.opengis.cite.cat30.util.DeepPagingProfile;
+import org.opengis.cite.cat30.util.RecordPage;
+import org.opengis.cite.cat30.util.ResponseMetrics;
+import org.opengis.cite.cat30.util.ServiceMetadataUtils;
+import org.opengis.cite.cat30.util.TestSuiteLogger;
+import org.testng.ITestContext;
+import org.testng.ITestResult;
+import org.testng.Reporter;
+import org.testng.SkipException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Measures how the response time of a <code>GetRecords</code> request varies with the
+ * value of the <code>startPosition</code> parameter. The same unfiltered query is
+ * submitted with a page size of {@value #PAGE_SIZE} at increasing offsets into the
+ * result set (1, 1000, 10000, 100000), ending with the last page as determined by the
+ * reported number of matching records. The latency profile is informational, since no
+ * specification constrains the performance of a catalogue service: it is logged and
+ * attached to the test result (see {@link #PROFILE_ATTRIBUTE}), and a deepest page that
+ * is much slower to retrieve than the first one is reported as a warning. Pages that do
+ * not contain the expected number of records, or (in an Atom feed) whose os:startIndex
+ * differs from the requested position, are reported as warnings too; the tests do not
+ * fail because of them.
+ *
+ * <p>
+ * Response entities are read as a stream by a client that does not buffer them. Each
+ * request is repeated {@value #REPETITIONS} times and the fastest response is retained.
+ * If a request does not succeed, the profile ends at the preceding page.
+ * </p>
+ *
+ * <p>
+ * These tests are only run if the {@link org.opengis.cite.cat30.TestRunArg#PERFORMANCE
+ * performance} test run argument is true.
+ * </p>
+ */
+public class DeepPagingTests extends CommonFixture {
+
+	/** The name of the test result attribute that holds the latency profile. */
+	public static final String PROFILE_ATTRIBUTE = "deepPagingProfile";
+
+	/**
+	 * The positions of the first record in the pages requested before the last page.
+	 */
+	static final int[] START_POSITIONS = { 1, 1000, 10000, 100000 };
+
+	/**
+	 * The number of records in a page.
+	 */
+	static final int PAGE_SIZE = 10;
+
+	/**
+	 * The number of times each request is submitted.
+	 */
+	static final int REPETITIONS = 3;
+
+	/**
+	 * The largest ratio of the latency of the last page to that of the first that is not
+	 * reported as a degradation.
+	 */
+	static final double MAX_SLOWDOWN = 10;
+
+	/**
+	 * The smallest increase in latency (in microseconds) deemed significant.
+	 */
+	static final long MIN_GROWTH_MICROS = 500000;
+
+	/**
+	 * Service endpoint for GetRecords using the GET method.
+	 */
+	private URI getURI;
+
+	/**
+	 * A client component that does not buffer response entities.
+	 */
+	private Client streamingClient;
+
+	/**
+	 * Finds the GET method endpoint for the GetRecords request in the capabilities
+	 * document and builds a client component.
+	 * @param testContext The test context containing various suite attributes.
+	 */
+	@BeforeClass
+	public void initDeepPagingTestsFixture(ITestContext testContext) {
+		Object performance = testContext.getSuite().getAttribute(SuiteAttribute.PERFORMANCE.getName());
+		if (!Boolean.TRUE.equals(performance)) {
+			throw new SkipException("Performance tests not enabled.");
+		}
+		this.getURI = ServiceMetadataUtils.getOperationEndpoint(this.cswCapabilities, CAT3.GET_RECORDS, HttpMethod.GET);
+		if (null == this.getURI.getScheme()) {
+			throw new SkipException("GET endpoint for GetRecords request not found.");
+		}
+		this.streamingClient = ClientUtils.buildStreamingClient();
+	}
+
+	/**
+	 * Releases the client component.
+	 */
+	@AfterClass(alwaysRun = true)
+	public void closeStreamingClient() {
+		if (null != this.streamingClient) {
+			this.streamingClient.close();
+		}
+	}
+
+	/**
+	 * [Test] Retrieves pages of summary records (csw:SummaryRecord) at increasing
+	 * offsets into the result set, and reports the change in response time with the
+	 * offset.
+	 */
+	@Test(description = "Informative - Deep paging")
+	public void deepPagingLatency() {
+		assertDeepPaging(MediaType.APPLICATION_XML_TYPE);
+	}
+
+	/**
+	 * [Test] Retrieves pages of Atom entries at increasing offsets into the result set.
+	 * The change in response time with the offset is reported, as is any feed whose
+	 * os:startIndex element does not agree with the requested start position.
+	 *
+	 * @see "OGC Catalogue Services 3.0 Specification - HTTP Protocol Binding, 7.3.6: Atom
+	 * response"
+	 * @see "OGC OpenSearch Geo and Time Extensions, Table 6"
+	 */
+	@Test(description = "Informative - Deep paging (Atom)")
+	public void deepPagingLatencyAsAtomFeed() {
+		assertDeepPaging(MediaType.APPLICATION_ATOM_XML_TYPE);
+	}
+
+	/**
+	 * Requests pages at increasing offsets in the given representation and reports the
+	 * resulting latency profile, along with any page whose content is not as expected.
+	 * @param mediaType The media type of the response (application/xml or
+	 * application/atom+xml).
+	 */
+	void assertDeepPaging(MediaType mediaType) {
+		boolean isFeed = mediaType.equals(MediaType.APPLICATION_ATOM_XML_TYPE);
+		Map<String, String> qryParams = new HashMap<>();
+		qryParams.put(CAT3.REQUEST, CAT3.GET_RECORDS);
+		qryParams.put(CAT3.SERVICE, CAT3.SERVICE_TYPE_CODE);
+		qryParams.put(CAT3.VERSION, CAT3.VERSION_3_0_0);
+		qryParams.put(CAT3.TYPE_NAMES, "Record");
+		qryParams.put(CAT3.ELEMENT_SET, CAT3.ELEMENT_SET_SUMMARY);
+		qryParams.put(CAT3.MAX_RECORDS, Integer.toString(PAGE_SIZE));
+		if (isFeed) {
+			qryParams.put(CAT3.OUTPUT_FORMAT, MediaType.APPLICATION_ATOM_XML);
+		}
+		DeepPagingProfile profile = new DeepPagingProfile();
+		ResponseMetrics first = fetchPage(qryParams, 1, mediaType);
+		String failure = checkResponse(first, 1);
+		if (null != failure) {
+			throw new SkipException(failure);
+		}
+		long numMatched = first.getNumberOfRecordsMatched();
+		if (numMatched <= PAGE_SIZE) {
+			throw new SkipException("Result set is too small to examine deep pages: " + numMatched);
+		}
+		profile.add(1, first);
+		List<String> discrepancies = new ArrayList<>();
+		for (long startPosition : startPositions(numMatched)) {
+			ResponseMetrics metrics = fetchPage(qryParams, (int) startPosition, mediaType);
+			failure = checkResponse(metrics, startPosition);
+			if (null != failure) {
+				discrepancies.add(failure);
+				break;
+			}
+			int expected = (int) Math.min(PAGE_SIZE, numMatched - startPosition + 1);
+			if (metrics.getRecordCount() != expected) {
+				discrepancies.add(String.format("startPosition=%d: %d %s (expected %d)", startPosition,
+						metrics.getRecordCount(), isFeed ? "atom:entry" : "csw:SummaryRecord", expected));
+			}
+			if (isFeed && metrics.getRecordPage().getStartIndex() != startPosition) {
+				discrepancies.add(String.format("startPosition=%d: os:startIndex=%d", startPosition,
+						metrics.getRecordPage().getStartIndex()));
+			}
+			profile.add(startPosition, metrics);
+		}
+		TestSuiteLogger.log(Level.INFO,
+				String.format("GetRecords deep paging (%s, %d records matched):%n%s", mediaType, numMatched, profile));
+		if (!discrepancies.isEmpty()) {
+			TestSuiteLogger.log(Level.WARNING, String.format("GetRecords deep paging (%s) returned unexpected pages:%n%s",
+					mediaType, String.join("\n", discrepancies)));
+		}
+		ITestResult result = Reporter.getCurrentTestResult();
+		if (null != result) {
+			result.setAttribute(PROFILE_ATTRIBUTE, profile.toString());
+		}
+		if (profile.isDegraded(MAX_SLOWDOWN, MIN_GROWTH_MICROS)) {
+			TestSuiteLogger.log(Level.WARNING,
+					ErrorMessage.format(ErrorMessageKeys.DEEP_PAGING_DEGRADATION, profile.toString()));
+		}
+	}
+
+	/**
+	 * Determines the start positions of the pages to request after the first one. These
+	 * are the elements of {@link #START_POSITIONS} that lie within the result set,
+	 * followed by the position of the last page.
+	 * @param numMatched The number of records in the result set.
+	 * @return A list of start positions in ascending order.
+	 */
+	static List<Long> startPositions(long numMatched) {
+		long lastPage = Math.min(Math.max(numMatched - PAGE_SIZE + 1, 1), Integer.MAX_VALUE);
+		List<Long> positions = new ArrayList<>();
+		for (int startPosition : START_POSITIONS) {
+			if (startPosition > 1 && startPosition < lastPage) {
+				positions.add((long) startPosition);
+			}
+		}
+		if (lastPage > 1) {
+			positions.add(lastPage);
+		}
+		return positions;
+	}
+
+	/**
+	 * Checks that a request for a page succeeded.
+	 * @param metrics The measurements of the response.
+	 * @param startPosition The position of the first record in the page.
+	 * @return A description of the failure, or null if the page was retrieved.
+	 */
+	private static String checkResponse(ResponseMetrics metrics, long startPosition) {
+		if (metrics.getStatus() != Response.Status.OK.getStatusCode()) {
+			return String.format("startPosition=%d: status %d", startPosition, metrics.getStatus());
+		}
+		if (null == metrics.getRecordPage()) {
+			return String.format("startPosition=%d: %s", startPosition,
+					ErrorMessage.format(ErrorMessageKeys.XML_ERROR, "GetRecords response"));
+		}
+		return null;
+	}
+
+	/**
+	 * Requests a page of results and returns the fastest of several responses, or the
+	 * first one that does not succeed.
+	 * @param qryParams The query parameters (startPosition is set).
+	 * @param startPosition The position of the first record in the page.
+	 * @param mediaType The acceptable media type.
+	 * @return The measurements of the selected response.
+	 */
+	private ResponseMetrics fetchPage(Map<String, String> qryParams, int startPosition, MediaType mediaType) {
+		qryParams.put(CAT3.START_POS, Integer.toString(startPosition));
+		ResponseMetrics fastest = null;
+		for (int i = 0; i < REPETITIONS; i++) {
+			ResponseMetrics metrics = ClientUtils.measureGetRequest(this.streamingClient, this.getURI, qryParams,
+					mediaType);
+			if (null != checkResponse(metrics, startPosition)) {
+				return metrics;
+			}
+			if (null == fastest || metrics.getLatencyMicros() < fastest.getLatencyMicros()) {
+				fastest = metrics;
+			}
+		}
+		return fastest;
+	}
+
+}
@@ -101,7 +101,7 @@ public class GetCapabilitiesTests extends CommonFixture {
 		Assert.assertEquals(response.getStatus(), Response.Status.OK.getStatusCode(),
 				ErrorMessage.get(ErrorMessageKeys.UNEXPECTED_STATUS));
 		Source source = ClientUtils.getResponseEntityAsSource(response, null);
-		Validator validator = this.cswSchema.newValidator();
+		Validator validator = newCSWValidator();
 		ETSAssert.assertSchemaValid(validator, source);
 		URL schemaUrl = getClass().getResource(SCHEMATRON_CSW_CAPABILITIES);
 		ETSAssert.assertSchematronValid(schemaUrl, source);
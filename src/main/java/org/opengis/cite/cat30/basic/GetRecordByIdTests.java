@@ -21,8 +21,10 @@ import org.opengis.cite.cat30.ErrorMessage;
 import org.opengis.cite.cat30.ErrorMessageKeys;
 import org.opengis.cite.cat30.Namespaces;
 import org.opengis.cite.cat30.SuiteAttribute;
+import org.opengis.cite.cat30.util.CSWClient;
 import org.opengis.cite.cat30.util.ClientUtils;
 import org.opengis.cite.cat30.util.DatasetInfo;
+import org.opengis.cite.cat30.util.RecordByIdVerifier;
 import org.opengis.cite.cat30.util.ServiceMetadataUtils;
 import org.opengis.cite.cat30.util.XMLUtils;
 import org.opengis.cite.validation.ValidationErrorHandler;
@@ -35,6 +37,7 @@ import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 
 import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.client.Client;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 
@@ -74,6 +77,16 @@ import jakarta.ws.rs.core.Response;
  */
 public class GetRecordByIdTests extends CommonFixture {
 
+	/**
+	 * The number of records requested per page when harvesting record identifiers.
+	 */
+	static final int HARVEST_PAGE_SIZE = 100;
+
+	/**
+	 * The maximum number of failed records listed in an assertion message.
+	 */
+	static final int MAX_REPORTED_FAILURES = 20;
+
 	/**
 	 * Service endpoint for GetRecordById using the GET method.
 	 */
@@ -126,6 +139,45 @@ public class GetRecordByIdTests extends CommonFixture {
 		setIdList(identifiers);
 	}
 
+	/**
+	 * [Test] Verifies that every record in the catalog can be retrieved by identifier in
+	 * all of the following representations: csw:BriefRecord, csw:SummaryRecord,
+	 * csw:Record, and atom:entry. This test is only run if the
+	 * {@link org.opengis.cite.cat30.TestRunArg#EXHAUSTIVE exhaustive} test run argument
+	 * is true.
+	 *
+	 * <p>
+	 * The record identifiers are harvested by paging through the result set of an
+	 * unfiltered GetRecords request. The records are then retrieved concurrently (with a
+	 * limit on the number of requests in progress).
+	 * </p>
+	 * @param testContext The test context containing various suite attributes.
+	 * @throws InterruptedException If the test is interrupted before all records have
+	 * been checked.
+	 *
+	 * @see "OGC 12-176r6, 7.4.4.1: ElementSetName parameter"
+	 * @see "OGC 12-176r6, 7.4.4.2: Id parameter"
+	 */
+	@Test(description = "Requirements: 003,123,124,134,139")
+	public void getEveryRecordById(ITestContext testContext) throws InterruptedException {
+		Object exhaustive = testContext.getSuite().getAttribute(SuiteAttribute.EXHAUSTIVE.getName());
+		if (!Boolean.TRUE.equals(exhaustive)) {
+			throw new SkipException("Exhaustive checks not enabled.");
+		}
+		CSWClient cswClient = new CSWClient();
+		cswClient.setServiceDescription(this.cswCapabilities);
+		List<String> identifiers = cswClient.harvestRecordIdentifiers(HARVEST_PAGE_SIZE, Integer.MAX_VALUE);
+		if (identifiers.isEmpty()) {
+			identifiers = this.idList;
+		}
+		Client sharedClient = (null != this.client) ? this.client : ClientUtils.getSharedClient();
+		RecordByIdVerifier verifier = new RecordByIdVerifier(this.getURI, sharedClient);
+		RecordByIdVerifier.StatusTable results = verifier.verifyAll(identifiers);
+		int failures = results.getFailureCount();
+		Assert.assertEquals(failures, 0, ErrorMessage.format(ErrorMessageKeys.RECORD_RETRIEVAL, failures,
+				results.size(), results.summarize(MAX_REPORTED_FAILURES)));
+	}
+
 	/**
 	 * [Test] Verifies that a request for a record by identifier produces a response with
 	 * status code 404 (Not Found) if no matching resource representation is found. A
@@ -194,7 +246,7 @@ public class GetRecordByIdTests extends CommonFixture {
 		Document entity = ClientUtils.getResponseEntityAsDocument(response, null);
 		String expr = String.format("/csw:BriefRecord/dc:identifier = '%s'", id);
 		ETSAssert.assertXPath(expr, entity, null);
-		Validator validator = this.cswSchema.newValidator();
+		Validator validator = newCSWValidator();
 		ETSAssert.assertSchemaValid(validator, new DOMSource(entity));
 	}
 
@@ -220,7 +272,7 @@ public class GetRecordByIdTests extends CommonFixture {
 		Document entity = ClientUtils.getResponseEntityAsDocument(response, null);
 		String expr = String.format("/csw:Record/dc:identifier = '%s'", id);
 		ETSAssert.assertXPath(expr, entity, null);
-		Validator validator = this.cswSchema.newValidator();
+		Validator validator = newCSWValidator();
 		ETSAssert.assertSchemaValid(validator, new DOMSource(entity));
 	}
 
@@ -272,7 +324,7 @@ public class GetRecordByIdTests extends CommonFixture {
 		Map<String, String> nsBindings = Collections.singletonMap(Namespaces.ATOM, "atom");
 		String expr = String.format("/atom:entry/dc:identifier = '%s'", id);
 		ETSAssert.assertXPath(expr, entity, nsBindings);
-		Validator atomValidator = this.atomSchema.newValidator();
+		Validator atomValidator = newAtomValidator();
 		ValidationErrorHandler err = new ValidationErrorHandler();
 		atomValidator.setErrorHandler(err);
 		try {
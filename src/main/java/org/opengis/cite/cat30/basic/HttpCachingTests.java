@@ -0,0 +1,124 @@
+package org.opengis.cite.cat30.basic;
+
+import java.net.URI;
+import java.util.logging.Level;
+
+import org.opengis.cite.cat30.CAT3;
+import org.opengis.cite.cat30.CommonFixture;
+import org.opengis.cite.cat30.ErrorMessage;
+import org.opengis.cite.cat30.ErrorMessageKeys;
+import org.opengis.cite.cat30.util.ClientUtils;
+import org.opengis.cite.cat30.util.ResponseCache;
+import org.opengis.cite.cat30.util.ResponseCache.CachedResponse;
+import org.opengis.cite.cat30.util.ServiceMetadataUtils;
+import org.opengis.cite.cat30.util.TestSuiteLogger;
+import org.opengis.cite.cat30.util.XMLUtils;
+import org.testng.SkipException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Checks whether the service descriptions presented by the IUT can be revalidated by
+ * means of conditional requests. If a response includes a validator (an
+ * <code>ETag</code> or <code>Last-Modified</code> header), a subsequent conditional
+ * request (with an <code>If-None-Match</code> or <code>If-Modified-Since</code> header)
+ * for the unchanged resource should elicit a 304 (Not Modified) response without an
+ * entity. The number of bytes and the time saved by revalidation are reported.
+ * Revalidation is optional (a server may always send the full representation), so these
+ * tests are informational: a response that was not revalidated is reported as a
+ * warning.
+ *
+ * <p>
+ * Harvesters that poll a catalogue depend on conditional requests to avoid repeatedly
+ * transferring documents that have not changed. A test is skipped if the IUT does not
+ * present any validators.
+ * </p>
+ *
+ * @see <a href="https://www.rfc-editor.org/rfc/rfc9110#section-13" target="_blank">RFC
+ * 9110, 13: Conditional Requests</a>
+ */
+public class HttpCachingTests extends CommonFixture {
+
+	private URI getCapabilitiesURI;
+
+	private Client client;
+
+	/**
+	 * Finds the GET method endpoint for the GetCapabilities request in the capabilities
+	 * document and builds a client component.
+	 */
+	@BeforeClass
+	public void initHttpCachingTestsFixture() {
+		this.getCapabilitiesURI = ServiceMetadataUtils.getOperationEndpoint(this.cswCapabilities,
+				CAT3.GET_CAPABILITIES, HttpMethod.GET);
+		if (null == this.getCapabilitiesURI.getScheme()) {
+			throw new SkipException("GET endpoint for GetCapabilities request not found.");
+		}
+		this.client = ClientUtils.buildStreamingClient();
+	}
+
+	/**
+	 * Releases the client component.
+	 */
+	@AfterClass(alwaysRun = true)
+	public void closeClient() {
+		if (null != this.client) {
+			this.client.close();
+		}
+	}
+
+	/**
+	 * [Test] Retrieves the capabilities document and then revalidates it using a
+	 * conditional request, and reports whether it was revalidated.
+	 */
+	@Test(description = "Informative - Revalidate capabilities document")
+	public void revalidateCapabilities() {
+		assertRevalidation("Capabilities", this.getCapabilitiesURI, MediaType.APPLICATION_XML_TYPE);
+	}
+
+	/**
+	 * [Test] Retrieves the OpenSearch description document and then revalidates it using
+	 * a conditional request, and reports whether it was revalidated.
+	 */
+	@Test(description = "Informative - Revalidate OpenSearch description")
+	public void revalidateOpenSearchDescription() {
+		assertRevalidation("OpenSearch description", this.getCapabilitiesURI,
+				MediaType.valueOf(CAT3.APP_VND_OPENSEARCH_XML), MediaType.valueOf(CAT3.APP_OPENSEARCH_XML));
+	}
+
+	/**
+	 * Retrieves a document twice (the second time by means of a conditional request) and
+	 * reports whether the cached representation was revalidated.
+	 * @param name The name of the document.
+	 * @param uri The URI from which the document is retrieved.
+	 * @param mediaTypes A list of acceptable media types.
+	 */
+	void assertRevalidation(String name, URI uri, MediaType... mediaTypes) {
+		ResponseCache cache = new ResponseCache(this.client);
+		CachedResponse first = cache.get(uri, mediaTypes);
+		if (first.getStatus() != Response.Status.OK.getStatusCode() || !XMLUtils.isXML(first.getMediaType())) {
+			throw new SkipException(String.format("%s not available (status %d, media type %s).", name,
+					first.getStatus(), first.getMediaType()));
+		}
+		if (!first.hasValidator()) {
+			TestSuiteLogger.log(Level.INFO, name + " response does not include an ETag or Last-Modified header.");
+			throw new SkipException(name + " cannot be revalidated: no validators (ETag, Last-Modified) presented.");
+		}
+		CachedResponse second = cache.get(uri, mediaTypes);
+		TestSuiteLogger.log(Level.INFO, String.format(
+				"%s revalidation (ETag: %s, Last-Modified: %s): revalidated=%b, bytes %d -> %d, latency %.1f -> %.1f ms",
+				name, first.getEntityTag(), first.getLastModified(), second.isRevalidated(), first.getReceivedBytes(),
+				second.getReceivedBytes(), first.getLatencyMicros() / 1000.0, second.getLatencyMicros() / 1000.0));
+		if (!second.isRevalidated()) {
+			TestSuiteLogger.log(Level.WARNING, ErrorMessage.format(ErrorMessageKeys.NOT_REVALIDATED, name,
+					second.getStatus(), first.getEntityTag(), first.getLastModified()));
+		}
+	}
+
+}
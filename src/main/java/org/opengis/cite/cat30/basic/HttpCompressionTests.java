@@ -0,0 +1,137 @@
+package org.opengis.cite.cat30.basic;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+
+import org.opengis.cite.cat30.CAT3;
+import org.opengis.cite.cat30.CommonFixture;
+import org.opengis.cite.cat30.ErrorMessage;
+import org.opengis.cite.cat30.ErrorMessageKeys;
+import org.opengis.cite.cat30.util.ClientUtils;
+import org.opengis.cite.cat30.util.CompressionFilter;
+import org.opengis.cite.cat30.util.CompressionFilter.Transfer;
+import org.opengis.cite.cat30.util.ResponseMetrics;
+import org.opengis.cite.cat30.util.ServiceMetadataUtils;
+import org.opengis.cite.cat30.util.TestSuiteLogger;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Checks whether the IUT compresses response entities when the client indicates that it
+ * accepts the "gzip" and "deflate" content codings. A page of full records is requested
+ * in each of the csw:GetRecordsResponse and Atom representations; the response must use
+ * one of the acceptable codings (or none), and the decoded entity must contain the
+ * records. The content coding, the encoded and decoded sizes, and the compression ratio
+ * are reported. An IUT that does not compress response entities passes.
+ *
+ * @see <a href="https://www.rfc-editor.org/rfc/rfc9110#section-12.5.3" target=
+ * "_blank">RFC 9110, 12.5.3: Accept-Encoding</a>
+ */
+public class HttpCompressionTests extends CommonFixture {
+
+	/**
+	 * The content codings that may be used in a response.
+	 */
+	static final Set<String> ACCEPTABLE_CODINGS = Set.of("identity", "gzip", "x-gzip", "deflate");
+
+	/**
+	 * The number of records in a page.
+	 */
+	static final int PAGE_SIZE = 10;
+
+	private URI getURI;
+
+	private CompressionFilter compressionFilter;
+
+	private Client client;
+
+	/**
+	 * Finds the GET method endpoint for the GetRecords request in the capabilities
+	 * document and builds a client component that requests compressed entities.
+	 */
+	@BeforeClass
+	public void initHttpCompressionTestsFixture() {
+		this.getURI = ServiceMetadataUtils.getOperationEndpoint(this.cswCapabilities, CAT3.GET_RECORDS, HttpMethod.GET);
+		if (null == this.getURI.getScheme()) {
+			throw new SkipException("GET endpoint for GetRecords request not found.");
+		}
+		this.compressionFilter = new CompressionFilter(true);
+		this.client = ClientUtils.buildStreamingClient(this.compressionFilter);
+	}
+
+	/**
+	 * Releases the client component.
+	 */
+	@AfterClass(alwaysRun = true)
+	public void closeClient() {
+		if (null != this.client) {
+			this.client.close();
+		}
+	}
+
+	/**
+	 * [Test] Requests a page of full records (csw:Record) with an Accept-Encoding header
+	 * that includes "gzip" and "deflate". The response must use an acceptable content
+	 * coding, and the decoded entity must contain the records.
+	 */
+	@Test(description = "RFC 9110, 12.5.3 - Compressed GetRecords response")
+	public void compressFullRecords() {
+		assertCompression(MediaType.APPLICATION_XML_TYPE);
+	}
+
+	/**
+	 * [Test] Requests a page of Atom entries with an Accept-Encoding header that includes
+	 * "gzip" and "deflate". The response must use an acceptable content coding, and the
+	 * decoded entity must contain the entries.
+	 */
+	@Test(description = "RFC 9110, 12.5.3 - Compressed Atom feed")
+	public void compressAtomFeed() {
+		assertCompression(MediaType.APPLICATION_ATOM_XML_TYPE);
+	}
+
+	/**
+	 * Requests a page of full records in the given representation and checks the content
+	 * coding of the response.
+	 * @param mediaType The media type of the response (application/xml or
+	 * application/atom+xml).
+	 */
+	void assertCompression(MediaType mediaType) {
+		Map<String, String> qryParams = new HashMap<>();
+		qryParams.put(CAT3.REQUEST, CAT3.GET_RECORDS);
+		qryParams.put(CAT3.SERVICE, CAT3.SERVICE_TYPE_CODE);
+		qryParams.put(CAT3.VERSION, CAT3.VERSION_3_0_0);
+		qryParams.put(CAT3.TYPE_NAMES, "Record");
+		qryParams.put(CAT3.ELEMENT_SET, CAT3.ELEMENT_SET_FULL);
+		qryParams.put(CAT3.MAX_RECORDS, Integer.toString(PAGE_SIZE));
+		if (mediaType.equals(MediaType.APPLICATION_ATOM_XML_TYPE)) {
+			qryParams.put(CAT3.OUTPUT_FORMAT, MediaType.APPLICATION_ATOM_XML);
+		}
+		ResponseMetrics metrics = ClientUtils.measureGetRequest(this.client, this.getURI, qryParams, mediaType);
+		Assert.assertEquals(metrics.getStatus(), Response.Status.OK.getStatusCode(),
+				ErrorMessage.get(ErrorMessageKeys.UNEXPECTED_STATUS));
+		List<Transfer> transfers = this.compressionFilter.getTransfers();
+		Assert.assertFalse(transfers.isEmpty(), ErrorMessage.get(ErrorMessageKeys.MISSING_ENTITY));
+		Transfer transfer = transfers.get(transfers.size() - 1);
+		TestSuiteLogger.log(Level.INFO, String.format("GetRecords (%s) compression: %s, saved %d bytes", mediaType,
+				transfer, transfer.getDecodedBytes() - transfer.getEncodedBytes()));
+		Assert.assertTrue(ACCEPTABLE_CODINGS.contains(transfer.getContentCoding()),
+				ErrorMessage.format(ErrorMessageKeys.UNACCEPTABLE_CODING, transfer.getContentCoding()));
+		Assert.assertNotNull(metrics.getRecordPage(),
+				ErrorMessage.format(ErrorMessageKeys.XML_ERROR, "Decoded entity is not well-formed."));
+		Assert.assertTrue(metrics.getRecordCount() > 0,
+				ErrorMessage.format(ErrorMessageKeys.EMPTY_RESULT_SET, "record"));
+	}
+
+}
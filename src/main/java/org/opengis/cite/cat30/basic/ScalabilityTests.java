@@ -0,0 +1,208 @@
+package org.opengis.cite.cat30.basic;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+
+import org.opengis.cite.cat30.CAT3;
+import org.opengis.cite.cat30.CommonFixture;
+import org.opengis.cite.cat30.ErrorMessage;
+import org.opengis.cite.cat30.ErrorMessageKeys;
+import org.opengis.cite.cat30.SuiteAttribute;
+import org.opengis.cite.cat30.util.ClientUtils;
+import org.opengis.cite.cat30.util.ResponseMetrics;
+import org.opengis.cite.cat30.util.ScalingCurve;
+import org.opengis.cite.cat30.util.ServiceMetadataUtils;
+import org.opengis.cite.cat30.util.TestSuiteLogger;
+import org.testng.ITestContext;
+import org.testng.ITestResult;
+import org.testng.Reporter;
+import org.testng.SkipException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Measures how the response time of a <code>GetRecords</code> request grows with the
+ * size of the response. Unfiltered requests are submitted for each element set (brief,
+ * summary, full) with increasing values of the <code>maxRecords</code> parameter; the
+ * latency, entity size and record delivery rate are recorded for each request, and a
+ * {@link ScalingCurve} is fitted to the measurements. The curve is informational, since no
+ * specification constrains the performance of a catalogue service: it is logged and
+ * attached to the test result (see {@link #SCALING_ATTRIBUTE}), and super-linear growth
+ * of the response time with the number of records returned is reported as a warning.
+ *
+ * <p>
+ * Response entities are read as a stream by a client that does not buffer them; a DOM is
+ * not constructed. Each request is repeated {@value #REPETITIONS} times and the fastest
+ * response is retained. The sweep stops early if a response contains fewer records than
+ * requested (because the result set is exhausted or the service limits the size of a
+ * response), or if a request does not succeed (the status code is reported).
+ * </p>
+ *
+ * <p>
+ * These tests are only run if the {@link org.opengis.cite.cat30.TestRunArg#PERFORMANCE
+ * performance} test run argument is true.
+ * </p>
+ */
+public class ScalabilityTests extends CommonFixture {
+
+	/** The name of the test result attribute that holds the fitted scaling curve. */
+	public static final String SCALING_ATTRIBUTE = "scalingCurve";
+
+	/**
+	 * The requested response sizes.
+	 */
+	static final int[] MAX_RECORDS = { 1, 10, 100, 1000 };
+
+	/**
+	 * The number of times each request is submitted.
+	 */
+	static final int REPETITIONS = 3;
+
+	/**
+	 * The largest scaling exponent not reported as super-linear.
+	 */
+	static final double MAX_EXPONENT = 1.25;
+
+	/**
+	 * The smallest increase in latency (in microseconds) deemed significant.
+	 */
+	static final long MIN_GROWTH_MICROS = 50000;
+
+	/**
+	 * Service endpoint for GetRecords using the GET method.
+	 */
+	private URI getURI;
+
+	/**
+	 * A client component that does not buffer response entities.
+	 */
+	private Client streamingClient;
+
+	/**
+	 * Finds the GET method endpoint for the GetRecords request in the capabilities
+	 * document and builds a client component.
+	 * @param testContext The test context containing various suite attributes.
+	 */
+	@BeforeClass
+	public void initScalabilityTestsFixture(ITestContext testContext) {
+		Object performance = testContext.getSuite().getAttribute(SuiteAttribute.PERFORMANCE.getName());
+		if (!Boolean.TRUE.equals(performance)) {
+			throw new SkipException("Performance tests not enabled.");
+		}
+		this.getURI = ServiceMetadataUtils.getOperationEndpoint(this.cswCapabilities, CAT3.GET_RECORDS, HttpMethod.GET);
+		if (null == this.getURI.getScheme()) {
+			throw new SkipException("GET endpoint for GetRecords request not found.");
+		}
+		this.streamingClient = ClientUtils.buildStreamingClient();
+	}
+
+	/**
+	 * Releases the client component.
+	 */
+	@AfterClass(alwaysRun = true)
+	public void closeStreamingClient() {
+		if (null != this.streamingClient) {
+			this.streamingClient.close();
+		}
+	}
+
+	/**
+	 * [Test] Measures the response time of GetRecords requests for brief records
+	 * (csw:BriefRecord) of increasing size, and reports how the response time grows.
+	 */
+	@Test(description = "Informative - Scalability (brief records)")
+	public void briefRecordScaling() {
+		assertLinearScaling(CAT3.ELEMENT_SET_BRIEF);
+	}
+
+	/**
+	 * [Test] Measures the response time of GetRecords requests for summary records
+	 * (csw:SummaryRecord) of increasing size, and reports how the response time grows.
+	 */
+	@Test(description = "Informative - Scalability (summary records)")
+	public void summaryRecordScaling() {
+		assertLinearScaling(CAT3.ELEMENT_SET_SUMMARY);
+	}
+
+	/**
+	 * [Test] Measures the response time of GetRecords requests for full records
+	 * (csw:Record) of increasing size, and reports how the response time grows.
+	 */
+	@Test(description = "Informative - Scalability (full records)")
+	public void fullRecordScaling() {
+		assertLinearScaling(CAT3.ELEMENT_SET_FULL);
+	}
+
+	/**
+	 * Sweeps the response sizes for the given element set and reports the fitted scaling
+	 * curve.
+	 * @param elementSet The name of an element set (brief, summary, or full).
+	 */
+	void assertLinearScaling(String elementSet) {
+		Map<String, String> qryParams = new HashMap<>();
+		qryParams.put(CAT3.REQUEST, CAT3.GET_RECORDS);
+		qryParams.put(CAT3.SERVICE, CAT3.SERVICE_TYPE_CODE);
+		qryParams.put(CAT3.VERSION, CAT3.VERSION_3_0_0);
+		qryParams.put(CAT3.TYPE_NAMES, "Record");
+		qryParams.put(CAT3.ELEMENT_SET, elementSet);
+		ScalingCurve curve = new ScalingCurve();
+		String failure = null;
+		for (int maxRecords : MAX_RECORDS) {
+			qryParams.put(CAT3.MAX_RECORDS, Integer.toString(maxRecords));
+			ResponseMetrics fastest = measureFastest(qryParams);
+			if (fastest.getStatus() != Response.Status.OK.getStatusCode()) {
+				failure = String.format("GetRecords (%s, maxRecords=%d) returned status %d.", elementSet, maxRecords,
+						fastest.getStatus());
+				TestSuiteLogger.log(Level.WARNING, failure);
+				break;
+			}
+			curve.add(maxRecords, fastest);
+			if (fastest.getRecordCount() < maxRecords) {
+				break;
+			}
+		}
+		TestSuiteLogger.log(Level.INFO, String.format("GetRecords scaling (%s):%n%s", elementSet, curve));
+		if (Double.isNaN(curve.getExponent())) {
+			String reason = (null != failure) ? failure : "Too few response sizes to fit a scaling curve.";
+			throw new SkipException(reason + "\n" + curve);
+		}
+		ITestResult result = Reporter.getCurrentTestResult();
+		if (null != result) {
+			result.setAttribute(SCALING_ATTRIBUTE, curve.toString());
+		}
+		if (curve.isSuperLinear(MAX_EXPONENT, MIN_GROWTH_MICROS)) {
+			TestSuiteLogger.log(Level.WARNING,
+					ErrorMessage.format(ErrorMessageKeys.SUPER_LINEAR_SCALING, elementSet, curve.toString()));
+		}
+	}
+
+	/**
+	 * Submits a GetRecords request {@value #REPETITIONS} times and returns the fastest
+	 * response, or the first unsuccessful one.
+	 * @param qryParams The query parameters.
+	 * @return The metrics of the selected response.
+	 */
+	private ResponseMetrics measureFastest(Map<String, String> qryParams) {
+		ResponseMetrics fastest = null;
+		for (int i = 0; i < REPETITIONS; i++) {
+			ResponseMetrics metrics = ClientUtils.measureGetRequest(this.streamingClient, this.getURI, qryParams,
+					MediaType.APPLICATION_XML_TYPE);
+			if (metrics.getStatus() != Response.Status.OK.getStatusCode()) {
+				return metrics;
+			}
+			if (null == fastest || metrics.getLatencyMicros() < fastest.getLatencyMicros()) {
+				fastest = metrics;
+			}
+		}
+		return fastest;
+	}
+
+}
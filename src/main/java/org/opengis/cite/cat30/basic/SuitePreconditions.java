@@ -5,6 +5,8 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.logging.Level;
 
 import javax.xml.transform.stream.StreamSource;
@@ -14,7 +16,9 @@ import javax.xml.xpath.XPathExpressionException;
 import org.opengis.cite.cat30.CAT3;
 import org.opengis.cite.cat30.Namespaces;
 import org.opengis.cite.cat30.SuiteAttribute;
+import org.opengis.cite.cat30.TestRunArg;
 import org.opengis.cite.cat30.util.CSWClient;
+import org.opengis.cite.cat30.util.ClientUtils;
 import org.opengis.cite.cat30.util.DatasetInfo;
 import org.opengis.cite.cat30.util.ServiceMetadataUtils;
 import org.opengis.cite.cat30.util.TestSuiteLogger;
@@ -51,6 +55,8 @@ public class SuitePreconditions {
 			try {
 				URL url = getCapabilitiesGET.toURL();
 				URLConnection connection = url.openConnection();
+				connection.setConnectTimeout(ClientUtils.CONNECT_TIMEOUT_MILLIS);
+				connection.setReadTimeout(ClientUtils.CONNECT_TIMEOUT_MILLIS);
 				connection.connect();
 			}
 			catch (IOException iox) {
@@ -76,16 +82,24 @@ public class SuitePreconditions {
 	 * successful service requests (e.g. a GetRecordById request that produces a matching
 	 * record, GetRecords request with a spatial filter).
 	 * </p>
+	 *
+	 * <p>
+	 * If the {@link TestRunArg#DATASET dataset} test run argument refers to an existing
+	 * file, a copy of it is used instead of fetching records from the IUT.
+	 * </p>
 	 */
 	@BeforeSuite
 	public void fetchSampleData() {
 		ITestContext testContext = Reporter.getCurrentTestResult().getTestContext();
-		Document capabilitiesDoc = (Document) testContext.getSuite()
-			.getAttribute(SuiteAttribute.TEST_SUBJECT.getName());
-		CSWClient cswClient = new CSWClient();
-		cswClient.setServiceDescription(capabilitiesDoc);
-		File dataFile = cswClient.saveFullRecords(20, MediaType.APPLICATION_XML_TYPE);
-		if (!dataFile.isFile()) {
+		File dataFile = copySampleData(testContext.getSuite().getParameter(TestRunArg.DATASET.toString()));
+		if (null == dataFile) {
+			Document capabilitiesDoc = (Document) testContext.getSuite()
+				.getAttribute(SuiteAttribute.TEST_SUBJECT.getName());
+			CSWClient cswClient = new CSWClient();
+			cswClient.setServiceDescription(capabilitiesDoc);
+			dataFile = cswClient.saveFullRecords(20, MediaType.APPLICATION_XML_TYPE);
+		}
+		if (null == dataFile || !dataFile.isFile()) {
 			throw new AssertionError("Failed to save GetRecords response to temp file.");
 		}
 		Boolean hasResults = null;
@@ -105,4 +119,31 @@ public class SuitePreconditions {
 		testContext.getSuite().setAttribute(SuiteAttribute.DATASET.getName(), dataset);
 	}
 
+	/**
+	 * Copies a shared sample data file to a temporary file (which is deleted when the
+	 * suite finishes).
+	 * @param dataset The value of the dataset test run argument (may be null).
+	 * @return The copy, or null if no sample data file was given or it cannot be read.
+	 */
+	File copySampleData(String dataset) {
+		if (null == dataset || dataset.isBlank()) {
+			return null;
+		}
+		String path = dataset.trim();
+		File source = path.startsWith("file:") ? new File(URI.create(path)) : new File(path);
+		if (!source.isFile()) {
+			TestSuiteLogger.log(Level.WARNING, "Sample data file not found: " + source);
+			return null;
+		}
+		try {
+			File dataFile = File.createTempFile("records-", ".xml");
+			Files.copy(source.toPath(), dataFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			return dataFile;
+		}
+		catch (IOException iox) {
+			TestSuiteLogger.log(Level.WARNING, "Failed to copy sample data file " + source, iox);
+			return null;
+		}
+	}
+
 }
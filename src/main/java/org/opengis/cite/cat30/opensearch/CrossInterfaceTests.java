@@ -0,0 +1,252 @@
+package org.opengis.cite.cat30.opensearch;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.xml.namespace.QName;
+
+import org.apache.sis.geometry.Envelopes;
+import org.apache.sis.geometry.GeneralEnvelope;
+import org.apache.sis.referencing.CommonCRS;
+import org.opengis.cite.cat30.CAT3;
+import org.opengis.cite.cat30.CommonFixture;
+import org.opengis.cite.cat30.ErrorMessage;
+import org.opengis.cite.cat30.ErrorMessageKeys;
+import org.opengis.cite.cat30.Namespaces;
+import org.opengis.cite.cat30.SuiteAttribute;
+import org.opengis.cite.cat30.util.CSWClient;
+import org.opengis.cite.cat30.util.CrossInterfaceComparator;
+import org.opengis.cite.cat30.util.DatasetInfo;
+import org.opengis.cite.cat30.util.OpenSearchTemplateUtils;
+import org.opengis.cite.cat30.util.RecordFootprints;
+import org.opengis.cite.cat30.util.RecordPage;
+import org.opengis.cite.cat30.util.ServiceMetadataUtils;
+import org.opengis.cite.cat30.util.TermIndex;
+import org.opengis.cite.cat30.util.URIUtils;
+import org.opengis.cite.geomatics.Extents;
+import org.opengis.geometry.Envelope;
+import org.opengis.referencing.operation.TransformException;
+import org.opengis.util.FactoryException;
+import org.testng.Assert;
+import org.testng.ITestContext;
+import org.testng.SkipException;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import jakarta.ws.rs.core.MediaType;
+
+/**
+ * Verifies that equivalent queries submitted through different service interfaces
+ * produce the same result set. The following interfaces are compared:
+ * <ul>
+ * <li>KVP: a GetRecords request using the GET method;</li>
+ * <li>OpenSearch: a request constructed from a URL template for the Atom response
+ * type;</li>
+ * <li>GetRecordById: a request for a single record (identifier queries only).</li>
+ * </ul>
+ *
+ * <p>
+ * The record identifiers of each result set are retrieved page by page and compared
+ * using a {@link CrossInterfaceComparator}. At most {@value #RECORD_LIMIT} records are
+ * retrieved through each interface unless the
+ * {@link org.opengis.cite.cat30.TestRunArg#EXHAUSTIVE exhaustive} test run argument is
+ * true.
+ * </p>
+ *
+ * <p style="margin-bottom: 0.5em">
+ * <strong>Sources</strong>
+ * </p>
+ * <ul>
+ * <li>OGC 12-176r6, Table 6: KVP encoding for query constraints</li>
+ * <li>OGC 10-032r8: OGC OpenSearch Geo and Time Extensions, Version 1.0.0</li>
+ * </ul>
+ */
+public class CrossInterfaceTests extends CommonFixture {
+
+	/**
+	 * The number of records requested per page.
+	 */
+	static final int PAGE_SIZE = 50;
+
+	/**
+	 * The maximum number of records retrieved through each interface (unless exhaustive
+	 * checks are enabled).
+	 */
+	static final int RECORD_LIMIT = 1000;
+
+	/**
+	 * The number of records a text or bounding box query is expected to match.
+	 */
+	static final int SELECTIVE_QUERY_HITS = 10;
+
+	private static final QName SEARCH_TERMS_PARAM = new QName(Namespaces.OSD11, "searchTerms");
+
+	private static final QName BOX_PARAM = new QName(Namespaces.OS_GEO, "box");
+
+	private static final QName UID_PARAM = new QName(Namespaces.OS_GEO, "uid");
+
+	private List<Node> urlTemplates;
+
+	/**
+	 * Information about the sample data retrieved from the IUT.
+	 */
+	private DatasetInfo datasetInfo;
+
+	private CSWClient cswClient;
+
+	private int recordLimit;
+
+	/**
+	 * Initializes the test fixture. The URL templates are extracted from the OpenSearch
+	 * description document found in the test context.
+	 * @param testContext The test context containing various suite attributes.
+	 */
+	@BeforeClass
+	public void initCrossInterfaceTestsFixture(ITestContext testContext) {
+		Document openSearchDescr = (Document) testContext.getSuite()
+			.getAttribute(SuiteAttribute.OPENSEARCH_DESCR.getName());
+		if (null == openSearchDescr) {
+			throw new SkipException("OpenSearch description not found in test context.");
+		}
+		this.urlTemplates = ServiceMetadataUtils.getOpenSearchURLTemplates(openSearchDescr);
+		DatasetInfo dataset = (DatasetInfo) testContext.getSuite().getAttribute(SuiteAttribute.DATASET.getName());
+		if (null == dataset) {
+			throw new SkipException("Dataset info not found in test context.");
+		}
+		this.datasetInfo = dataset;
+		this.cswClient = new CSWClient();
+		this.cswClient.setServiceDescription(this.cswCapabilities);
+		Object exhaustive = testContext.getSuite().getAttribute(SuiteAttribute.EXHAUSTIVE.getName());
+		this.recordLimit = Boolean.TRUE.equals(exhaustive) ? Integer.MAX_VALUE : RECORD_LIMIT;
+	}
+
+	/**
+	 * [Test] Queries a randomly selected record by identifier using a KVP GetRecords
+	 * request (<code>recordIds</code>), an OpenSearch request (<code>{geo:uid}</code>),
+	 * and a GetRecordById request. All interfaces must find the same record.
+	 */
+	@Test(description = "OGC 12-176r6, Table 6 - Record search")
+	public void identifierQueryAcrossInterfaces() {
+		List<String> idList = this.datasetInfo.getRecordIdentifiers();
+		if (idList.isEmpty()) {
+			throw new SkipException("No record identifiers found in sample data.");
+		}
+		String id = idList.get(ThreadLocalRandom.current().nextInt(idList.size()));
+		CrossInterfaceComparator comparator = createComparator(CAT3.REC_ID_LIST, id, UID_PARAM,
+				URIUtils.getPercentEncodedString(id));
+		comparator.addSource("GetRecordById",
+				(startPosition, maxRecords) -> (startPosition > 1) ? new RecordPage(startPosition)
+						: this.cswClient.getRecordPageById(id));
+		assertSameResults(comparator, "identifier");
+	}
+
+	/**
+	 * [Test] Submits a text search for a term that occurs in a small number of sample
+	 * records using a KVP GetRecords request (<code>q</code>) and an OpenSearch request
+	 * (<code>{searchTerms}</code>). Both interfaces must produce the same result set.
+	 */
+	@Test(description = "OGC 12-176r6, Table 6 - Text search")
+	public void textQueryAcrossInterfaces() {
+		TermIndex termIndex = this.datasetInfo.getTermIndex();
+		String term = termIndex.selectTerm(SELECTIVE_QUERY_HITS, TermIndex.ALL_FIELDS);
+		if (null == term) {
+			throw new SkipException("No suitable search terms found in sample records.");
+		}
+		String encodedTerm = URIUtils.getPercentEncodedString(term);
+		CrossInterfaceComparator comparator = createComparator(CAT3.Q, encodedTerm, SEARCH_TERMS_PARAM,
+				encodedTerm);
+		assertSameResults(comparator, "text");
+	}
+
+	/**
+	 * [Test] Submits a bounding box query that matches a small number of sample records
+	 * using a KVP GetRecords request (<code>bbox</code>) and an OpenSearch request
+	 * (<code>{geo:box}</code>). The box is expressed in the normative CRS
+	 * ("urn:ogc:def:crs:OGC:1.3:CRS84"). Both interfaces must produce the same result
+	 * set.
+	 */
+	@Test(description = "OGC 12-176r6, Table 6 - Spatial search")
+	public void boundingBoxQueryAcrossInterfaces() {
+		RecordFootprints footprints = this.datasetInfo.getRecordFootprints();
+		if (footprints.size() == 0) {
+			throw new SkipException("No record footprints found in sample data.");
+		}
+		Envelope bbox;
+		try {
+			bbox = footprints.toEnvelope(footprints.selectQueryBox(SELECTIVE_QUERY_HITS));
+			if (!bbox.getCoordinateReferenceSystem().equals(CommonCRS.WGS84.normalizedGeographic())) {
+				bbox = new GeneralEnvelope(Envelopes.transform(bbox, CommonCRS.WGS84.normalizedGeographic()));
+			}
+		}
+		catch (FactoryException | TransformException ex) {
+			throw new RuntimeException("Failed to create CRS84 query envelope.", ex);
+		}
+		String boxValue = Extents.envelopeToString(bbox);
+		CrossInterfaceComparator comparator = createComparator(CAT3.BBOX, boxValue, BOX_PARAM, boxValue);
+		assertSameResults(comparator, "bounding box");
+	}
+
+	/**
+	 * Creates a comparator with KVP and OpenSearch sources for the given constraint. The
+	 * OpenSearch source is omitted if there is no suitable URL template.
+	 * @param kvpParam The name of the KVP query parameter.
+	 * @param kvpValue The value of the KVP query parameter.
+	 * @param templateParam The qualified name of the corresponding template parameter.
+	 * @param templateValue The (URL-encoded) value of the template parameter.
+	 * @return A CrossInterfaceComparator.
+	 */
+	private CrossInterfaceComparator createComparator(String kvpParam, String kvpValue, QName templateParam,
+			String templateValue) {
+		CrossInterfaceComparator comparator = new CrossInterfaceComparator(PAGE_SIZE, this.recordLimit);
+		Map<String, String> constraints = new HashMap<>();
+		constraints.put(kvpParam, kvpValue);
+		comparator.addSource("KVP",
+				(startPosition, maxRecords) -> this.cswClient.getRecordPage(constraints, startPosition, maxRecords));
+		Element atomTemplate = findAtomTemplate(templateParam);
+		if (null != atomTemplate) {
+			Map<QName, String> values = new HashMap<>();
+			values.put(templateParam, templateValue);
+			comparator.addSource("OpenSearch", (startIndex, count) -> this.cswClient.getOpenSearchPage(atomTemplate,
+					values, startIndex, count));
+		}
+		return comparator;
+	}
+
+	/**
+	 * Finds a URL template for the Atom response type that contains the given
+	 * parameter.
+	 * @param paramName The qualified name of a template parameter.
+	 * @return An os:Url element, or null if there is no such template.
+	 */
+	private Element findAtomTemplate(QName paramName) {
+		for (Node template : OpenSearchTemplateUtils.filterURLTemplatesByParam(this.urlTemplates, paramName)) {
+			Element urlElem = (Element) template;
+			if (urlElem.getAttribute("type").startsWith(MediaType.APPLICATION_ATOM_XML)) {
+				return urlElem;
+			}
+		}
+		return null;
+	}
+
+	private void assertSameResults(CrossInterfaceComparator comparator, String queryType) {
+		CrossInterfaceComparator.Result result;
+		try {
+			result = comparator.compare();
+		}
+		catch (IOException iox) {
+			throw new RuntimeException("Failed to compare result sets.", iox);
+		}
+		if (result.getComparedSources().size() < 2) {
+			throw new SkipException("Fewer than two interfaces produced a complete result set. " + result);
+		}
+		Assert.assertTrue(result.isConsistent(),
+				ErrorMessage.format(ErrorMessageKeys.CROSS_INTERFACE_DISCREPANCY, queryType, result.toString()));
+	}
+
+}
@@ -0,0 +1,230 @@
+package org.opengis.cite.cat30.util;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.opengis.cite.cat30.Namespaces;
+import org.opengis.cite.geomatics.Extents;
+import org.opengis.geometry.Envelope;
+import org.opengis.referencing.operation.TransformException;
+import org.opengis.util.FactoryException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Accumulates the total extent of a set of bounding boxes (ows:BoundingBox or
+ * ows:WGS84BoundingBox). The corner coordinates of each box are folded into a running
+ * minimum and maximum per coordinate reference system, so memory use is independent of
+ * the number of boxes. The per-CRS extents are only coalesced (and transformed where
+ * necessary) when the total extent is requested.
+ */
+public class BoundingBoxAccumulator {
+
+	private static final String WGS84_BBOX = "WGS84BoundingBox";
+
+	/**
+	 * Running extents keyed by element name and CRS reference, in order of first
+	 * occurrence.
+	 */
+	private final Map<String, CrsExtent> extents = new LinkedHashMap<>();
+
+	private long boxCount;
+
+	/**
+	 * Adds the first ows:BoundingBox and the first ows:WGS84BoundingBox child of every
+	 * csw:Record element in the given file. The file is read as a stream and no DOM
+	 * nodes are retained.
+	 * @param file A File containing catalog data (csw:GetRecordsResponse).
+	 */
+	public void addRecords(File file) {
+		try {
+			RecordReader.read(file, new RecordReader.Handler() {
+
+				private boolean foundBBox;
+
+				private boolean foundWGS84BBox;
+
+				@Override
+				public void startRecord() {
+					foundBBox = false;
+					foundWGS84BBox = false;
+				}
+
+				@Override
+				public boolean recordChild(XMLStreamReader reader) throws XMLStreamException {
+					if (!RecordReader.isBoundingBox(reader)) {
+						return false;
+					}
+					boolean isWGS84 = reader.getLocalName().equals(WGS84_BBOX);
+					if (isWGS84 ? foundWGS84BBox : foundBBox) {
+						return false;
+					}
+					if (isWGS84) {
+						foundWGS84BBox = true;
+					}
+					else {
+						foundBBox = true;
+					}
+					addBoundingBox(reader);
+					return true;
+				}
+
+				@Override
+				public void endRecord() {
+				}
+
+			});
+		}
+		catch (XMLStreamException xse) {
+			TestSuiteLogger.log(Level.WARNING, "Failed to read bounding boxes from " + file.getAbsolutePath(), xse);
+		}
+	}
+
+	/**
+	 * Adds a bounding box to the running extent for its CRS.
+	 * @param boxName The local name of the bounding box element ("BoundingBox" or
+	 * "WGS84BoundingBox").
+	 * @param crsRef A CRS reference (the value of the crs attribute); may be null or
+	 * empty if the default CRS applies.
+	 * @param lowerCorner The coordinates of the lower corner.
+	 * @param upperCorner The coordinates of the upper corner.
+	 */
+	public void add(String boxName, String crsRef, double[] lowerCorner, double[] upperCorner) {
+		if (lowerCorner.length != upperCorner.length) {
+			throw new IllegalArgumentException("Corners have different dimensions.");
+		}
+		String crs = (null != crsRef) ? crsRef.trim() : "";
+		String key = boxName + ' ' + lowerCorner.length + ' ' + crs;
+		CrsExtent extent = this.extents.get(key);
+		if (null == extent) {
+			extent = new CrsExtent(boxName, crs, lowerCorner.length);
+			this.extents.put(key, extent);
+		}
+		extent.add(lowerCorner, upperCorner);
+		this.boxCount++;
+	}
+
+	/**
+	 * Returns the number of bounding boxes added so far.
+	 * @return The number of accumulated boxes.
+	 */
+	public long getBoxCount() {
+		return boxCount;
+	}
+
+	/**
+	 * Returns the number of distinct CRS groups encountered so far.
+	 * @return The number of running extents.
+	 */
+	public int getGroupCount() {
+		return extents.size();
+	}
+
+	/**
+	 * Returns the total extent of all accumulated bounding boxes. Each CRS group is
+	 * coalesced only once, using the CRS of the first group encountered as the target.
+	 * @return An Envelope representing the total extent, or null if no boxes were added.
+	 * @throws FactoryException If a CRS reference cannot be resolved.
+	 * @throws TransformException If an extent cannot be transformed to the target CRS.
+	 */
+	public Envelope getTotalExtent() throws FactoryException, TransformException {
+		if (this.extents.isEmpty()) {
+			return null;
+		}
+		Document doc;
+		try {
+			doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+		}
+		catch (ParserConfigurationException e) {
+			throw new RuntimeException(e);
+		}
+		List<Node> boxNodes = new ArrayList<>(this.extents.size());
+		for (CrsExtent extent : this.extents.values()) {
+			boxNodes.add(extent.toElement(doc));
+		}
+		return Extents.coalesceBoundingBoxes(boxNodes);
+	}
+
+	private void addBoundingBox(XMLStreamReader reader) throws XMLStreamException {
+		String boxName = reader.getLocalName();
+		try {
+			RecordReader.BoundingBox box = RecordReader.readBoundingBox(reader);
+			if (null == box) {
+				TestSuiteLogger.log(Level.WARNING, "Bounding box is missing a corner: " + boxName);
+				return;
+			}
+			add(box.name, box.crsRef, box.lowerCorner, box.upperCorner);
+		}
+		catch (IllegalArgumentException iae) {
+			TestSuiteLogger.log(Level.WARNING, "Ignoring invalid bounding box: " + iae.getMessage());
+		}
+	}
+
+	/**
+	 * The running extent of all boxes sharing the same element name and CRS.
+	 */
+	private static final class CrsExtent {
+
+		private final String boxName;
+
+		private final String crsRef;
+
+		private final double[] min;
+
+		private final double[] max;
+
+		CrsExtent(String boxName, String crsRef, int dimension) {
+			this.boxName = boxName;
+			this.crsRef = crsRef;
+			this.min = new double[dimension];
+			this.max = new double[dimension];
+			Arrays.fill(this.min, Double.POSITIVE_INFINITY);
+			Arrays.fill(this.max, Double.NEGATIVE_INFINITY);
+		}
+
+		void add(double[] lower, double[] upper) {
+			for (int i = 0; i < min.length; i++) {
+				min[i] = Math.min(min[i], lower[i]);
+				max[i] = Math.max(max[i], upper[i]);
+			}
+		}
+
+		Element toElement(Document doc) {
+			Element box = doc.createElementNS(Namespaces.OWS, "ows:" + boxName);
+			if (!crsRef.isEmpty()) {
+				box.setAttribute("crs", crsRef);
+			}
+			Element lowerCorner = doc.createElementNS(Namespaces.OWS, "ows:LowerCorner");
+			lowerCorner.setTextContent(toString(min));
+			box.appendChild(lowerCorner);
+			Element upperCorner = doc.createElementNS(Namespaces.OWS, "ows:UpperCorner");
+			upperCorner.setTextContent(toString(max));
+			box.appendChild(upperCorner);
+			return box;
+		}
+
+		private static String toString(double[] coords) {
+			StringBuilder str = new StringBuilder();
+			for (int i = 0; i < coords.length; i++) {
+				if (i > 0) {
+					str.append(' ');
+				}
+				str.append(coords[i]);
+			}
+			return str.toString();
+		}
+
+	}
+
+}
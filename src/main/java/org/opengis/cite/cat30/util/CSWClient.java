@@ -3,16 +3,25 @@ package org.opengis.cite.cat30.util;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+
 import org.opengis.cite.cat30.CAT3;
 import org.opengis.cite.cat30.Namespaces;
+import org.opengis.cite.cat30.util.ResponseCache.CachedResponse;
 import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 
 import jakarta.ws.rs.HttpMethod;
 import jakarta.ws.rs.core.MediaType;
@@ -30,6 +39,12 @@ public class CSWClient {
 	 */
 	private Document cswCapabilities;
 
+	/**
+	 * A cache of service descriptions (capabilities and OpenSearch description
+	 * documents).
+	 */
+	private ResponseCache responseCache = ResponseCache.forRun();
+
 	/**
 	 * <p>
 	 * getServiceDescription.
@@ -53,6 +68,15 @@ public class CSWClient {
 		this.cswCapabilities = capabilities;
 	}
 
+	/**
+	 * Sets the cache used to retrieve service descriptions. By default, the cache of the
+	 * current test run is used (see {@link ResponseCache#forRun()}).
+	 * @param responseCache A ResponseCache.
+	 */
+	public void setResponseCache(ResponseCache responseCache) {
+		this.responseCache = responseCache;
+	}
+
 	/**
 	 * Submits a GetRecords request and saves the response entity to a (temporary) file.
 	 * The {@value org.opengis.cite.cat30.CAT3#ELEMENT_SET} parameter is set to "full".
@@ -94,7 +118,141 @@ public class CSWClient {
 	}
 
 	/**
-	 * Retrieves a complete capabilities document from the specified endpoint.
+	 * Retrieves a page of brief records by submitting a GetRecords request (with no
+	 * filter criteria) using the GET method.
+	 * @param startPosition The (one-based) position of the first record to retrieve.
+	 * @param maxRecords The maximum number of records to retrieve.
+	 * @return A RecordPage object, or null if the request failed or the response entity
+	 * could not be read.
+	 */
+	public RecordPage getRecordPage(int startPosition, int maxRecords) {
+		return getRecordPage(Collections.emptyMap(), startPosition, maxRecords);
+	}
+
+	/**
+	 * Retrieves a page of brief records by submitting a GetRecords request using the GET
+	 * method.
+	 * @param constraints A collection of query constraints (e.g. {@value CAT3#Q},
+	 * {@value CAT3#BBOX}, or {@value CAT3#REC_ID_LIST}) with URL-encoded values; it may
+	 * be empty.
+	 * @param startPosition The (one-based) position of the first record to retrieve.
+	 * @param maxRecords The maximum number of records to retrieve.
+	 * @return A RecordPage object, or null if the request failed or the response entity
+	 * could not be read.
+	 */
+	public RecordPage getRecordPage(Map<String, String> constraints, int startPosition, int maxRecords) {
+		URI getRecordsURI = ServiceMetadataUtils.getOperationEndpoint(this.cswCapabilities, CAT3.GET_RECORDS,
+				HttpMethod.GET);
+		Map<String, String> qryParams = new HashMap<>(constraints);
+		qryParams.put(CAT3.REQUEST, CAT3.GET_RECORDS);
+		qryParams.put(CAT3.SERVICE, CAT3.SERVICE_TYPE_CODE);
+		qryParams.put(CAT3.VERSION, CAT3.VERSION_3_0_0);
+		qryParams.put(CAT3.TYPE_NAMES, "Record");
+		qryParams.put(CAT3.ELEMENT_SET, CAT3.ELEMENT_SET_BRIEF);
+		qryParams.put(CAT3.START_POS, Integer.toString(startPosition));
+		qryParams.put(CAT3.MAX_RECORDS, Integer.toString(maxRecords));
+		return readRecordPage(getRecordsURI, qryParams, MediaType.APPLICATION_XML_TYPE, startPosition, false);
+	}
+
+	/**
+	 * Retrieves a page of entries by submitting an OpenSearch request that conforms to
+	 * the given URL template. The Atom response type is requested; the paging parameters
+	 * ({startIndex} and {count}) are set as indicated.
+	 * @param urlTemplate An os:Url element containing a URL template.
+	 * @param values A collection of (URL-encoded) template parameter values.
+	 * @param startIndex The (one-based) position of the first entry to retrieve.
+	 * @param count The maximum number of entries to retrieve.
+	 * @return A RecordPage object, or null if the request failed or the response entity
+	 * could not be read.
+	 */
+	public RecordPage getOpenSearchPage(Element urlTemplate, Map<QName, String> values, int startIndex, int count) {
+		Map<QName, String> params = new HashMap<>(values);
+		params.put(new QName(Namespaces.OSD11, "startIndex"), Integer.toString(startIndex));
+		params.put(new QName(Namespaces.OSD11, "count"), Integer.toString(count));
+		URI uri = OpenSearchTemplateUtils.buildRequestURI(urlTemplate, params);
+		return readRecordPage(uri, null, MediaType.APPLICATION_ATOM_XML_TYPE, startIndex, false);
+	}
+
+	/**
+	 * Retrieves a brief record by submitting a GetRecordById request using the GET
+	 * method.
+	 * @param id A record identifier.
+	 * @return A RecordPage object containing the matching record; it is empty if no
+	 * record was found (status code 404). The value is null if the request otherwise
+	 * failed or the response entity could not be read.
+	 */
+	public RecordPage getRecordPageById(String id) {
+		URI getRecordByIdURI = ServiceMetadataUtils.getOperationEndpoint(this.cswCapabilities, CAT3.GET_RECORD_BY_ID,
+				HttpMethod.GET);
+		Map<String, String> qryParams = new HashMap<>();
+		qryParams.put(CAT3.REQUEST, CAT3.GET_RECORD_BY_ID);
+		qryParams.put(CAT3.SERVICE, CAT3.SERVICE_TYPE_CODE);
+		qryParams.put(CAT3.VERSION, CAT3.VERSION_3_0_0);
+		qryParams.put(CAT3.ELEMENT_SET, CAT3.ELEMENT_SET_BRIEF);
+		qryParams.put(CAT3.ID, id);
+		return readRecordPage(getRecordByIdURI, qryParams, MediaType.APPLICATION_XML_TYPE, 1, true);
+	}
+
+	private RecordPage readRecordPage(URI uri, Map<String, String> qryParams, MediaType mediaType,
+			int startPosition, boolean emptyIfNotFound) {
+		Response rsp = ClientUtils.buildGetRequest(uri, qryParams, mediaType);
+		try {
+			if (emptyIfNotFound && rsp.getStatus() == Response.Status.NOT_FOUND.getStatusCode()) {
+				return new RecordPage(startPosition);
+			}
+			if (rsp.getStatus() != Response.Status.OK.getStatusCode()) {
+				LOGR.log(Level.FINE, "Request failed with status {0} (startPosition={1}): {2}",
+						new Object[] { rsp.getStatus(), startPosition, uri });
+				return null;
+			}
+			InputStream entityStream = rsp.readEntity(InputStream.class);
+			return RecordPage.read(startPosition, entityStream);
+		}
+		catch (XMLStreamException xse) {
+			LOGR.log(Level.WARNING, "Failed to read response entity (startPosition=" + startPosition + ")", xse);
+			return null;
+		}
+		finally {
+			rsp.close();
+		}
+	}
+
+	/**
+	 * Harvests the identifiers of the records in the catalog by paging through the
+	 * result set of an unfiltered GetRecords request. Harvesting stops when the last page
+	 * has been retrieved, when a request fails, or when the nextRecord value does not
+	 * advance.
+	 * @param pageSize The maximum number of records to retrieve in each request.
+	 * @param limit The maximum number of identifiers to harvest.
+	 * @return A list of record identifiers, in the order they were presented.
+	 */
+	public List<String> harvestRecordIdentifiers(int pageSize, int limit) {
+		List<String> identifiers = new ArrayList<>();
+		int startPosition = 1;
+		while (identifiers.size() < limit) {
+			int maxRecords = Math.min(pageSize, limit - identifiers.size());
+			RecordPage page = getRecordPage(startPosition, maxRecords);
+			if (null == page) {
+				break;
+			}
+			for (String id : page.getRecordIds()) {
+				if (identifiers.size() < limit) {
+					identifiers.add(id);
+				}
+			}
+			long nextRecord = page.getNextRecord();
+			if (nextRecord <= startPosition || nextRecord > Integer.MAX_VALUE || page.getRecordCount() == 0) {
+				break;
+			}
+			startPosition = (int) nextRecord;
+		}
+		LOGR.log(Level.CONFIG, "Harvested {0} record identifiers", identifiers.size());
+		return identifiers;
+	}
+
+	/**
+	 * Retrieves a complete capabilities document from the specified endpoint. A cached
+	 * copy is revalidated by means of a conditional request.
 	 * @param uri An absolute URI from which the capabilities can be retrieved; if null,
 	 * the endpoint from a known capabilities document (which may differ from the one
 	 * presented by the IUT) is used.
@@ -106,10 +264,10 @@ public class CSWClient {
 			uri = ServiceMetadataUtils.getOperationEndpoint(this.cswCapabilities, CAT3.GET_CAPABILITIES,
 					HttpMethod.GET);
 		}
-		Response rsp = ClientUtils.buildGetRequest(uri, null, MediaType.APPLICATION_XML_TYPE);
+		CachedResponse rsp = this.responseCache.get(uri, MediaType.APPLICATION_XML_TYPE);
 		Document capabilitiesDoc = null;
 		if (rsp.getStatus() == Response.Status.OK.getStatusCode() && XMLUtils.isXML(rsp.getMediaType())) {
-			capabilitiesDoc = rsp.readEntity(Document.class);
+			capabilitiesDoc = rsp.getEntityAsDocument(uri);
 		}
 		return capabilitiesDoc;
 	}
@@ -125,7 +283,8 @@ public class CSWClient {
 	 * </ul>
 	 * <p>
 	 * An alternative endpoint may be presented in the capabilities document using the
-	 * "OpenSearchDescriptionDocument" constraint.
+	 * "OpenSearchDescriptionDocument" constraint. A cached copy is revalidated by means
+	 * of a conditional request.
 	 * </p>
 	 * @param uri An absolute URI from which the OpenSearch description can be retrieved;
 	 * if null, the default endpoint is used.
@@ -140,7 +299,7 @@ public class CSWClient {
 			uri = ServiceMetadataUtils.getOperationEndpoint(this.cswCapabilities, CAT3.GET_CAPABILITIES,
 					HttpMethod.GET);
 		}
-		Response rsp = ClientUtils.buildGetRequest(uri, null, MediaType.valueOf(CAT3.APP_VND_OPENSEARCH_XML),
+		CachedResponse rsp = this.responseCache.get(uri, MediaType.valueOf(CAT3.APP_VND_OPENSEARCH_XML),
 				MediaType.valueOf(CAT3.APP_OPENSEARCH_XML));
 		if (rsp.getStatus() != Response.Status.OK.getStatusCode() || !XMLUtils.isXML(rsp.getMediaType())) {
 			Set<String> values = ServiceMetadataUtils.getConstraintValues(cswCapabilities,
@@ -151,11 +310,15 @@ public class CSWClient {
 					return getOpenSearchDescription(endpoint);
 				}
 			}
-			LOGR.config(rsp.toString());
+			LOGR.log(Level.CONFIG, "OpenSearch description not available (status {0}, media type {1}): {2}",
+					new Object[] { rsp.getStatus(), rsp.getMediaType(), uri });
 			return null;
 		}
-		Document entityDoc = rsp.readEntity(Document.class);
-		if (!entityDoc.getDocumentElement().getNamespaceURI().equals(Namespaces.OSD11)) {
+		Document entityDoc = rsp.getEntityAsDocument(uri);
+		if (null == entityDoc) {
+			return null;
+		}
+		if (!Namespaces.OSD11.equals(entityDoc.getDocumentElement().getNamespaceURI())) {
 			LOGR.config(entityDoc.getDocumentElement().getNodeName());
 			return null;
 		}
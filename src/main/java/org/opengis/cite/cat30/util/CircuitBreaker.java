@@ -0,0 +1,236 @@
+package org.opengis.cite.cat30.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+
+import jakarta.ws.rs.ProcessingException;
+
+/**
+ * Stops requests to a host that is evidently unavailable. After a number of consecutive
+ * failed requests (no connection, or status 502, 503, or 504 once any retries are
+ * exhausted), the circuit for the host opens: requests fail immediately with a
+ * {@link CircuitOpenException} instead of each waiting for a timeout. Once the open
+ * interval has elapsed a single trial request is let through; if it succeeds the circuit
+ * closes, otherwise it opens again. If the outcome of the trial request is not recorded
+ * within another open interval, a new trial request is let through.
+ */
+public class CircuitBreaker {
+
+	/**
+	 * The default number of consecutive failures that opens the circuit (0: the breaker
+	 * is disabled).
+	 */
+	public static final int DEFAULT_FAILURE_THRESHOLD = 0;
+
+	/** The default time (in milliseconds) for which the circuit stays open. */
+	public static final long DEFAULT_OPEN_MILLIS = 30000;
+
+	/**
+	 * The state of the circuit for a host.
+	 */
+	public enum State {
+
+		/** Requests are permitted. */
+		CLOSED,
+		/** Requests fail immediately. */
+		OPEN,
+		/** A trial request is in flight. */
+		HALF_OPEN
+
+	}
+
+	private volatile int failureThreshold;
+
+	private final long openNanos;
+
+	private final LongSupplier clock;
+
+	private final Map<String, Circuit> circuits = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructs a circuit breaker with the default threshold and open interval.
+	 */
+	public CircuitBreaker() {
+		this(DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_MILLIS, System::nanoTime);
+	}
+
+	/**
+	 * Constructs a circuit breaker.
+	 * @param failureThreshold The number of consecutive failures that opens the circuit
+	 * (0 disables the breaker).
+	 * @param openMillis The time for which the circuit stays open.
+	 * @param clock A source of nanosecond time values.
+	 */
+	CircuitBreaker(int failureThreshold, long openMillis, LongSupplier clock) {
+		this.failureThreshold = failureThreshold;
+		this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+		this.clock = clock;
+	}
+
+	/**
+	 * Sets the number of consecutive failures that opens the circuit.
+	 * @param failureThreshold A non-negative integer; 0 disables the breaker.
+	 */
+	public void setFailureThreshold(int failureThreshold) {
+		if (failureThreshold < 0) {
+			throw new IllegalArgumentException("Failure threshold must not be negative: " + failureThreshold);
+		}
+		this.failureThreshold = failureThreshold;
+	}
+
+	/**
+	 * Returns the number of consecutive failures that opens the circuit.
+	 * @return The failure threshold (0 if the breaker is disabled).
+	 */
+	public int getFailureThreshold() {
+		return failureThreshold;
+	}
+
+	private Circuit circuit(String host) {
+		return circuits.computeIfAbsent(host, h -> new Circuit());
+	}
+
+	/**
+	 * Checks that a request to the given host is permitted.
+	 * @param host A host (authority) name.
+	 * @throws CircuitOpenException If the circuit for the host is open.
+	 */
+	public void checkPermitted(String host) {
+		if (failureThreshold == 0) {
+			return;
+		}
+		Circuit circuit = circuit(host);
+		synchronized (circuit) {
+			switch (circuit.state) {
+				case CLOSED:
+					return;
+				case OPEN:
+					long waitNanos = circuit.openedAt + openNanos - clock.getAsLong();
+					if (waitNanos <= 0) {
+						circuit.state = State.HALF_OPEN;
+						circuit.trialStartedAt = clock.getAsLong();
+						return;
+					}
+					circuit.rejections++;
+					throw new CircuitOpenException(host, circuit.failures, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+				default:
+					if (clock.getAsLong() - circuit.trialStartedAt >= openNanos) {
+						// the outcome of the trial request was never recorded
+						circuit.trialStartedAt = clock.getAsLong();
+						return;
+					}
+					// a trial request is already in flight
+					circuit.rejections++;
+					throw new CircuitOpenException(host, circuit.failures, 0);
+			}
+		}
+	}
+
+	/**
+	 * Records a successful request; the circuit for the host is closed.
+	 * @param host A host (authority) name.
+	 */
+	public void recordSuccess(String host) {
+		Circuit circuit = circuit(host);
+		synchronized (circuit) {
+			circuit.failures = 0;
+			circuit.state = State.CLOSED;
+		}
+	}
+
+	/**
+	 * Records a failed request; the circuit for the host opens if the threshold is
+	 * reached or if a trial request failed.
+	 * @param host A host (authority) name.
+	 */
+	public void recordFailure(String host) {
+		Circuit circuit = circuit(host);
+		synchronized (circuit) {
+			circuit.failures++;
+			int threshold = failureThreshold;
+			if (threshold > 0 && (circuit.state == State.HALF_OPEN || circuit.failures >= threshold)) {
+				if (circuit.state != State.OPEN) {
+					TestSuiteLogger.log(Level.WARNING,
+							String.format("Circuit opened for %s after %d consecutive failures.", host, circuit.failures));
+				}
+				circuit.state = State.OPEN;
+				circuit.openedAt = clock.getAsLong();
+			}
+		}
+	}
+
+	/**
+	 * Returns the state of the circuit for the given host.
+	 * @param host A host (authority) name.
+	 * @return The current State.
+	 */
+	public State getState(String host) {
+		Circuit circuit = circuits.get(host);
+		if (null == circuit) {
+			return State.CLOSED;
+		}
+		synchronized (circuit) {
+			return circuit.state;
+		}
+	}
+
+	/**
+	 * Returns the number of requests rejected because the circuit for the given host was
+	 * open.
+	 * @param host A host (authority) name.
+	 * @return The number of rejected requests.
+	 */
+	public long getRejectionCount(String host) {
+		Circuit circuit = circuits.get(host);
+		if (null == circuit) {
+			return 0;
+		}
+		synchronized (circuit) {
+			return circuit.rejections;
+		}
+	}
+
+	/**
+	 * Closes all circuits.
+	 */
+	public void reset() {
+		circuits.clear();
+	}
+
+	/**
+	 * The circuit for a single host. All fields are guarded by the instance monitor.
+	 */
+	private static final class Circuit {
+
+		State state = State.CLOSED;
+
+		int failures;
+
+		long openedAt;
+
+		long trialStartedAt;
+
+		long rejections;
+
+	}
+
+	/**
+	 * Indicates that a request was not submitted because the circuit for the target
+	 * host is open.
+	 */
+	public static class CircuitOpenException extends ProcessingException {
+
+		private static final long serialVersionUID = 1L;
+
+		CircuitOpenException(String host, int failures, long retryMillis) {
+			super(String.format(
+					"Request to %s not submitted: the service is unavailable (%d consecutive failures); retry in %d ms.",
+					host, failures, retryMillis));
+		}
+
+	}
+
+}
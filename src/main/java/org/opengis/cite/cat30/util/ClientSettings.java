@@ -0,0 +1,138 @@
+package org.opengis.cite.cat30.util;
+
+import java.util.Objects;
+import java.util.logging.Level;
+
+/**
+ * The settings of the HTTP clients built by {@link ClientUtils}: the transport,
+ * compression, retry policy, circuit breaker, and concurrency limit. These are shared by
+ * every test run in the JVM, so a test run holds its settings while it is in progress
+ * (see {@link #acquire()}): runs with equal settings proceed concurrently, while a run
+ * whose settings differ waits until the runs in progress have released theirs. This
+ * keeps concurrent runs (in batch or daemon mode) from changing each other's clients.
+ */
+public final class ClientSettings {
+
+	private static final Object LOCK = new Object();
+
+	/** The settings in effect, or null if no test run holds them. */
+	private static ClientSettings current;
+
+	private static int holders;
+
+	private final String transport;
+
+	private final boolean compression;
+
+	private final int maxRetries;
+
+	private final int circuitThreshold;
+
+	private final int maxConcurrency;
+
+	/**
+	 * Constructs the client settings of a test run.
+	 * @param transport The name of the HTTP transport (see
+	 * {@link ClientUtils#setTransport(String)}); if null or empty, the default transport
+	 * is used.
+	 * @param compression true if compressed response entities are to be requested.
+	 * @param maxRetries The maximum number of retries per request (non-negative).
+	 * @param circuitThreshold The number of consecutive failures that opens a circuit (0
+	 * disables the circuit breaker).
+	 * @param maxConcurrency The greatest number of concurrent requests per host
+	 * (positive).
+	 * @throws IllegalArgumentException If a setting is invalid.
+	 */
+	public ClientSettings(String transport, boolean compression, int maxRetries, int circuitThreshold,
+			int maxConcurrency) {
+		if (null == transport || transport.isBlank()) {
+			transport = ClientUtils.TRANSPORT_URLCONNECTION;
+		}
+		this.transport = transport.trim().toLowerCase();
+		if (!this.transport.equals(ClientUtils.TRANSPORT_URLCONNECTION)
+				&& !this.transport.equals(ClientUtils.TRANSPORT_JDK)) {
+			throw new IllegalArgumentException("Unsupported HTTP transport: " + transport);
+		}
+		if (maxRetries < 0 || circuitThreshold < 0 || maxConcurrency < 1) {
+			throw new IllegalArgumentException(String.format(
+					"Invalid client settings: maxRetries=%d, circuitThreshold=%d, maxConcurrency=%d", maxRetries,
+					circuitThreshold, maxConcurrency));
+		}
+		this.compression = compression;
+		this.maxRetries = maxRetries;
+		this.circuitThreshold = circuitThreshold;
+		this.maxConcurrency = maxConcurrency;
+	}
+
+	/**
+	 * Holds these settings for a test run, waiting if runs holding different settings
+	 * are in progress. The first run to hold the settings applies them to the shared
+	 * client components (and closes all circuits). Every call must be matched by a call
+	 * to {@link #release()}.
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	public void acquire() throws InterruptedException {
+		synchronized (LOCK) {
+			boolean waited = false;
+			while (holders > 0 && !equals(current)) {
+				if (!waited) {
+					TestSuiteLogger.log(Level.INFO, "Waiting for test runs with other client settings to finish.");
+					waited = true;
+				}
+				LOCK.wait();
+			}
+			if (holders == 0) {
+				apply();
+				current = this;
+			}
+			holders++;
+		}
+	}
+
+	/**
+	 * Releases these settings at the end of a test run.
+	 */
+	public void release() {
+		synchronized (LOCK) {
+			if (holders > 0 && --holders == 0) {
+				current = null;
+				LOCK.notifyAll();
+			}
+		}
+	}
+
+	private void apply() {
+		ClientUtils.setTransport(transport);
+		ClientUtils.setCompressionEnabled(compression);
+		ClientUtils.getRetryPolicy().setMaxRetries(maxRetries);
+		ClientUtils.getCircuitBreaker().setFailureThreshold(circuitThreshold);
+		ClientUtils.getCircuitBreaker().reset();
+		ClientUtils.getConcurrencyLimiter().setMaxLimit(maxConcurrency);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof ClientSettings)) {
+			return false;
+		}
+		ClientSettings other = (ClientSettings) obj;
+		return transport.equals(other.transport) && compression == other.compression
+				&& maxRetries == other.maxRetries && circuitThreshold == other.circuitThreshold
+				&& maxConcurrency == other.maxConcurrency;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(transport, compression, maxRetries, circuitThreshold, maxConcurrency);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("transport=%s, compression=%b, maxRetries=%d, circuitThreshold=%d, maxConcurrency=%d",
+				transport, compression, maxRetries, circuitThreshold, maxConcurrency);
+	}
+
+}
@@ -1,5 +1,8 @@
 package org.opengis.cite.cat30.util;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.net.Proxy;
 import java.net.SocketAddress;
@@ -8,13 +11,17 @@ import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.xml.stream.XMLStreamException;
 import javax.xml.transform.Source;
 import javax.xml.transform.dom.DOMSource;
 
 import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
 import org.glassfish.jersey.client.ClientConfig;
 import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.HttpUrlConnectorProvider;
+import org.glassfish.jersey.client.spi.ConnectorProvider;
 import org.glassfish.jersey.logging.LoggingFeature;
+import org.opengis.cite.cat30.CAT3;
 import org.opengis.cite.cat30.ReusableEntityFilter;
 import org.w3c.dom.Document;
 
@@ -23,6 +30,7 @@ import jakarta.ws.rs.client.ClientBuilder;
 import jakarta.ws.rs.client.Invocation;
 import jakarta.ws.rs.client.Invocation.Builder;
 import jakarta.ws.rs.client.WebTarget;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.UriBuilder;
@@ -34,23 +42,235 @@ public class ClientUtils {
 
 	private static final Logger LOGGER = Logger.getLogger(ClientUtils.class.getName());
 
+	/** The connection timeout in milliseconds. */
+	public static final int CONNECT_TIMEOUT_MILLIS = 10000;
+
+	/**
+	 * The name of the default HTTP transport ({@link java.net.HttpURLConnection}).
+	 */
+	public static final String TRANSPORT_URLCONNECTION = "urlconnection";
+
+	/**
+	 * The name of the HTTP transport based on the JDK HTTP client
+	 * ({@link java.net.http.HttpClient}).
+	 */
+	public static final String TRANSPORT_JDK = "jdk";
+
+	/**
+	 * Decodes compressed response entities for every client built by this class.
+	 */
+	private static final CompressionFilter COMPRESSION_FILTER = new CompressionFilter(false);
+
+	/**
+	 * Limits the number of concurrent requests per host for the conformance clients built
+	 * by this class (see {@link #buildClient()}).
+	 */
+	private static final ConcurrencyLimiter CONCURRENCY_LIMITER = new ConcurrencyLimiter();
+
+	/**
+	 * Retries requests that fail because of transient conditions.
+	 */
+	private static final RetryPolicy RETRY_POLICY = new RetryPolicy();
+
+	/**
+	 * Fails requests fast when the IUT is unavailable.
+	 */
+	private static final CircuitBreaker CIRCUIT_BREAKER = new CircuitBreaker();
+
+	private static volatile boolean jdkTransport;
+
+	private static Client sharedClient;
+
+	/**
+	 * Enables or disables the negotiation of compressed response entities (gzip or
+	 * deflate) by clients built by this class. Compressed entities are always decoded.
+	 * @param enabled true if compressed entities are to be requested; false otherwise.
+	 */
+	public static void setCompressionEnabled(boolean enabled) {
+		COMPRESSION_FILTER.setNegotiating(enabled);
+	}
+
+	/**
+	 * Returns the filter that decodes compressed response entities for clients built by
+	 * this class. It records the encoded and decoded size of every response entity.
+	 * @return The shared CompressionFilter.
+	 */
+	public static CompressionFilter getCompressionFilter() {
+		return COMPRESSION_FILTER;
+	}
+
+	/**
+	 * Selects the HTTP transport used by clients built by this class (except one that
+	 * uses a web proxy). The JDK HTTP client reuses connections across all clients and
+	 * negotiates HTTP/2 with "https" endpoints.
+	 * @param transport The name of the transport: {@value #TRANSPORT_URLCONNECTION}
+	 * (default) or {@value #TRANSPORT_JDK}; if null or empty, the default transport is
+	 * used.
+	 * @throws IllegalArgumentException If the transport is not recognized.
+	 */
+	public static void setTransport(String transport) {
+		boolean useJdk;
+		if (null == transport || transport.isBlank() || transport.trim().equalsIgnoreCase(TRANSPORT_URLCONNECTION)) {
+			useJdk = false;
+		}
+		else if (transport.trim().equalsIgnoreCase(TRANSPORT_JDK)) {
+			useJdk = true;
+		}
+		else {
+			throw new IllegalArgumentException("Unsupported HTTP transport: " + transport);
+		}
+		synchronized (ClientUtils.class) {
+			if (useJdk != jdkTransport) {
+				jdkTransport = useJdk;
+				sharedClient = null;
+			}
+		}
+	}
+
+	/**
+	 * Indicates whether clients built by this class use the JDK HTTP client.
+	 * @return true if the {@value #TRANSPORT_JDK} transport is selected; false otherwise.
+	 */
+	public static boolean isJdkTransport() {
+		return jdkTransport;
+	}
+
+	/**
+	 * Returns a client component (as built by {@link #buildClient()}) that is shared by
+	 * all requests submitted without an explicit client. Initializing a client is
+	 * relatively costly, so it is built only once for the selected transport.
+	 * @return A shared Client component.
+	 */
+	public static synchronized Client getSharedClient() {
+		if (null == sharedClient) {
+			sharedClient = buildClient();
+		}
+		return sharedClient;
+	}
+
+	/**
+	 * Returns the limiter that adapts the number of concurrent requests submitted to each
+	 * host by the conformance clients built by this class. Its current limits indicate
+	 * how much concurrency the IUT sustains.
+	 * @return The shared ConcurrencyLimiter.
+	 */
+	public static ConcurrencyLimiter getConcurrencyLimiter() {
+		return CONCURRENCY_LIMITER;
+	}
+
+	/**
+	 * Returns the retry policy applied by clients built by this class.
+	 * @return The shared RetryPolicy.
+	 */
+	public static RetryPolicy getRetryPolicy() {
+		return RETRY_POLICY;
+	}
+
+	/**
+	 * Returns the circuit breaker consulted by clients built by this class.
+	 * @return The shared CircuitBreaker.
+	 */
+	public static CircuitBreaker getCircuitBreaker() {
+		return CIRCUIT_BREAKER;
+	}
+
+	/**
+	 * Decorates the given connector provider. Going inwards, a request is subject to
+	 * the retry policy and circuit breaker, the current deadline (which bounds the
+	 * timeouts of each attempt), the concurrency limiter (per attempt, if limited), and
+	 * the request watchdog (in the thread performing I/O). Clients that measure the
+	 * behavior of the IUT are not limited, so that queuing for a permit does not distort
+	 * the measurements.
+	 */
+	private static ConnectorProvider decorate(ConnectorProvider provider, boolean limited) {
+		ConnectorProvider watched = RequestWatchdog.decorate(provider);
+		return RETRY_POLICY.decorate(Deadline.decorate(limited ? CONCURRENCY_LIMITER.decorate(watched) : watched),
+				CIRCUIT_BREAKER);
+	}
+
+	private static void configureTransport(ClientConfig config, boolean limited) {
+		ConnectorProvider provider = jdkTransport ? new JdkHttpConnectorProvider()
+				: new HttpUrlConnectorProvider().connectionFactory(RequestWatchdog::openConnection);
+		config.connectorProvider(decorate(provider, limited));
+	}
+
 	/**
 	 * Builds a client component for interacting with HTTP endpoints. The client will
 	 * automatically redirect to the URI declared in 3xx responses. The connection timeout
-	 * is 10 s. Request and response messages may be logged to a JDK logger (in the
-	 * namespace "com.sun.jersey.api.client").
+	 * is 10 s. Compressed response entities are decoded, and requested if negotiation
+	 * is enabled (see {@link #setCompressionEnabled(boolean)}). Requests are submitted
+	 * using the selected transport (see {@link #setTransport(String)}), subject to the
+	 * shared {@link ConcurrencyLimiter}, {@link RetryPolicy}, and {@link CircuitBreaker}
+	 * and to the current {@link Deadline}, and tracked by the {@link RequestWatchdog}.
+	 * Exchanges are reported as flight recorder events (see
+	 * {@link HttpExchangeEventFilter}).
+	 * Request and response messages may be logged to a JDK logger (in the namespace
+	 * "com.sun.jersey.api.client").
 	 * @return A Client component.
 	 */
 	public static Client buildClient() {
 		ClientConfig config = new ClientConfig();
 		config.property(ClientProperties.FOLLOW_REDIRECTS, true);
-		config.property(ClientProperties.CONNECT_TIMEOUT, 10000);
+		config.property(ClientProperties.CONNECT_TIMEOUT, CONNECT_TIMEOUT_MILLIS);
 		config.register(new LoggingFeature(LOGGER, Level.ALL, LoggingFeature.Verbosity.PAYLOAD_ANY, 5000));
+		configureTransport(config, true);
 		Client client = ClientBuilder.newClient(config);
+		client.register(COMPRESSION_FILTER);
 		client.register(new ReusableEntityFilter());
+		client.register(new RequestRecordingFilter());
+		client.register(new HttpExchangeEventFilter());
+		return client;
+	}
+
+	/**
+	 * Builds a client component that does not buffer response entities, so an entity can
+	 * be consumed as a stream while it is being received. Only message headers are
+	 * logged. The client will automatically redirect to the URI declared in 3xx
+	 * responses. The connection timeout is 10 s. Requests are not subject to the
+	 * {@link ConcurrencyLimiter}, since such a client is used to measure the IUT.
+	 * @return A Client component.
+	 */
+	public static Client buildStreamingClient() {
+		return buildStreamingClient(COMPRESSION_FILTER);
+	}
+
+	/**
+	 * Builds a client component that does not buffer response entities and that uses the
+	 * given filter to negotiate and decode compressed entities. A test can thereby
+	 * examine the transfers made by its own client.
+	 * @param compressionFilter A CompressionFilter.
+	 * @return A Client component.
+	 * @see #buildStreamingClient()
+	 */
+	public static Client buildStreamingClient(CompressionFilter compressionFilter) {
+		ClientConfig config = new ClientConfig();
+		config.property(ClientProperties.FOLLOW_REDIRECTS, true);
+		config.property(ClientProperties.CONNECT_TIMEOUT, CONNECT_TIMEOUT_MILLIS);
+		config.register(new LoggingFeature(LOGGER, Level.ALL, LoggingFeature.Verbosity.HEADERS_ONLY, 0));
+		configureTransport(config, false);
+		Client client = ClientBuilder.newClient(config);
+		client.register(compressionFilter);
+		client.register(new RequestRecordingFilter());
+		client.register(new HttpExchangeEventFilter());
 		return client;
 	}
 
+	/**
+	 * Builds a client component for generating or measuring load. Requests are submitted
+	 * directly using the selected transport (see {@link #setTransport(String)}): they are
+	 * not logged, retried, limited, or subject to a deadline, and the response entities
+	 * are neither buffered nor decoded. The client will automatically redirect to the URI
+	 * declared in 3xx responses. The connection timeout is 10 s.
+	 * @return A Client component.
+	 */
+	public static Client buildBareClient() {
+		ClientConfig config = new ClientConfig();
+		config.property(ClientProperties.FOLLOW_REDIRECTS, true);
+		config.property(ClientProperties.CONNECT_TIMEOUT, CONNECT_TIMEOUT_MILLIS);
+		config.connectorProvider(jdkTransport ? new JdkHttpConnectorProvider() : new HttpUrlConnectorProvider());
+		return ClientBuilder.newClient(config);
+	}
+
 	/**
 	 * Constructs a client component that uses a specified web proxy. Proxy authentication
 	 * is not supported. Configuring the client to use an intercepting proxy can be useful
@@ -61,7 +281,7 @@ public class ClientUtils {
 	 */
 	public static Client buildClientWithProxy(final String proxyHost, final int proxyPort) {
 		ClientConfig config = new ClientConfig();
-		config.connectorProvider(new ApacheConnectorProvider());
+		config.connectorProvider(decorate(new ApacheConnectorProvider(), true));
 		config.register(new LoggingFeature(LOGGER, Level.ALL, LoggingFeature.Verbosity.PAYLOAD_ANY, 5000));
 		SocketAddress addr = new InetSocketAddress(proxyHost, proxyPort);
 		Proxy proxy = new Proxy(Proxy.Type.HTTP, addr);
@@ -70,12 +290,16 @@ public class ClientUtils {
 		config.property(LoggingFeature.LOGGING_FEATURE_VERBOSITY_CLIENT, LoggingFeature.Verbosity.PAYLOAD_ANY);
 		config.property(LoggingFeature.LOGGING_FEATURE_LOGGER_LEVEL_CLIENT, Level.ALL);
 		Client client = ClientBuilder.newClient(config);
+		client.register(COMPRESSION_FILTER);
 		client.register(new ReusableEntityFilter());
+		client.register(new RequestRecordingFilter());
+		client.register(new HttpExchangeEventFilter());
 		return client;
 	}
 
 	/**
-	 * Builds an HTTP request message that uses the GET method.
+	 * Builds an HTTP request message that uses the GET method and submits it using the
+	 * shared client component.
 	 * @param endpoint A URI indicating the target resource.
 	 * @param qryParams A Map containing query parameters (may be null);
 	 * @param mediaTypes A list of acceptable media types; if not specified, the Accept
@@ -83,6 +307,21 @@ public class ClientUtils {
 	 * @return A ClientRequest object.
 	 */
 	public static Response buildGetRequest(URI endpoint, Map<String, String> qryParams, MediaType... mediaTypes) {
+		return buildGetRequest(getSharedClient(), endpoint, qryParams, mediaTypes);
+	}
+
+	/**
+	 * Builds an HTTP request message that uses the GET method and submits it using the
+	 * given client component. A single client may be shared by concurrent requests.
+	 * @param client A Client component.
+	 * @param endpoint A URI indicating the target resource.
+	 * @param qryParams A Map containing query parameters (may be null);
+	 * @param mediaTypes A list of acceptable media types; if not specified, the Accept
+	 * header is omitted.
+	 * @return A ClientRequest object.
+	 */
+	public static Response buildGetRequest(Client client, URI endpoint, Map<String, String> qryParams,
+			MediaType... mediaTypes) {
 		UriBuilder uriBuilder = UriBuilder.fromUri(endpoint);
 		if (null != qryParams) {
 			for (Map.Entry<String, String> param : qryParams.entrySet()) {
@@ -90,7 +329,7 @@ public class ClientUtils {
 			}
 		}
 		URI uri = uriBuilder.build();
-		WebTarget target = buildClient().target(uri);
+		WebTarget target = client.target(uri);
 		Builder reqBuilder = target.request();
 		if (null != mediaTypes && mediaTypes.length > 0) {
 			reqBuilder = reqBuilder.accept(mediaTypes);
@@ -99,6 +338,78 @@ public class ClientUtils {
 		return req.invoke();
 	}
 
+	/**
+	 * Builds a conditional HTTP request message that uses the GET method and submits it
+	 * using the given client component. The request includes an
+	 * <code>If-None-Match</code> header if an entity tag is given, and an
+	 * <code>If-Modified-Since</code> header if a modification date is given; a response
+	 * with status code 304 (Not Modified) indicates that the representation identified by
+	 * these validators is still current.
+	 * @param client A Client component.
+	 * @param uri A URI indicating the target resource (including any query component).
+	 * @param entityTag The value of the ETag header in an earlier response (may be null).
+	 * @param lastModified The value of the Last-Modified header in an earlier response
+	 * (may be null).
+	 * @param mediaTypes A list of acceptable media types; if not specified, the Accept
+	 * header is omitted.
+	 * @return A ClientRequest object.
+	 *
+	 * @see <a href="https://www.rfc-editor.org/rfc/rfc9110#section-13" target="_blank">RFC
+	 * 9110, 13: Conditional Requests</a>
+	 */
+	public static Response buildConditionalGetRequest(Client client, URI uri, String entityTag, String lastModified,
+			MediaType... mediaTypes) {
+		Builder reqBuilder = client.target(uri).request();
+		if (null != mediaTypes && mediaTypes.length > 0) {
+			reqBuilder = reqBuilder.accept(mediaTypes);
+		}
+		if (null != entityTag) {
+			reqBuilder = reqBuilder.header(HttpHeaders.IF_NONE_MATCH, entityTag);
+		}
+		if (null != lastModified) {
+			reqBuilder = reqBuilder.header(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+		}
+		return reqBuilder.buildGet().invoke();
+	}
+
+	/**
+	 * Submits a GET request and measures the response. The response entity is read as a
+	 * stream (a DOM is not constructed); if it contains records, they are counted using
+	 * {@link RecordPage#read(int, InputStream)}. The client should not buffer response
+	 * entities (see {@link #buildStreamingClient()}), otherwise the measured latency
+	 * includes the time taken to receive the entire entity before it is read.
+	 * @param client A Client component.
+	 * @param endpoint A URI indicating the target resource.
+	 * @param qryParams A Map containing query parameters (may be null);
+	 * @param mediaType The acceptable media type.
+	 * @return A ResponseMetrics object.
+	 */
+	public static ResponseMetrics measureGetRequest(Client client, URI endpoint, Map<String, String> qryParams,
+			MediaType mediaType) {
+		long start = System.nanoTime();
+		Response rsp = buildGetRequest(client, endpoint, qryParams, mediaType);
+		try {
+			long headerNanos = System.nanoTime() - start;
+			RecordPage page = null;
+			CountingInputStream entity = new CountingInputStream(rsp.readEntity(InputStream.class));
+			try (entity) {
+				if (rsp.getStatus() == Response.Status.OK.getStatusCode()) {
+					String startPosition = (null != qryParams) ? qryParams.get(CAT3.START_POS) : null;
+					page = RecordPage.read((null != startPosition) ? Integer.parseInt(startPosition) : 1, entity);
+				}
+				entity.transferTo(OutputStream.nullOutputStream());
+			}
+			catch (IOException | XMLStreamException ex) {
+				LOGGER.log(Level.FINE, "Failed to read response entity from " + endpoint, ex);
+			}
+			return new ResponseMetrics(rsp.getStatus(), headerNanos, System.nanoTime() - start, entity.getCount(),
+					page);
+		}
+		finally {
+			rsp.close();
+		}
+	}
+
 	/**
 	 * Creates a copy of the given MediaType object but without any parameters.
 	 * @param mediaType A MediaType descriptor.
@@ -118,7 +429,16 @@ public class ClientUtils {
 	 * source).
 	 */
 	public static Source getResponseEntityAsSource(Response response, String targetURI) {
+		TestSuiteEvents.EntityParse event = new TestSuiteEvents.EntityParse();
+		event.begin();
+		long start = System.nanoTime();
 		Source source = response.readEntity(DOMSource.class);
+		ResourceUsage.recordParse(System.nanoTime() - start);
+		if (event.shouldCommit()) {
+			event.test = TestSuiteEvents.currentTest();
+			event.systemId = targetURI;
+			event.commit();
+		}
 		if (null != targetURI && !targetURI.isEmpty()) {
 			source.setSystemId(targetURI);
 		}
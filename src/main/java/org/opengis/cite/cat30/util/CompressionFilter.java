@@ -0,0 +1,324 @@
+package org.opengis.cite.cat30.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import jakarta.annotation.Priority;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.client.ClientRequestContext;
+import jakarta.ws.rs.client.ClientRequestFilter;
+import jakarta.ws.rs.client.ClientResponseContext;
+import jakarta.ws.rs.client.ClientResponseFilter;
+import jakarta.ws.rs.core.HttpHeaders;
+
+/**
+ * Negotiates compressed response entities and decompresses them as they are read. If
+ * negotiation is enabled, an <code>Accept-Encoding</code> header indicating support for
+ * the "gzip" and "deflate" codings is added to every request that does not already
+ * include one. A response entity having one of these content codings is replaced by a
+ * stream that decodes it on the fly, so parsers and validators receive the original
+ * content; the <code>Content-Encoding</code> and <code>Content-Length</code> headers are
+ * removed.
+ *
+ * <p>
+ * The number of bytes received (encoded) and delivered (decoded) is recorded for each
+ * response entity once the entity stream is closed. The most recent
+ * {@value #MAX_TRANSFERS} transfers are retained; running totals cover all of them.
+ * </p>
+ *
+ * <p>
+ * The filter runs before any other response filter having a default priority, so an
+ * entity buffered by {@link org.opengis.cite.cat30.ReusableEntityFilter} is already
+ * decoded.
+ * </p>
+ *
+ * @see <a href="https://www.rfc-editor.org/rfc/rfc9110#section-8.4.1" target=
+ * "_blank">RFC 9110, 8.4.1: Content Codings</a>
+ */
+@Priority(Priorities.USER + 1000)
+public class CompressionFilter implements ClientRequestFilter, ClientResponseFilter {
+
+	/** The maximum number of transfers retained. */
+	public static final int MAX_TRANSFERS = 1000;
+
+	/** The value of the Accept-Encoding header. */
+	static final String ACCEPT_ENCODING = "gzip, deflate";
+
+	private volatile boolean negotiating;
+
+	private final Deque<Transfer> transfers = new ArrayDeque<>();
+
+	private final AtomicLong encodedBytes = new AtomicLong();
+
+	private final AtomicLong decodedBytes = new AtomicLong();
+
+	/**
+	 * Constructs a filter.
+	 * @param negotiating true if compressed entities are to be requested; false if they
+	 * are only decoded when a server sends them regardless.
+	 */
+	public CompressionFilter(boolean negotiating) {
+		this.negotiating = negotiating;
+	}
+
+	/**
+	 * Enables or disables negotiation.
+	 * @param enabled true if compressed entities are to be requested; false otherwise.
+	 */
+	public void setNegotiating(boolean enabled) {
+		this.negotiating = enabled;
+	}
+
+	/**
+	 * Indicates whether compressed entities are requested.
+	 * @return true if negotiation is enabled; false otherwise.
+	 */
+	public boolean isNegotiating() {
+		return negotiating;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void filter(ClientRequestContext requestContext) throws IOException {
+		if (negotiating && null == requestContext.getHeaderString(HttpHeaders.ACCEPT_ENCODING)) {
+			requestContext.getHeaders().putSingle(HttpHeaders.ACCEPT_ENCODING, ACCEPT_ENCODING);
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext)
+			throws IOException {
+		if (!responseContext.hasEntity()) {
+			return;
+		}
+		String coding = responseContext.getHeaderString(HttpHeaders.CONTENT_ENCODING);
+		coding = (null != coding) ? coding.trim().toLowerCase() : "identity";
+		Transfer transfer = new Transfer(requestContext.getUri(), coding);
+		CountingInputStream encoded = new CountingInputStream(responseContext.getEntityStream());
+		InputStream decoder;
+		switch (coding) {
+			case "gzip":
+			case "x-gzip":
+				decoder = new GZIPInputStream(encoded);
+				break;
+			case "deflate":
+				decoder = inflate(encoded);
+				break;
+			default:
+				decoder = encoded;
+		}
+		if (decoder != encoded) {
+			responseContext.getHeaders().remove(HttpHeaders.CONTENT_ENCODING);
+			responseContext.getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+		}
+		responseContext.setEntityStream(new DecodedStream(decoder, encoded, transfer));
+	}
+
+	/**
+	 * Creates a stream that inflates a "deflate" entity. The coding is defined as the
+	 * zlib format, but some servers send raw deflate data without the zlib header; the
+	 * format is detected from the first two bytes.
+	 */
+	private static InputStream inflate(InputStream in) throws IOException {
+		PushbackInputStream pushback = new PushbackInputStream(in, 2);
+		byte[] header = new byte[2];
+		int n = pushback.readNBytes(header, 0, 2);
+		if (n > 0) {
+			pushback.unread(header, 0, n);
+		}
+		boolean zlib = n == 2 && (header[0] & 0x0f) == 8 && (((header[0] & 0xff) << 8) | (header[1] & 0xff)) % 31 == 0;
+		return new InflaterInputStream(pushback, new Inflater(!zlib));
+	}
+
+	private void complete(Transfer transfer) {
+		encodedBytes.addAndGet(transfer.encodedBytes);
+		decodedBytes.addAndGet(transfer.decodedBytes);
+		synchronized (transfers) {
+			transfers.addLast(transfer);
+			if (transfers.size() > MAX_TRANSFERS) {
+				transfers.removeFirst();
+			}
+		}
+	}
+
+	/**
+	 * Returns the most recent transfers.
+	 * @return A list of completed transfers, oldest first.
+	 */
+	public List<Transfer> getTransfers() {
+		synchronized (transfers) {
+			return new ArrayList<>(transfers);
+		}
+	}
+
+	/**
+	 * Returns the total number of entity bytes received.
+	 * @return The sum of the encoded sizes of all completed transfers.
+	 */
+	public long getEncodedByteCount() {
+		return encodedBytes.get();
+	}
+
+	/**
+	 * Returns the total number of entity bytes delivered after decoding.
+	 * @return The sum of the decoded sizes of all completed transfers.
+	 */
+	public long getDecodedByteCount() {
+		return decodedBytes.get();
+	}
+
+	/**
+	 * The sizes of a response entity as received and as delivered.
+	 */
+	public static final class Transfer {
+
+		private final URI uri;
+
+		private final String contentCoding;
+
+		private volatile long encodedBytes;
+
+		private volatile long decodedBytes;
+
+		Transfer(URI uri, String contentCoding) {
+			this.uri = uri;
+			this.contentCoding = contentCoding;
+		}
+
+		/**
+		 * Returns the request URI.
+		 * @return An absolute URI.
+		 */
+		public URI getURI() {
+			return uri;
+		}
+
+		/**
+		 * Returns the content coding of the entity.
+		 * @return The (lower-case) value of the Content-Encoding header, or "identity" if
+		 * the entity was not encoded.
+		 */
+		public String getContentCoding() {
+			return contentCoding;
+		}
+
+		/**
+		 * Indicates whether the entity was compressed.
+		 * @return true if the content coding is not "identity"; false otherwise.
+		 */
+		public boolean isCompressed() {
+			return !"identity".equals(contentCoding);
+		}
+
+		/**
+		 * Returns the number of bytes received.
+		 * @return The size of the entity as transferred.
+		 */
+		public long getEncodedBytes() {
+			return encodedBytes;
+		}
+
+		/**
+		 * Returns the number of bytes delivered after decoding.
+		 * @return The size of the decoded entity.
+		 */
+		public long getDecodedBytes() {
+			return decodedBytes;
+		}
+
+		/**
+		 * Returns the compression ratio.
+		 * @return The ratio of the decoded size to the encoded size (1 if the entity was
+		 * not compressed or is empty).
+		 */
+		public double getRatio() {
+			return (encodedBytes > 0) ? (double) decodedBytes / encodedBytes : 1.0;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s: %s, %d -> %d bytes (%.1fx)", uri, contentCoding, encodedBytes, decodedBytes,
+					getRatio());
+		}
+
+	}
+
+	/**
+	 * Counts the decoded bytes and records the transfer when the stream is closed.
+	 */
+	private final class DecodedStream extends FilterInputStream {
+
+		private final CountingInputStream encoded;
+
+		private final Transfer transfer;
+
+		private long count;
+
+		private boolean closed;
+
+		DecodedStream(InputStream decoder, CountingInputStream encoded, Transfer transfer) {
+			super(decoder);
+			this.encoded = encoded;
+			this.transfer = transfer;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b >= 0) {
+				count++;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = super.read(b, off, len);
+			if (n > 0) {
+				count += n;
+			}
+			return n;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = super.skip(n);
+			count += skipped;
+			return skipped;
+		}
+
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				super.close();
+			}
+			finally {
+				if (!closed) {
+					closed = true;
+					transfer.encodedBytes = encoded.getCount();
+					transfer.decodedBytes = count;
+					complete(transfer);
+				}
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,520 @@
+package org.opengis.cite.cat30.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.logging.Level;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.opengis.cite.cat30.CAT3;
+import org.opengis.cite.cat30.Namespaces;
+
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Checks that a catalogue returns the same results to concurrent clients as it does to a
+ * single client. Each probe (a GET request) is first submitted once by a single client
+ * to obtain a baseline; then, for each level of concurrency, that many clients submit
+ * every probe simultaneously, and each response is compared with the baseline.
+ *
+ * <p>
+ * Responses are compared after normalization (see {@link Snapshot}): the status code
+ * and the reported number of matching records must agree. If the baseline response
+ * presents the entire result set, the set of record identifiers and a hash of the
+ * content of the records must also agree; otherwise the records are not compared, since
+ * the service may choose any subset of an unsorted result set. Content outside the
+ * records (such as the csw:SearchStatus timestamp) is ignored, as is the order of the
+ * records. The latency of
+ * every response is recorded, so that the growth in latency with the number of clients
+ * can be reported.
+ * </p>
+ */
+public class ConcurrencyChecker {
+
+	/** The maximum number of discrepancies retained in a report. */
+	static final int MAX_DISCREPANCIES = 50;
+
+	private final List<Probe> probes;
+
+	private final Function<Probe, Snapshot> fetcher;
+
+	/**
+	 * Constructs a checker that submits requests using the given client.
+	 * @param probes A list of requests to submit (not empty).
+	 * @param client The client component used to submit requests; it is shared by all
+	 * concurrent clients.
+	 */
+	public ConcurrencyChecker(List<Probe> probes, Client client) {
+		this(probes, probe -> fetch(client, probe));
+	}
+
+	/**
+	 * Constructs a checker.
+	 * @param probes A list of requests to submit (not empty).
+	 * @param fetcher A function that submits a request and returns the normalized
+	 * response.
+	 */
+	ConcurrencyChecker(List<Probe> probes, Function<Probe, Snapshot> fetcher) {
+		if (probes.isEmpty()) {
+			throw new IllegalArgumentException("No requests to submit.");
+		}
+		this.probes = probes;
+		this.fetcher = fetcher;
+	}
+
+	/**
+	 * Obtains the baseline responses and then submits every probe from each number of
+	 * concurrent clients in turn. Each client submits every probe the given number of
+	 * times, starting with a different probe so that different requests overlap.
+	 * @param clientCounts The numbers of concurrent clients (e.g. 2, 8, 32).
+	 * @param rounds The number of times each client submits every probe.
+	 * @return A Report describing any discrepancies and the latency at each level of
+	 * concurrency.
+	 * @throws InterruptedException If the calling thread is interrupted while waiting.
+	 */
+	public Report run(int[] clientCounts, int rounds) throws InterruptedException {
+		Report report = new Report();
+		for (Probe probe : probes) {
+			long start = System.nanoTime();
+			Snapshot snapshot = fetcher.apply(probe);
+			report.baselineLatency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+			report.baseline.put(probe, snapshot);
+		}
+		for (int clients : clientCounts) {
+			LevelStats stats = report.statsFor(clients);
+			ExecutorService executor = Executors.newFixedThreadPool(clients);
+			CountDownLatch startSignal = new CountDownLatch(1);
+			try {
+				for (int i = 0; i < clients; i++) {
+					final int offset = i;
+					executor.execute(() -> {
+						try {
+							startSignal.await();
+						}
+						catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+							return;
+						}
+						for (int n = 0; n < rounds * probes.size(); n++) {
+							Probe probe = probes.get((offset + n) % probes.size());
+							long start = System.nanoTime();
+							Snapshot snapshot = fetcher.apply(probe);
+							stats.latency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+							String difference = snapshot.describeDifference(report.baseline.get(probe));
+							if (null != difference) {
+								report.addDiscrepancy(String.format("%s (%d clients): %s", probe.getName(), clients,
+										difference));
+								stats.discrepancies.incrementAndGet();
+							}
+						}
+					});
+				}
+				startSignal.countDown();
+			}
+			finally {
+				executor.shutdown();
+			}
+			while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+				TestSuiteLogger.log(Level.FINE, "Waiting for concurrent requests to complete");
+			}
+		}
+		return report;
+	}
+
+	/**
+	 * Submits a request and normalizes the response.
+	 * @param client A Client component.
+	 * @param probe The request to submit.
+	 * @return A Snapshot of the response (with status code -1 if the request failed).
+	 */
+	static Snapshot fetch(Client client, Probe probe) {
+		Response rsp = null;
+		try {
+			rsp = ClientUtils.buildGetRequest(client, probe.endpoint, probe.qryParams, probe.mediaType);
+			byte[] entity = rsp.readEntity(byte[].class);
+			if (rsp.getStatus() != Response.Status.OK.getStatusCode() || null == entity) {
+				return new Snapshot(rsp.getStatus(), -1, Collections.emptySortedSet(), 0);
+			}
+			return Snapshot.read(rsp.getStatus(), entity);
+		}
+		catch (ProcessingException | XMLStreamException ex) {
+			TestSuiteLogger.log(Level.FINE, "Request failed: " + probe.getName(), ex);
+			return new Snapshot((null != rsp) ? rsp.getStatus() : -1, -1, Collections.emptySortedSet(), 0);
+		}
+		finally {
+			if (null != rsp) {
+				rsp.close();
+			}
+		}
+	}
+
+	/**
+	 * A GET request submitted by every client.
+	 */
+	public static final class Probe {
+
+		private final String name;
+
+		private final URI endpoint;
+
+		private final Map<String, String> qryParams;
+
+		private final MediaType mediaType;
+
+		/**
+		 * Constructs a probe.
+		 * @param name A short description of the request (e.g. "GetRecords (q=water)").
+		 * @param endpoint The request endpoint.
+		 * @param qryParams The query parameters.
+		 * @param mediaType The acceptable media type.
+		 */
+		public Probe(String name, URI endpoint, Map<String, String> qryParams, MediaType mediaType) {
+			this.name = name;
+			this.endpoint = endpoint;
+			this.qryParams = Collections.unmodifiableMap(new LinkedHashMap<>(qryParams));
+			this.mediaType = mediaType;
+		}
+
+		/**
+		 * Returns the description of the request.
+		 * @return The name of the probe.
+		 */
+		public String getName() {
+			return name;
+		}
+
+	}
+
+	/**
+	 * A normalized response: the status code, the reported number of matching records,
+	 * the set of record identifiers, and an order-independent hash of the content of the
+	 * records. A record is recognized as in {@link RecordPage}. The hash of a record
+	 * covers the names of its descendant elements, their attributes (in name order), and
+	 * their non-blank text content (trimmed); the record hashes are summed.
+	 */
+	public static final class Snapshot {
+
+		private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+		private static final long FNV_PRIME = 0x100000001b3L;
+
+		private final int status;
+
+		private final long numberOfRecordsMatched;
+
+		private final SortedSet<String> recordIds;
+
+		private final long contentHash;
+
+		Snapshot(int status, long numberOfRecordsMatched, SortedSet<String> recordIds, long contentHash) {
+			this.status = status;
+			this.numberOfRecordsMatched = numberOfRecordsMatched;
+			this.recordIds = recordIds;
+			this.contentHash = contentHash;
+		}
+
+		/**
+		 * Reads a response entity.
+		 * @param status The status code of the response.
+		 * @param entity The content of the response entity.
+		 * @return A Snapshot of the response.
+		 * @throws XMLStreamException If the entity cannot be parsed.
+		 */
+		static Snapshot read(int status, byte[] entity) throws XMLStreamException {
+			RecordPage page = RecordPage.read(1, new ByteArrayInputStream(entity));
+			return new Snapshot(status, page.getNumberOfRecordsMatched(), new TreeSet<>(page.getRecordIds()),
+					contentHash(new ByteArrayInputStream(entity)));
+		}
+
+		private static long contentHash(InputStream entityStream) throws XMLStreamException {
+			XMLInputFactory factory = XMLInputFactory.newInstance();
+			factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+			XMLStreamReader reader = factory.createXMLStreamReader(entityStream);
+			long total = 0;
+			try {
+				int depth = 0;
+				int recordDepth = -1;
+				boolean isFeed = false;
+				boolean inRecord = false;
+				long hash = FNV_OFFSET;
+				while (reader.hasNext()) {
+					int event = reader.next();
+					if (event == XMLStreamConstants.START_ELEMENT) {
+						depth++;
+						String nsName = reader.getNamespaceURI();
+						String localName = reader.getLocalName();
+						if (depth == 1) {
+							if (Namespaces.ATOM.equals(nsName) && localName.equals("feed")) {
+								isFeed = true;
+								recordDepth = 2;
+							}
+							else if (Namespaces.ATOM.equals(nsName) && localName.equals("entry")
+									|| Namespaces.CSW.equals(nsName) && localName.endsWith("Record")) {
+								recordDepth = 1;
+							}
+						}
+						else if (recordDepth < 0 && Namespaces.CSW.equals(nsName)
+								&& localName.equals(CAT3.SEARCH_RESULTS)) {
+							recordDepth = depth + 1;
+							continue;
+						}
+						if (depth == recordDepth
+								&& (!isFeed || Namespaces.ATOM.equals(nsName) && localName.equals("entry"))) {
+							inRecord = true;
+							hash = FNV_OFFSET;
+						}
+						if (inRecord) {
+							hash = update(hash, "<" + nsName + " " + localName);
+							List<String> attributes = new ArrayList<>();
+							for (int i = 0; i < reader.getAttributeCount(); i++) {
+								attributes.add(reader.getAttributeName(i) + "=" + reader.getAttributeValue(i));
+							}
+							Collections.sort(attributes);
+							for (String attr : attributes) {
+								hash = update(hash, attr);
+							}
+						}
+					}
+					else if (inRecord && (event == XMLStreamConstants.CHARACTERS
+							|| event == XMLStreamConstants.CDATA)) {
+						String text = reader.getText().trim();
+						if (!text.isEmpty()) {
+							hash = update(hash, text);
+						}
+					}
+					else if (event == XMLStreamConstants.END_ELEMENT) {
+						if (inRecord) {
+							hash = update(hash, ">");
+							if (depth == recordDepth) {
+								inRecord = false;
+								total += hash;
+							}
+						}
+						else if (depth == recordDepth - 1 && !isFeed) {
+							recordDepth = -1;
+						}
+						depth--;
+					}
+				}
+			}
+			finally {
+				reader.close();
+			}
+			return total;
+		}
+
+		private static long update(long hash, String token) {
+			for (int i = 0; i < token.length(); i++) {
+				hash ^= token.charAt(i);
+				hash *= FNV_PRIME;
+			}
+			return hash;
+		}
+
+		/**
+		 * Returns the status code of the response.
+		 * @return The HTTP status code, or -1 if no response was received.
+		 */
+		public int getStatus() {
+			return status;
+		}
+
+		/**
+		 * Returns the reported size of the result set.
+		 * @return The number of matching records, or -1 if it is unknown.
+		 */
+		public long getNumberOfRecordsMatched() {
+			return numberOfRecordsMatched;
+		}
+
+		/**
+		 * Returns the identifiers of the records in the response.
+		 * @return A sorted set of record identifiers.
+		 */
+		public SortedSet<String> getRecordIds() {
+			return recordIds;
+		}
+
+		/**
+		 * Indicates whether the response presents the entire result set. A response
+		 * that does not report the number of matching records (such as a GetRecordById
+		 * response) is deemed to be complete.
+		 * @return true if no matching records were omitted; false otherwise.
+		 */
+		public boolean isComplete() {
+			return numberOfRecordsMatched <= recordIds.size();
+		}
+
+		/**
+		 * Describes how this response differs from another. The records are compared only
+		 * if the other response is complete (see {@link #isComplete()}).
+		 * @param other The expected (baseline) response.
+		 * @return A description of the first difference found, or null if the responses
+		 * are equivalent.
+		 */
+		public String describeDifference(Snapshot other) {
+			if (status != other.status) {
+				return String.format("status %d (expected %d)", status, other.status);
+			}
+			if (numberOfRecordsMatched != other.numberOfRecordsMatched) {
+				return String.format("numberOfRecordsMatched %d (expected %d)", numberOfRecordsMatched,
+						other.numberOfRecordsMatched);
+			}
+			if (!other.isComplete()) {
+				return null;
+			}
+			if (!recordIds.equals(other.recordIds)) {
+				SortedSet<String> missing = new TreeSet<>(other.recordIds);
+				missing.removeAll(recordIds);
+				SortedSet<String> extra = new TreeSet<>(recordIds);
+				extra.removeAll(other.recordIds);
+				return String.format("record identifiers differ (missing %s, unexpected %s)", missing, extra);
+			}
+			if (contentHash != other.contentHash) {
+				return "record content differs";
+			}
+			return null;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Snapshot)) {
+				return false;
+			}
+			return null == describeDifference((Snapshot) obj);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(status, numberOfRecordsMatched, recordIds, contentHash);
+		}
+
+	}
+
+	/**
+	 * Records the latency and the number of discrepancies at one level of concurrency.
+	 */
+	static final class LevelStats {
+
+		final LatencyHistogram latency = new LatencyHistogram();
+
+		final AtomicInteger discrepancies = new AtomicInteger();
+
+	}
+
+	/**
+	 * Presents the outcome of a run: the baseline responses, any discrepancies, and the
+	 * latency at each level of concurrency relative to that of a single client.
+	 */
+	public static final class Report {
+
+		private final Map<Probe, Snapshot> baseline = new LinkedHashMap<>();
+
+		private final LatencyHistogram baselineLatency = new LatencyHistogram();
+
+		private final Map<Integer, LevelStats> levels = new LinkedHashMap<>();
+
+		private final ConcurrentLinkedQueue<String> discrepancies = new ConcurrentLinkedQueue<>();
+
+		private final AtomicInteger discrepancyCount = new AtomicInteger();
+
+		LevelStats statsFor(int clients) {
+			return levels.computeIfAbsent(clients, n -> new LevelStats());
+		}
+
+		void addDiscrepancy(String description) {
+			if (discrepancyCount.incrementAndGet() <= MAX_DISCREPANCIES) {
+				discrepancies.add(description);
+			}
+		}
+
+		/**
+		 * Returns the baseline responses obtained by a single client.
+		 * @return A map associating each probe with its baseline response.
+		 */
+		public Map<Probe, Snapshot> getBaseline() {
+			return Collections.unmodifiableMap(baseline);
+		}
+
+		/**
+		 * Indicates whether every response matched its baseline.
+		 * @return true if no discrepancies were found; false otherwise.
+		 */
+		public boolean isConsistent() {
+			return discrepancyCount.get() == 0;
+		}
+
+		/**
+		 * Returns the number of responses that differed from their baseline.
+		 * @return The total number of discrepancies.
+		 */
+		public int getDiscrepancyCount() {
+			return discrepancyCount.get();
+		}
+
+		/**
+		 * Returns the ratio of the median latency at the given level of concurrency to
+		 * the median latency of a single client.
+		 * @param clients The number of concurrent clients.
+		 * @return The latency inflation factor, or {@link Double#NaN} if the level was
+		 * not measured.
+		 */
+		public double getLatencyInflation(int clients) {
+			LevelStats stats = levels.get(clients);
+			if (null == stats || stats.latency.getCount() == 0) {
+				return Double.NaN;
+			}
+			return (double) stats.latency.getValueAtPercentile(50)
+					/ Math.max(baselineLatency.getValueAtPercentile(50), 1);
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder str = new StringBuilder();
+			str.append(String.format("%8s %9s %13s %10s %10s %10s%n", "Clients", "Requests", "Discrepancies",
+					"p50 ms", "p95 ms", "Inflation"));
+			str.append(String.format("%8d %9d %13d %10.1f %10.1f %10.2f%n", 1, baselineLatency.getCount(), 0,
+					baselineLatency.getValueAtPercentile(50) / 1000.0,
+					baselineLatency.getValueAtPercentile(95) / 1000.0, 1.0));
+			for (Map.Entry<Integer, LevelStats> entry : levels.entrySet()) {
+				LevelStats stats = entry.getValue();
+				str.append(String.format("%8d %9d %13d %10.1f %10.1f %10.2f%n", entry.getKey(),
+						stats.latency.getCount(), stats.discrepancies.get(),
+						stats.latency.getValueAtPercentile(50) / 1000.0,
+						stats.latency.getValueAtPercentile(95) / 1000.0, getLatencyInflation(entry.getKey())));
+			}
+			for (String discrepancy : discrepancies) {
+				str.append(discrepancy).append('\n');
+			}
+			int remaining = discrepancyCount.get() - discrepancies.size();
+			if (remaining > 0) {
+				str.append("... and ").append(remaining).append(" more\n");
+			}
+			return str.toString();
+		}
+
+	}
+
+}
@@ -0,0 +1,361 @@
+package org.opengis.cite.cat30.util;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+
+import org.glassfish.jersey.client.ClientRequest;
+import org.glassfish.jersey.client.ClientResponse;
+import org.glassfish.jersey.client.spi.AsyncConnectorCallback;
+import org.glassfish.jersey.client.spi.Connector;
+import org.glassfish.jersey.client.spi.ConnectorProvider;
+
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.core.Configuration;
+
+/**
+ * Limits the number of requests in flight to each host, adapting the limit to the
+ * observed behavior of the server (additive increase, multiplicative decrease). The limit
+ * grows by about one permit per round trip while responses are fast and successful; it is
+ * reduced by a constant factor when a request fails (no response, status 429, or a 5xx
+ * status) or when its latency exceeds {@value #LATENCY_TOLERANCE} times the baseline (the
+ * lowest latency recently observed). A caller that finds no free permit waits until one
+ * is released.
+ *
+ * <p>
+ * Sequential requests are never delayed. When tests submit requests concurrently, the
+ * run thereby proceeds as fast as the server can respond without being overwhelmed. The
+ * limiter is applied by decorating the connector of a client component (see
+ * {@link #decorate(ConnectorProvider)}).
+ * </p>
+ */
+public class ConcurrencyLimiter {
+
+	/** The initial limit for a host. */
+	public static final int DEFAULT_INITIAL_LIMIT = 4;
+
+	/** The default upper bound of the limit. */
+	public static final int DEFAULT_MAX_LIMIT = 64;
+
+	/** The factor by which the limit is reduced when congestion is detected. */
+	static final double BACKOFF_RATIO = 0.75;
+
+	/** The ratio of a latency sample to the baseline that indicates congestion. */
+	static final double LATENCY_TOLERANCE = 2.0;
+
+	/**
+	 * The smallest latency excess (in microseconds) that indicates congestion; it keeps
+	 * jitter in very fast responses from reducing the limit.
+	 */
+	static final long MIN_LATENCY_EXCESS_MICROS = 50000;
+
+	/** The number of samples after which the baseline latency is re-established. */
+	static final int BASELINE_WINDOW = 200;
+
+	private final int initialLimit;
+
+	private volatile int maxLimit;
+
+	private final Map<String, HostLimit> hosts = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructs a limiter with the default initial and maximum limits.
+	 */
+	public ConcurrencyLimiter() {
+		this(DEFAULT_INITIAL_LIMIT, DEFAULT_MAX_LIMIT);
+	}
+
+	/**
+	 * Constructs a limiter.
+	 * @param initialLimit The initial number of permits for a host.
+	 * @param maxLimit The upper bound of the limit for any host.
+	 */
+	public ConcurrencyLimiter(int initialLimit, int maxLimit) {
+		if (initialLimit < 1 || maxLimit < 1) {
+			throw new IllegalArgumentException("Limits must be positive.");
+		}
+		this.maxLimit = maxLimit;
+		this.initialLimit = Math.min(initialLimit, maxLimit);
+	}
+
+	/**
+	 * Sets the upper bound of the limit for any host.
+	 * @param maxLimit A positive integer.
+	 */
+	public void setMaxLimit(int maxLimit) {
+		if (maxLimit < 1) {
+			throw new IllegalArgumentException("Maximum limit must be positive: " + maxLimit);
+		}
+		this.maxLimit = maxLimit;
+	}
+
+	/**
+	 * Returns the upper bound of the limit for any host.
+	 * @return The maximum number of concurrent requests per host.
+	 */
+	public int getMaxLimit() {
+		return maxLimit;
+	}
+
+	private HostLimit hostLimit(String host) {
+		return hosts.computeIfAbsent(host, h -> new HostLimit(initialLimit));
+	}
+
+	static String hostOf(URI uri) {
+		return (null != uri.getAuthority()) ? uri.getAuthority().toLowerCase() : "";
+	}
+
+	/**
+	 * Obtains a permit to submit a request to the given host, waiting if necessary.
+	 * @param host A host (authority) name.
+	 * @throws InterruptedException If the current thread was interrupted while waiting.
+	 */
+	public void acquire(String host) throws InterruptedException {
+		HostLimit limit = hostLimit(host);
+		synchronized (limit) {
+			while (limit.inFlight >= Math.min((int) limit.limit, maxLimit)) {
+				limit.waits++;
+				limit.wait();
+			}
+			limit.inFlight++;
+		}
+	}
+
+	/**
+	 * Releases a permit and adjusts the limit according to the outcome of the request.
+	 * @param host A host (authority) name.
+	 * @param latencyMicros The time taken to receive the response (or to fail).
+	 * @param failed true if the request failed or the server indicated that it is
+	 * overloaded; false otherwise.
+	 */
+	public void release(String host, long latencyMicros, boolean failed) {
+		HostLimit limit = hostLimit(host);
+		synchronized (limit) {
+			limit.update(latencyMicros, failed, maxLimit);
+			limit.inFlight = Math.max(0, limit.inFlight - 1);
+			limit.notifyAll();
+		}
+	}
+
+	/**
+	 * Returns the current limit for the given host.
+	 * @param host A host (authority) name.
+	 * @return The number of requests that may be in flight concurrently.
+	 */
+	public int getLimit(String host) {
+		HostLimit limit = hosts.get(host);
+		if (null == limit) {
+			return Math.min(initialLimit, maxLimit);
+		}
+		synchronized (limit) {
+			return Math.min((int) limit.limit, maxLimit);
+		}
+	}
+
+	/**
+	 * Returns the number of requests currently in flight to the given host.
+	 * @param host A host (authority) name.
+	 * @return The number of permits in use.
+	 */
+	public int getInFlight(String host) {
+		HostLimit limit = hosts.get(host);
+		if (null == limit) {
+			return 0;
+		}
+		synchronized (limit) {
+			return limit.inFlight;
+		}
+	}
+
+	/**
+	 * Returns the current limit for every host that has been contacted.
+	 * @return A map of host names to limits, sorted by host name.
+	 */
+	public Map<String, Integer> getLimits() {
+		Map<String, Integer> limits = new TreeMap<>();
+		for (String host : hosts.keySet()) {
+			limits.put(host, getLimit(host));
+		}
+		return limits;
+	}
+
+	/**
+	 * Wraps the connectors supplied by the given provider so that every request is
+	 * subject to this limiter.
+	 * @param delegate The provider of the connectors that submit requests.
+	 * @return A ConnectorProvider.
+	 */
+	public ConnectorProvider decorate(ConnectorProvider delegate) {
+		return (Client client, Configuration runtimeConfig) -> new LimitingConnector(
+				delegate.getConnector(client, runtimeConfig));
+	}
+
+	/**
+	 * Reports the state of the limiter for each host.
+	 * @return A table giving the current limit, the number of requests, the error rate,
+	 * the number of limit reductions, and the number of times a request had to wait.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder str = new StringBuilder();
+		str.append(String.format("%-32s %6s %9s %8s %8s %8s %12s%n", "Host", "Limit", "Requests", "Errors", "Backoffs",
+				"Waits", "Baseline ms"));
+		for (Map.Entry<String, HostLimit> entry : new TreeMap<>(hosts).entrySet()) {
+			HostLimit limit = entry.getValue();
+			synchronized (limit) {
+				str.append(String.format("%-32s %6d %9d %8d %8d %8d %12.1f%n", entry.getKey(),
+						Math.min((int) limit.limit, maxLimit), limit.requests, limit.errors, limit.backoffs, limit.waits,
+						(limit.baselineMicros == Long.MAX_VALUE) ? 0.0 : limit.baselineMicros / 1000.0));
+			}
+		}
+		return str.toString();
+	}
+
+	/**
+	 * The adaptive limit for a single host. All fields are guarded by the instance
+	 * monitor.
+	 */
+	static final class HostLimit {
+
+		double limit;
+
+		int inFlight;
+
+		long baselineMicros = Long.MAX_VALUE;
+
+		long windowMinMicros = Long.MAX_VALUE;
+
+		int windowCount;
+
+		long requests;
+
+		long errors;
+
+		long backoffs;
+
+		long waits;
+
+		HostLimit(int initialLimit) {
+			this.limit = initialLimit;
+		}
+
+		void update(long latencyMicros, boolean failed, int maxLimit) {
+			requests++;
+			if (failed) {
+				errors++;
+				backoff();
+				return;
+			}
+			windowMinMicros = Math.min(windowMinMicros, latencyMicros);
+			if (++windowCount >= BASELINE_WINDOW) {
+				// forget an outdated baseline (e.g. a lucky early response)
+				baselineMicros = windowMinMicros;
+				windowMinMicros = Long.MAX_VALUE;
+				windowCount = 0;
+			}
+			else {
+				baselineMicros = Math.min(baselineMicros, latencyMicros);
+			}
+			if (latencyMicros > LATENCY_TOLERANCE * baselineMicros
+					&& latencyMicros - baselineMicros > MIN_LATENCY_EXCESS_MICROS) {
+				backoff();
+			}
+			else if (inFlight >= limit / 2) {
+				// grow only if the permits are actually being used
+				limit = Math.min(maxLimit, limit + 1.0 / limit);
+			}
+		}
+
+		private void backoff() {
+			backoffs++;
+			limit = Math.max(1.0, limit * BACKOFF_RATIO);
+		}
+
+	}
+
+	/**
+	 * A connector that obtains a permit before submitting a request and releases it when
+	 * the response headers have been received (or the request failed).
+	 */
+	private final class LimitingConnector implements Connector {
+
+		private final Connector delegate;
+
+		LimitingConnector(Connector delegate) {
+			this.delegate = delegate;
+		}
+
+		private String acquirePermit(ClientRequest request) {
+			String host = hostOf(request.getUri());
+			try {
+				acquire(host);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ProcessingException("Interrupted while waiting for a request permit.", e);
+			}
+			return host;
+		}
+
+		private boolean indicatesOverload(int status) {
+			return status == 429 || status >= 500;
+		}
+
+		@Override
+		public ClientResponse apply(ClientRequest request) {
+			String host = acquirePermit(request);
+			long start = System.nanoTime();
+			boolean failed = true;
+			try {
+				ClientResponse response = delegate.apply(request);
+				failed = indicatesOverload(response.getStatus());
+				return response;
+			}
+			finally {
+				release(host, (System.nanoTime() - start) / 1000, failed);
+			}
+		}
+
+		@Override
+		public Future<?> apply(ClientRequest request, AsyncConnectorCallback callback) {
+			String host = acquirePermit(request);
+			long start = System.nanoTime();
+			try {
+				return delegate.apply(request, new AsyncConnectorCallback() {
+
+					@Override
+					public void response(ClientResponse response) {
+						release(host, (System.nanoTime() - start) / 1000, indicatesOverload(response.getStatus()));
+						callback.response(response);
+					}
+
+					@Override
+					public void failure(Throwable failure) {
+						release(host, (System.nanoTime() - start) / 1000, true);
+						callback.failure(failure);
+					}
+
+				});
+			}
+			catch (RuntimeException e) {
+				release(host, (System.nanoTime() - start) / 1000, true);
+				throw e;
+			}
+		}
+
+		@Override
+		public String getName() {
+			return delegate.getName() + " (concurrency limited)";
+		}
+
+		@Override
+		public void close() {
+			delegate.close();
+		}
+
+	}
+
+}
@@ -0,0 +1,70 @@
+package org.opengis.cite.cat30.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An input stream that counts the number of bytes read from the underlying stream.
+ * Skipped bytes are included in the count.
+ */
+public class CountingInputStream extends FilterInputStream {
+
+	private long count;
+
+	private long mark;
+
+	/**
+	 * Constructs a counting stream.
+	 * @param in The underlying input stream.
+	 */
+	public CountingInputStream(InputStream in) {
+		super(in);
+	}
+
+	/**
+	 * Returns the number of bytes read so far.
+	 * @return The byte count.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	@Override
+	public int read() throws IOException {
+		int b = super.read();
+		if (b >= 0) {
+			count++;
+		}
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		int n = super.read(b, off, len);
+		if (n > 0) {
+			count += n;
+		}
+		return n;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		long skipped = super.skip(n);
+		count += skipped;
+		return skipped;
+	}
+
+	@Override
+	public synchronized void mark(int readlimit) {
+		super.mark(readlimit);
+		mark = count;
+	}
+
+	@Override
+	public synchronized void reset() throws IOException {
+		super.reset();
+		count = mark;
+	}
+
+}
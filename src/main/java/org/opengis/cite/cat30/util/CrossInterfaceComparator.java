@@ -0,0 +1,299 @@
+package org.opengis.cite.cat30.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.function.BiFunction;
+import java.util.logging.Level;
+
+/**
+ * Compares the result sets produced by equivalent queries submitted through different
+ * service interfaces (e.g. a KVP GetRecords request, an OpenSearch request, and a
+ * GetRecordById request). Each interface is represented by a page source; the result set
+ * of every source is paged through and its record identifiers are streamed into an
+ * {@link ExternalIdSorter}. The sorted sequences are then combined in a single merge-join
+ * pass that reports every identifier not found by all interfaces. Neither the result sets
+ * nor their differences are held in memory in their entirety.
+ *
+ * <p>
+ * A source whose result set could not be retrieved completely (because a request failed
+ * or the record limit was reached) is excluded from the comparison, since the absence
+ * of an identifier would not be meaningful.
+ * </p>
+ */
+public class CrossInterfaceComparator {
+
+	/** The maximum number of discrepancies described in a result. */
+	static final int MAX_EXAMPLES = 20;
+
+	private final Map<String, BiFunction<Integer, Integer, RecordPage>> sources = new LinkedHashMap<>();
+
+	private final int pageSize;
+
+	private final int limit;
+
+	private final int runSize;
+
+	/**
+	 * Constructs a comparator.
+	 * @param pageSize The number of records to request per page.
+	 * @param limit The maximum number of records to retrieve from each source.
+	 */
+	public CrossInterfaceComparator(int pageSize, int limit) {
+		this(pageSize, limit, ExternalIdSorter.DEFAULT_RUN_SIZE);
+	}
+
+	CrossInterfaceComparator(int pageSize, int limit, int runSize) {
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+		}
+		this.pageSize = pageSize;
+		this.limit = limit;
+		this.runSize = runSize;
+	}
+
+	/**
+	 * Adds a source of records.
+	 * @param name The name of the interface (e.g. "KVP").
+	 * @param pageSource A function that accepts a (one-based) start position and a
+	 * maximum number of records and returns the corresponding page of results (or null
+	 * if the request failed).
+	 */
+	public void addSource(String name, BiFunction<Integer, Integer, RecordPage> pageSource) {
+		sources.put(name, pageSource);
+	}
+
+	/**
+	 * Retrieves the result set of every source and compares them.
+	 * @return A Result summarizing the comparison.
+	 * @throws IOException If an I/O error occurs while sorting the identifiers.
+	 */
+	public Result compare() throws IOException {
+		Result result = new Result();
+		List<ExternalIdSorter> sorters = new ArrayList<>();
+		try {
+			for (Map.Entry<String, BiFunction<Integer, Integer, RecordPage>> source : sources.entrySet()) {
+				ExternalIdSorter sorter = new ExternalIdSorter(runSize);
+				String status = collect(source.getValue(), sorter);
+				result.sizes.put(source.getKey(), sorter.size());
+				if (null == status) {
+					result.names.add(source.getKey());
+					sorters.add(sorter);
+				}
+				else {
+					result.excluded.put(source.getKey(), status);
+					sorter.close();
+				}
+			}
+			if (result.names.size() > 1) {
+				join(sorters, result);
+			}
+		}
+		finally {
+			for (ExternalIdSorter sorter : sorters) {
+				sorter.close();
+			}
+		}
+		TestSuiteLogger.log(Level.CONFIG, result.toString());
+		return result;
+	}
+
+	/**
+	 * Pages through the result set of a source.
+	 * @return null if the result set was retrieved completely; otherwise the reason it
+	 * was not.
+	 */
+	private String collect(BiFunction<Integer, Integer, RecordPage> pageSource, ExternalIdSorter sorter)
+			throws IOException {
+		int startPosition = 1;
+		long seen = 0;
+		while (true) {
+			if (seen >= limit) {
+				return "record limit reached";
+			}
+			RecordPage page = pageSource.apply(startPosition, (int) Math.min(pageSize, limit - seen));
+			if (null == page) {
+				return "request failed (startPosition=" + startPosition + ")";
+			}
+			for (String id : page.getRecordIds()) {
+				sorter.add(id);
+			}
+			int count = page.getRecordCount();
+			seen += count;
+			long matched = page.getNumberOfRecordsMatched();
+			if (count == 0 || page.getNextRecord() == 0 || (matched >= 0 && seen >= matched)) {
+				return null;
+			}
+			startPosition += count;
+		}
+	}
+
+	/**
+	 * Performs a merge-join over the sorted identifiers of all sources.
+	 */
+	private void join(List<ExternalIdSorter> sorters, Result result) throws IOException {
+		int n = sorters.size();
+		List<ExternalIdSorter.Cursor> cursors = new ArrayList<>(n);
+		try {
+			String[] heads = new String[n];
+			for (int i = 0; i < n; i++) {
+				cursors.add(sorters.get(i).open());
+				heads[i] = cursors.get(i).next();
+			}
+			result.missing = new long[n];
+			boolean[] present = new boolean[n];
+			while (true) {
+				String min = null;
+				for (String head : heads) {
+					if (null != head && (null == min || head.compareTo(min) < 0)) {
+						min = head;
+					}
+				}
+				if (null == min) {
+					break;
+				}
+				boolean inAll = true;
+				for (int i = 0; i < n; i++) {
+					present[i] = min.equals(heads[i]);
+					while (min.equals(heads[i])) {
+						heads[i] = cursors.get(i).next();
+					}
+					if (!present[i]) {
+						inAll = false;
+						result.missing[i]++;
+					}
+				}
+				result.distinctIds++;
+				if (!inAll) {
+					result.addDiscrepancy(min, present);
+				}
+			}
+		}
+		finally {
+			for (ExternalIdSorter.Cursor cursor : cursors) {
+				cursor.close();
+			}
+		}
+	}
+
+	/**
+	 * Summarizes the outcome of a comparison.
+	 */
+	public static final class Result {
+
+		private final List<String> names = new ArrayList<>();
+
+		private final Map<String, Long> sizes = new LinkedHashMap<>();
+
+		private final Map<String, String> excluded = new LinkedHashMap<>();
+
+		private long[] missing = new long[0];
+
+		private long distinctIds;
+
+		private long discrepancies;
+
+		private final List<String> examples = new ArrayList<>();
+
+		Result() {
+		}
+
+		/**
+		 * Determines whether all compared sources produced the same set of identifiers.
+		 * @return true if no discrepancies were found; false otherwise.
+		 */
+		public boolean isConsistent() {
+			return discrepancies == 0;
+		}
+
+		/**
+		 * Returns the names of the sources that were compared.
+		 * @return An unmodifiable list of source names.
+		 */
+		public List<String> getComparedSources() {
+			return Collections.unmodifiableList(names);
+		}
+
+		/**
+		 * Returns the sources that were excluded from the comparison.
+		 * @return An unmodifiable map associating a source name with the reason it was
+		 * excluded.
+		 */
+		public Map<String, String> getExcludedSources() {
+			return Collections.unmodifiableMap(excluded);
+		}
+
+		/**
+		 * Returns the number of distinct identifiers found by any compared source.
+		 * @return The size of the union of the result sets.
+		 */
+		public long getDistinctIds() {
+			return distinctIds;
+		}
+
+		/**
+		 * Returns the number of identifiers not found by every compared source.
+		 * @return The number of discrepancies.
+		 */
+		public long getDiscrepancies() {
+			return discrepancies;
+		}
+
+		/**
+		 * Returns the number of identifiers missing from the result set of a source.
+		 * @param name The name of a compared source.
+		 * @return The number of identifiers found by some other source but not this one.
+		 */
+		public long getMissingCount(String name) {
+			int index = names.indexOf(name);
+			return (index < 0) ? 0 : missing[index];
+		}
+
+		/**
+		 * Returns descriptions of the discrepancies (at most {@value #MAX_EXAMPLES}).
+		 * @return An unmodifiable list of messages.
+		 */
+		public List<String> getExamples() {
+			return Collections.unmodifiableList(examples);
+		}
+
+		void addDiscrepancy(String id, boolean[] present) {
+			discrepancies++;
+			if (examples.size() >= MAX_EXAMPLES) {
+				return;
+			}
+			StringJoiner foundBy = new StringJoiner(", ");
+			StringJoiner missingFrom = new StringJoiner(", ");
+			for (int i = 0; i < present.length; i++) {
+				if (present[i]) {
+					foundBy.add(names.get(i));
+				}
+				else {
+					missingFrom.add(names.get(i));
+				}
+			}
+			examples.add(String.format("%s found by [%s] but not by [%s]", id, foundBy, missingFrom));
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder str = new StringBuilder("Cross-interface comparison: ");
+			str.append("records=").append(sizes);
+			str.append(", distinct=").append(distinctIds);
+			str.append(", discrepancies=").append(discrepancies);
+			for (Map.Entry<String, String> entry : excluded.entrySet()) {
+				str.append("\n  ").append(entry.getKey()).append(" not compared: ").append(entry.getValue());
+			}
+			for (String example : examples) {
+				str.append("\n  ").append(example);
+			}
+			return str.toString();
+		}
+
+	}
+
+}
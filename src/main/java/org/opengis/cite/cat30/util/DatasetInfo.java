@@ -8,19 +8,13 @@ import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.xml.namespace.QName;
-import javax.xml.transform.Source;
 import javax.xml.transform.stream.StreamSource;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
 import net.sf.saxon.s9api.SaxonApiException;
 import net.sf.saxon.s9api.XdmValue;
 import org.opengis.cite.cat30.Namespaces;
-import org.opengis.cite.geomatics.Extents;
 import org.opengis.geometry.Envelope;
 import org.opengis.referencing.operation.TransformException;
 import org.opengis.util.FactoryException;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
 /**
  * Provides information about the data held by the IUT.
@@ -37,6 +31,10 @@ public class DatasetInfo {
 
 	private List<String> topics;
 
+	private RecordFootprints footprints;
+
+	private TermIndex termIndex;
+
 	/**
 	 * <p>
 	 * Constructor for DatasetInfo.
@@ -112,6 +110,33 @@ public class DatasetInfo {
 		return topics;
 	}
 
+	/**
+	 * Returns a spatial index over the record footprints found in the sample data. It may
+	 * be used to select a query box that matches a predictable set of records. The index
+	 * is built when first requested; concurrent callers obtain the same instance.
+	 * @return A RecordFootprints object (which may be empty).
+	 */
+	public synchronized RecordFootprints getRecordFootprints() {
+		if (null == this.footprints) {
+			this.footprints = RecordFootprints.read(dataFile);
+		}
+		return footprints;
+	}
+
+	/**
+	 * Returns an inverted index over the text content of the records in the sample data
+	 * (dc:title, dc:subject and dct:abstract). It may be used to select search terms by
+	 * the predicted size of the result set. The index is built when first requested;
+	 * concurrent callers obtain the same instance.
+	 * @return A TermIndex object (which may be empty).
+	 */
+	public synchronized TermIndex getTermIndex() {
+		if (null == this.termIndex) {
+			this.termIndex = TermIndex.read(dataFile);
+		}
+		return termIndex;
+	}
+
 	/**
 	 * Finds the (infoset) items in the sample data that satisfy the given XPath (2.0)
 	 * expression.
@@ -139,29 +164,19 @@ public class DatasetInfo {
 	/**
 	 * Calculates the total extent of the records in the sample data. Each csw:Record
 	 * element may contain at least one ows:BoundingBox (or ows:WGS84BoundingBox) element
-	 * that describes the spatial coverage of a catalogued resource.
+	 * that describes the spatial coverage of a catalogued resource. The file is read as a
+	 * stream and the corner coordinates are accumulated by CRS (see
+	 * {@link BoundingBoxAccumulator}), so no DOM nodes are retained.
 	 * @param file A File containing catalog data (csw:GetRecordsResponse).
 	 * @return An Envelope representing the total geographic extent of the sample data, or
 	 * null if no bounding boxes exist in the data.
 	 */
 	Envelope calculateTotalExtent(File file) {
-		Source src = new StreamSource(dataFile);
-		NodeList nodeList = null;
-		try {
-			nodeList = (NodeList) XMLUtils.evaluateXPath(src,
-					"//csw:Record/ows:BoundingBox[1] | //csw:Record/ows:WGS84BoundingBox[1]", null,
-					XPathConstants.NODESET);
-		}
-		catch (XPathExpressionException xpe) {
-			TestSuiteLogger.log(Level.WARNING, "getBoundingBoxes: ", xpe);
-		}
-		if (nodeList.getLength() == 0) {
-			return null;
-		}
-		List<Node> boxNodes = XMLUtils.getNodeListAsList(nodeList);
+		BoundingBoxAccumulator accumulator = new BoundingBoxAccumulator();
+		accumulator.addRecords(file);
 		Envelope extent;
 		try {
-			extent = Extents.coalesceBoundingBoxes(boxNodes);
+			extent = accumulator.getTotalExtent();
 		}
 		catch (FactoryException | TransformException ex) {
 			StringBuilder msg = new StringBuilder("Failed to coalesce bounding boxes. ");
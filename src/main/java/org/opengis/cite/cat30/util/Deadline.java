@@ -0,0 +1,304 @@
+package org.opengis.cite.cat30.util;
+
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.ClientRequest;
+import org.glassfish.jersey.client.ClientResponse;
+import org.glassfish.jersey.client.spi.AsyncConnectorCallback;
+import org.glassfish.jersey.client.spi.Connector;
+import org.glassfish.jersey.client.spi.ConnectorProvider;
+
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.core.Configuration;
+
+/**
+ * Manages the time budgets of a test run and of individual tests, and enforces them on
+ * HTTP requests. The run deadline and the test budget apply to the thread that starts
+ * the run and to any threads it creates (so suites run concurrently in one JVM each have
+ * their own); a test deadline likewise applies to the thread running the test and to any
+ * threads it creates.
+ *
+ * <p>
+ * A client component whose connector is decorated (see
+ * {@link #decorate(ConnectorProvider)}) submits each request in the calling thread with
+ * connect and read timeouts no longer than the time remaining before the earliest
+ * deadline. A request that cannot be started, or that times out, before the deadline
+ * fails with an {@link ExceededException}. Since a read timeout bounds the wait for each
+ * chunk of data rather than the whole exchange, a response that keeps arriving is not
+ * cut short; it counts against the budget of subsequent requests. Requests submitted
+ * when no deadline is in effect are not affected.
+ * </p>
+ */
+public class Deadline {
+
+	/** The run budget (ms) and deadline (ns), or null if the run has no deadline. */
+	private static final InheritableThreadLocal<long[]> RUN_DEADLINE = new InheritableThreadLocal<>();
+
+	/** The time budget (ms) for each test, or null if tests have no deadline. */
+	private static final InheritableThreadLocal<Long> TEST_BUDGET = new InheritableThreadLocal<>();
+
+	private static final InheritableThreadLocal<Long> TEST_DEADLINE = new InheritableThreadLocal<>();
+
+	/**
+	 * The greatest time (ms) remaining before a deadline at which a timeout is attributed
+	 * to the deadline (timers have limited resolution).
+	 */
+	static final long TIMEOUT_SLACK_MILLIS = 50;
+
+	private Deadline() {
+	}
+
+	/**
+	 * Starts the run time budget.
+	 * @param budgetMillis The time allotted to the test run in milliseconds; if not
+	 * positive, the run has no deadline.
+	 */
+	public static void startRun(long budgetMillis) {
+		if (budgetMillis > 0) {
+			long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+			RUN_DEADLINE.set(new long[] { budgetMillis, deadline });
+		}
+		else {
+			RUN_DEADLINE.remove();
+		}
+	}
+
+	/**
+	 * Ends the run and test time budgets in the current thread, so that work done after
+	 * the test run (such as a load test) is not subject to them.
+	 */
+	public static void endRun() {
+		RUN_DEADLINE.remove();
+		TEST_BUDGET.remove();
+	}
+
+	/**
+	 * Returns the run time budget.
+	 * @return The time allotted to the test run in milliseconds (0 if unlimited).
+	 */
+	public static long getRunBudget() {
+		long[] run = RUN_DEADLINE.get();
+		return (null != run) ? run[0] : 0;
+	}
+
+	/**
+	 * Indicates whether the run time budget is exhausted.
+	 * @return true if the run deadline has passed; false otherwise.
+	 */
+	public static boolean isRunExpired() {
+		long[] run = RUN_DEADLINE.get();
+		return null != run && System.nanoTime() - run[1] >= 0;
+	}
+
+	/**
+	 * Sets the time budget for each test started in the current thread (and in any
+	 * threads it creates).
+	 * @param budgetMillis The time allotted to a test in milliseconds; if not positive,
+	 * tests have no deadline.
+	 */
+	public static void setTestBudget(long budgetMillis) {
+		if (budgetMillis > 0) {
+			TEST_BUDGET.set(budgetMillis);
+		}
+		else {
+			TEST_BUDGET.remove();
+		}
+	}
+
+	/**
+	 * Returns the time budget for each test.
+	 * @return The time allotted to a test in milliseconds (0 if unlimited).
+	 */
+	public static long getTestBudget() {
+		Long budget = TEST_BUDGET.get();
+		return (null != budget) ? budget : 0;
+	}
+
+	/**
+	 * Starts the deadline of a test in the current thread.
+	 */
+	public static void startTest() {
+		long budget = getTestBudget();
+		if (budget > 0) {
+			TEST_DEADLINE.set(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budget));
+		}
+		else {
+			TEST_DEADLINE.remove();
+		}
+	}
+
+	/**
+	 * Ends the deadline of a test in the current thread.
+	 */
+	public static void endTest() {
+		TEST_DEADLINE.remove();
+	}
+
+	/**
+	 * Returns the time remaining before the earliest deadline in effect for the current
+	 * thread.
+	 * @return The remaining time in milliseconds (possibly negative), or
+	 * {@link Long#MAX_VALUE} if no deadline is in effect.
+	 */
+	public static long remainingMillis() {
+		long now = System.nanoTime();
+		long remaining = Long.MAX_VALUE;
+		long[] run = RUN_DEADLINE.get();
+		if (null != run) {
+			remaining = TimeUnit.NANOSECONDS.toMillis(run[1] - now);
+		}
+		Long testDeadline = TEST_DEADLINE.get();
+		if (null != testDeadline) {
+			remaining = Math.min(remaining, TimeUnit.NANOSECONDS.toMillis(testDeadline - now));
+		}
+		return remaining;
+	}
+
+	/**
+	 * Wraps the connectors supplied by the given provider so that every request is
+	 * subject to the deadlines in effect when it is submitted.
+	 * @param delegate The provider of the connectors that submit requests.
+	 * @return A ConnectorProvider.
+	 */
+	public static ConnectorProvider decorate(ConnectorProvider delegate) {
+		return (Client client, Configuration runtimeConfig) -> new DeadlineConnector(
+				delegate.getConnector(client, runtimeConfig));
+	}
+
+	/**
+	 * Indicates that a request could not be completed before a deadline.
+	 */
+	public static class ExceededException extends ProcessingException {
+
+		private static final long serialVersionUID = 1L;
+
+		private final long elapsedMillis;
+
+		/**
+		 * Constructs an exception.
+		 * @param message A description of the request.
+		 * @param elapsedMillis The time spent waiting for the response.
+		 */
+		public ExceededException(String message, long elapsedMillis) {
+			super(message);
+			this.elapsedMillis = elapsedMillis;
+		}
+
+		/**
+		 * Constructs an exception for a request that timed out.
+		 * @param message A description of the request.
+		 * @param elapsedMillis The time spent waiting for the response.
+		 * @param cause The timeout reported by the connector.
+		 */
+		public ExceededException(String message, long elapsedMillis, Throwable cause) {
+			super(message, cause);
+			this.elapsedMillis = elapsedMillis;
+		}
+
+		/**
+		 * Returns the time spent waiting for the response.
+		 * @return The elapsed time in milliseconds.
+		 */
+		public long getElapsedMillis() {
+			return elapsedMillis;
+		}
+
+	}
+
+	/**
+	 * A connector that bounds the connect and read timeouts of a request by the time
+	 * remaining before the deadline.
+	 */
+	private static final class DeadlineConnector implements Connector {
+
+		private final Connector delegate;
+
+		DeadlineConnector(Connector delegate) {
+			this.delegate = delegate;
+		}
+
+		private static ExceededException exceeded(ClientRequest request, long elapsedMillis, Throwable cause) {
+			return new ExceededException(String.format("Deadline exceeded after %d ms: %s %s", elapsedMillis,
+					request.getMethod(), request.getUri()), elapsedMillis, cause);
+		}
+
+		/**
+		 * Sets a timeout property of the request to the remaining time, unless a shorter
+		 * timeout is configured.
+		 */
+		private static void limitTimeout(ClientRequest request, String name, long remaining) {
+			Integer configured = request.resolveProperty(name, Integer.class);
+			if (null == configured || configured <= 0 || configured > remaining) {
+				request.setProperty(name, (int) Math.min(remaining, Integer.MAX_VALUE));
+			}
+		}
+
+		/**
+		 * Determines whether a failure was caused by a connect or read timeout.
+		 */
+		static boolean isTimeout(Throwable failure) {
+			for (Throwable cause = failure; null != cause; cause = cause.getCause()) {
+				if (cause instanceof SocketTimeoutException || cause instanceof HttpTimeoutException) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public ClientResponse apply(ClientRequest request) {
+			long remaining = remainingMillis();
+			if (remaining == Long.MAX_VALUE) {
+				return delegate.apply(request);
+			}
+			if (remaining <= 0) {
+				throw exceeded(request, 0, null);
+			}
+			limitTimeout(request, ClientProperties.CONNECT_TIMEOUT, remaining);
+			limitTimeout(request, ClientProperties.READ_TIMEOUT, remaining);
+			long start = System.nanoTime();
+			try {
+				return delegate.apply(request);
+			}
+			catch (ProcessingException e) {
+				if (isTimeout(e) && remainingMillis() <= TIMEOUT_SLACK_MILLIS) {
+					throw exceeded(request, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), e);
+				}
+				throw e;
+			}
+		}
+
+		@Override
+		public Future<?> apply(ClientRequest request, AsyncConnectorCallback callback) {
+			long remaining = remainingMillis();
+			if (remaining != Long.MAX_VALUE) {
+				if (remaining <= 0) {
+					ExceededException failure = exceeded(request, 0, null);
+					callback.failure(failure);
+					return CompletableFuture.failedFuture(failure);
+				}
+				limitTimeout(request, ClientProperties.CONNECT_TIMEOUT, remaining);
+				limitTimeout(request, ClientProperties.READ_TIMEOUT, remaining);
+			}
+			return delegate.apply(request, callback);
+		}
+
+		@Override
+		public String getName() {
+			return delegate.getName();
+		}
+
+		@Override
+		public void close() {
+			delegate.close();
+		}
+
+	}
+
+}
@@ -0,0 +1,151 @@
+package org.opengis.cite.cat30.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Describes how response time varies with the position of the first record in a page
+ * of search results (the value of the <code>startPosition</code> parameter). Every page
+ * is requested with the same query and page size, so any increase in latency is
+ * attributable to the cost of skipping over the preceding records. The slowdown is the
+ * ratio of the latency of the deepest page to that of the first page; the marginal cost
+ * is the least-squares slope of latency against position.
+ */
+public class DeepPagingProfile {
+
+	private final List<Point> points = new ArrayList<>();
+
+	/**
+	 * Adds a measurement.
+	 * @param startPosition The requested position of the first record.
+	 * @param metrics The measured response.
+	 */
+	public void add(long startPosition, ResponseMetrics metrics) {
+		points.add(new Point(startPosition, metrics.getRecordCount(), metrics.getByteCount(),
+				metrics.getLatencyMicros()));
+	}
+
+	/**
+	 * Adds a measurement.
+	 * @param startPosition The requested position of the first record.
+	 * @param records The number of records returned.
+	 * @param bytes The size of the response entity.
+	 * @param latencyMicros The response time in microseconds.
+	 */
+	void add(long startPosition, int records, long bytes, long latencyMicros) {
+		points.add(new Point(startPosition, records, bytes, latencyMicros));
+	}
+
+	/**
+	 * Returns the ratio of the latency of the deepest page to that of the first page.
+	 * @return The slowdown factor, or {@link Double#NaN} if fewer than two pages were
+	 * measured.
+	 */
+	public double getSlowdown() {
+		if (points.size() < 2) {
+			return Double.NaN;
+		}
+		Point first = shallowest();
+		Point last = deepest();
+		return (double) last.latencyMicros / Math.max(first.latencyMicros, 1);
+	}
+
+	/**
+	 * Returns the increase in latency between the first and the deepest page.
+	 * @return The difference in microseconds (0 if fewer than two pages were measured).
+	 */
+	public long getLatencyGrowthMicros() {
+		if (points.size() < 2) {
+			return 0;
+		}
+		return deepest().latencyMicros - shallowest().latencyMicros;
+	}
+
+	/**
+	 * Estimates the additional response time incurred for every 1000 records skipped.
+	 * @return The slope of the fitted line in microseconds per 1000 records, or
+	 * {@link Double#NaN} if fewer than two distinct positions were measured.
+	 */
+	public double getMicrosPerThousandSkipped() {
+		int n = points.size();
+		double sumX = 0, sumY = 0, sumXX = 0, sumXY = 0;
+		for (Point p : points) {
+			double x = p.startPosition / 1000.0;
+			sumX += x;
+			sumY += p.latencyMicros;
+			sumXX += x * x;
+			sumXY += x * p.latencyMicros;
+		}
+		double denominator = n * sumXX - sumX * sumX;
+		if (n < 2 || denominator == 0) {
+			return Double.NaN;
+		}
+		return (n * sumXY - sumX * sumY) / denominator;
+	}
+
+	/**
+	 * Indicates whether response time degrades appreciably with the page position. A
+	 * slowdown is not deemed significant unless the latency of the deepest page exceeds
+	 * that of the first page by the given amount.
+	 * @param maxSlowdown The largest acceptable slowdown factor (e.g. 10).
+	 * @param minGrowthMicros The smallest significant increase in latency.
+	 * @return true if the slowdown exceeds the threshold; false otherwise.
+	 */
+	public boolean isDegraded(double maxSlowdown, long minGrowthMicros) {
+		double slowdown = getSlowdown();
+		return !Double.isNaN(slowdown) && slowdown > maxSlowdown && getLatencyGrowthMicros() >= minGrowthMicros;
+	}
+
+	private Point shallowest() {
+		Point min = points.get(0);
+		for (Point p : points) {
+			if (p.startPosition < min.startPosition) {
+				min = p;
+			}
+		}
+		return min;
+	}
+
+	private Point deepest() {
+		Point max = points.get(0);
+		for (Point p : points) {
+			if (p.startPosition > max.startPosition) {
+				max = p;
+			}
+		}
+		return max;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder str = new StringBuilder();
+		str.append(String.format("%13s %8s %11s %11s%n", "startPosition", "Records", "Bytes", "Latency ms"));
+		for (Point p : points) {
+			str.append(String.format("%13d %8d %11d %11.1f%n", p.startPosition, p.records, p.bytes,
+					p.latencyMicros / 1000.0));
+		}
+		str.append(String.format("Slowdown: %.1fx, marginal cost: %.1f ms per 1000 records skipped", getSlowdown(),
+				getMicrosPerThousandSkipped() / 1000.0));
+		return str.toString();
+	}
+
+	private static final class Point {
+
+		final long startPosition;
+
+		final int records;
+
+		final long bytes;
+
+		final long latencyMicros;
+
+		Point(long startPosition, int records, long bytes, long latencyMicros) {
+			this.startPosition = startPosition;
+			this.records = records;
+			this.bytes = bytes;
+			this.latencyMicros = latencyMicros;
+		}
+
+	}
+
+}
@@ -0,0 +1,234 @@
+package org.opengis.cite.cat30.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Level;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * The durations of the test methods in previous runs against an IUT. Durations are
+ * stored in a properties file (one per IUT) that maps the qualified name of a test
+ * method to its duration in milliseconds. A new observation is averaged with the stored
+ * value, so a single unusually slow or fast run does not dominate. The file is replaced
+ * atomically when saved, so runs that finish at the same time do not corrupt it (the
+ * last one wins); a file that cannot be read is ignored.
+ */
+public class DurationHistory {
+
+	/**
+	 * The default directory in which duration files are kept:
+	 * <code>${user.home}/.ets-cat30/durations</code>.
+	 */
+	public static final File DEFAULT_DIR = new File(System.getProperty("user.home"),
+			".ets-cat30" + File.separator + "durations");
+
+	/** The weight given to a new observation. */
+	static final double WEIGHT = 0.5;
+
+	private final File file;
+
+	private final Map<String, Long> durations = new HashMap<>();
+
+	/**
+	 * Constructs a history backed by the given file and reads any durations it contains.
+	 * If the file cannot be read the history is empty (the file is replaced when the
+	 * history is saved).
+	 * @param file A properties file (it need not exist).
+	 */
+	public DurationHistory(File file) {
+		this.file = file;
+		if (!file.isFile()) {
+			return;
+		}
+		Properties props = new Properties();
+		try (InputStream in = Files.newInputStream(file.toPath())) {
+			props.load(in);
+		}
+		catch (IOException | IllegalArgumentException e) {
+			// unreadable or malformed (e.g. an invalid Unicode escape)
+			TestSuiteLogger.log(Level.WARNING, "Ignoring unreadable test durations in " + file, e);
+			return;
+		}
+		for (String key : props.stringPropertyNames()) {
+			try {
+				durations.put(key, Long.valueOf(props.getProperty(key).trim()));
+			}
+			catch (NumberFormatException nfe) {
+				// ignore invalid entry
+			}
+		}
+	}
+
+	/**
+	 * Returns the history of test runs against the given IUT, kept in the default
+	 * directory.
+	 * @param iut The value of the iut test run argument.
+	 * @return A DurationHistory (empty if there were no previous runs).
+	 */
+	public static DurationHistory forIUT(String iut) {
+		return new DurationHistory(new File(DEFAULT_DIR, fileName(iut)));
+	}
+
+	/**
+	 * Derives the name of the duration file for an IUT.
+	 * @param iut The value of the iut test run argument.
+	 * @return A file name based on a digest of the (trimmed) value.
+	 */
+	static String fileName(String iut) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			byte[] hash = digest.digest(iut.trim().getBytes(StandardCharsets.UTF_8));
+			StringBuilder name = new StringBuilder();
+			for (int i = 0; i < 8; i++) {
+				name.append(String.format("%02x", hash[i]));
+			}
+			return name.append(".properties").toString();
+		}
+		catch (NoSuchAlgorithmException nsae) {
+			throw new IllegalStateException(nsae);
+		}
+	}
+
+	/**
+	 * Returns the file backing this history.
+	 * @return A File.
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Indicates whether any durations are known.
+	 * @return true if the history is empty; false otherwise.
+	 */
+	public boolean isEmpty() {
+		return durations.isEmpty();
+	}
+
+	/**
+	 * Returns the expected duration of a test method.
+	 * @param testName The qualified name of a test method (class name, '.', method
+	 * name).
+	 * @return The duration in milliseconds, or null if it is not known.
+	 */
+	public Long get(String testName) {
+		return durations.get(testName);
+	}
+
+	/**
+	 * Returns all known durations.
+	 * @return An unmodifiable map of test method names to durations (ms).
+	 */
+	public Map<String, Long> getDurations() {
+		return Collections.unmodifiableMap(durations);
+	}
+
+	/**
+	 * Returns the known durations of the test classes.
+	 * @return A map of test class names to the sum of the durations (ms) of their test
+	 * methods.
+	 */
+	public Map<String, Long> getClassDurations() {
+		Map<String, Long> classDurations = new HashMap<>();
+		for (Map.Entry<String, Long> entry : durations.entrySet()) {
+			int dot = entry.getKey().lastIndexOf('.');
+			if (dot > 0) {
+				classDurations.merge(entry.getKey().substring(0, dot), entry.getValue(), Long::sum);
+			}
+		}
+		return classDurations;
+	}
+
+	/**
+	 * Records the duration of a test method in the latest run.
+	 * @param testName The qualified name of a test method.
+	 * @param millis The elapsed time in milliseconds.
+	 */
+	public void record(String testName, long millis) {
+		Long previous = durations.get(testName);
+		long value = (null == previous) ? millis : Math.round(WEIGHT * millis + (1 - WEIGHT) * previous);
+		durations.put(testName, value);
+	}
+
+	/**
+	 * Records the durations of the test methods in a TestNG results document
+	 * (testng-results.xml). Configuration methods and skipped tests are ignored.
+	 * @param results A DOM Document with document element &lt;testng-results&gt;.
+	 * @return The number of durations recorded.
+	 */
+	public int recordResults(Document results) {
+		int count = 0;
+		NodeList classes = results.getElementsByTagName("class");
+		for (int i = 0; i < classes.getLength(); i++) {
+			Element testClass = (Element) classes.item(i);
+			for (Node child = testClass.getFirstChild(); null != child; child = child.getNextSibling()) {
+				if (child.getNodeType() != Node.ELEMENT_NODE || !child.getNodeName().equals("test-method")) {
+					continue;
+				}
+				Element method = (Element) child;
+				if (Boolean.parseBoolean(method.getAttribute("is-config"))
+						|| "SKIP".equals(method.getAttribute("status"))) {
+					continue;
+				}
+				try {
+					long millis = Long.parseLong(method.getAttribute("duration-ms"));
+					record(testClass.getAttribute("name") + "." + method.getAttribute("name"), millis);
+					count++;
+				}
+				catch (NumberFormatException nfe) {
+					// no duration
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Writes the durations to the backing file, creating its directory if necessary. The
+	 * durations are written to a temporary file in the same directory, which then
+	 * replaces the backing file.
+	 * @throws IOException If the file cannot be written.
+	 */
+	public void save() throws IOException {
+		Path target = file.getAbsoluteFile().toPath();
+		Path dir = target.getParent();
+		Files.createDirectories(dir);
+		Properties props = new Properties();
+		for (Map.Entry<String, Long> entry : durations.entrySet()) {
+			props.setProperty(entry.getKey(), entry.getValue().toString());
+		}
+		Path temp = Files.createTempFile(dir, file.getName(), ".tmp");
+		try {
+			try (OutputStream out = Files.newOutputStream(temp)) {
+				props.store(out, "Test method durations (ms)");
+			}
+			try {
+				Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException amnse) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+}
@@ -0,0 +1,240 @@
+package org.opengis.cite.cat30.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.logging.Level;
+
+/**
+ * Sorts a (possibly very large) stream of record identifiers using bounded memory.
+ * Identifiers are buffered until a run of the configured size has accumulated; the run
+ * is then sorted and written to a temporary file. The sorted runs are subsequently
+ * combined by a k-way merge, so at most one identifier per run is held in memory while
+ * reading the sorted sequence. Identifiers are compared using their natural (UTF-16)
+ * ordering; duplicates are retained.
+ *
+ * <p>
+ * The temporary files are deleted when the sorter is closed.
+ * </p>
+ */
+public class ExternalIdSorter implements Closeable {
+
+	/** The default maximum number of identifiers held in memory. */
+	public static final int DEFAULT_RUN_SIZE = 50000;
+
+	private final int runSize;
+
+	private final List<String> buffer = new ArrayList<>();
+
+	private final List<Path> runs = new ArrayList<>();
+
+	private long size;
+
+	/**
+	 * Constructs a sorter using the default run size.
+	 */
+	public ExternalIdSorter() {
+		this(DEFAULT_RUN_SIZE);
+	}
+
+	/**
+	 * Constructs a sorter.
+	 * @param runSize The maximum number of identifiers held in memory (at least 1).
+	 */
+	public ExternalIdSorter(int runSize) {
+		if (runSize < 1) {
+			throw new IllegalArgumentException("Run size must be positive: " + runSize);
+		}
+		this.runSize = runSize;
+	}
+
+	/**
+	 * Adds an identifier.
+	 * @param id A record identifier (not null).
+	 * @throws IOException If a sorted run cannot be written.
+	 */
+	public void add(String id) throws IOException {
+		buffer.add(id);
+		size++;
+		if (buffer.size() >= runSize) {
+			writeRun();
+		}
+	}
+
+	/**
+	 * Returns the number of identifiers added.
+	 * @return The total number of identifiers (including duplicates).
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of sorted runs written to temporary files.
+	 * @return The number of runs on disk.
+	 */
+	public int getRunCount() {
+		return runs.size();
+	}
+
+	/**
+	 * Opens a cursor over all identifiers added so far, in ascending order. The cursor
+	 * must be closed after use.
+	 * @return A Cursor positioned before the first identifier.
+	 * @throws IOException If a sorted run cannot be written or read.
+	 */
+	public Cursor open() throws IOException {
+		if (!buffer.isEmpty() && !runs.isEmpty()) {
+			writeRun();
+		}
+		if (runs.isEmpty()) {
+			Collections.sort(buffer);
+			return new Cursor(new ArrayList<>(buffer), Collections.emptyList());
+		}
+		List<RunReader> readers = new ArrayList<>();
+		try {
+			for (Path run : runs) {
+				readers.add(new RunReader(run));
+			}
+		}
+		catch (IOException iox) {
+			for (RunReader reader : readers) {
+				reader.close();
+			}
+			throw iox;
+		}
+		return new Cursor(null, readers);
+	}
+
+	/**
+	 * Deletes the temporary files containing the sorted runs.
+	 */
+	@Override
+	public void close() {
+		for (Path run : runs) {
+			try {
+				Files.deleteIfExists(run);
+			}
+			catch (IOException iox) {
+				TestSuiteLogger.log(Level.WARNING, "Failed to delete sorted run " + run, iox);
+			}
+		}
+		runs.clear();
+		buffer.clear();
+	}
+
+	private void writeRun() throws IOException {
+		Collections.sort(buffer);
+		Path run = Files.createTempFile("ids-", ".run");
+		runs.add(run);
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run)))) {
+			out.writeInt(buffer.size());
+			for (String id : buffer) {
+				out.writeUTF(id);
+			}
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Reads the identifiers in a sorted run.
+	 */
+	private static final class RunReader implements Closeable {
+
+		private final DataInputStream in;
+
+		private int remaining;
+
+		private String head;
+
+		RunReader(Path run) throws IOException {
+			this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run)));
+			this.remaining = in.readInt();
+			advance();
+		}
+
+		void advance() throws IOException {
+			if (remaining > 0) {
+				head = in.readUTF();
+				remaining--;
+			}
+			else {
+				head = null;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+
+	}
+
+	/**
+	 * Presents a sequence of identifiers in ascending order.
+	 */
+	public static final class Cursor implements Closeable {
+
+		private final List<String> sorted;
+
+		private int index;
+
+		private final PriorityQueue<RunReader> queue;
+
+		private final List<RunReader> readers;
+
+		/**
+		 * Constructs a cursor over a sorted list held in memory (if readers is empty) or
+		 * over a set of sorted runs.
+		 */
+		Cursor(List<String> sorted, List<RunReader> readers) {
+			this.sorted = readers.isEmpty() ? sorted : null;
+			this.readers = readers;
+			this.queue = new PriorityQueue<>(Math.max(1, readers.size()), (r1, r2) -> r1.head.compareTo(r2.head));
+			for (RunReader reader : readers) {
+				if (null != reader.head) {
+					queue.add(reader);
+				}
+			}
+		}
+
+		/**
+		 * Returns the next identifier.
+		 * @return The next identifier in ascending order, or null if there are no more.
+		 * @throws IOException If a sorted run cannot be read.
+		 */
+		public String next() throws IOException {
+			if (null != sorted) {
+				return (index < sorted.size()) ? sorted.get(index++) : null;
+			}
+			RunReader reader = queue.poll();
+			if (null == reader) {
+				return null;
+			}
+			String id = reader.head;
+			reader.advance();
+			if (null != reader.head) {
+				queue.add(reader);
+			}
+			return id;
+		}
+
+		@Override
+		public void close() throws IOException {
+			for (RunReader reader : readers) {
+				reader.close();
+			}
+		}
+
+	}
+
+}
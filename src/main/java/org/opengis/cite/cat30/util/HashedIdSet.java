@@ -0,0 +1,108 @@
+package org.opengis.cite.cat30.util;
+
+/**
+ * A compact set of record identifiers. Each identifier is represented by a 64-bit hash
+ * value, along with the (one-based) result set position at which it was first seen; the
+ * identifiers themselves are not retained. The set is held in primitive arrays using
+ * open addressing (linear probing); each slot occupies 12 bytes and the tables are kept
+ * at most half full.
+ *
+ * <p>
+ * Since distinct identifiers may (very rarely) have the same hash value, a match only
+ * indicates a probable duplicate. The position of the first occurrence is returned so
+ * that the caller can confirm the match exactly.
+ * </p>
+ */
+public class HashedIdSet {
+
+	/** Hash value used to mark an empty slot. */
+	private static final long EMPTY = 0L;
+
+	private long[] hashes;
+
+	private int[] positions;
+
+	private int size;
+
+	/**
+	 * Constructs an empty set.
+	 * @param expectedSize The expected number of entries (used to size the tables).
+	 */
+	public HashedIdSet(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(16, expectedSize) * 2 - 1) << 1;
+		this.hashes = new long[capacity];
+		this.positions = new int[capacity];
+	}
+
+	/**
+	 * Computes a 64-bit hash value for the given identifier (FNV-1a followed by a
+	 * finalization step that improves the distribution of the low-order bits).
+	 * @param id A record identifier.
+	 * @return A non-zero hash value.
+	 */
+	public static long hash(String id) {
+		long h = 0xcbf29ce484222325L;
+		for (int i = 0; i < id.length(); i++) {
+			h ^= id.charAt(i);
+			h *= 0x100000001b3L;
+		}
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return (h == EMPTY) ? 1L : h;
+	}
+
+	/**
+	 * Adds an identifier hash to the set if it is not already present.
+	 * @param hash A hash value obtained from {@link #hash(String)}.
+	 * @param position The position of the identifier in the result set.
+	 * @return -1 if the hash value was added; otherwise the position associated with the
+	 * hash value already in the set.
+	 */
+	public int addIfAbsent(long hash, int position) {
+		if (2 * (size + 1) > hashes.length) {
+			resize();
+		}
+		int mask = hashes.length - 1;
+		int slot = (int) hash & mask;
+		while (hashes[slot] != EMPTY) {
+			if (hashes[slot] == hash) {
+				return positions[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+		hashes[slot] = hash;
+		positions[slot] = position;
+		size++;
+		return -1;
+	}
+
+	/**
+	 * Returns the number of distinct hash values in the set.
+	 * @return The size of the set.
+	 */
+	public int size() {
+		return size;
+	}
+
+	private void resize() {
+		long[] oldHashes = hashes;
+		int[] oldPositions = positions;
+		hashes = new long[oldHashes.length * 2];
+		positions = new int[oldPositions.length * 2];
+		int mask = hashes.length - 1;
+		for (int i = 0; i < oldHashes.length; i++) {
+			if (oldHashes[i] != EMPTY) {
+				int slot = (int) oldHashes[i] & mask;
+				while (hashes[slot] != EMPTY) {
+					slot = (slot + 1) & mask;
+				}
+				hashes[slot] = oldHashes[i];
+				positions[slot] = oldPositions[i];
+			}
+		}
+	}
+
+}
@@ -0,0 +1,119 @@
+package org.opengis.cite.cat30.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import jakarta.annotation.Priority;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.client.ClientRequestContext;
+import jakarta.ws.rs.client.ClientRequestFilter;
+import jakarta.ws.rs.client.ClientResponseContext;
+import jakarta.ws.rs.client.ClientResponseFilter;
+
+/**
+ * Emits a {@link TestSuiteEvents.HttpExchange} flight recorder event for every request.
+ * The event is committed when the response entity stream is closed (or when the
+ * response is received if it has no entity); it records the number of entity bytes
+ * read from the connection and the time until the response headers arrived. The request
+ * and the entity bytes are also charged to the {@link ResourceUsage} that is active in
+ * the submitting thread. Nothing is done unless a flight recording is in progress or
+ * resource accounting is active.
+ *
+ * <p>
+ * The filter runs before the {@link CompressionFilter}, so the byte count reflects the
+ * entity as transferred.
+ * </p>
+ */
+@Priority(Priorities.USER + 2000)
+public class HttpExchangeEventFilter implements ClientRequestFilter, ClientResponseFilter {
+
+	private static final String EVENT_PROPERTY = HttpExchangeEventFilter.class.getName() + ".event";
+
+	private static final String START_PROPERTY = HttpExchangeEventFilter.class.getName() + ".start";
+
+	private static final String USAGE_PROPERTY = HttpExchangeEventFilter.class.getName() + ".usage";
+
+	/** {@inheritDoc} */
+	@Override
+	public void filter(ClientRequestContext requestContext) throws IOException {
+		ResourceUsage usage = ResourceUsage.current();
+		if (null != usage) {
+			usage.addRequest();
+			requestContext.setProperty(USAGE_PROPERTY, usage);
+		}
+		TestSuiteEvents.HttpExchange event = new TestSuiteEvents.HttpExchange();
+		if (!event.isEnabled()) {
+			return;
+		}
+		event.test = TestSuiteEvents.currentTest();
+		event.method = requestContext.getMethod();
+		event.uri = requestContext.getUri().toString();
+		requestContext.setProperty(EVENT_PROPERTY, event);
+		requestContext.setProperty(START_PROPERTY, System.nanoTime());
+		event.begin();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext)
+			throws IOException {
+		Object event = requestContext.getProperty(EVENT_PROPERTY);
+		TestSuiteEvents.HttpExchange exchange = (event instanceof TestSuiteEvents.HttpExchange)
+				? (TestSuiteEvents.HttpExchange) event : null;
+		Object usage = requestContext.getProperty(USAGE_PROPERTY);
+		if (null == exchange && !(usage instanceof ResourceUsage)) {
+			return;
+		}
+		if (null != exchange) {
+			exchange.status = responseContext.getStatus();
+			exchange.timeToFirstByte = System.nanoTime() - (Long) requestContext.getProperty(START_PROPERTY);
+		}
+		if (!responseContext.hasEntity()) {
+			if (null != exchange) {
+				exchange.commit();
+			}
+			return;
+		}
+		responseContext.setEntityStream(new ExchangeStream(responseContext.getEntityStream(), exchange,
+				(usage instanceof ResourceUsage) ? (ResourceUsage) usage : null));
+	}
+
+	/**
+	 * Commits the event and charges the entity bytes when the entity stream is closed.
+	 */
+	private static final class ExchangeStream extends CountingInputStream {
+
+		private final TestSuiteEvents.HttpExchange event;
+
+		private final ResourceUsage usage;
+
+		private boolean closed;
+
+		ExchangeStream(InputStream in, TestSuiteEvents.HttpExchange event, ResourceUsage usage) {
+			super(in);
+			this.event = event;
+			this.usage = usage;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				super.close();
+			}
+			finally {
+				if (!closed) {
+					closed = true;
+					if (null != usage) {
+						usage.addBytes(getCount());
+					}
+					if (null != event) {
+						event.bytes = getCount();
+						event.commit();
+					}
+				}
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,194 @@
+package org.opengis.cite.cat30.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.ClientRequest;
+import org.glassfish.jersey.client.ClientResponse;
+import org.glassfish.jersey.client.spi.AsyncConnectorCallback;
+import org.glassfish.jersey.client.spi.Connector;
+import org.glassfish.jersey.client.spi.ConnectorProvider;
+import org.glassfish.jersey.message.internal.Statuses;
+
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.core.Configuration;
+
+/**
+ * Provides Jersey connectors that submit requests using the JDK HTTP client
+ * ({@link java.net.http.HttpClient}) instead of {@link java.net.HttpURLConnection}. All
+ * connectors share two HttpClient instances (one that follows redirects and one that
+ * does not), so connections are pooled and reused across Jersey client components.
+ * HTTP/2 is negotiated for "https" URIs (by means of ALPN); plain "http" URIs use
+ * HTTP/1.1, since some servers mishandle the cleartext upgrade request. Asynchronous
+ * invocations are not bound to a thread while awaiting the response.
+ *
+ * <p>
+ * The following client properties are honored:
+ * </p>
+ * <ul>
+ * <li>{@link ClientProperties#FOLLOW_REDIRECTS} (default: true)</li>
+ * <li>{@link ClientProperties#READ_TIMEOUT} (default: no timeout), which applies to the
+ * arrival of the response headers</li>
+ * </ul>
+ * <p>
+ * The connection timeout is fixed at {@value #CONNECT_TIMEOUT_MILLIS} ms. Request
+ * entities are buffered before they are sent.
+ * </p>
+ */
+public class JdkHttpConnectorProvider implements ConnectorProvider {
+
+	/** The connection timeout in milliseconds. */
+	public static final int CONNECT_TIMEOUT_MILLIS = 10000;
+
+	/**
+	 * Header fields that are set by the HttpClient and must not be set by the caller.
+	 */
+	private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host",
+			"upgrade");
+
+	private static final HttpClient REDIRECTING_CLIENT = newHttpClient(HttpClient.Redirect.NORMAL);
+
+	private static final HttpClient NON_REDIRECTING_CLIENT = newHttpClient(HttpClient.Redirect.NEVER);
+
+	private static HttpClient newHttpClient(HttpClient.Redirect redirect) {
+		return HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_2)
+			.followRedirects(redirect)
+			.connectTimeout(Duration.ofMillis(CONNECT_TIMEOUT_MILLIS))
+			.build();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Connector getConnector(Client client, Configuration runtimeConfig) {
+		return new JdkHttpConnector();
+	}
+
+	/**
+	 * A connector that translates Jersey client requests into HttpRequest messages.
+	 */
+	static final class JdkHttpConnector implements Connector {
+
+		/** {@inheritDoc} */
+		@Override
+		public ClientResponse apply(ClientRequest request) {
+			HttpRequest httpRequest = buildRequest(request);
+			try {
+				HttpResponse<InputStream> httpResponse = selectClient(request).send(httpRequest,
+						HttpResponse.BodyHandlers.ofInputStream());
+				return toClientResponse(request, httpResponse);
+			}
+			catch (IOException iox) {
+				throw new ProcessingException(iox);
+			}
+			catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				throw new ProcessingException(ie);
+			}
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public Future<?> apply(ClientRequest request, AsyncConnectorCallback callback) {
+			HttpRequest httpRequest;
+			try {
+				httpRequest = buildRequest(request);
+			}
+			catch (ProcessingException pex) {
+				callback.failure(pex);
+				return CompletableFuture.failedFuture(pex);
+			}
+			return selectClient(request).sendAsync(httpRequest, HttpResponse.BodyHandlers.ofInputStream())
+				.whenComplete((httpResponse, failure) -> {
+					if (null != failure) {
+						callback.failure(failure);
+					}
+					else {
+						callback.response(toClientResponse(request, httpResponse));
+					}
+				});
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public String getName() {
+			return "JDK HttpClient";
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void close() {
+			// the HttpClient instances are shared
+		}
+
+		private static HttpClient selectClient(ClientRequest request) {
+			boolean followRedirects = request.resolveProperty(ClientProperties.FOLLOW_REDIRECTS, Boolean.TRUE);
+			return followRedirects ? REDIRECTING_CLIENT : NON_REDIRECTING_CLIENT;
+		}
+
+		/**
+		 * Builds an HttpRequest from the given client request. The request entity (if
+		 * any) is serialized first, since message body writers may add header fields.
+		 */
+		static HttpRequest buildRequest(ClientRequest request) {
+			HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.noBody();
+			if (request.hasEntity()) {
+				ByteArrayOutputStream entity = new ByteArrayOutputStream();
+				request.setStreamProvider(contentLength -> entity);
+				try {
+					request.writeEntity();
+				}
+				catch (IOException iox) {
+					throw new ProcessingException("Failed to write request entity.", iox);
+				}
+				body = HttpRequest.BodyPublishers.ofByteArray(entity.toByteArray());
+			}
+			URI uri = request.getUri();
+			HttpRequest.Builder builder = HttpRequest.newBuilder(uri).method(request.getMethod(), body);
+			if (!"https".equalsIgnoreCase(uri.getScheme())) {
+				builder.version(HttpClient.Version.HTTP_1_1);
+			}
+			Integer readTimeout = request.resolveProperty(ClientProperties.READ_TIMEOUT, Integer.class);
+			if (null != readTimeout && readTimeout > 0) {
+				builder.timeout(Duration.ofMillis(readTimeout));
+			}
+			for (Map.Entry<String, List<String>> header : request.getStringHeaders().entrySet()) {
+				if (RESTRICTED_HEADERS.contains(header.getKey().toLowerCase(Locale.ROOT))) {
+					continue;
+				}
+				for (String value : header.getValue()) {
+					builder.header(header.getKey(), value);
+				}
+			}
+			return builder.build();
+		}
+
+		private static ClientResponse toClientResponse(ClientRequest request, HttpResponse<InputStream> httpResponse) {
+			ClientResponse response = new ClientResponse(Statuses.from(httpResponse.statusCode()), request);
+			response.setResolvedRequestUri(httpResponse.uri());
+			for (Map.Entry<String, List<String>> header : httpResponse.headers().map().entrySet()) {
+				if (!header.getKey().startsWith(":")) {
+					response.headers(header.getKey(), header.getValue());
+				}
+			}
+			response.setEntityStream(httpResponse.body());
+			return response;
+		}
+
+	}
+
+}
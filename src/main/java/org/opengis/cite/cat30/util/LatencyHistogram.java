@@ -0,0 +1,97 @@
+package org.opengis.cite.cat30.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread-safe histogram of latency values (in microseconds) with log-linear buckets.
+ * Values below 64 are counted exactly; larger values are assigned to one of 32 linear
+ * sub-buckets within each power of two, so a reported percentile differs from the exact
+ * value by at most about 3%. Values larger than about 2<sup>40</sup> &micro;s are
+ * clamped.
+ */
+public class LatencyHistogram {
+
+	private static final int EXACT_LIMIT = 64;
+
+	private static final int SUB_BUCKETS = 32;
+
+	private static final int MAX_SHIFT = 35;
+
+	private final AtomicLongArray counts = new AtomicLongArray(EXACT_LIMIT + MAX_SHIFT * SUB_BUCKETS);
+
+	private final AtomicLong totalCount = new AtomicLong();
+
+	private final AtomicLong maxValue = new AtomicLong();
+
+	/**
+	 * Records a value.
+	 * @param micros A latency value in microseconds (negative values are recorded as
+	 * zero).
+	 */
+	public void record(long micros) {
+		long value = Math.max(0, micros);
+		counts.incrementAndGet(indexOf(value));
+		totalCount.incrementAndGet();
+		maxValue.accumulateAndGet(value, Math::max);
+	}
+
+	/**
+	 * Returns the number of recorded values.
+	 * @return The total count.
+	 */
+	public long getCount() {
+		return totalCount.get();
+	}
+
+	/**
+	 * Returns the largest recorded value.
+	 * @return The maximum value (0 if no values were recorded).
+	 */
+	public long getMax() {
+		return maxValue.get();
+	}
+
+	/**
+	 * Returns the value at the given percentile.
+	 * @param percentile A percentile (0 &lt; p &le; 100).
+	 * @return The (upper bound of the bucket containing the) value below which the given
+	 * percentage of recorded values fall, or 0 if no values were recorded.
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long total = totalCount.get();
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+		long cumulative = 0;
+		for (int i = 0; i < counts.length(); i++) {
+			cumulative += counts.get(i);
+			if (cumulative >= rank) {
+				return Math.min(upperBoundOf(i), maxValue.get());
+			}
+		}
+		return maxValue.get();
+	}
+
+	static int indexOf(long value) {
+		if (value < EXACT_LIMIT) {
+			return (int) value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - 5;
+		if (shift > MAX_SHIFT) {
+			return EXACT_LIMIT + MAX_SHIFT * SUB_BUCKETS - 1;
+		}
+		return EXACT_LIMIT + (shift - 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+	}
+
+	static long upperBoundOf(int index) {
+		if (index < EXACT_LIMIT) {
+			return index;
+		}
+		int shift = (index - EXACT_LIMIT) / SUB_BUCKETS + 1;
+		long mantissa = (index - EXACT_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+		return ((mantissa + 1) << shift) - 1;
+	}
+
+}
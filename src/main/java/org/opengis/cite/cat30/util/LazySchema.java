@@ -0,0 +1,99 @@
+package org.opengis.cite.cat30.util;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+import javax.xml.validation.Schema;
+
+/**
+ * A schema that is compiled when it is first needed. Compilation happens at most once:
+ * callers that request the schema while it is being compiled (whether by another caller
+ * or in the background, see {@link #prefetch()}) wait for the result. It is safe to use
+ * from multiple threads.
+ */
+public class LazySchema implements Supplier<Schema> {
+
+	private final String name;
+
+	private final FutureTask<Schema> task;
+
+	private final AtomicBoolean started = new AtomicBoolean();
+
+	/**
+	 * Constructs a lazily compiled schema.
+	 * @param name A name for the schema (used in log messages).
+	 * @param compiler A function that compiles the schema, returning null if it cannot
+	 * be constructed.
+	 */
+	public LazySchema(String name, Supplier<Schema> compiler) {
+		this.name = name;
+		this.task = new FutureTask<>(compiler::get);
+	}
+
+	/**
+	 * Wraps a schema that is already compiled.
+	 * @param name A name for the schema.
+	 * @param schema An immutable Schema object (may be null).
+	 * @return A LazySchema that supplies the given schema.
+	 */
+	public static LazySchema of(String name, Schema schema) {
+		LazySchema lazySchema = new LazySchema(name, () -> schema);
+		lazySchema.started.set(true);
+		lazySchema.task.run();
+		return lazySchema;
+	}
+
+	/**
+	 * Returns the name of the schema.
+	 * @return The name given when the schema was constructed.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Starts compiling the schema in a background thread, unless compilation has already
+	 * started.
+	 */
+	public void prefetch() {
+		if (started.compareAndSet(false, true)) {
+			Thread thread = new Thread(task, "ets-cat30-schema-" + name);
+			thread.setDaemon(true);
+			thread.start();
+		}
+	}
+
+	/**
+	 * Indicates whether the schema has been compiled (successfully or not).
+	 * @return true if compilation is complete; false otherwise.
+	 */
+	public boolean isDone() {
+		return task.isDone();
+	}
+
+	/**
+	 * Returns the schema, compiling it in the calling thread if compilation has not yet
+	 * started, or waiting for it to complete otherwise.
+	 * @return An immutable Schema object, or null if it cannot be constructed.
+	 */
+	@Override
+	public Schema get() {
+		started.set(true);
+		task.run();
+		try {
+			return task.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+		catch (ExecutionException e) {
+			TestSuiteLogger.log(Level.WARNING, "Failed to compile " + name + " schema.", e.getCause());
+			return null;
+		}
+	}
+
+}
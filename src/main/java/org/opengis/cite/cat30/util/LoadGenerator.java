@@ -0,0 +1,272 @@
+package org.opengis.cite.cat30.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+
+import org.opengis.cite.cat30.util.RequestCatalog.RecordedRequest;
+
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Replays a list of recorded requests against the IUT at a constant target rate. The
+ * load is generated in an <em>open loop</em>: request <em>i</em> is scheduled to start at
+ * <code>t<sub>0</sub> + i / rate</code> regardless of whether earlier requests have
+ * completed, and the requests are taken from the list in round-robin order.
+ *
+ * <p>
+ * Latency is measured from the <em>scheduled</em> start time rather than the time the
+ * request was actually sent, so delays incurred while waiting for a free worker thread
+ * are included (this corrects for "coordinated omission"). The uncorrected service time
+ * is recorded separately. A response entity is read completely before a request is
+ * deemed to have finished.
+ * </p>
+ */
+public class LoadGenerator {
+
+	/** The default maximum number of requests in progress. */
+	public static final int DEFAULT_MAX_CONCURRENCY = 200;
+
+	private final List<RecordedRequest> requests;
+
+	private final Predicate<RecordedRequest> invoker;
+
+	private final int maxConcurrency;
+
+	/**
+	 * Constructs a load generator that submits requests using the given client.
+	 * @param requests A list of requests to replay (not empty).
+	 * @param client The client component used to submit requests.
+	 */
+	public LoadGenerator(List<RecordedRequest> requests, Client client) {
+		this(requests, req -> invoke(client, req), DEFAULT_MAX_CONCURRENCY);
+	}
+
+	/**
+	 * Constructs a load generator.
+	 * @param requests A list of requests to replay (not empty).
+	 * @param invoker A function that submits a request and indicates whether it
+	 * succeeded.
+	 * @param maxConcurrency The maximum number of requests in progress.
+	 */
+	LoadGenerator(List<RecordedRequest> requests, Predicate<RecordedRequest> invoker, int maxConcurrency) {
+		if (requests.isEmpty()) {
+			throw new IllegalArgumentException("No requests to replay.");
+		}
+		this.requests = requests;
+		this.invoker = invoker;
+		this.maxConcurrency = maxConcurrency;
+	}
+
+	/**
+	 * Generates load for the specified duration and waits for all requests to complete.
+	 * @param rate The target rate (requests per second).
+	 * @param durationMillis The length of the measurement interval in milliseconds.
+	 * @return A Report presenting throughput and latency percentiles per operation.
+	 * @throws InterruptedException If the calling thread is interrupted.
+	 */
+	public Report run(double rate, long durationMillis) throws InterruptedException {
+		if (rate <= 0) {
+			throw new IllegalArgumentException("Rate must be positive: " + rate);
+		}
+		Report report = new Report(rate);
+		for (RecordedRequest req : requests) {
+			report.statsFor(req.getOperation());
+		}
+		long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+		long total = Math.max(1, (long) (rate * durationMillis / 1000.0));
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 10, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>());
+		executor.allowCoreThreadTimeOut(true);
+		long startTime = System.nanoTime();
+		try {
+			for (long i = 0; i < total; i++) {
+				long scheduled = startTime + i * intervalNanos;
+				long delay = scheduled - System.nanoTime();
+				if (delay > 0) {
+					LockSupport.parkNanos(delay);
+				}
+				if (Thread.interrupted()) {
+					throw new InterruptedException();
+				}
+				RecordedRequest req = requests.get((int) (i % requests.size()));
+				OperationStats stats = report.statsFor(req.getOperation());
+				executor.execute(() -> {
+					long sent = System.nanoTime();
+					boolean ok;
+					try {
+						ok = invoker.test(req);
+					}
+					catch (RuntimeException rex) {
+						ok = false;
+					}
+					long done = System.nanoTime();
+					stats.record(ok, TimeUnit.NANOSECONDS.toMicros(done - scheduled),
+							TimeUnit.NANOSECONDS.toMicros(done - sent));
+				});
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+		if (!executor.awaitTermination(Math.max(60000, durationMillis), TimeUnit.MILLISECONDS)) {
+			TestSuiteLogger.log(Level.WARNING, "Abandoning " + executor.shutdownNow().size() + " queued requests.");
+		}
+		report.elapsedNanos = System.nanoTime() - startTime;
+		report.scheduled = total;
+		return report;
+	}
+
+	/**
+	 * Submits a request and reads the response entity.
+	 * @return true if the response has a 2xx status code; false otherwise.
+	 */
+	static boolean invoke(Client client, RecordedRequest req) {
+		Response rsp = null;
+		try {
+			rsp = client.target(req.getURI()).request().header(HttpHeaders.ACCEPT, req.getAccept()).get();
+			try (InputStream entity = rsp.readEntity(InputStream.class)) {
+				if (null != entity) {
+					entity.transferTo(OutputStream.nullOutputStream());
+				}
+			}
+			return rsp.getStatusInfo().getFamily() == Response.Status.Family.SUCCESSFUL;
+		}
+		catch (ProcessingException | IOException ex) {
+			return false;
+		}
+		finally {
+			if (null != rsp) {
+				rsp.close();
+			}
+		}
+	}
+
+	/**
+	 * Accumulates measurements for one operation.
+	 */
+	public static final class OperationStats {
+
+		private final LatencyHistogram latency = new LatencyHistogram();
+
+		private final LatencyHistogram serviceTime = new LatencyHistogram();
+
+		private final AtomicLong errors = new AtomicLong();
+
+		void record(boolean ok, long latencyMicros, long serviceMicros) {
+			if (!ok) {
+				errors.incrementAndGet();
+			}
+			latency.record(latencyMicros);
+			serviceTime.record(serviceMicros);
+		}
+
+		/**
+		 * Returns the latency histogram (measured from the scheduled start time).
+		 * @return A histogram of corrected latency values in microseconds.
+		 */
+		public LatencyHistogram getLatency() {
+			return latency;
+		}
+
+		/**
+		 * Returns the service time histogram (measured from the actual start time).
+		 * @return A histogram of uncorrected latency values in microseconds.
+		 */
+		public LatencyHistogram getServiceTime() {
+			return serviceTime;
+		}
+
+		/**
+		 * Returns the number of failed requests.
+		 * @return The number of requests that produced an error or a status code other
+		 * than 2xx.
+		 */
+		public long getErrorCount() {
+			return errors.get();
+		}
+
+	}
+
+	/**
+	 * Summarizes the outcome of a load test.
+	 */
+	public static final class Report {
+
+		private final double targetRate;
+
+		private final Map<String, OperationStats> stats = new LinkedHashMap<>();
+
+		private long elapsedNanos;
+
+		private long scheduled;
+
+		Report(double targetRate) {
+			this.targetRate = targetRate;
+		}
+
+		synchronized OperationStats statsFor(String operation) {
+			return stats.computeIfAbsent(operation, op -> new OperationStats());
+		}
+
+		/**
+		 * Returns the measurements for each operation.
+		 * @return A map associating an operation name with its statistics.
+		 */
+		public synchronized Map<String, OperationStats> getOperationStats() {
+			return new LinkedHashMap<>(stats);
+		}
+
+		/**
+		 * Returns the number of requests scheduled.
+		 * @return The number of requests.
+		 */
+		public long getScheduledCount() {
+			return scheduled;
+		}
+
+		/**
+		 * Returns the length of the test.
+		 * @return The elapsed time in milliseconds (including the time taken for the
+		 * last requests to complete).
+		 */
+		public long getElapsedMillis() {
+			return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+		}
+
+		@Override
+		public String toString() {
+			double seconds = Math.max(1e-9, elapsedNanos / 1e9);
+			StringBuilder str = new StringBuilder();
+			str.append(String.format("Load test: target rate %.1f req/s, %d requests scheduled, elapsed %.1f s%n",
+					targetRate, scheduled, seconds));
+			str.append(String.format("%-16s %8s %7s %9s %9s %9s %9s %9s %9s %11s%n", "Operation", "Requests",
+					"Errors", "Req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "Max ms", "p99 svc ms"));
+			for (Map.Entry<String, OperationStats> entry : getOperationStats().entrySet()) {
+				OperationStats op = entry.getValue();
+				LatencyHistogram latency = op.getLatency();
+				str.append(String.format("%-16s %8d %7d %9.2f %9.1f %9.1f %9.1f %9.1f %9.1f %11.1f%n", entry.getKey(),
+						latency.getCount(), op.getErrorCount(), latency.getCount() / seconds,
+						latency.getValueAtPercentile(50) / 1000.0, latency.getValueAtPercentile(90) / 1000.0,
+						latency.getValueAtPercentile(99) / 1000.0, latency.getValueAtPercentile(99.9) / 1000.0,
+						latency.getMax() / 1000.0, op.getServiceTime().getValueAtPercentile(99) / 1000.0));
+			}
+			return str.toString();
+		}
+
+	}
+
+}
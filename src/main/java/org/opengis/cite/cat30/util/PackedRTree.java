@@ -0,0 +1,340 @@
+package org.opengis.cite.cat30.util;
+
+import java.util.Arrays;
+
+/**
+ * A static, two-dimensional R-tree built using the Sort-Tile-Recursive (STR) packing
+ * algorithm. All boxes and node references are held in primitive arrays; the tree cannot
+ * be modified once built. Items are identified by their (zero-based) position in the
+ * coordinate arrays supplied to the constructor.
+ *
+ * <p>
+ * Boundaries are inclusive: a query box that merely touches an item box intersects it.
+ * </p>
+ *
+ * @see <a href="https://doi.org/10.1109/ICDE.1997.582015" target="_blank">STR: A Simple
+ * and Efficient Algorithm for R-Tree Packing</a>
+ */
+public class PackedRTree {
+
+	/**
+	 * The default maximum number of entries per node.
+	 */
+	public static final int DEFAULT_NODE_CAPACITY = 16;
+
+	private final int itemCount;
+
+	/** Item identifiers in leaf order. */
+	private final int[] itemIds;
+
+	/** Leaf order position of each item. */
+	private final int[] itemPositions;
+
+	/** Item boxes in leaf order (minX, minY, maxX, maxY). */
+	private final double[] itemBoxes;
+
+	/** Node boxes (minX, minY, maxX, maxY); the root is the last node. */
+	private final double[] nodeBoxes;
+
+	/** Index of first child; refers to an item for leaf nodes, a node otherwise. */
+	private final int[] childStart;
+
+	private final int[] childCount;
+
+	/** Number of leaf nodes; these occupy the first positions in the node arrays. */
+	private final int leafCount;
+
+	/**
+	 * Builds a tree with the default node capacity.
+	 * @param minX The minimum x coordinates of the item boxes.
+	 * @param minY The minimum y coordinates of the item boxes.
+	 * @param maxX The maximum x coordinates of the item boxes.
+	 * @param maxY The maximum y coordinates of the item boxes.
+	 */
+	public PackedRTree(double[] minX, double[] minY, double[] maxX, double[] maxY) {
+		this(minX, minY, maxX, maxY, DEFAULT_NODE_CAPACITY);
+	}
+
+	/**
+	 * Builds a tree containing the given item boxes.
+	 * @param minX The minimum x coordinates of the item boxes.
+	 * @param minY The minimum y coordinates of the item boxes.
+	 * @param maxX The maximum x coordinates of the item boxes.
+	 * @param maxY The maximum y coordinates of the item boxes.
+	 * @param nodeCapacity The maximum number of entries per node (at least 2).
+	 */
+	public PackedRTree(double[] minX, double[] minY, double[] maxX, double[] maxY, int nodeCapacity) {
+		int n = minX.length;
+		if (minY.length != n || maxX.length != n || maxY.length != n) {
+			throw new IllegalArgumentException("Coordinate arrays have different lengths.");
+		}
+		if (nodeCapacity < 2) {
+			throw new IllegalArgumentException("Node capacity must be at least 2: " + nodeCapacity);
+		}
+		this.itemCount = n;
+		// sort items into STR order
+		double[] boxes = new double[4 * n];
+		for (int i = 0; i < n; i++) {
+			boxes[4 * i] = minX[i];
+			boxes[4 * i + 1] = minY[i];
+			boxes[4 * i + 2] = maxX[i];
+			boxes[4 * i + 3] = maxY[i];
+		}
+		int[] order = strOrder(boxes, n, nodeCapacity);
+		this.itemIds = order;
+		this.itemBoxes = permuteBoxes(boxes, order);
+		this.itemPositions = new int[n];
+		for (int i = 0; i < n; i++) {
+			this.itemPositions[order[i]] = i;
+		}
+		// count nodes on all levels
+		int total = 0;
+		for (int count = n; count > 0;) {
+			count = ceilDiv(count, nodeCapacity);
+			total += count;
+			if (count == 1) {
+				break;
+			}
+		}
+		this.nodeBoxes = new double[4 * total];
+		this.childStart = new int[total];
+		this.childCount = new int[total];
+		// leaf level groups consecutive items
+		int levelStart = 0;
+		int levelCount = ceilDiv(n, nodeCapacity);
+		for (int i = 0; i < levelCount; i++) {
+			int first = i * nodeCapacity;
+			initNode(i, first, Math.min(nodeCapacity, n - first), this.itemBoxes);
+		}
+		this.leafCount = levelCount;
+		// upper levels: sort nodes of the level below into STR order, then group them
+		while (levelCount > 1) {
+			int nextStart = levelStart + levelCount;
+			double[] levelBoxes = new double[4 * levelCount];
+			System.arraycopy(this.nodeBoxes, 4 * levelStart, levelBoxes, 0, levelBoxes.length);
+			int[] levelOrder = strOrder(levelBoxes, levelCount, nodeCapacity);
+			permuteLevel(levelStart, levelCount, levelOrder);
+			int parentCount = ceilDiv(levelCount, nodeCapacity);
+			for (int i = 0; i < parentCount; i++) {
+				int first = i * nodeCapacity;
+				initNode(nextStart + i, levelStart + first, Math.min(nodeCapacity, levelCount - first),
+						this.nodeBoxes);
+			}
+			levelStart = nextStart;
+			levelCount = parentCount;
+		}
+	}
+
+	/**
+	 * Returns the number of items in the tree.
+	 * @return The number of indexed boxes.
+	 */
+	public int size() {
+		return itemCount;
+	}
+
+	/**
+	 * Finds all items whose boxes intersect the given query box.
+	 * @param minX The minimum x coordinate of the query box.
+	 * @param minY The minimum y coordinate of the query box.
+	 * @param maxX The maximum x coordinate of the query box.
+	 * @param maxY The maximum y coordinate of the query box.
+	 * @return An array of item identifiers (in no particular order); it is empty if no
+	 * items intersect the query box.
+	 */
+	public int[] search(double minX, double minY, double maxX, double maxY) {
+		if (itemCount == 0) {
+			return new int[0];
+		}
+		int[] hits = new int[Math.min(itemCount, 16)];
+		int hitCount = 0;
+		int[] stack = new int[64];
+		int top = 0;
+		stack[top++] = childStart.length - 1;
+		while (top > 0) {
+			int node = stack[--top];
+			if (!intersects(nodeBoxes, node, minX, minY, maxX, maxY)) {
+				continue;
+			}
+			int first = childStart[node];
+			int last = first + childCount[node];
+			if (node < leafCount) {
+				for (int i = first; i < last; i++) {
+					if (intersects(itemBoxes, i, minX, minY, maxX, maxY)) {
+						if (hitCount == hits.length) {
+							hits = Arrays.copyOf(hits, hitCount * 2);
+						}
+						hits[hitCount++] = itemIds[i];
+					}
+				}
+			}
+			else {
+				for (int i = first; i < last; i++) {
+					if (top == stack.length) {
+						stack = Arrays.copyOf(stack, top * 2);
+					}
+					stack[top++] = i;
+				}
+			}
+		}
+		return Arrays.copyOf(hits, hitCount);
+	}
+
+	/**
+	 * Counts the items whose boxes intersect the given query box.
+	 * @param minX The minimum x coordinate of the query box.
+	 * @param minY The minimum y coordinate of the query box.
+	 * @param maxX The maximum x coordinate of the query box.
+	 * @param maxY The maximum y coordinate of the query box.
+	 * @return The number of intersecting items.
+	 */
+	public int count(double minX, double minY, double maxX, double maxY) {
+		return search(minX, minY, maxX, maxY).length;
+	}
+
+	/**
+	 * Returns the box of the given item.
+	 * @param item An item identifier.
+	 * @return An array (minX, minY, maxX, maxY).
+	 */
+	public double[] getItemBox(int item) {
+		int pos = itemPositions[item];
+		return Arrays.copyOfRange(itemBoxes, 4 * pos, 4 * pos + 4);
+	}
+
+	/**
+	 * Returns the box enclosing all items.
+	 * @return An array (minX, minY, maxX, maxY), or null if the tree is empty.
+	 */
+	public double[] getBounds() {
+		if (itemCount == 0) {
+			return null;
+		}
+		int root = childStart.length - 1;
+		return Arrays.copyOfRange(nodeBoxes, 4 * root, 4 * root + 4);
+	}
+
+	private void initNode(int node, int first, int count, double[] childBoxes) {
+		childStart[node] = first;
+		childCount[node] = count;
+		double x0 = Double.POSITIVE_INFINITY;
+		double y0 = Double.POSITIVE_INFINITY;
+		double x1 = Double.NEGATIVE_INFINITY;
+		double y1 = Double.NEGATIVE_INFINITY;
+		for (int i = first; i < first + count; i++) {
+			x0 = Math.min(x0, childBoxes[4 * i]);
+			y0 = Math.min(y0, childBoxes[4 * i + 1]);
+			x1 = Math.max(x1, childBoxes[4 * i + 2]);
+			y1 = Math.max(y1, childBoxes[4 * i + 3]);
+		}
+		nodeBoxes[4 * node] = x0;
+		nodeBoxes[4 * node + 1] = y0;
+		nodeBoxes[4 * node + 2] = x1;
+		nodeBoxes[4 * node + 3] = y1;
+	}
+
+	private void permuteLevel(int levelStart, int levelCount, int[] order) {
+		double[] boxes = new double[4 * levelCount];
+		int[] starts = new int[levelCount];
+		int[] counts = new int[levelCount];
+		for (int i = 0; i < levelCount; i++) {
+			int src = levelStart + order[i];
+			System.arraycopy(nodeBoxes, 4 * src, boxes, 4 * i, 4);
+			starts[i] = childStart[src];
+			counts[i] = childCount[src];
+		}
+		System.arraycopy(boxes, 0, nodeBoxes, 4 * levelStart, boxes.length);
+		System.arraycopy(starts, 0, childStart, levelStart, levelCount);
+		System.arraycopy(counts, 0, childCount, levelStart, levelCount);
+	}
+
+	private static boolean intersects(double[] boxes, int i, double minX, double minY, double maxX, double maxY) {
+		return boxes[4 * i] <= maxX && boxes[4 * i + 2] >= minX && boxes[4 * i + 1] <= maxY
+				&& boxes[4 * i + 3] >= minY;
+	}
+
+	private static double[] permuteBoxes(double[] boxes, int[] order) {
+		double[] sorted = new double[boxes.length];
+		for (int i = 0; i < order.length; i++) {
+			System.arraycopy(boxes, 4 * order[i], sorted, 4 * i, 4);
+		}
+		return sorted;
+	}
+
+	/**
+	 * Determines the STR order of a set of boxes: they are sorted by the x coordinate of
+	 * their centres, cut into vertical slices, and each slice is then sorted by the y
+	 * coordinate of the centres.
+	 * @param boxes An array of boxes (minX, minY, maxX, maxY).
+	 * @param count The number of boxes.
+	 * @param nodeCapacity The maximum number of entries per node.
+	 * @return An array containing box indexes in STR order.
+	 */
+	static int[] strOrder(double[] boxes, int count, int nodeCapacity) {
+		int[] order = new int[count];
+		double[] centreX = new double[count];
+		double[] centreY = new double[count];
+		for (int i = 0; i < count; i++) {
+			order[i] = i;
+			centreX[i] = (boxes[4 * i] + boxes[4 * i + 2]) / 2;
+			centreY[i] = (boxes[4 * i + 1] + boxes[4 * i + 3]) / 2;
+		}
+		sort(order, 0, count - 1, centreX);
+		int nodes = ceilDiv(count, nodeCapacity);
+		int slices = (int) Math.ceil(Math.sqrt(nodes));
+		int sliceSize = slices * nodeCapacity;
+		for (int start = 0; start < count; start += sliceSize) {
+			sort(order, start, Math.min(start + sliceSize, count) - 1, centreY);
+		}
+		return order;
+	}
+
+	/**
+	 * Sorts a range of indexes by the corresponding key values (quicksort with an
+	 * insertion sort cutoff).
+	 */
+	private static void sort(int[] idx, int lo, int hi, double[] keys) {
+		while (hi - lo > 16) {
+			double pivot = keys[idx[(lo + hi) >>> 1]];
+			int i = lo;
+			int j = hi;
+			while (i <= j) {
+				while (keys[idx[i]] < pivot) {
+					i++;
+				}
+				while (keys[idx[j]] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					int tmp = idx[i];
+					idx[i++] = idx[j];
+					idx[j--] = tmp;
+				}
+			}
+			// recurse into smaller partition to bound stack depth
+			if (j - lo < hi - i) {
+				sort(idx, lo, j, keys);
+				lo = i;
+			}
+			else {
+				sort(idx, i, hi, keys);
+				hi = j;
+			}
+		}
+		for (int i = lo + 1; i <= hi; i++) {
+			int value = idx[i];
+			double key = keys[value];
+			int j = i - 1;
+			while (j >= lo && keys[idx[j]] > key) {
+				idx[j + 1] = idx[j];
+				j--;
+			}
+			idx[j + 1] = value;
+		}
+	}
+
+	private static int ceilDiv(int x, int y) {
+		return (x + y - 1) / y;
+	}
+
+}
@@ -0,0 +1,343 @@
+package org.opengis.cite.cat30.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.logging.Level;
+
+/**
+ * Walks through the result set of an unfiltered GetRecords request page by page and
+ * checks that the pages are mutually consistent. The following problems are detected:
+ * <ul>
+ * <li>duplicates: a record identifier occurs at more than one position;</li>
+ * <li>gaps: result set positions that are skipped, or fewer records than were reported to
+ * match;</li>
+ * <li>drift: the numberOfRecordsMatched value changes between pages, or the
+ * numberOfRecordsReturned or nextRecord value of a page disagrees with its content.</li>
+ * </ul>
+ *
+ * <p>
+ * The identifiers already seen are tracked in a {@link HashedIdSet}. If a hash value
+ * recurs, the record at the position of its first occurrence is retrieved again to
+ * determine whether the match is a genuine duplicate; identifiers that turn out to share
+ * a hash value with a different identifier are kept in a (small) exact overflow map.
+ * </p>
+ */
+public class PaginationChecker {
+
+	/** The maximum number of problems described in a report. */
+	static final int MAX_ISSUES = 20;
+
+	private final BiFunction<Integer, Integer, RecordPage> pageSource;
+
+	private final int pageSize;
+
+	/**
+	 * Constructs a checker that retrieves pages using the given client.
+	 * @param cswClient A CSW client that is configured to access the IUT.
+	 * @param pageSize The number of records to request per page.
+	 */
+	public PaginationChecker(CSWClient cswClient, int pageSize) {
+		this(cswClient::getRecordPage, pageSize);
+	}
+
+	/**
+	 * Constructs a checker that retrieves pages using the given client and additional
+	 * request parameters (e.g. {@value org.opengis.cite.cat30.CAT3#SORT_BY}).
+	 * @param cswClient A CSW client that is configured to access the IUT.
+	 * @param params A collection of request parameters with URL-encoded values.
+	 * @param pageSize The number of records to request per page.
+	 */
+	public PaginationChecker(CSWClient cswClient, Map<String, String> params, int pageSize) {
+		this((startPosition, maxRecords) -> cswClient.getRecordPage(params, startPosition, maxRecords), pageSize);
+	}
+
+	/**
+	 * Constructs a checker that retrieves pages from the given source.
+	 * @param pageSource A function that accepts a start position and a maximum number of
+	 * records and returns the corresponding page (or null if it is unavailable).
+	 * @param pageSize The number of records to request per page.
+	 */
+	PaginationChecker(BiFunction<Integer, Integer, RecordPage> pageSource, int pageSize) {
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+		}
+		this.pageSource = pageSource;
+		this.pageSize = pageSize;
+	}
+
+	/**
+	 * Walks through the result set, starting at the first position.
+	 * @param limit The maximum number of records to examine.
+	 * @return A Report summarizing the outcome.
+	 */
+	public Report walk(int limit) {
+		Report report = new Report();
+		HashedIdSet seenIds = new HashedIdSet(Math.min(limit, 1 << 16));
+		Map<String, Integer> collidedIds = new HashMap<>();
+		int startPosition = 1;
+		while (report.recordsSeen < limit) {
+			RecordPage page = pageSource.apply(startPosition, Math.min(pageSize, limit - report.recordsSeen));
+			if (null == page) {
+				report.addIssue("GetRecords request failed (startPosition=" + startPosition + ")");
+				report.failed = true;
+				break;
+			}
+			report.pages++;
+			long matched = page.getNumberOfRecordsMatched();
+			if (report.pages == 1) {
+				report.numberOfRecordsMatched = matched;
+			}
+			else if (matched != report.numberOfRecordsMatched) {
+				report.drift++;
+				report.addIssue(String.format("numberOfRecordsMatched changed from %d to %d (startPosition=%d)",
+						report.numberOfRecordsMatched, matched, startPosition));
+			}
+			int count = page.getRecordCount();
+			if (page.getNumberOfRecordsReturned() != count) {
+				report.drift++;
+				report.addIssue(String.format("numberOfRecordsReturned=%d but page contains %d records"
+						+ " (startPosition=%d)", page.getNumberOfRecordsReturned(), count, startPosition));
+			}
+			List<String> ids = page.getRecordIds();
+			report.missingIds += count - ids.size();
+			for (int i = 0; i < ids.size(); i++) {
+				addId(ids.get(i), startPosition + i, page, seenIds, collidedIds, report);
+			}
+			report.recordsSeen += count;
+			int endPosition = startPosition + count;
+			long nextRecord = page.getNextRecord();
+			long expectedNext = (endPosition > report.numberOfRecordsMatched) ? 0 : endPosition;
+			if (report.numberOfRecordsMatched >= 0 && nextRecord != expectedNext) {
+				report.drift++;
+				report.addIssue(String.format("nextRecord=%d but expected %d (startPosition=%d)", nextRecord,
+						expectedNext, startPosition));
+			}
+			if (nextRecord == 0) {
+				report.complete = true;
+				if (report.numberOfRecordsMatched >= endPosition) {
+					report.gaps += report.numberOfRecordsMatched - endPosition + 1;
+					report.addIssue(String.format("Result set ended at position %d but numberOfRecordsMatched=%d",
+							endPosition - 1, report.numberOfRecordsMatched));
+				}
+				break;
+			}
+			if (count == 0 || nextRecord <= startPosition || nextRecord > Integer.MAX_VALUE) {
+				report.addIssue("Paging does not advance (startPosition=" + startPosition + ", nextRecord="
+						+ nextRecord + ")");
+				report.failed = true;
+				break;
+			}
+			if (nextRecord > endPosition) {
+				report.gaps += nextRecord - endPosition;
+				report.addIssue(String.format("Positions %d to %d were skipped", endPosition, nextRecord - 1));
+			}
+			startPosition = (int) nextRecord;
+		}
+		report.distinctIds = seenIds.size() + collidedIds.size();
+		TestSuiteLogger.log(Level.CONFIG, report.toString());
+		return report;
+	}
+
+	private void addId(String id, int position, RecordPage page, HashedIdSet seenIds, Map<String, Integer> collidedIds,
+			Report report) {
+		Integer collidedPosition = collidedIds.get(id);
+		if (null != collidedPosition) {
+			report.addDuplicate(id, collidedPosition, position, true);
+			return;
+		}
+		int firstPosition = seenIds.addIfAbsent(HashedIdSet.hash(id), position);
+		if (firstPosition < 0) {
+			return;
+		}
+		String firstId = findId(firstPosition, page);
+		if (null == firstId) {
+			report.addDuplicate(id, firstPosition, position, false);
+		}
+		else if (firstId.equals(id)) {
+			report.addDuplicate(id, firstPosition, position, true);
+		}
+		else {
+			report.collisions++;
+			collidedIds.put(id, position);
+		}
+	}
+
+	/**
+	 * Finds the identifier of the record at the given position, looking first in the
+	 * current page.
+	 */
+	private String findId(int position, RecordPage page) {
+		int index = position - page.getStartPosition();
+		if (index >= 0 && index < page.getRecordIds().size() && page.getRecordCount() == page.getRecordIds().size()) {
+			return page.getRecordIds().get(index);
+		}
+		RecordPage single = pageSource.apply(position, 1);
+		if (null == single || single.getRecordIds().isEmpty()) {
+			return null;
+		}
+		return single.getRecordIds().get(0);
+	}
+
+	/**
+	 * Summarizes the outcome of a walk through a result set.
+	 */
+	public static final class Report {
+
+		private long numberOfRecordsMatched = -1;
+
+		private int pages;
+
+		private int recordsSeen;
+
+		private int distinctIds;
+
+		private int missingIds;
+
+		private int duplicates;
+
+		private long gaps;
+
+		private int drift;
+
+		private int collisions;
+
+		private boolean complete;
+
+		private boolean failed;
+
+		private final List<String> issues = new ArrayList<>();
+
+		Report() {
+		}
+
+		/**
+		 * Determines whether the result set was consistent. A walk that stopped early
+		 * because the limit was reached may still be consistent.
+		 * @return true if no duplicates, gaps, or drift were detected and paging did not
+		 * fail; false otherwise.
+		 */
+		public boolean isConsistent() {
+			return duplicates == 0 && gaps == 0 && drift == 0 && !failed;
+		}
+
+		/**
+		 * Indicates whether the end of the result set was reached.
+		 * @return true if a page with nextRecord=0 was retrieved.
+		 */
+		public boolean isComplete() {
+			return complete;
+		}
+
+		/**
+		 * Returns the numberOfRecordsMatched value reported in the first page.
+		 * @return The reported size of the result set (-1 if unknown).
+		 */
+		public long getNumberOfRecordsMatched() {
+			return numberOfRecordsMatched;
+		}
+
+		/**
+		 * Returns the number of pages retrieved.
+		 * @return The number of GetRecords requests that succeeded.
+		 */
+		public int getPageCount() {
+			return pages;
+		}
+
+		/**
+		 * Returns the number of records examined.
+		 * @return The total number of records in all pages.
+		 */
+		public int getRecordsSeen() {
+			return recordsSeen;
+		}
+
+		/**
+		 * Returns the number of distinct record identifiers.
+		 * @return The number of distinct identifiers seen.
+		 */
+		public int getDistinctIds() {
+			return distinctIds;
+		}
+
+		/**
+		 * Returns the number of records lacking an identifier.
+		 * @return The number of records with no dc:identifier element.
+		 */
+		public int getMissingIds() {
+			return missingIds;
+		}
+
+		/**
+		 * Returns the number of duplicate occurrences.
+		 * @return The number of records whose identifier was already seen.
+		 */
+		public int getDuplicates() {
+			return duplicates;
+		}
+
+		/**
+		 * Returns the number of result set positions that were skipped.
+		 * @return The number of missing positions.
+		 */
+		public long getGaps() {
+			return gaps;
+		}
+
+		/**
+		 * Returns the number of inconsistent counter values.
+		 * @return The number of numberOfRecordsMatched, numberOfRecordsReturned, or
+		 * nextRecord values that disagree with the content.
+		 */
+		public int getDrift() {
+			return drift;
+		}
+
+		/**
+		 * Returns the number of hash collisions between distinct identifiers.
+		 * @return The number of identifiers held in the exact overflow map.
+		 */
+		public int getCollisions() {
+			return collisions;
+		}
+
+		/**
+		 * Returns descriptions of the problems found (at most {@value #MAX_ISSUES}).
+		 * @return An unmodifiable list of messages.
+		 */
+		public List<String> getIssues() {
+			return Collections.unmodifiableList(issues);
+		}
+
+		void addIssue(String issue) {
+			if (issues.size() < MAX_ISSUES) {
+				issues.add(issue);
+			}
+		}
+
+		void addDuplicate(String id, int firstPosition, int position, boolean confirmed) {
+			duplicates++;
+			addIssue(String.format("%s at position %d duplicates position %d%s", id, position, firstPosition,
+					confirmed ? "" : " (unconfirmed)"));
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder str = new StringBuilder("Paging report: ");
+			str.append(String.format("pages=%d, records=%d, distinct=%d, numberOfRecordsMatched=%d", pages,
+					recordsSeen, distinctIds, numberOfRecordsMatched));
+			str.append(String.format(", duplicates=%d, gaps=%d, drift=%d, missingIds=%d, collisions=%d, complete=%b",
+					duplicates, gaps, drift, missingIds, collisions, complete));
+			for (String issue : issues) {
+				str.append("\n  ").append(issue);
+			}
+			return str.toString();
+		}
+
+	}
+
+}
@@ -0,0 +1,367 @@
+package org.opengis.cite.cat30.util;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.opengis.cite.cat30.CAT3;
+import org.opengis.cite.cat30.Namespaces;
+
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Verifies that every record in a list of identifiers can be retrieved by means of a
+ * GetRecordById request in each of the following representations:
+ * <ul>
+ * <li>csw:BriefRecord (elementSetName=brief)</li>
+ * <li>csw:SummaryRecord (elementSetName=summary)</li>
+ * <li>csw:Record (elementSetName=full)</li>
+ * <li>atom:entry (Accept: application/atom+xml)</li>
+ * </ul>
+ *
+ * <p>
+ * A representation passes if the response has status code 200 and the entity is a
+ * record of the expected type whose first dc:identifier child matches the requested
+ * identifier. Response entities are read as a stream and are not retained.
+ * </p>
+ *
+ * <p>
+ * Requests are submitted concurrently by a bounded pool of worker threads; the number of
+ * requests in progress for any one host is further limited by a semaphore. The results
+ * are recorded in a compact {@link StatusTable}.
+ * </p>
+ */
+public class RecordByIdVerifier {
+
+	/** The default number of worker threads. */
+	public static final int DEFAULT_THREADS = 16;
+
+	/** The default maximum number of concurrent requests per host. */
+	public static final int DEFAULT_HOST_LIMIT = 8;
+
+	/** Representation has not been checked. */
+	public static final int UNCHECKED = 0;
+
+	/** Representation was retrieved and matches the requested record. */
+	public static final int PASSED = 1;
+
+	/** Request failed (I/O error or status code other than 200). */
+	public static final int HTTP_FAILURE = 2;
+
+	/** Response entity is not the expected record representation. */
+	public static final int CONTENT_FAILURE = 3;
+
+	/**
+	 * A record representation that can be requested by identifier.
+	 */
+	public enum Representation {
+
+		/** Brief record (csw:BriefRecord). */
+		BRIEF(Namespaces.CSW, "BriefRecord", CAT3.ELEMENT_SET_BRIEF, MediaType.APPLICATION_XML_TYPE),
+		/** Summary record (csw:SummaryRecord). */
+		SUMMARY(Namespaces.CSW, "SummaryRecord", CAT3.ELEMENT_SET_SUMMARY, MediaType.APPLICATION_XML_TYPE),
+		/** Full record (csw:Record). */
+		FULL(Namespaces.CSW, "Record", CAT3.ELEMENT_SET_FULL, MediaType.APPLICATION_XML_TYPE),
+		/** Atom entry (atom:entry). */
+		ATOM(Namespaces.ATOM, "entry", null, MediaType.APPLICATION_ATOM_XML_TYPE);
+
+		private final String nsName;
+
+		private final String localName;
+
+		private final String elementSet;
+
+		private final MediaType mediaType;
+
+		Representation(String nsName, String localName, String elementSet, MediaType mediaType) {
+			this.nsName = nsName;
+			this.localName = localName;
+			this.elementSet = elementSet;
+			this.mediaType = mediaType;
+		}
+
+	}
+
+	private final URI endpoint;
+
+	private final Client client;
+
+	private final int threads;
+
+	private final int hostLimit;
+
+	private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+
+	private final ThreadLocal<XMLInputFactory> xmlInputFactory = ThreadLocal
+		.withInitial(XMLInputFactory::newInstance);
+
+	/**
+	 * Constructs a verifier using the default concurrency limits.
+	 * @param endpoint The GetRecordById endpoint (GET method).
+	 * @param client The client component used to submit requests.
+	 */
+	public RecordByIdVerifier(URI endpoint, Client client) {
+		this(endpoint, client, DEFAULT_THREADS, DEFAULT_HOST_LIMIT);
+	}
+
+	/**
+	 * Constructs a verifier.
+	 * @param endpoint The GetRecordById endpoint (GET method).
+	 * @param client The client component used to submit requests.
+	 * @param threads The number of worker threads (at least 1).
+	 * @param hostLimit The maximum number of concurrent requests per host (at least 1).
+	 */
+	public RecordByIdVerifier(URI endpoint, Client client, int threads, int hostLimit) {
+		if (threads < 1 || hostLimit < 1) {
+			throw new IllegalArgumentException("Concurrency limits must be positive.");
+		}
+		this.endpoint = endpoint;
+		this.client = client;
+		this.threads = threads;
+		this.hostLimit = hostLimit;
+	}
+
+	/**
+	 * Retrieves every record in all representations. This method blocks until all
+	 * requests have completed.
+	 * @param identifiers A list of record identifiers.
+	 * @return A StatusTable containing the result for each identifier and representation.
+	 * @throws InterruptedException If the calling thread is interrupted while waiting.
+	 */
+	public StatusTable verifyAll(List<String> identifiers) throws InterruptedException {
+		StatusTable table = new StatusTable(identifiers);
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(threads * 4), new ThreadPoolExecutor.CallerRunsPolicy());
+		AtomicInteger completed = new AtomicInteger();
+		try {
+			for (int i = 0; i < identifiers.size(); i++) {
+				final int index = i;
+				executor.execute(() -> {
+					table.setStatus(index, verify(identifiers.get(index)));
+					int count = completed.incrementAndGet();
+					if (count % 1000 == 0) {
+						TestSuiteLogger.log(Level.INFO,
+								String.format("GetRecordById: verified %d of %d records", count, identifiers.size()));
+					}
+				});
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+		while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+			TestSuiteLogger.log(Level.FINE, "Waiting for GetRecordById requests to complete");
+		}
+		return table;
+	}
+
+	/**
+	 * Retrieves one record in all representations.
+	 * @param id A record identifier.
+	 * @return A status byte containing two bits per representation (in ordinal order).
+	 */
+	byte verify(String id) {
+		int status = 0;
+		for (Representation rep : Representation.values()) {
+			status |= verify(id, rep) << (2 * rep.ordinal());
+		}
+		return (byte) status;
+	}
+
+	private int verify(String id, Representation rep) {
+		Map<String, String> qryParams = new HashMap<>();
+		qryParams.put(CAT3.REQUEST, CAT3.GET_RECORD_BY_ID);
+		qryParams.put(CAT3.SERVICE, CAT3.SERVICE_TYPE_CODE);
+		qryParams.put(CAT3.VERSION, CAT3.VERSION_3_0_0);
+		qryParams.put(CAT3.ID, id);
+		if (null != rep.elementSet) {
+			qryParams.put(CAT3.ELEMENT_SET, rep.elementSet);
+		}
+		Semaphore permits = hostPermits.computeIfAbsent(String.valueOf(endpoint.getAuthority()),
+				host -> new Semaphore(hostLimit));
+		permits.acquireUninterruptibly();
+		Response rsp = null;
+		try {
+			rsp = ClientUtils.buildGetRequest(client, endpoint, qryParams, rep.mediaType);
+			if (rsp.getStatus() != Response.Status.OK.getStatusCode()) {
+				return HTTP_FAILURE;
+			}
+			InputStream entityStream = rsp.readEntity(InputStream.class);
+			return matchesRecord(entityStream, rep, id) ? PASSED : CONTENT_FAILURE;
+		}
+		catch (ProcessingException pex) {
+			TestSuiteLogger.log(Level.FINE, "GetRecordById request failed for " + id, pex);
+			return HTTP_FAILURE;
+		}
+		catch (XMLStreamException xse) {
+			return CONTENT_FAILURE;
+		}
+		finally {
+			if (null != rsp) {
+				rsp.close();
+			}
+			permits.release();
+		}
+	}
+
+	/**
+	 * Checks that the document element has the expected name and that its first
+	 * dc:identifier child has the expected value.
+	 */
+	private boolean matchesRecord(InputStream entityStream, Representation rep, String id)
+			throws XMLStreamException {
+		XMLStreamReader reader = xmlInputFactory.get().createXMLStreamReader(entityStream);
+		try {
+			reader.nextTag();
+			if (!rep.nsName.equals(reader.getNamespaceURI()) || !rep.localName.equals(reader.getLocalName())) {
+				return false;
+			}
+			int depth = 1;
+			while (reader.hasNext() && depth > 0) {
+				int event = reader.next();
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					depth++;
+					if (depth == 2 && Namespaces.DCMES.equals(reader.getNamespaceURI())
+							&& reader.getLocalName().equals("identifier")) {
+						return id.equals(reader.getElementText().trim());
+					}
+				}
+				else if (event == XMLStreamConstants.END_ELEMENT) {
+					depth--;
+				}
+			}
+			return false;
+		}
+		finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Records the verification status of each record, using two bits per representation
+	 * (one byte per record).
+	 */
+	public static final class StatusTable {
+
+		private final List<String> identifiers;
+
+		private final byte[] status;
+
+		StatusTable(List<String> identifiers) {
+			this.identifiers = identifiers;
+			this.status = new byte[identifiers.size()];
+		}
+
+		void setStatus(int index, byte value) {
+			status[index] = value;
+		}
+
+		/**
+		 * Returns the number of records in the table.
+		 * @return The number of record identifiers.
+		 */
+		public int size() {
+			return status.length;
+		}
+
+		/**
+		 * Returns the status of a record representation.
+		 * @param index The index of a record identifier.
+		 * @param rep A record representation.
+		 * @return One of {@link #UNCHECKED}, {@link #PASSED}, {@link #HTTP_FAILURE}, or
+		 * {@link #CONTENT_FAILURE}.
+		 */
+		public int getStatus(int index, Representation rep) {
+			return (status[index] >>> (2 * rep.ordinal())) & 0x3;
+		}
+
+		/**
+		 * Determines whether all representations of a record passed.
+		 * @param index The index of a record identifier.
+		 * @return true if every representation passed; false otherwise.
+		 */
+		public boolean passed(int index) {
+			for (Representation rep : Representation.values()) {
+				if (getStatus(index, rep) != PASSED) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Returns the number of records for which at least one representation did not
+		 * pass.
+		 * @return The number of failed records.
+		 */
+		public int getFailureCount() {
+			int failures = 0;
+			for (int i = 0; i < status.length; i++) {
+				if (!passed(i)) {
+					failures++;
+				}
+			}
+			return failures;
+		}
+
+		/**
+		 * Summarizes the failed records.
+		 * @param maxEntries The maximum number of records to list.
+		 * @return A string containing one line per listed record, giving the status of
+		 * each representation.
+		 */
+		public String summarize(int maxEntries) {
+			StringBuilder summary = new StringBuilder();
+			int listed = 0;
+			for (int i = 0; i < status.length && listed < maxEntries; i++) {
+				if (passed(i)) {
+					continue;
+				}
+				summary.append(identifiers.get(i)).append(':');
+				for (Representation rep : Representation.values()) {
+					summary.append(' ').append(rep.name().toLowerCase()).append('=');
+					summary.append(statusName(getStatus(i, rep)));
+				}
+				summary.append('\n');
+				listed++;
+			}
+			int remaining = getFailureCount() - listed;
+			if (remaining > 0) {
+				summary.append("... and ").append(remaining).append(" more\n");
+			}
+			return summary.toString();
+		}
+
+		private static String statusName(int value) {
+			switch (value) {
+				case PASSED:
+					return "passed";
+				case HTTP_FAILURE:
+					return "http-failure";
+				case CONTENT_FAILURE:
+					return "content-failure";
+				default:
+					return "unchecked";
+			}
+		}
+
+	}
+
+}
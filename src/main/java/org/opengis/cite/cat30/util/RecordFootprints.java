@@ -0,0 +1,284 @@
+package org.opengis.cite.cat30.util;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.opengis.cite.cat30.Namespaces;
+import org.opengis.geometry.Envelope;
+import org.opengis.referencing.operation.TransformException;
+import org.opengis.util.FactoryException;
+
+/**
+ * A spatial index over the footprints of the records in the sample data. The footprint of
+ * a record is the first (two-dimensional) ows:BoundingBox or ows:WGS84BoundingBox child
+ * element. Only records that share the most frequently used CRS are indexed, so that all
+ * footprints are directly comparable; the footprints are held in a {@link PackedRTree}.
+ *
+ * <p>
+ * The index is used to generate selective spatial queries: a query box can be chosen such
+ * that it is predicted to match a small number of records, and the identifiers of those
+ * records are known in advance.
+ * </p>
+ */
+public class RecordFootprints {
+
+	private final String boxName;
+
+	private final String crsRef;
+
+	private final String[] recordIds;
+
+	private final PackedRTree tree;
+
+	private RecordFootprints(String boxName, String crsRef, String[] recordIds, PackedRTree tree) {
+		this.boxName = boxName;
+		this.crsRef = crsRef;
+		this.recordIds = recordIds;
+		this.tree = tree;
+	}
+
+	/**
+	 * Reads the record footprints in the given file. The file is read as a stream.
+	 * @param file A File containing catalog data (csw:GetRecordsResponse).
+	 * @return A RecordFootprints object (it is empty if no suitable bounding boxes were
+	 * found).
+	 */
+	public static RecordFootprints read(File file) {
+		Map<String, FootprintGroup> groups = new LinkedHashMap<>();
+		try {
+			RecordReader.read(file, new RecordReader.Handler() {
+
+				private String recordId;
+
+				private RecordReader.BoundingBox footprint;
+
+				@Override
+				public void startRecord() {
+					recordId = null;
+					footprint = null;
+				}
+
+				@Override
+				public boolean recordChild(XMLStreamReader reader) throws XMLStreamException {
+					if (null == recordId && Namespaces.DCMES.equals(reader.getNamespaceURI())
+							&& reader.getLocalName().equals("identifier")) {
+						recordId = reader.getElementText().trim();
+						return true;
+					}
+					if (null == footprint && RecordReader.isBoundingBox(reader)) {
+						try {
+							footprint = RecordReader.readBoundingBox(reader);
+						}
+						catch (NumberFormatException nfe) {
+							TestSuiteLogger.log(Level.WARNING, "Ignoring invalid footprint: " + nfe.getMessage());
+						}
+						return true;
+					}
+					return false;
+				}
+
+				@Override
+				public void endRecord() {
+					addFootprint(groups, recordId, footprint);
+				}
+
+			});
+		}
+		catch (XMLStreamException xse) {
+			TestSuiteLogger.log(Level.WARNING, "Failed to read record footprints from " + file.getAbsolutePath(), xse);
+		}
+		FootprintGroup largest = null;
+		for (FootprintGroup group : groups.values()) {
+			if (null == largest || group.size > largest.size) {
+				largest = group;
+			}
+		}
+		if (null == largest) {
+			return new RecordFootprints(null, null, new String[0], new PackedRTree(new double[0], new double[0],
+					new double[0], new double[0]));
+		}
+		return largest.build();
+	}
+
+	/**
+	 * Returns the number of indexed records.
+	 * @return The number of footprints in the index.
+	 */
+	public int size() {
+		return recordIds.length;
+	}
+
+	/**
+	 * Returns the CRS reference common to all indexed footprints.
+	 * @return A CRS reference (the value of the crs attribute), or an empty string if the
+	 * default CRS applies; null if the index is empty.
+	 */
+	public String getCrsRef() {
+		return crsRef;
+	}
+
+	/**
+	 * Finds the records whose footprints intersect the given box.
+	 * @param box An array (minX, minY, maxX, maxY) using the coordinate order of the CRS.
+	 * @return A list of record identifiers (dc:identifier), in document order.
+	 */
+	public List<String> search(double[] box) {
+		int[] hits = tree.search(box[0], box[1], box[2], box[3]);
+		Arrays.sort(hits);
+		List<String> ids = new ArrayList<>(hits.length);
+		for (int hit : hits) {
+			ids.add(recordIds[hit]);
+		}
+		return ids;
+	}
+
+	/**
+	 * Selects a query box that intersects approximately the given number of record
+	 * footprints. Candidate boxes are grown around the centres of a deterministic
+	 * selection of footprints; the size of each candidate is refined by bisection, and the
+	 * one whose hit count is closest to the target is chosen.
+	 * @param targetHits The desired number of matching records (at least 1).
+	 * @return An array (minX, minY, maxX, maxY), or null if the index is empty.
+	 */
+	public double[] selectQueryBox(int targetHits) {
+		double[] bounds = tree.getBounds();
+		if (null == bounds) {
+			return null;
+		}
+		if (targetHits >= size()) {
+			return bounds;
+		}
+		double span = Math.max(bounds[2] - bounds[0], bounds[3] - bounds[1]);
+		double minHalfSize = (span > 0) ? span * 1e-9 : 1e-9;
+		int seeds = Math.min(size(), 16);
+		double[] best = bounds;
+		int bestError = size() - targetHits;
+		for (int s = 0; s < seeds && bestError > 0; s++) {
+			double[] seedBox = tree.getItemBox((int) ((long) s * size() / seeds));
+			double cx = (seedBox[0] + seedBox[2]) / 2;
+			double cy = (seedBox[1] + seedBox[3]) / 2;
+			double lo = Math.max(minHalfSize, Math.max(seedBox[2] - seedBox[0], seedBox[3] - seedBox[1]) / 2);
+			double hi = lo;
+			while (countAround(cx, cy, hi) < targetHits && hi < 2 * span) {
+				lo = hi;
+				hi *= 2;
+			}
+			for (int i = 0; i < 32; i++) {
+				double[] candidate = boxAround(cx, cy, hi);
+				int error = Math.abs(countAround(cx, cy, hi) - targetHits);
+				if (error < bestError) {
+					best = candidate;
+					bestError = error;
+				}
+				if (error == 0 || hi - lo <= minHalfSize) {
+					break;
+				}
+				double mid = (lo + hi) / 2;
+				if (countAround(cx, cy, mid) < targetHits) {
+					lo = mid;
+				}
+				else {
+					hi = mid;
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Creates an Envelope corresponding to the given box.
+	 * @param box An array (minX, minY, maxX, maxY) using the coordinate order of the CRS.
+	 * @return An Envelope in the CRS of the indexed footprints.
+	 * @throws FactoryException If the CRS reference cannot be resolved.
+	 * @throws TransformException If the envelope cannot be created.
+	 */
+	public Envelope toEnvelope(double[] box) throws FactoryException, TransformException {
+		BoundingBoxAccumulator accumulator = new BoundingBoxAccumulator();
+		accumulator.add(boxName, crsRef, new double[] { box[0], box[1] }, new double[] { box[2], box[3] });
+		return accumulator.getTotalExtent();
+	}
+
+	private int countAround(double cx, double cy, double halfSize) {
+		return tree.count(cx - halfSize, cy - halfSize, cx + halfSize, cy + halfSize);
+	}
+
+	private static double[] boxAround(double cx, double cy, double halfSize) {
+		return new double[] { cx - halfSize, cy - halfSize, cx + halfSize, cy + halfSize };
+	}
+
+	private static void addFootprint(Map<String, FootprintGroup> groups, String recordId,
+			RecordReader.BoundingBox footprint) {
+		if (null == recordId || null == footprint) {
+			return;
+		}
+		if (footprint.lowerCorner.length != 2 || footprint.upperCorner.length != 2) {
+			return;
+		}
+		String key = footprint.name + ' ' + footprint.crsRef;
+		FootprintGroup group = groups.get(key);
+		if (null == group) {
+			group = new FootprintGroup(footprint.name, footprint.crsRef);
+			groups.put(key, group);
+		}
+		group.add(recordId, footprint.lowerCorner, footprint.upperCorner);
+	}
+
+	/**
+	 * Footprints sharing the same element name and CRS, held in growable primitive
+	 * arrays.
+	 */
+	private static final class FootprintGroup {
+
+		private final String boxName;
+
+		private final String crsRef;
+
+		private final List<String> ids = new ArrayList<>();
+
+		private double[] coords = new double[64];
+
+		private int size;
+
+		FootprintGroup(String boxName, String crsRef) {
+			this.boxName = boxName;
+			this.crsRef = crsRef;
+		}
+
+		void add(String id, double[] lower, double[] upper) {
+			if (4 * (size + 1) > coords.length) {
+				coords = Arrays.copyOf(coords, coords.length * 2);
+			}
+			coords[4 * size] = lower[0];
+			coords[4 * size + 1] = lower[1];
+			coords[4 * size + 2] = upper[0];
+			coords[4 * size + 3] = upper[1];
+			ids.add(id);
+			size++;
+		}
+
+		RecordFootprints build() {
+			double[] minX = new double[size];
+			double[] minY = new double[size];
+			double[] maxX = new double[size];
+			double[] maxY = new double[size];
+			for (int i = 0; i < size; i++) {
+				minX[i] = coords[4 * i];
+				minY[i] = coords[4 * i + 1];
+				maxX[i] = coords[4 * i + 2];
+				maxY[i] = coords[4 * i + 3];
+			}
+			PackedRTree tree = new PackedRTree(minX, minY, maxX, maxY);
+			return new RecordFootprints(boxName, crsRef, ids.toArray(new String[size]), tree);
+		}
+
+	}
+
+}
@@ -0,0 +1,217 @@
+package org.opengis.cite.cat30.util;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.opengis.cite.cat30.CAT3;
+import org.opengis.cite.cat30.Namespaces;
+
+/**
+ * A single page of search results obtained by a GetRecords request (csw:SearchResults)
+ * or an OpenSearch request (atom:feed). Only the result set counters and the record
+ * identifiers are retained; the response entity is read as a stream, so the size of a
+ * page is not limited by available memory.
+ */
+public class RecordPage {
+
+	private final int startPosition;
+
+	private long numberOfRecordsMatched = -1;
+
+	private int numberOfRecordsReturned = -1;
+
+	private long nextRecord = -1;
+
+	private long startIndex = -1;
+
+	private int recordCount;
+
+	private final List<String> recordIds = new ArrayList<>();
+
+	/**
+	 * Constructs an empty page.
+	 * @param startPosition The (one-based) position of the first record in the page, as
+	 * requested.
+	 */
+	public RecordPage(int startPosition) {
+		this.startPosition = startPosition;
+	}
+
+	/**
+	 * Reads a response entity containing records. The following entities are
+	 * recognized:
+	 * <ul>
+	 * <li>csw:GetRecordsResponse: a record is any child of csw:SearchResults;</li>
+	 * <li>atom:feed: a record is an atom:entry child, os:totalResults gives the size of
+	 * the result set, and os:startIndex gives the position of the first entry (the
+	 * numberOfRecordsReturned and nextRecord values are missing);</li>
+	 * <li>a single record (csw:BriefRecord, csw:SummaryRecord, csw:Record, or atom:entry),
+	 * as obtained by a GetRecordById request: the page contains just that record.</li>
+	 * </ul>
+	 * The first dc:identifier child of each record is taken as its identifier.
+	 * @param startPosition The requested start position.
+	 * @param entityStream An input stream for reading the response entity; it is not
+	 * closed.
+	 * @return A RecordPage object.
+	 * @throws XMLStreamException If the entity cannot be parsed.
+	 */
+	public static RecordPage read(int startPosition, InputStream entityStream) throws XMLStreamException {
+		RecordPage page = new RecordPage(startPosition);
+		XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(entityStream);
+		try {
+			int depth = 0;
+			int recordDepth = -1;
+			boolean isFeed = false;
+			boolean inRecord = false;
+			boolean hasId = false;
+			while (reader.hasNext()) {
+				int event = reader.next();
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					depth++;
+					String nsName = reader.getNamespaceURI();
+					String localName = reader.getLocalName();
+					if (depth == 1) {
+						if (Namespaces.ATOM.equals(nsName) && localName.equals("feed")) {
+							isFeed = true;
+							recordDepth = 2;
+						}
+						else if (isEntry(nsName, localName)
+								|| Namespaces.CSW.equals(nsName) && localName.endsWith("Record")) {
+							recordDepth = 1;
+							page.numberOfRecordsMatched = 1;
+							page.numberOfRecordsReturned = 1;
+							page.nextRecord = 0;
+						}
+					}
+					else if (recordDepth < 0 && Namespaces.CSW.equals(nsName)
+							&& localName.equals(CAT3.SEARCH_RESULTS)) {
+						recordDepth = depth + 1;
+						page.numberOfRecordsMatched = parseCount(reader.getAttributeValue(null, CAT3.NUM_REC_MATCHED));
+						page.numberOfRecordsReturned = (int) parseCount(
+								reader.getAttributeValue(null, CAT3.NUM_REC_RETURNED));
+						page.nextRecord = parseCount(reader.getAttributeValue(null, CAT3.NEXT_REC));
+						continue;
+					}
+					if (depth == recordDepth && (!isFeed || isEntry(nsName, localName))) {
+						page.recordCount++;
+						inRecord = true;
+						hasId = false;
+					}
+					else if (isFeed && depth == 2 && Namespaces.OSD11.equals(nsName)
+							&& localName.equals("totalResults")) {
+						page.numberOfRecordsMatched = parseCount(reader.getElementText());
+						depth--;
+					}
+					else if (isFeed && depth == 2 && Namespaces.OSD11.equals(nsName)
+							&& localName.equals("startIndex")) {
+						page.startIndex = parseCount(reader.getElementText());
+						depth--;
+					}
+					else if (inRecord && depth == recordDepth + 1 && !hasId && Namespaces.DCMES.equals(nsName)
+							&& localName.equals("identifier")) {
+						page.recordIds.add(reader.getElementText().trim());
+						hasId = true;
+						depth--;
+					}
+				}
+				else if (event == XMLStreamConstants.END_ELEMENT) {
+					if (depth == recordDepth) {
+						inRecord = false;
+					}
+					else if (depth == recordDepth - 1 && !isFeed) {
+						recordDepth = -1;
+					}
+					depth--;
+				}
+			}
+		}
+		finally {
+			reader.close();
+		}
+		return page;
+	}
+
+	/**
+	 * Returns the requested start position.
+	 * @return The (one-based) position of the first record in this page.
+	 */
+	public int getStartPosition() {
+		return startPosition;
+	}
+
+	/**
+	 * Returns the value of the numberOfRecordsMatched attribute.
+	 * @return The total size of the result set, or -1 if the value is missing or invalid.
+	 */
+	public long getNumberOfRecordsMatched() {
+		return numberOfRecordsMatched;
+	}
+
+	/**
+	 * Returns the value of the numberOfRecordsReturned attribute.
+	 * @return The reported number of records in this page, or -1 if the value is missing
+	 * or invalid.
+	 */
+	public int getNumberOfRecordsReturned() {
+		return numberOfRecordsReturned;
+	}
+
+	/**
+	 * Returns the value of the nextRecord attribute.
+	 * @return The position of the next record in the result set (0 if all records have
+	 * been returned), or -1 if the value is missing or invalid.
+	 */
+	public long getNextRecord() {
+		return nextRecord;
+	}
+
+	/**
+	 * Returns the value of the os:startIndex element in an Atom feed.
+	 * @return The reported position of the first entry, or -1 if the value is missing or
+	 * invalid.
+	 */
+	public long getStartIndex() {
+		return startIndex;
+	}
+
+	/**
+	 * Returns the number of records actually present in this page.
+	 * @return The number of record elements.
+	 */
+	public int getRecordCount() {
+		return recordCount;
+	}
+
+	/**
+	 * Returns the identifiers of the records in this page. A record lacking a
+	 * dc:identifier element contributes no entry.
+	 * @return An unmodifiable list of record identifiers, in document order.
+	 */
+	public List<String> getRecordIds() {
+		return Collections.unmodifiableList(recordIds);
+	}
+
+	private static boolean isEntry(String nsName, String localName) {
+		return Namespaces.ATOM.equals(nsName) && localName.equals("entry");
+	}
+
+	private static long parseCount(String value) {
+		if (null == value) {
+			return -1;
+		}
+		try {
+			return Long.parseLong(value.trim());
+		}
+		catch (NumberFormatException nfe) {
+			return -1;
+		}
+	}
+
+}
@@ -0,0 +1,170 @@
+package org.opengis.cite.cat30.util;
+
+import java.io.File;
+import java.util.logging.Level;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.stream.StreamSource;
+
+import org.opengis.cite.cat30.Namespaces;
+
+/**
+ * Reads the csw:Record elements in a file of catalog data as a stream, presenting the
+ * child elements of each record to a {@link Handler}. No DOM nodes are constructed, so
+ * memory use is independent of the number of records.
+ */
+final class RecordReader {
+
+	private RecordReader() {
+	}
+
+	/**
+	 * Receives the content of each record.
+	 */
+	interface Handler {
+
+		/**
+		 * Signals the start of a csw:Record element.
+		 */
+		void startRecord();
+
+		/**
+		 * Presents a child element of the current record. The reader is positioned at
+		 * its start tag. A handler that consumes the element must leave the reader
+		 * positioned at the corresponding end tag (as
+		 * {@link XMLStreamReader#getElementText()} and
+		 * {@link RecordReader#readBoundingBox(XMLStreamReader)} do).
+		 * @param reader The reader.
+		 * @return true if the element was consumed; false if it is to be skipped.
+		 * @throws XMLStreamException If the element cannot be read.
+		 */
+		boolean recordChild(XMLStreamReader reader) throws XMLStreamException;
+
+		/**
+		 * Signals the end of the current csw:Record element.
+		 */
+		void endRecord();
+
+	}
+
+	/**
+	 * Reads the records in the given file. Adjacent character data is coalesced.
+	 * @param file A File containing catalog data (csw:GetRecordsResponse).
+	 * @param handler The handler that receives the content of each record.
+	 * @throws XMLStreamException If the file cannot be read.
+	 */
+	static void read(File file, Handler handler) throws XMLStreamException {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+		XMLStreamReader reader = factory.createXMLStreamReader(new StreamSource(file));
+		try {
+			int depth = 0;
+			int recordDepth = -1;
+			while (reader.hasNext()) {
+				int event = reader.next();
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					depth++;
+					if (Namespaces.CSW.equals(reader.getNamespaceURI()) && reader.getLocalName().equals("Record")) {
+						recordDepth = depth;
+						handler.startRecord();
+					}
+					else if (depth == recordDepth + 1 && handler.recordChild(reader)) {
+						depth--;
+					}
+				}
+				else if (event == XMLStreamConstants.END_ELEMENT) {
+					if (depth == recordDepth) {
+						handler.endRecord();
+						recordDepth = -1;
+					}
+					depth--;
+				}
+			}
+		}
+		finally {
+			try {
+				reader.close();
+			}
+			catch (XMLStreamException xse) {
+				TestSuiteLogger.log(Level.FINE, "Failed to close reader.", xse);
+			}
+		}
+	}
+
+	/**
+	 * Indicates whether the current element is a bounding box (ows:BoundingBox or
+	 * ows:WGS84BoundingBox).
+	 * @param reader A reader positioned at a start tag.
+	 * @return true if the element is a bounding box; false otherwise.
+	 */
+	static boolean isBoundingBox(XMLStreamReader reader) {
+		return Namespaces.OWS.equals(reader.getNamespaceURI())
+				&& (reader.getLocalName().equals("BoundingBox") || reader.getLocalName().equals("WGS84BoundingBox"));
+	}
+
+	/**
+	 * Reads a bounding box element; the reader is left positioned at its end tag.
+	 * @param reader A reader positioned at the start tag of a bounding box.
+	 * @return The bounding box, or null if a corner is missing.
+	 * @throws XMLStreamException If the element cannot be read.
+	 * @throws NumberFormatException If a corner contains a value that is not a number.
+	 */
+	static BoundingBox readBoundingBox(XMLStreamReader reader) throws XMLStreamException {
+		String name = reader.getLocalName();
+		String crs = reader.getAttributeValue(null, "crs");
+		String lower = null;
+		String upper = null;
+		while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+			String cornerName = reader.getLocalName();
+			String coords = reader.getElementText();
+			if (cornerName.equals("LowerCorner")) {
+				lower = coords;
+			}
+			else if (cornerName.equals("UpperCorner")) {
+				upper = coords;
+			}
+		}
+		if (null == lower || null == upper) {
+			return null;
+		}
+		return new BoundingBox(name, (null != crs) ? crs.trim() : "", parseCoordinates(lower),
+				parseCoordinates(upper));
+	}
+
+	private static double[] parseCoordinates(String value) {
+		String[] tokens = value.trim().split("\\s+");
+		double[] coords = new double[tokens.length];
+		for (int i = 0; i < tokens.length; i++) {
+			coords[i] = Double.parseDouble(tokens[i]);
+		}
+		return coords;
+	}
+
+	/**
+	 * A bounding box read from a record.
+	 */
+	static final class BoundingBox {
+
+		/** The local name of the element ("BoundingBox" or "WGS84BoundingBox"). */
+		final String name;
+
+		/** The CRS reference, or an empty string if the default CRS applies. */
+		final String crsRef;
+
+		final double[] lowerCorner;
+
+		final double[] upperCorner;
+
+		BoundingBox(String name, String crsRef, double[] lowerCorner, double[] upperCorner) {
+			this.name = name;
+			this.crsRef = crsRef;
+			this.lowerCorner = lowerCorner;
+			this.upperCorner = upperCorner;
+		}
+
+	}
+
+}
@@ -0,0 +1,146 @@
+package org.opengis.cite.cat30.util;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.opengis.cite.cat30.CAT3;
+
+/**
+ * Collects the distinct GET requests submitted by the test suite. While recording is
+ * enabled, every request passing through a {@link RequestRecordingFilter} is added to
+ * the catalog (up to {@value #MAX_REQUESTS} entries). The recorded requests constitute a
+ * realistic mix of service requests that can subsequently be replayed by a
+ * {@link LoadGenerator}.
+ */
+public class RequestCatalog {
+
+	/** The maximum number of distinct requests retained. */
+	public static final int MAX_REQUESTS = 500;
+
+	private static final Map<String, RecordedRequest> REQUESTS = new LinkedHashMap<>();
+
+	private static volatile boolean recording;
+
+	private RequestCatalog() {
+	}
+
+	/**
+	 * Enables or disables recording.
+	 * @param enabled true if requests are to be recorded; false otherwise.
+	 */
+	public static void setRecording(boolean enabled) {
+		recording = enabled;
+	}
+
+	/**
+	 * Indicates whether requests are being recorded.
+	 * @return true if recording is enabled; false otherwise.
+	 */
+	public static boolean isRecording() {
+		return recording;
+	}
+
+	/**
+	 * Adds a request to the catalog if recording is enabled and an identical request
+	 * (same URI and Accept header) is not already present.
+	 * @param uri The request URI (including the query component).
+	 * @param accept The value of the Accept header (may be null).
+	 */
+	public static void record(URI uri, String accept) {
+		if (!recording) {
+			return;
+		}
+		String key = accept + ' ' + uri;
+		synchronized (REQUESTS) {
+			if (REQUESTS.size() < MAX_REQUESTS && !REQUESTS.containsKey(key)) {
+				REQUESTS.put(key, new RecordedRequest(uri, accept));
+			}
+		}
+	}
+
+	/**
+	 * Returns the recorded requests.
+	 * @return A list of requests, in the order they were first submitted.
+	 */
+	public static List<RecordedRequest> getRequests() {
+		synchronized (REQUESTS) {
+			return new ArrayList<>(REQUESTS.values());
+		}
+	}
+
+	/**
+	 * Removes all recorded requests.
+	 */
+	public static void clear() {
+		synchronized (REQUESTS) {
+			REQUESTS.clear();
+		}
+	}
+
+	/**
+	 * Determines the name of the operation invoked by a request. This is the value of
+	 * the {@value org.opengis.cite.cat30.CAT3#REQUEST} query parameter; a request
+	 * without this parameter is assumed to be an OpenSearch request.
+	 * @param uri A request URI.
+	 * @return The operation name.
+	 */
+	static String getOperation(URI uri) {
+		String query = uri.getRawQuery();
+		if (null != query) {
+			for (String param : query.split("&")) {
+				int eq = param.indexOf('=');
+				if (eq > 0 && param.substring(0, eq).equalsIgnoreCase(CAT3.REQUEST)) {
+					return param.substring(eq + 1);
+				}
+			}
+		}
+		return "OpenSearch";
+	}
+
+	/**
+	 * A request submitted by the test suite.
+	 */
+	public static final class RecordedRequest {
+
+		private final URI uri;
+
+		private final String accept;
+
+		private final String operation;
+
+		RecordedRequest(URI uri, String accept) {
+			this.uri = uri;
+			this.accept = accept;
+			this.operation = RequestCatalog.getOperation(uri);
+		}
+
+		/**
+		 * Returns the request URI.
+		 * @return An absolute URI.
+		 */
+		public URI getURI() {
+			return uri;
+		}
+
+		/**
+		 * Returns the value of the Accept header.
+		 * @return A list of media ranges, or null if the header was absent.
+		 */
+		public String getAccept() {
+			return accept;
+		}
+
+		/**
+		 * Returns the name of the operation invoked by the request.
+		 * @return An operation name (e.g. "GetRecords" or "OpenSearch").
+		 */
+		public String getOperation() {
+			return operation;
+		}
+
+	}
+
+}
@@ -0,0 +1,23 @@
+package org.opengis.cite.cat30.util;
+
+import java.io.IOException;
+
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.client.ClientRequestContext;
+import jakarta.ws.rs.client.ClientRequestFilter;
+import jakarta.ws.rs.core.HttpHeaders;
+
+/**
+ * Adds outgoing GET requests to the {@link RequestCatalog} (if recording is enabled).
+ */
+public class RequestRecordingFilter implements ClientRequestFilter {
+
+	/** {@inheritDoc} */
+	@Override
+	public void filter(ClientRequestContext requestContext) throws IOException {
+		if (RequestCatalog.isRecording() && HttpMethod.GET.equals(requestContext.getMethod())) {
+			RequestCatalog.record(requestContext.getUri(), requestContext.getHeaderString(HttpHeaders.ACCEPT));
+		}
+	}
+
+}
@@ -0,0 +1,520 @@
+package org.opengis.cite.cat30.util;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+import org.glassfish.jersey.client.ClientRequest;
+import org.glassfish.jersey.client.ClientResponse;
+import org.glassfish.jersey.client.spi.AsyncConnectorCallback;
+import org.glassfish.jersey.client.spi.Connector;
+import org.glassfish.jersey.client.spi.ConnectorProvider;
+import org.testng.ITestResult;
+import org.testng.Reporter;
+
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.core.Configuration;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Watches the HTTP requests in flight and reports those that stall. Every request
+ * submitted by a client whose connector is decorated (see
+ * {@link #decorate(ConnectorProvider)}) during a test run with a watchdog (see
+ * {@link #startRun(RequestWatchdog)}) is tracked along with the test method that issued
+ * it, the target URI, the start time, and the thread waiting for the response. A request
+ * remains in flight until its response entity has been read or closed, so a response
+ * body that stops arriving is detected as well. A watchdog checks its requests
+ * periodically; a request that has been in flight longer than the stall threshold is
+ * reported once (including the stack of the waiting thread) to the test suite logger
+ * and, if a report file is given, appended to it.
+ *
+ * <p>
+ * If aborting is enabled, the connection of a stalled request is also closed: an
+ * {@link HttpURLConnection} obtained by means of {@link #openConnection(java.net.URL)} is
+ * disconnected; otherwise the waiting thread is interrupted. The request then fails with
+ * an {@link AbortedException}.
+ * </p>
+ */
+public class RequestWatchdog {
+
+	/** The watchdog of the current test run, or null if requests are not tracked. */
+	private static final InheritableThreadLocal<RequestWatchdog> RUN_WATCHDOG = new InheritableThreadLocal<>();
+
+	private static final ThreadLocal<InFlightRequest> CURRENT = new ThreadLocal<>();
+
+	private static final AtomicLong SEQUENCE = new AtomicLong();
+
+	private final long stallMillis;
+
+	private final boolean aborting;
+
+	private final File reportFile;
+
+	private ScheduledExecutorService scheduler;
+
+	private final AtomicLong stallCount = new AtomicLong();
+
+	private final Map<Long, InFlightRequest> inFlight = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructs a watchdog.
+	 * @param stallMillis The time (in milliseconds) after which an in-flight request is
+	 * considered stalled.
+	 * @param aborting true if the connection of a stalled request is to be closed; false
+	 * if it is only reported.
+	 * @param reportFile The file to which stall reports are appended (may be null).
+	 */
+	public RequestWatchdog(long stallMillis, boolean aborting, File reportFile) {
+		if (stallMillis <= 0) {
+			throw new IllegalArgumentException("Stall threshold must be positive: " + stallMillis);
+		}
+		this.stallMillis = stallMillis;
+		this.aborting = aborting;
+		this.reportFile = reportFile;
+	}
+
+	/**
+	 * Sets the watchdog of the test run in the current thread (and in any threads it
+	 * creates). Requests submitted in these threads are tracked by this watchdog.
+	 * @param watchdog The watchdog of the test run.
+	 */
+	public static void startRun(RequestWatchdog watchdog) {
+		RUN_WATCHDOG.set(watchdog);
+	}
+
+	/**
+	 * Removes the watchdog of the test run from the current thread.
+	 */
+	public static void endRun() {
+		RUN_WATCHDOG.remove();
+	}
+
+	/**
+	 * Starts checking the in-flight requests in a background (daemon) thread.
+	 */
+	public synchronized void start() {
+		if (null != scheduler) {
+			return;
+		}
+		scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "request-watchdog");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long period = Math.max(100, Math.min(stallMillis / 4, 5000));
+		scheduler.scheduleWithFixedDelay(this::check, period, period, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops the background thread.
+	 */
+	public synchronized void stop() {
+		if (null != scheduler) {
+			scheduler.shutdownNow();
+			scheduler = null;
+		}
+	}
+
+	/**
+	 * Returns the number of stalls reported.
+	 * @return The number of requests found to have stalled.
+	 */
+	public long getStallCount() {
+		return stallCount.get();
+	}
+
+	/**
+	 * Checks the in-flight requests and reports any that have newly stalled.
+	 * @return A list of stall reports (empty if no request has newly stalled).
+	 */
+	List<String> check() {
+		List<String> reports = new ArrayList<>();
+		for (InFlightRequest request : inFlight.values()) {
+			if (request.reported || request.getElapsedMillis() < stallMillis) {
+				continue;
+			}
+			request.reported = true;
+			stallCount.incrementAndGet();
+			String report = request.describe();
+			if (aborting) {
+				report += "Aborting request.\n";
+				request.abort();
+			}
+			reports.add(report);
+			TestSuiteLogger.log(Level.WARNING, report);
+			appendToReportFile(report);
+		}
+		return reports;
+	}
+
+	private void appendToReportFile(String report) {
+		if (null == reportFile) {
+			return;
+		}
+		try {
+			Files.writeString(reportFile.toPath(), report + "\n", StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+					StandardOpenOption.APPEND);
+		}
+		catch (IOException iox) {
+			TestSuiteLogger.log(Level.WARNING, "Failed to write stall report to " + reportFile, iox);
+		}
+	}
+
+	/**
+	 * Returns the requests tracked by this watchdog that are currently in flight.
+	 * @return A list of in-flight requests (in no particular order).
+	 */
+	public List<InFlightRequest> getInFlightRequests() {
+		return new ArrayList<>(inFlight.values());
+	}
+
+	/**
+	 * Opens a connection to the given URL and associates it with the request being
+	 * submitted in the current thread, so that it can be closed if the request stalls.
+	 * @param url The target URL.
+	 * @return An HttpURLConnection.
+	 * @throws IOException If the connection cannot be opened.
+	 */
+	public static HttpURLConnection openConnection(java.net.URL url) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		InFlightRequest request = CURRENT.get();
+		if (null != request) {
+			request.connection = connection;
+		}
+		return connection;
+	}
+
+	/**
+	 * Wraps the connectors supplied by the given provider so that every request is
+	 * tracked while it is in flight.
+	 * @param delegate The provider of the connectors that submit requests.
+	 * @return A ConnectorProvider.
+	 */
+	public static ConnectorProvider decorate(ConnectorProvider delegate) {
+		return (Client client, Configuration runtimeConfig) -> new WatchedConnector(
+				delegate.getConnector(client, runtimeConfig));
+	}
+
+	/**
+	 * Starts tracking a request with the watchdog of the current test run.
+	 * @param request The request being submitted.
+	 * @return The in-flight request, or null if no watchdog is in effect.
+	 */
+	private static InFlightRequest register(ClientRequest request) {
+		RequestWatchdog watchdog = RUN_WATCHDOG.get();
+		if (null == watchdog) {
+			return null;
+		}
+		ITestResult result = Reporter.getCurrentTestResult();
+		String testName = (null != result)
+				? result.getTestClass().getName() + "." + result.getMethod().getMethodName() : null;
+		InFlightRequest inFlight = new InFlightRequest(watchdog.inFlight, SEQUENCE.incrementAndGet(),
+				request.getMethod(), request.getUri(), testName, Thread.currentThread());
+		watchdog.inFlight.put(inFlight.id, inFlight);
+		return inFlight;
+	}
+
+	/**
+	 * Keeps tracking a request while its response entity is read. A response without an
+	 * entity ends the request.
+	 * @param response The response received.
+	 * @param inFlight The in-flight request.
+	 * @return The response, with its entity stream wrapped if it has one.
+	 */
+	private static ClientResponse receive(ClientResponse response, InFlightRequest inFlight) {
+		InputStream entityStream = response.getEntityStream();
+		if (null == entityStream || response.getLength() == 0 || HttpMethod.HEAD.equals(inFlight.method)
+				|| response.getStatus() == Response.Status.NO_CONTENT.getStatusCode()
+				|| response.getStatus() == Response.Status.NOT_MODIFIED.getStatusCode()) {
+			inFlight.release();
+			return response;
+		}
+		inFlight.receivingEntity = true;
+		response.setEntityStream(new WatchedInputStream(entityStream, inFlight));
+		return response;
+	}
+
+	/**
+	 * A request in flight.
+	 */
+	public static final class InFlightRequest {
+
+		private final Map<Long, InFlightRequest> registry;
+
+		private final long id;
+
+		private final String method;
+
+		private final URI uri;
+
+		private final String testName;
+
+		private volatile Thread thread;
+
+		private final long startNanos = System.nanoTime();
+
+		private final Instant startTime = Instant.now();
+
+		private volatile boolean reported;
+
+		private volatile HttpURLConnection connection;
+
+		private volatile boolean receivingEntity;
+
+		private volatile boolean aborted;
+
+		InFlightRequest(Map<Long, InFlightRequest> registry, long id, String method, URI uri, String testName,
+				Thread thread) {
+			this.registry = registry;
+			this.id = id;
+			this.method = method;
+			this.uri = uri;
+			this.testName = testName;
+			this.thread = thread;
+		}
+
+		/**
+		 * Returns the target URI.
+		 * @return An absolute URI.
+		 */
+		public URI getURI() {
+			return uri;
+		}
+
+		/**
+		 * Returns the request method.
+		 * @return The HTTP method name.
+		 */
+		public String getMethod() {
+			return method;
+		}
+
+		/**
+		 * Returns the test method that issued the request.
+		 * @return The qualified name of the test method, or null if the request was not
+		 * issued by a test method.
+		 */
+		public String getTestName() {
+			return testName;
+		}
+
+		/**
+		 * Indicates whether the response headers have been received and the entity is
+		 * being read.
+		 * @return true if the response entity is being read; false if the request is
+		 * awaiting a response.
+		 */
+		public boolean isReceivingEntity() {
+			return receivingEntity;
+		}
+
+		/**
+		 * Returns the time the request has been in flight.
+		 * @return The elapsed time in milliseconds.
+		 */
+		public long getElapsedMillis() {
+			return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+		}
+
+		String describe() {
+			StringBuilder str = new StringBuilder();
+			str.append(String.format("Stalled request (in flight for %d ms since %s): %s %s%n", getElapsedMillis(),
+					startTime, method, uri));
+			str.append("Test: ").append((null != testName) ? testName : "(none)").append('\n');
+			str.append("Phase: ")
+				.append(receivingEntity ? "reading response entity" : "awaiting response")
+				.append('\n');
+			Thread thread = this.thread;
+			str.append("Thread: ").append(thread.getName()).append(" (").append(thread.getState()).append(")\n");
+			for (StackTraceElement frame : thread.getStackTrace()) {
+				str.append("\tat ").append(frame).append('\n');
+			}
+			return str.toString();
+		}
+
+		void release() {
+			registry.remove(id);
+		}
+
+		void abort() {
+			aborted = true;
+			HttpURLConnection conn = connection;
+			if (null != conn) {
+				conn.disconnect();
+			}
+			else {
+				thread.interrupt();
+			}
+		}
+
+	}
+
+	/**
+	 * Reports the failure of a request aborted by a watchdog. If the waiting thread was
+	 * interrupted to abort the request, its interrupt status is cleared.
+	 */
+	private static AbortedException aborted(InFlightRequest inFlight, Throwable failure) {
+		if (null == inFlight.connection && inFlight.thread == Thread.currentThread()) {
+			Thread.interrupted();
+		}
+		return new AbortedException(
+				String.format("Stalled request aborted after %d ms: %s %s", inFlight.getElapsedMillis(),
+						inFlight.method, inFlight.uri),
+				failure);
+	}
+
+	/**
+	 * Indicates that a stalled request was aborted by a watchdog.
+	 */
+	public static class AbortedException extends ProcessingException {
+
+		private static final long serialVersionUID = 1L;
+
+		AbortedException(String message, Throwable cause) {
+			super(message, cause);
+		}
+
+	}
+
+	/**
+	 * A response entity stream that ends the tracking of its request when it is closed
+	 * or fully read.
+	 */
+	private static final class WatchedInputStream extends FilterInputStream {
+
+		private final InFlightRequest inFlight;
+
+		WatchedInputStream(InputStream in, InFlightRequest inFlight) {
+			super(in);
+			this.inFlight = inFlight;
+		}
+
+		@Override
+		public int read() throws IOException {
+			inFlight.thread = Thread.currentThread();
+			int b = super.read();
+			if (b < 0) {
+				inFlight.release();
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			inFlight.thread = Thread.currentThread();
+			int count = super.read(b, off, len);
+			if (count < 0) {
+				inFlight.release();
+			}
+			return count;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				super.close();
+			}
+			finally {
+				inFlight.release();
+			}
+		}
+
+	}
+
+	/**
+	 * A connector that tracks the requests it submits.
+	 */
+	private static final class WatchedConnector implements Connector {
+
+		private final Connector delegate;
+
+		WatchedConnector(Connector delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public ClientResponse apply(ClientRequest request) {
+			InFlightRequest inFlight = register(request);
+			if (null == inFlight) {
+				return delegate.apply(request);
+			}
+			InFlightRequest previous = CURRENT.get();
+			CURRENT.set(inFlight);
+			ClientResponse response;
+			try {
+				response = delegate.apply(request);
+			}
+			catch (RuntimeException e) {
+				inFlight.release();
+				throw inFlight.aborted ? aborted(inFlight, e) : e;
+			}
+			catch (Error e) {
+				inFlight.release();
+				throw e;
+			}
+			finally {
+				CURRENT.set(previous);
+			}
+			return receive(response, inFlight);
+		}
+
+		@Override
+		public Future<?> apply(ClientRequest request, AsyncConnectorCallback callback) {
+			InFlightRequest inFlight = register(request);
+			if (null == inFlight) {
+				return delegate.apply(request, callback);
+			}
+			try {
+				return delegate.apply(request, new AsyncConnectorCallback() {
+
+					@Override
+					public void response(ClientResponse response) {
+						callback.response(receive(response, inFlight));
+					}
+
+					@Override
+					public void failure(Throwable failure) {
+						inFlight.release();
+						callback.failure(inFlight.aborted ? aborted(inFlight, failure) : failure);
+					}
+
+				});
+			}
+			catch (RuntimeException e) {
+				inFlight.release();
+				throw e;
+			}
+		}
+
+		@Override
+		public String getName() {
+			return delegate.getName();
+		}
+
+		@Override
+		public void close() {
+			delegate.close();
+		}
+
+	}
+
+}
@@ -0,0 +1,126 @@
+package org.opengis.cite.cat30.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accumulates the resources used by a test method: the number of HTTP requests it
+ * submits, the number of response entity bytes received, and the time spent parsing and
+ * validating XML entities. Accounting is active in a thread (and in any thread it
+ * creates) between {@link #start()} and {@link #stop()}; outside of that the
+ * <code>record</code> methods do nothing.
+ */
+public final class ResourceUsage {
+
+	private static final InheritableThreadLocal<ResourceUsage> CURRENT = new InheritableThreadLocal<>();
+
+	private final AtomicLong requests = new AtomicLong();
+
+	private final AtomicLong bytes = new AtomicLong();
+
+	private final AtomicLong parseNanos = new AtomicLong();
+
+	private final AtomicLong validationNanos = new AtomicLong();
+
+	ResourceUsage() {
+	}
+
+	/**
+	 * Starts accounting in the current thread.
+	 * @return A new ResourceUsage object to which subsequent usage is charged.
+	 */
+	public static ResourceUsage start() {
+		ResourceUsage usage = new ResourceUsage();
+		CURRENT.set(usage);
+		return usage;
+	}
+
+	/**
+	 * Stops accounting in the current thread.
+	 * @return The usage recorded since accounting started, or null if it was not active.
+	 */
+	public static ResourceUsage stop() {
+		ResourceUsage usage = CURRENT.get();
+		CURRENT.remove();
+		return usage;
+	}
+
+	/**
+	 * Returns the usage object that is currently active.
+	 * @return A ResourceUsage object, or null if accounting is not active in the current
+	 * thread.
+	 */
+	static ResourceUsage current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Records the time spent parsing an XML entity.
+	 * @param nanos The elapsed time in nanoseconds.
+	 */
+	public static void recordParse(long nanos) {
+		ResourceUsage usage = CURRENT.get();
+		if (null != usage) {
+			usage.parseNanos.addAndGet(nanos);
+		}
+	}
+
+	/**
+	 * Records the time spent validating an XML entity.
+	 * @param nanos The elapsed time in nanoseconds.
+	 */
+	public static void recordValidation(long nanos) {
+		ResourceUsage usage = CURRENT.get();
+		if (null != usage) {
+			usage.validationNanos.addAndGet(nanos);
+		}
+	}
+
+	/**
+	 * Counts a submitted HTTP request.
+	 */
+	void addRequest() {
+		requests.incrementAndGet();
+	}
+
+	/**
+	 * Adds to the number of response entity bytes received.
+	 * @param count The number of bytes.
+	 */
+	void addBytes(long count) {
+		bytes.addAndGet(count);
+	}
+
+	/**
+	 * Returns the number of HTTP requests submitted.
+	 * @return The request count.
+	 */
+	public long getRequestCount() {
+		return requests.get();
+	}
+
+	/**
+	 * Returns the number of response entity bytes received (as transferred).
+	 * @return The byte count.
+	 */
+	public long getByteCount() {
+		return bytes.get();
+	}
+
+	/**
+	 * Returns the time spent parsing XML entities.
+	 * @return The parse time in milliseconds.
+	 */
+	public long getParseMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(parseNanos.get());
+	}
+
+	/**
+	 * Returns the time spent validating XML entities.
+	 * @return The validation time in milliseconds.
+	 */
+	public long getValidationMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(validationNanos.get());
+	}
+
+}
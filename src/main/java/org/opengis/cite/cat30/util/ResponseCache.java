@@ -0,0 +1,360 @@
+package org.opengis.cite.cat30.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * A cache of representations retrieved by GET requests. A successful response is cached
+ * if it includes a validator (an <code>ETag</code> or <code>Last-Modified</code> header).
+ * A cached representation is always revalidated before it is used: a conditional request
+ * is submitted, and if the server responds with status code 304 (Not Modified) the
+ * cached entity is returned without being transferred again. Otherwise the new response
+ * replaces the cached one.
+ *
+ * <p>
+ * The cache retains at most a fixed number of representations; the least recently used
+ * one is evicted first. It keeps a count of the responses that were revalidated and of
+ * the entity bytes that did not have to be transferred as a result.
+ * </p>
+ *
+ * @see <a href="https://www.rfc-editor.org/rfc/rfc9111#section-4.3" target=
+ * "_blank">RFC 9111, 4.3: Validation</a>
+ */
+public class ResponseCache {
+
+	private static final Logger LOGR = Logger.getLogger(ResponseCache.class.getName());
+
+	/** The default maximum number of cached representations. */
+	public static final int DEFAULT_CAPACITY = 32;
+
+	/** The cache used by CSWClient instances during a test run. */
+	private static final InheritableThreadLocal<ResponseCache> RUN_CACHE = new InheritableThreadLocal<>();
+
+	private final Exchange exchange;
+
+	private final Map<String, CachedResponse> entries;
+
+	private final AtomicLong requestCount = new AtomicLong();
+
+	private final AtomicLong revalidationCount = new AtomicLong();
+
+	private final AtomicLong bytesSaved = new AtomicLong();
+
+	/**
+	 * Submits a (possibly conditional) GET request.
+	 */
+	@FunctionalInterface
+	interface Exchange {
+
+		Response get(URI uri, String entityTag, String lastModified, MediaType... mediaTypes);
+
+	}
+
+	/**
+	 * Sets the cache shared by the CSWClient instances created during a test run. It
+	 * applies to the current thread and to any threads it creates, so suites run
+	 * concurrently in one JVM each have their own.
+	 * @param cache A ResponseCache that uses the client component configured for the run.
+	 */
+	public static void startRun(ResponseCache cache) {
+		RUN_CACHE.set(cache);
+	}
+
+	/**
+	 * Removes the cache of the test run from the current thread.
+	 */
+	public static void endRun() {
+		RUN_CACHE.remove();
+	}
+
+	/**
+	 * Returns the cache of the current test run. Outside a test run, a new cache that
+	 * uses the {@link ClientUtils#getSharedClient() shared client} is returned.
+	 * @return A ResponseCache.
+	 */
+	public static ResponseCache forRun() {
+		ResponseCache cache = RUN_CACHE.get();
+		return (null != cache) ? cache : new ResponseCache(ClientUtils.getSharedClient());
+	}
+
+	/**
+	 * Constructs a cache with the default capacity.
+	 * @param client The client component used to submit requests.
+	 */
+	public ResponseCache(Client client) {
+		this((uri, entityTag, lastModified, mediaTypes) -> ClientUtils.buildConditionalGetRequest(client, uri,
+				entityTag, lastModified, mediaTypes), DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructs a cache.
+	 * @param exchange A function that submits a request.
+	 * @param capacity The maximum number of cached representations.
+	 */
+	ResponseCache(Exchange exchange, int capacity) {
+		this.exchange = exchange;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+				return size() > capacity;
+			}
+
+		};
+	}
+
+	/**
+	 * Retrieves a representation of the given resource. If a cached representation is
+	 * available, a conditional request is submitted to revalidate it.
+	 * @param uri An absolute URI (including any query component).
+	 * @param mediaTypes A list of acceptable media types.
+	 * @return A CachedResponse containing the status code and the complete entity of the
+	 * response (or of the revalidated representation).
+	 * @throws ProcessingException If the request could not be submitted or the entity
+	 * could not be read.
+	 */
+	public CachedResponse get(URI uri, MediaType... mediaTypes) {
+		String key = uri + " " + Arrays.toString(mediaTypes);
+		CachedResponse cached;
+		synchronized (entries) {
+			cached = entries.get(key);
+		}
+		String entityTag = (null != cached) ? cached.entityTag : null;
+		String lastModified = (null != cached) ? cached.lastModified : null;
+		requestCount.incrementAndGet();
+		long start = System.nanoTime();
+		Response rsp = exchange.get(uri, entityTag, lastModified, mediaTypes);
+		try {
+			if (null != cached && rsp.getStatus() == Response.Status.NOT_MODIFIED.getStatusCode()) {
+				long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+				revalidationCount.incrementAndGet();
+				bytesSaved.addAndGet(cached.entity.length);
+				CachedResponse revalidated = new CachedResponse(cached.status, cached.mediaType, cached.entity,
+						valueOrDefault(rsp.getHeaderString(HttpHeaders.ETAG), entityTag),
+						valueOrDefault(rsp.getHeaderString(HttpHeaders.LAST_MODIFIED), lastModified), true, 0,
+						latencyMicros);
+				store(key, revalidated);
+				return revalidated;
+			}
+			byte[] entity = rsp.hasEntity() ? rsp.readEntity(byte[].class) : new byte[0];
+			long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+			CachedResponse response = new CachedResponse(rsp.getStatus(), rsp.getMediaType(), entity,
+					rsp.getHeaderString(HttpHeaders.ETAG), rsp.getHeaderString(HttpHeaders.LAST_MODIFIED), false,
+					entity.length, latencyMicros);
+			if (response.status == Response.Status.OK.getStatusCode() && response.hasValidator()) {
+				store(key, response);
+			}
+			else {
+				synchronized (entries) {
+					entries.remove(key);
+				}
+			}
+			return response;
+		}
+		finally {
+			rsp.close();
+		}
+	}
+
+	private void store(String key, CachedResponse response) {
+		synchronized (entries) {
+			entries.put(key, response);
+		}
+	}
+
+	private static String valueOrDefault(String value, String defaultValue) {
+		return (null != value && !value.isEmpty()) ? value : defaultValue;
+	}
+
+	/**
+	 * Removes all cached representations.
+	 */
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+
+	/**
+	 * Returns the number of requests submitted.
+	 * @return The total number of requests.
+	 */
+	public long getRequestCount() {
+		return requestCount.get();
+	}
+
+	/**
+	 * Returns the number of cached representations that were successfully revalidated.
+	 * @return The number of 304 (Not Modified) responses.
+	 */
+	public long getRevalidationCount() {
+		return revalidationCount.get();
+	}
+
+	/**
+	 * Returns the number of entity bytes that were not transferred because a cached
+	 * representation was revalidated.
+	 * @return The number of bytes saved.
+	 */
+	public long getBytesSaved() {
+		return bytesSaved.get();
+	}
+
+	/**
+	 * The outcome of a request: the status code, the media type and content of the
+	 * entity, and the validators presented by the server.
+	 */
+	public static final class CachedResponse {
+
+		private final int status;
+
+		private final MediaType mediaType;
+
+		private final byte[] entity;
+
+		private final String entityTag;
+
+		private final String lastModified;
+
+		private final boolean revalidated;
+
+		private final long receivedBytes;
+
+		private final long latencyMicros;
+
+		CachedResponse(int status, MediaType mediaType, byte[] entity, String entityTag, String lastModified,
+				boolean revalidated, long receivedBytes, long latencyMicros) {
+			this.status = status;
+			this.mediaType = mediaType;
+			this.entity = entity;
+			this.entityTag = entityTag;
+			this.lastModified = lastModified;
+			this.revalidated = revalidated;
+			this.receivedBytes = receivedBytes;
+			this.latencyMicros = latencyMicros;
+		}
+
+		/**
+		 * Returns the status code of the representation. If a cached representation was
+		 * revalidated, this is the status code of the original response (200).
+		 * @return The HTTP status code.
+		 */
+		public int getStatus() {
+			return status;
+		}
+
+		/**
+		 * Returns the media type of the entity.
+		 * @return A MediaType, or null if the response did not include a Content-Type
+		 * header.
+		 */
+		public MediaType getMediaType() {
+			return mediaType;
+		}
+
+		/**
+		 * Returns the content of the entity.
+		 * @return A byte array (empty if the response had no entity).
+		 */
+		public byte[] getEntity() {
+			return entity.clone();
+		}
+
+		/**
+		 * Parses the entity as an XML document.
+		 * @param documentURI The URI from which the entity was retrieved (may be null).
+		 * @return A Document, or null if the entity is not well-formed XML.
+		 */
+		public Document getEntityAsDocument(URI documentURI) {
+			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+			factory.setNamespaceAware(true);
+			try {
+				Document doc = factory.newDocumentBuilder().parse(new ByteArrayInputStream(entity));
+				if (null != documentURI) {
+					doc.setDocumentURI(documentURI.toString());
+				}
+				return doc;
+			}
+			catch (ParserConfigurationException | SAXException | IOException ex) {
+				LOGR.log(Level.FINE, "Failed to parse response entity from " + documentURI, ex);
+				return null;
+			}
+		}
+
+		/**
+		 * Returns the entity tag presented by the server.
+		 * @return The value of the ETag header, or null if it is missing.
+		 */
+		public String getEntityTag() {
+			return entityTag;
+		}
+
+		/**
+		 * Returns the modification date presented by the server.
+		 * @return The value of the Last-Modified header, or null if it is missing.
+		 */
+		public String getLastModified() {
+			return lastModified;
+		}
+
+		/**
+		 * Indicates whether the response includes a validator that permits a conditional
+		 * request.
+		 * @return true if an entity tag or a modification date is available; false
+		 * otherwise.
+		 */
+		public boolean hasValidator() {
+			return (null != entityTag && !entityTag.isEmpty()) || (null != lastModified && !lastModified.isEmpty());
+		}
+
+		/**
+		 * Indicates whether a cached representation was revalidated (that is, the server
+		 * responded with status code 304).
+		 * @return true if the entity was obtained from the cache; false otherwise.
+		 */
+		public boolean isRevalidated() {
+			return revalidated;
+		}
+
+		/**
+		 * Returns the number of entity bytes actually received.
+		 * @return The size of the transferred entity (0 if the representation was
+		 * revalidated).
+		 */
+		public long getReceivedBytes() {
+			return receivedBytes;
+		}
+
+		/**
+		 * Returns the time taken to complete the exchange.
+		 * @return The elapsed time in microseconds.
+		 */
+		public long getLatencyMicros() {
+			return latencyMicros;
+		}
+
+	}
+
+}
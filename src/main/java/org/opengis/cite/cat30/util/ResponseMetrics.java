@@ -0,0 +1,102 @@
+package org.opengis.cite.cat30.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measurements of a single request-response exchange.
+ *
+ * @see ClientUtils#measureGetRequest(jakarta.ws.rs.client.Client, java.net.URI,
+ * java.util.Map, jakarta.ws.rs.core.MediaType)
+ */
+public class ResponseMetrics {
+
+	private final int status;
+
+	private final long headerNanos;
+
+	private final long totalNanos;
+
+	private final long byteCount;
+
+	private final RecordPage recordPage;
+
+	ResponseMetrics(int status, long headerNanos, long totalNanos, long byteCount, RecordPage recordPage) {
+		this.status = status;
+		this.headerNanos = headerNanos;
+		this.totalNanos = totalNanos;
+		this.byteCount = byteCount;
+		this.recordPage = recordPage;
+	}
+
+	/**
+	 * Returns the HTTP status code.
+	 * @return The status code of the response.
+	 */
+	public int getStatus() {
+		return status;
+	}
+
+	/**
+	 * Returns the time taken to receive the response headers.
+	 * @return The elapsed time in microseconds.
+	 */
+	public long getHeaderMicros() {
+		return TimeUnit.NANOSECONDS.toMicros(headerNanos);
+	}
+
+	/**
+	 * Returns the time taken to receive the complete response.
+	 * @return The elapsed time in microseconds.
+	 */
+	public long getLatencyMicros() {
+		return TimeUnit.NANOSECONDS.toMicros(totalNanos);
+	}
+
+	/**
+	 * Returns the size of the response entity.
+	 * @return The number of bytes read.
+	 */
+	public long getByteCount() {
+		return byteCount;
+	}
+
+	/**
+	 * Returns the number of records in the response entity.
+	 * @return The number of record elements (0 if the response did not contain records).
+	 */
+	public int getRecordCount() {
+		return (null != recordPage) ? recordPage.getRecordCount() : 0;
+	}
+
+	/**
+	 * Returns the reported size of the result set.
+	 * @return The value of numberOfRecordsMatched, or -1 if it is missing.
+	 */
+	public long getNumberOfRecordsMatched() {
+		return (null != recordPage) ? recordPage.getNumberOfRecordsMatched() : -1;
+	}
+
+	/**
+	 * Returns the records found in the response entity.
+	 * @return A RecordPage, or null if the response was not successful or the entity
+	 * could not be parsed.
+	 */
+	public RecordPage getRecordPage() {
+		return recordPage;
+	}
+
+	/**
+	 * Returns the rate at which records were delivered.
+	 * @return The number of records per second.
+	 */
+	public double getRecordsPerSecond() {
+		return (totalNanos > 0) ? getRecordCount() * 1e9 / totalNanos : 0;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("status=%d, records=%d, bytes=%d, latency=%.1f ms", status, getRecordCount(), byteCount,
+				totalNanos / 1e6);
+	}
+
+}
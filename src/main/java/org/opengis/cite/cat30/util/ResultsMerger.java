@@ -0,0 +1,273 @@
+package org.opengis.cite.cat30.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Merges the results produced by several workers, each having run a shard of the test
+ * suite, into a single report.
+ */
+public final class ResultsMerger {
+
+	private static final String RDF_NS = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
+
+	/** The namespace of the CITE vocabulary used in EARL reports. */
+	private static final String CITE_NS = "http://cite.opengeospatial.org/";
+
+	private static final String[] COUNT_ATTRIBUTES = { "total", "passed", "failed", "skipped", "ignored" };
+
+	private ResultsMerger() {
+	}
+
+	/**
+	 * Merges TestNG results documents (testng-results.xml). Suites and tests having the
+	 * same name are combined: their classes are gathered under a single
+	 * &lt;test&gt; element. The result counts are summed; a suite or test spans the
+	 * earliest start and latest finish of its parts.
+	 * @param results A list of TestNG results documents (at least one).
+	 * @return A new Document containing the merged results.
+	 */
+	public static Document mergeTestNGResults(List<Document> results) {
+		Document merged = copy(results.get(0));
+		Element root = merged.getDocumentElement();
+		for (Document result : results.subList(1, results.size())) {
+			Element otherRoot = result.getDocumentElement();
+			for (String name : COUNT_ATTRIBUTES) {
+				if (otherRoot.hasAttribute(name) || root.hasAttribute(name)) {
+					root.setAttribute(name, Long.toString(count(root, name) + count(otherRoot, name)));
+				}
+			}
+			for (Element child : childElements(otherRoot)) {
+				if (localName(child).equals("suite")) {
+					mergeInto(root, child, "suite");
+				}
+				else if (localName(child).equals("reporter-output")) {
+					Element output = firstChild(root, "reporter-output");
+					if (null == output) {
+						root.appendChild(merged.importNode(child, true));
+					}
+					else {
+						for (Element line : childElements(child)) {
+							output.appendChild(merged.importNode(line, true));
+						}
+					}
+				}
+			}
+		}
+		return merged;
+	}
+
+	/**
+	 * Merges an element (a suite or test) into the matching child of the given parent,
+	 * or appends it if there is no child with the same name.
+	 */
+	private static void mergeInto(Element parent, Element other, String elementName) {
+		Document doc = parent.getOwnerDocument();
+		Element target = null;
+		for (Element child : childElements(parent)) {
+			if (localName(child).equals(elementName)
+					&& child.getAttribute("name").equals(other.getAttribute("name"))) {
+				target = child;
+				break;
+			}
+		}
+		if (null == target) {
+			parent.appendChild(doc.importNode(other, true));
+			return;
+		}
+		mergeTimes(target, other);
+		for (Element child : childElements(other)) {
+			switch (localName(child)) {
+				case "test":
+					mergeInto(target, child, "test");
+					break;
+				case "class":
+					target.appendChild(doc.importNode(child, true));
+					break;
+				case "groups":
+					mergeGroups(target, child);
+					break;
+				default:
+					// keep the first part's value
+			}
+		}
+	}
+
+	private static void mergeGroups(Element target, Element otherGroups) {
+		Document doc = target.getOwnerDocument();
+		Element groups = firstChild(target, "groups");
+		if (null == groups) {
+			target.appendChild(doc.importNode(otherGroups, true));
+			return;
+		}
+		for (Element group : childElements(otherGroups)) {
+			boolean found = false;
+			for (Element existing : childElements(groups)) {
+				if (existing.getAttribute("name").equals(group.getAttribute("name"))) {
+					for (Element method : childElements(group)) {
+						existing.appendChild(doc.importNode(method, true));
+					}
+					found = true;
+					break;
+				}
+			}
+			if (!found) {
+				groups.appendChild(doc.importNode(group, true));
+			}
+		}
+	}
+
+	/**
+	 * Widens the time span of an element to cover another; timestamps having the same
+	 * format compare chronologically as strings.
+	 */
+	private static void mergeTimes(Element target, Element other) {
+		String start = other.getAttribute("started-at");
+		if (!start.isEmpty() && (target.getAttribute("started-at").isEmpty()
+				|| start.compareTo(target.getAttribute("started-at")) < 0)) {
+			target.setAttribute("started-at", start);
+		}
+		String finish = other.getAttribute("finished-at");
+		if (!finish.isEmpty() && finish.compareTo(target.getAttribute("finished-at")) > 0) {
+			target.setAttribute("finished-at", finish);
+		}
+		if (other.hasAttribute("duration-ms")) {
+			target.setAttribute("duration-ms",
+					Long.toString(Math.max(count(target, "duration-ms"), count(other, "duration-ms"))));
+		}
+	}
+
+	/**
+	 * Merges EARL results documents (RDF/XML). The merged document contains the
+	 * statements of all parts (the union of their graphs); blank node identifiers are
+	 * prefixed with the index of the part so they remain distinct. Resources described
+	 * by several parts (such as the test subject) thus acquire the properties given by
+	 * each, except for the summary counts (CITE properties such as
+	 * <code>cite:testsPassed</code>): the counts given for a resource by the parts are
+	 * replaced by their sum.
+	 * @param results A list of RDF/XML documents (at least one).
+	 * @return A new Document containing the merged results.
+	 */
+	public static Document mergeEarlResults(List<Document> results) {
+		Document merged = copy(results.get(0));
+		Element root = merged.getDocumentElement();
+		renameBlankNodes(root, "s0-");
+		for (int i = 1; i < results.size(); i++) {
+			for (Element child : childElements(results.get(i).getDocumentElement())) {
+				Element copy = (Element) merged.importNode(child, true);
+				renameBlankNodes(copy, "s" + i + "-");
+				root.appendChild(copy);
+			}
+		}
+		sumCounts(root);
+		return merged;
+	}
+
+	/**
+	 * Replaces the count properties (CITE properties named <code>tests<em>...</em></code>
+	 * with an integer value) of each resource identified by rdf:about with a single
+	 * property giving their sum.
+	 */
+	private static void sumCounts(Element root) {
+		List<Element> resources = new ArrayList<>();
+		NodeList elements = root.getElementsByTagNameNS("*", "*");
+		for (int i = 0; i < elements.getLength(); i++) {
+			Element element = (Element) elements.item(i);
+			if (element.hasAttributeNS(RDF_NS, "about")) {
+				resources.add(element);
+			}
+		}
+		Map<String, Element> totals = new HashMap<>();
+		for (Element resource : resources) {
+			String about = resource.getAttributeNS(RDF_NS, "about");
+			for (Element property : childElements(resource)) {
+				if (!CITE_NS.equals(property.getNamespaceURI()) || !localName(property).startsWith("tests")) {
+					continue;
+				}
+				long value;
+				try {
+					value = Long.parseLong(property.getTextContent().trim());
+				}
+				catch (NumberFormatException nfe) {
+					continue;
+				}
+				String key = about + ' ' + localName(property);
+				Element total = totals.get(key);
+				if (null == total) {
+					totals.put(key, property);
+				}
+				else {
+					total.setTextContent(Long.toString(Long.parseLong(total.getTextContent().trim()) + value));
+					resource.removeChild(property);
+				}
+			}
+		}
+	}
+
+	private static void renameBlankNodes(Element element, String prefix) {
+		Attr nodeId = element.getAttributeNodeNS(RDF_NS, "nodeID");
+		if (null != nodeId) {
+			nodeId.setValue(prefix + nodeId.getValue());
+		}
+		for (Element child : childElements(element)) {
+			renameBlankNodes(child, prefix);
+		}
+	}
+
+	private static Document copy(Document source) {
+		try {
+			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+			factory.setNamespaceAware(true);
+			Document doc = factory.newDocumentBuilder().newDocument();
+			doc.appendChild(doc.importNode(source.getDocumentElement(), true));
+			return doc;
+		}
+		catch (ParserConfigurationException pce) {
+			throw new IllegalStateException(pce);
+		}
+	}
+
+	private static long count(Element element, String name) {
+		try {
+			return Long.parseLong(element.getAttribute(name).trim());
+		}
+		catch (NumberFormatException nfe) {
+			return 0;
+		}
+	}
+
+	private static Element firstChild(Element parent, String name) {
+		for (Element child : childElements(parent)) {
+			if (localName(child).equals(name)) {
+				return child;
+			}
+		}
+		return null;
+	}
+
+	private static String localName(Element element) {
+		return (null != element.getLocalName()) ? element.getLocalName() : element.getNodeName();
+	}
+
+	private static List<Element> childElements(Element parent) {
+		List<Element> children = new ArrayList<>();
+		for (Node node = parent.getFirstChild(); null != node; node = node.getNextSibling()) {
+			if (node.getNodeType() == Node.ELEMENT_NODE) {
+				children.add((Element) node);
+			}
+		}
+		return children;
+	}
+
+}
@@ -0,0 +1,338 @@
+package org.opengis.cite.cat30.util;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.net.http.HttpConnectTimeoutException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Level;
+
+import org.glassfish.jersey.client.ClientRequest;
+import org.glassfish.jersey.client.ClientResponse;
+import org.glassfish.jersey.client.spi.AsyncConnectorCallback;
+import org.glassfish.jersey.client.spi.Connector;
+import org.glassfish.jersey.client.spi.ConnectorProvider;
+import org.testng.ITestResult;
+import org.testng.Reporter;
+
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.core.Configuration;
+import jakarta.ws.rs.core.HttpHeaders;
+
+/**
+ * Retries idempotent requests (GET, HEAD) that fail because of a transient condition: the
+ * connection could not be established or was reset, or the server responded with status
+ * 502 (Bad Gateway), 503 (Service Unavailable), or 504 (Gateway Timeout). The delay
+ * before a retry is chosen at random between zero and an exponentially increasing bound
+ * ("full jitter"), but is never shorter than the time given in a
+ * <code>Retry-After</code> header; if that time exceeds the maximum delay, or would pass
+ * the current {@link Deadline}, the response is returned as is.
+ *
+ * <p>
+ * Each retry is logged and added to the {@value #RETRIES_ATTRIBUTE} attribute (a list of
+ * strings) of the current test result. Final outcomes are reported to a
+ * {@link CircuitBreaker}, which is consulted before every request.
+ * </p>
+ */
+public class RetryPolicy {
+
+	/** The name of the test result attribute that lists the retries. */
+	public static final String RETRIES_ATTRIBUTE = "retries";
+
+	/** The default maximum number of retries per request (0: requests are not retried). */
+	public static final int DEFAULT_MAX_RETRIES = 0;
+
+	/** The default initial delay bound in milliseconds. */
+	public static final long DEFAULT_BASE_DELAY_MILLIS = 250;
+
+	/** The default maximum delay in milliseconds. */
+	public static final long DEFAULT_MAX_DELAY_MILLIS = 10000;
+
+	private static final Set<Integer> RETRYABLE_STATUS_CODES = Set.of(502, 503, 504);
+
+	private volatile int maxRetries;
+
+	private final long baseDelayMillis;
+
+	private final long maxDelayMillis;
+
+	/**
+	 * Constructs a retry policy with the default settings.
+	 */
+	public RetryPolicy() {
+		this(DEFAULT_MAX_RETRIES, DEFAULT_BASE_DELAY_MILLIS, DEFAULT_MAX_DELAY_MILLIS);
+	}
+
+	/**
+	 * Constructs a retry policy.
+	 * @param maxRetries The maximum number of retries per request (0 disables retries).
+	 * @param baseDelayMillis The bound of the delay before the first retry; it doubles
+	 * with each subsequent retry.
+	 * @param maxDelayMillis The maximum delay before a retry.
+	 */
+	public RetryPolicy(int maxRetries, long baseDelayMillis, long maxDelayMillis) {
+		this.maxRetries = maxRetries;
+		this.baseDelayMillis = baseDelayMillis;
+		this.maxDelayMillis = maxDelayMillis;
+	}
+
+	/**
+	 * Sets the maximum number of retries per request.
+	 * @param maxRetries A non-negative integer; 0 disables retries.
+	 */
+	public void setMaxRetries(int maxRetries) {
+		if (maxRetries < 0) {
+			throw new IllegalArgumentException("Maximum number of retries must not be negative: " + maxRetries);
+		}
+		this.maxRetries = maxRetries;
+	}
+
+	/**
+	 * Returns the maximum number of retries per request.
+	 * @return The maximum number of retries.
+	 */
+	public int getMaxRetries() {
+		return maxRetries;
+	}
+
+	/**
+	 * Indicates whether a request using the given method may be retried.
+	 * @param method An HTTP method name.
+	 * @return true if the method is GET or HEAD; false otherwise.
+	 */
+	public static boolean isIdempotent(String method) {
+		return HttpMethod.GET.equalsIgnoreCase(method) || HttpMethod.HEAD.equalsIgnoreCase(method);
+	}
+
+	/**
+	 * Indicates whether a response status code signals a transient condition.
+	 * @param status An HTTP status code.
+	 * @return true if the status code is 502, 503, or 504; false otherwise.
+	 */
+	public static boolean isTransient(int status) {
+		return RETRYABLE_STATUS_CODES.contains(status);
+	}
+
+	/**
+	 * Indicates whether a failure signals a transient condition (a connection that could
+	 * not be established or was reset). A request that could not be completed before a
+	 * {@link Deadline}, or that was aborted by the {@link RequestWatchdog}, is not
+	 * retried.
+	 * @param failure The exception raised when submitting a request.
+	 * @return true if the failure was caused by a connection error; false otherwise.
+	 */
+	public static boolean isTransient(Throwable failure) {
+		for (Throwable cause = failure; null != cause; cause = cause.getCause()) {
+			if (cause instanceof Deadline.ExceededException || cause instanceof RequestWatchdog.AbortedException) {
+				return false;
+			}
+			if (cause instanceof ConnectException || cause instanceof SocketException
+					|| cause instanceof HttpConnectTimeoutException) {
+				return true;
+			}
+			if (cause instanceof IOException && null != cause.getMessage()
+					&& cause.getMessage().toLowerCase().contains("connection reset")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Determines the delay before a retry.
+	 * @param retry The retry number (starting at 1).
+	 * @param retryAfter The value of the Retry-After header (may be null).
+	 * @return The delay in milliseconds, or a negative value if the server asks for a
+	 * delay longer than the maximum.
+	 */
+	long delayMillis(int retry, String retryAfter) {
+		long bound = Math.min(maxDelayMillis, baseDelayMillis << Math.min(retry - 1, 20));
+		long delay = ThreadLocalRandom.current().nextLong(bound + 1);
+		long requested = parseRetryAfter(retryAfter);
+		if (requested > maxDelayMillis) {
+			return -1;
+		}
+		return Math.max(delay, requested);
+	}
+
+	/**
+	 * Parses the value of a Retry-After header.
+	 * @param value Either a number of seconds or an HTTP-date (may be null).
+	 * @return The requested delay in milliseconds (0 if the value is absent, invalid, or
+	 * in the past).
+	 */
+	static long parseRetryAfter(String value) {
+		if (null == value || value.isBlank()) {
+			return 0;
+		}
+		String trimmed = value.trim();
+		try {
+			return Math.max(0, Long.parseLong(trimmed) * 1000);
+		}
+		catch (NumberFormatException nfe) {
+			// not delta-seconds
+		}
+		try {
+			ZonedDateTime date = ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME);
+			return Math.max(0, Duration.between(ZonedDateTime.now(date.getZone()), date).toMillis());
+		}
+		catch (DateTimeParseException dtpe) {
+			return 0;
+		}
+	}
+
+	/**
+	 * Wraps the connectors supplied by the given provider so that requests are retried
+	 * according to this policy and subject to the given circuit breaker. Asynchronous
+	 * requests are not retried.
+	 * @param delegate The provider of the connectors that submit requests.
+	 * @param circuitBreaker The circuit breaker to consult.
+	 * @return A ConnectorProvider.
+	 */
+	public ConnectorProvider decorate(ConnectorProvider delegate, CircuitBreaker circuitBreaker) {
+		return (Client client, Configuration runtimeConfig) -> new RetryingConnector(
+				delegate.getConnector(client, runtimeConfig), circuitBreaker);
+	}
+
+	/**
+	 * Records a retry in the current test result (if any) and in the log.
+	 * @param description A description of the retry.
+	 */
+	@SuppressWarnings("unchecked")
+	static void recordRetry(String description) {
+		TestSuiteLogger.log(Level.INFO, description);
+		ITestResult result = Reporter.getCurrentTestResult();
+		if (null == result) {
+			return;
+		}
+		synchronized (result) {
+			List<String> retries = (List<String>) result.getAttribute(RETRIES_ATTRIBUTE);
+			if (null == retries) {
+				retries = new ArrayList<>();
+				result.setAttribute(RETRIES_ATTRIBUTE, retries);
+			}
+			retries.add(description);
+		}
+	}
+
+	/**
+	 * A connector that retries failed requests.
+	 */
+	private final class RetryingConnector implements Connector {
+
+		private final Connector delegate;
+
+		private final CircuitBreaker circuitBreaker;
+
+		RetryingConnector(Connector delegate, CircuitBreaker circuitBreaker) {
+			this.delegate = delegate;
+			this.circuitBreaker = circuitBreaker;
+		}
+
+		@Override
+		public ClientResponse apply(ClientRequest request) {
+			String host = ConcurrencyLimiter.hostOf(request.getUri());
+			circuitBreaker.checkPermitted(host);
+			boolean idempotent = isIdempotent(request.getMethod());
+			// any outcome other than a non-transient response (including an interrupted
+			// backoff) counts as a failure, so that a trial request never leaves the
+			// circuit half-open
+			boolean succeeded = false;
+			try {
+				for (int retry = 1;; retry++) {
+					ClientResponse response;
+					try {
+						response = delegate.apply(request);
+					}
+					catch (ProcessingException pex) {
+						long delay = delayMillis(retry, null);
+						if (idempotent && retry <= maxRetries && isTransient(pex)
+								&& delay < Deadline.remainingMillis()) {
+							backOff(request, retry, delay, pex.toString());
+							continue;
+						}
+						throw pex;
+					}
+					if (!isTransient(response.getStatus())) {
+						succeeded = true;
+						return response;
+					}
+					long delay = delayMillis(retry, response.getHeaderString(HttpHeaders.RETRY_AFTER));
+					if (!idempotent || retry > maxRetries || delay < 0 || delay >= Deadline.remainingMillis()) {
+						return response;
+					}
+					response.close();
+					backOff(request, retry, delay, "status " + response.getStatus());
+				}
+			}
+			finally {
+				if (succeeded) {
+					circuitBreaker.recordSuccess(host);
+				}
+				else {
+					circuitBreaker.recordFailure(host);
+				}
+			}
+		}
+
+		private void backOff(ClientRequest request, int retry, long delayMillis, String reason) {
+			recordRetry(String.format("Retry %d of %s %s in %d ms (%s)", retry, request.getMethod(), request.getUri(),
+					delayMillis, reason));
+			try {
+				Thread.sleep(delayMillis);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ProcessingException("Interrupted while awaiting retry.", e);
+			}
+		}
+
+		@Override
+		public Future<?> apply(ClientRequest request, AsyncConnectorCallback callback) {
+			String host = ConcurrencyLimiter.hostOf(request.getUri());
+			circuitBreaker.checkPermitted(host);
+			return delegate.apply(request, new AsyncConnectorCallback() {
+
+				@Override
+				public void response(ClientResponse response) {
+					if (isTransient(response.getStatus())) {
+						circuitBreaker.recordFailure(host);
+					}
+					else {
+						circuitBreaker.recordSuccess(host);
+					}
+					callback.response(response);
+				}
+
+				@Override
+				public void failure(Throwable failure) {
+					circuitBreaker.recordFailure(host);
+					callback.failure(failure);
+				}
+
+			});
+		}
+
+		@Override
+		public String getName() {
+			return delegate.getName();
+		}
+
+		@Override
+		public void close() {
+			delegate.close();
+		}
+
+	}
+
+}
@@ -0,0 +1,148 @@
+package org.opengis.cite.cat30.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Describes how response time grows with the number of records in a response. The
+ * growth is modelled as a power law, <code>t(n) = t(n<sub>0</sub>) + a &middot; (n -
+ * n<sub>0</sub>)<sup>k</sup></code>, where <code>n<sub>0</sub></code> is the smallest
+ * response measured; that is, the fixed cost of a request is removed before the
+ * exponent <em>k</em> is estimated by a least-squares fit of the remaining (marginal)
+ * latency on a log-log scale. An exponent close to 1 indicates that the cost per record
+ * is constant; an exponent appreciably greater than 1 indicates super-linear growth.
+ */
+public class ScalingCurve {
+
+	private final List<Point> points = new ArrayList<>();
+
+	/**
+	 * Adds a measurement.
+	 * @param maxRecords The requested number of records.
+	 * @param metrics The measured response.
+	 */
+	public void add(int maxRecords, ResponseMetrics metrics) {
+		points.add(new Point(maxRecords, metrics.getRecordCount(), metrics.getByteCount(),
+				metrics.getLatencyMicros()));
+	}
+
+	/**
+	 * Adds a measurement.
+	 * @param maxRecords The requested number of records.
+	 * @param records The number of records returned.
+	 * @param bytes The size of the response entity.
+	 * @param latencyMicros The response time in microseconds.
+	 */
+	void add(int maxRecords, int records, long bytes, long latencyMicros) {
+		points.add(new Point(maxRecords, records, bytes, latencyMicros));
+	}
+
+	/**
+	 * Estimates the scaling exponent.
+	 * @return The exponent of the fitted power law, or {@link Double#NaN} if fewer than
+	 * two responses larger than the smallest one show an increase in latency.
+	 */
+	public double getExponent() {
+		List<Point> sorted = distinctPoints();
+		if (sorted.size() < 3) {
+			return Double.NaN;
+		}
+		Point base = sorted.get(0);
+		int n = 0;
+		double sumX = 0, sumY = 0, sumXX = 0, sumXY = 0;
+		for (Point p : sorted.subList(1, sorted.size())) {
+			if (p.latencyMicros <= base.latencyMicros) {
+				continue;
+			}
+			double x = Math.log(p.records - base.records);
+			double y = Math.log(p.latencyMicros - base.latencyMicros);
+			n++;
+			sumX += x;
+			sumY += y;
+			sumXX += x * x;
+			sumXY += x * y;
+		}
+		double denominator = n * sumXX - sumX * sumX;
+		if (n < 2 || denominator == 0) {
+			return Double.NaN;
+		}
+		return (n * sumXY - sumX * sumY) / denominator;
+	}
+
+	/**
+	 * Returns the increase in latency between the smallest and the largest response.
+	 * @return The difference in microseconds (0 if there are fewer than two distinct
+	 * response sizes).
+	 */
+	public long getLatencyGrowthMicros() {
+		List<Point> sorted = distinctPoints();
+		if (sorted.size() < 2) {
+			return 0;
+		}
+		return sorted.get(sorted.size() - 1).latencyMicros - sorted.get(0).latencyMicros;
+	}
+
+	/**
+	 * Indicates whether latency grows super-linearly with the number of records. Growth
+	 * is not deemed significant unless the latency of the largest response exceeds that
+	 * of the smallest by the given amount.
+	 * @param threshold The largest acceptable exponent (e.g. 1.25).
+	 * @param minGrowthMicros The smallest significant increase in latency.
+	 * @return true if the fitted exponent exceeds the threshold; false otherwise.
+	 */
+	public boolean isSuperLinear(double threshold, long minGrowthMicros) {
+		double exponent = getExponent();
+		return !Double.isNaN(exponent) && exponent > threshold && getLatencyGrowthMicros() >= minGrowthMicros;
+	}
+
+	/**
+	 * Returns the measurements ordered by the number of records, retaining only the
+	 * fastest response for each distinct number of records.
+	 */
+	private List<Point> distinctPoints() {
+		List<Point> sorted = new ArrayList<>(points);
+		sorted.sort(Comparator.comparingInt((Point p) -> p.records).thenComparingLong(p -> p.latencyMicros));
+		List<Point> distinct = new ArrayList<>();
+		for (Point p : sorted) {
+			if (distinct.isEmpty() || distinct.get(distinct.size() - 1).records != p.records) {
+				distinct.add(p);
+			}
+		}
+		return distinct;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder str = new StringBuilder();
+		str.append(String.format("%10s %8s %11s %11s %10s %9s%n", "maxRecords", "Records", "Bytes", "Latency ms",
+				"Records/s", "Bytes/rec"));
+		for (Point p : points) {
+			str.append(String.format("%10d %8d %11d %11.1f %10.1f %9d%n", p.maxRecords, p.records, p.bytes,
+					p.latencyMicros / 1000.0, (p.latencyMicros > 0) ? p.records * 1e6 / p.latencyMicros : 0,
+					(p.records > 0) ? p.bytes / p.records : 0));
+		}
+		str.append(String.format("Scaling exponent: %.2f", getExponent()));
+		return str.toString();
+	}
+
+	private static final class Point {
+
+		final int maxRecords;
+
+		final int records;
+
+		final long bytes;
+
+		final long latencyMicros;
+
+		Point(int maxRecords, int records, long bytes, long latencyMicros) {
+			this.maxRecords = maxRecords;
+			this.records = records;
+			this.bytes = bytes;
+			this.latencyMicros = latencyMicros;
+		}
+
+	}
+
+}
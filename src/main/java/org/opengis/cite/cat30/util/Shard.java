@@ -0,0 +1,118 @@
+package org.opengis.cite.cat30.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One of several parts into which the test classes of a suite are divided so that they
+ * can be run by separate worker processes. Every worker computes the same assignment
+ * from the same inputs: the classes are taken in order of decreasing expected duration
+ * (ties broken by name) and each is assigned to the shard with the least total so far
+ * (the lowest index if several are equal). If no durations are known each class counts
+ * equally, which amounts to a round-robin assignment in name order.
+ */
+public final class Shard {
+
+	private final int index;
+
+	private final int count;
+
+	/**
+	 * Constructs a shard.
+	 * @param index The zero-based index of the shard.
+	 * @param count The total number of shards.
+	 */
+	public Shard(int index, int count) {
+		if (count < 1 || index < 0 || index >= count) {
+			throw new IllegalArgumentException(String.format("Invalid shard: %d/%d", index, count));
+		}
+		this.index = index;
+		this.count = count;
+	}
+
+	/**
+	 * Parses a shard specification of the form <code>index/count</code> (for example,
+	 * "0/4" denotes the first of four shards).
+	 * @param spec A shard specification.
+	 * @return A Shard.
+	 * @throws IllegalArgumentException If the specification is not valid.
+	 */
+	public static Shard parse(String spec) {
+		String[] parts = spec.trim().split("/");
+		if (parts.length != 2) {
+			throw new IllegalArgumentException("Shard must be given as index/count: " + spec);
+		}
+		try {
+			return new Shard(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+		}
+		catch (NumberFormatException nfe) {
+			throw new IllegalArgumentException("Shard must be given as index/count: " + spec, nfe);
+		}
+	}
+
+	/**
+	 * Returns the index of this shard.
+	 * @return The zero-based index.
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/**
+	 * Returns the total number of shards.
+	 * @return The shard count.
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Selects the test classes belonging to this shard.
+	 * @param classNames The names of all test classes.
+	 * @param durations The expected duration of each test class in milliseconds (classes
+	 * that are absent count as the mean of the known durations, or 1 if none is known).
+	 * @return The names of the classes assigned to this shard.
+	 */
+	public Set<String> select(Collection<String> classNames, Map<String, Long> durations) {
+		List<String> names = new ArrayList<>(new HashSet<>(classNames));
+		long known = 0;
+		int knownCount = 0;
+		for (String name : names) {
+			Long millis = durations.get(name);
+			if (null != millis) {
+				known += millis;
+				knownCount++;
+			}
+		}
+		long defaultMillis = (knownCount > 0) ? Math.max(1, known / knownCount) : 1;
+		names.sort((a, b) -> {
+			int cmp = Long.compare(durations.getOrDefault(b, defaultMillis), durations.getOrDefault(a, defaultMillis));
+			return (cmp != 0) ? cmp : a.compareTo(b);
+		});
+		long[] totals = new long[count];
+		Set<String> selected = new HashSet<>();
+		for (String name : names) {
+			int target = 0;
+			for (int i = 1; i < count; i++) {
+				if (totals[i] < totals[target]) {
+					target = i;
+				}
+			}
+			totals[target] += durations.getOrDefault(name, defaultMillis);
+			if (target == index) {
+				selected.add(name);
+			}
+		}
+		return selected;
+	}
+
+	@Override
+	public String toString() {
+		return index + "/" + count;
+	}
+
+}
@@ -0,0 +1,332 @@
+package org.opengis.cite.cat30.util;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Level;
+import java.util.regex.Pattern;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.opengis.cite.cat30.Namespaces;
+
+/**
+ * An inverted index over the text content of the records in the sample data. Each term
+ * maps to a posting list of the records in which it occurs, along with the fields it
+ * occurs in. The following record elements are indexed:
+ * <ul>
+ * <li>dc:title ({@link #TITLE})</li>
+ * <li>dc:subject ({@link #SUBJECT})</li>
+ * <li>dct:abstract ({@link #ABSTRACT})</li>
+ * </ul>
+ *
+ * <p>
+ * Terms are obtained by splitting field values at any character that is not a letter or
+ * a digit and converting the resulting tokens to lower case. The index makes it possible
+ * to choose search terms according to the predicted size of the result set, and to know
+ * in advance which sample records ought to match.
+ * </p>
+ */
+public class TermIndex {
+
+	/** Field flag for dc:title. */
+	public static final int TITLE = 1;
+
+	/** Field flag for dc:subject. */
+	public static final int SUBJECT = 2;
+
+	/** Field flag for dct:abstract. */
+	public static final int ABSTRACT = 4;
+
+	/** Field flags for all indexed fields. */
+	public static final int ALL_FIELDS = TITLE | SUBJECT | ABSTRACT;
+
+	/** Terms shorter than this are not considered as search terms. */
+	private static final int MIN_TERM_LENGTH = 3;
+
+	private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+	private final List<String> recordIds = new ArrayList<>();
+
+	private final Map<String, Postings> postings = new HashMap<>();
+
+	/**
+	 * Builds an index of the records in the given file. The file is read as a stream.
+	 * @param file A File containing catalog data (csw:GetRecordsResponse).
+	 * @return A TermIndex object (it is empty if no records were found).
+	 */
+	public static TermIndex read(File file) {
+		TermIndex index = new TermIndex();
+		try {
+			RecordReader.read(file, new RecordReader.Handler() {
+
+				private String recordId;
+
+				private final List<String> fieldValues = new ArrayList<>();
+
+				private final List<Integer> fieldFlags = new ArrayList<>();
+
+				@Override
+				public void startRecord() {
+					recordId = null;
+					fieldValues.clear();
+					fieldFlags.clear();
+				}
+
+				@Override
+				public boolean recordChild(XMLStreamReader reader) throws XMLStreamException {
+					String nsName = reader.getNamespaceURI();
+					String localName = reader.getLocalName();
+					int field = fieldOf(nsName, localName);
+					if (field != 0) {
+						fieldValues.add(reader.getElementText());
+						fieldFlags.add(field);
+						return true;
+					}
+					if (null == recordId && Namespaces.DCMES.equals(nsName) && localName.equals("identifier")) {
+						recordId = reader.getElementText().trim();
+						return true;
+					}
+					return false;
+				}
+
+				@Override
+				public void endRecord() {
+					if (null != recordId) {
+						int ordinal = index.recordIds.size();
+						index.recordIds.add(recordId);
+						for (int i = 0; i < fieldValues.size(); i++) {
+							index.addField(ordinal, fieldFlags.get(i), fieldValues.get(i));
+						}
+					}
+				}
+
+			});
+		}
+		catch (XMLStreamException xse) {
+			TestSuiteLogger.log(Level.WARNING, "Failed to index records in " + file.getAbsolutePath(), xse);
+		}
+		return index;
+	}
+
+	/**
+	 * Splits the given text into (lower case) terms.
+	 * @param text A field value.
+	 * @return A list of terms, which may be empty.
+	 */
+	public static List<String> tokenize(String text) {
+		List<String> terms = new ArrayList<>();
+		for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+			if (!token.isEmpty()) {
+				terms.add(token);
+			}
+		}
+		return terms;
+	}
+
+	/**
+	 * Returns the number of indexed records.
+	 * @return The number of records having an identifier.
+	 */
+	public int getRecordCount() {
+		return recordIds.size();
+	}
+
+	/**
+	 * Returns the number of distinct terms.
+	 * @return The size of the term dictionary.
+	 */
+	public int getTermCount() {
+		return postings.size();
+	}
+
+	/**
+	 * Returns the number of records in which the given term occurs (in any field).
+	 * @param term A search term (it is converted to lower case).
+	 * @return The document frequency of the term.
+	 */
+	public int getDocumentFrequency(String term) {
+		Postings list = postings.get(term.toLowerCase(Locale.ROOT));
+		return (null != list) ? list.size : 0;
+	}
+
+	/**
+	 * Returns the identifiers of the records in which the given term occurs (in any
+	 * field).
+	 * @param term A search term (it is converted to lower case).
+	 * @return A list of record identifiers (dc:identifier), in document order.
+	 */
+	public List<String> getRecordIds(String term) {
+		return getRecordIds(term, ALL_FIELDS);
+	}
+
+	/**
+	 * Returns the identifiers of the records in which the given term occurs in at least
+	 * one of the specified fields.
+	 * @param term A search term (it is converted to lower case).
+	 * @param fields A combination of field flags (e.g. <code>TITLE | SUBJECT</code>).
+	 * @return A list of record identifiers (dc:identifier), in document order.
+	 */
+	public List<String> getRecordIds(String term, int fields) {
+		List<String> ids = new ArrayList<>();
+		Postings list = postings.get(term.toLowerCase(Locale.ROOT));
+		if (null != list) {
+			for (int i = 0; i < list.size; i++) {
+				if ((list.fields[i] & fields) != 0) {
+					ids.add(recordIds.get(list.records[i]));
+				}
+			}
+		}
+		return ids;
+	}
+
+	/**
+	 * Returns the identifiers of the records in which all of the given terms occur (in
+	 * any field).
+	 * @param terms A list of search terms.
+	 * @return A list of record identifiers (dc:identifier), in document order.
+	 */
+	public List<String> getRecordIdsWithAllTerms(String... terms) {
+		int[] matches = null;
+		int matchCount = 0;
+		for (String term : terms) {
+			Postings list = postings.get(term.toLowerCase(Locale.ROOT));
+			if (null == list) {
+				return new ArrayList<>();
+			}
+			if (null == matches) {
+				matches = Arrays.copyOf(list.records, list.size);
+				matchCount = list.size;
+				continue;
+			}
+			// merge-intersect two sorted lists
+			int n = 0;
+			for (int i = 0, j = 0; i < matchCount && j < list.size;) {
+				if (matches[i] < list.records[j]) {
+					i++;
+				}
+				else if (matches[i] > list.records[j]) {
+					j++;
+				}
+				else {
+					matches[n++] = matches[i];
+					i++;
+					j++;
+				}
+			}
+			matchCount = n;
+		}
+		List<String> ids = new ArrayList<>(matchCount);
+		for (int i = 0; i < matchCount; i++) {
+			ids.add(recordIds.get(matches[i]));
+		}
+		return ids;
+	}
+
+	/**
+	 * Selects a term whose document frequency is closest to the given target. Only terms
+	 * that occur in at least one of the specified fields and that are at least three
+	 * characters long (and not purely numeric) are considered. If several terms are
+	 * equally suitable, one of them is chosen at random.
+	 * @param targetHits The desired number of matching records.
+	 * @param fields A combination of field flags; a candidate term must occur in one of
+	 * these fields.
+	 * @return A term, or null if the index contains no suitable terms.
+	 */
+	public String selectTerm(int targetHits, int fields) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		String selected = null;
+		int bestError = Integer.MAX_VALUE;
+		int ties = 0;
+		for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+			String term = entry.getKey();
+			Postings list = entry.getValue();
+			if (term.length() < MIN_TERM_LENGTH || isNumeric(term) || (list.allFields & fields) == 0) {
+				continue;
+			}
+			int error = Math.abs(list.size - targetHits);
+			if (error < bestError) {
+				selected = term;
+				bestError = error;
+				ties = 1;
+			}
+			else if (error == bestError && random.nextInt(++ties) == 0) {
+				selected = term;
+			}
+		}
+		return selected;
+	}
+
+	private void addField(int ordinal, int field, String value) {
+		for (String term : tokenize(value)) {
+			Postings list = postings.get(term);
+			if (null == list) {
+				list = new Postings();
+				postings.put(term, list);
+			}
+			list.add(ordinal, field);
+		}
+	}
+
+	private static int fieldOf(String nsName, String localName) {
+		if (Namespaces.DCMES.equals(nsName)) {
+			if (localName.equals("title")) {
+				return TITLE;
+			}
+			if (localName.equals("subject")) {
+				return SUBJECT;
+			}
+		}
+		else if (Namespaces.DCMI.equals(nsName) && localName.equals("abstract")) {
+			return ABSTRACT;
+		}
+		return 0;
+	}
+
+	private static boolean isNumeric(String term) {
+		for (int i = 0; i < term.length(); i++) {
+			if (!Character.isDigit(term.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * A posting list held in growable primitive arrays. Record ordinals are added in
+	 * ascending order.
+	 */
+	private static final class Postings {
+
+		private int[] records = new int[4];
+
+		private byte[] fields = new byte[4];
+
+		private int allFields;
+
+		private int size;
+
+		void add(int ordinal, int field) {
+			allFields |= field;
+			if (size > 0 && records[size - 1] == ordinal) {
+				fields[size - 1] |= (byte) field;
+				return;
+			}
+			if (size == records.length) {
+				records = Arrays.copyOf(records, size * 2);
+				fields = Arrays.copyOf(fields, size * 2);
+			}
+			records[size] = ordinal;
+			fields[size] = (byte) field;
+			size++;
+		}
+
+	}
+
+}
@@ -0,0 +1,287 @@
+package org.opengis.cite.cat30.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Finds occurrences of a fixed set of terms in the fields of a record using an
+ * Aho-Corasick automaton. The automaton is compiled once and each record is scanned in a
+ * single pass, regardless of the number of terms. Matching is case-insensitive (each
+ * character is folded to lower case) and terms are treated literally.
+ *
+ * <p>
+ * The fields of a record are its child elements; a term occurs in a field if it occurs
+ * in one of the text nodes or attribute values of that element. This corresponds to the
+ * XPath expression <code>child::*[(text() | attribute::*)[contains(., $term)]]</code>.
+ * </p>
+ */
+public class TermMatcher {
+
+	private static final int ASCII = 128;
+
+	private final String[] terms;
+
+	/** Transitions for ASCII characters (complete DFA: no failure links required). */
+	private final int[] asciiNext;
+
+	/** Goto transitions for other characters, keyed by (state, char). */
+	private final Map<Long, Integer> otherNext = new HashMap<>();
+
+	/** Failure links. */
+	private final int[] fail;
+
+	/** Indexes of the terms recognized in each state (including via failure links). */
+	private final int[][] output;
+
+	/**
+	 * Compiles an automaton that recognizes the given terms.
+	 * @param terms A list of search terms; empty terms are ignored (they have no hits
+	 * and do not affect {@link #matchesAll(Element)}).
+	 */
+	public TermMatcher(String... terms) {
+		this.terms = terms.clone();
+		// build trie
+		List<int[]> trieNext = new ArrayList<>();
+		List<List<Integer>> trieOutput = new ArrayList<>();
+		trieNext.add(newAsciiRow());
+		trieOutput.add(new ArrayList<>());
+		for (int t = 0; t < terms.length; t++) {
+			int state = 0;
+			String term = terms[t];
+			if (term.isEmpty()) {
+				continue;
+			}
+			for (int i = 0; i < term.length(); i++) {
+				char c = Character.toLowerCase(term.charAt(i));
+				int next = gotoState(trieNext, state, c);
+				if (next < 0) {
+					next = trieNext.size();
+					trieNext.add(newAsciiRow());
+					trieOutput.add(new ArrayList<>());
+					if (c < ASCII) {
+						trieNext.get(state)[c] = next;
+					}
+					else {
+						otherNext.put(key(state, c), next);
+					}
+				}
+				state = next;
+			}
+			trieOutput.get(state).add(t);
+		}
+		int stateCount = trieNext.size();
+		this.asciiNext = new int[stateCount * ASCII];
+		this.fail = new int[stateCount];
+		this.output = new int[stateCount][];
+		// breadth-first traversal to compute failure links and complete ASCII transitions
+		List<List<Integer>> outputs = trieOutput;
+		int[] queue = new int[stateCount];
+		int head = 0;
+		int tail = 0;
+		int[] root = trieNext.get(0);
+		for (int c = 0; c < ASCII; c++) {
+			int next = root[c];
+			if (next < 0) {
+				asciiNext[c] = 0;
+			}
+			else {
+				asciiNext[c] = next;
+				fail[next] = 0;
+				queue[tail++] = next;
+			}
+		}
+		for (Map.Entry<Long, Integer> entry : otherNext.entrySet()) {
+			if ((entry.getKey() >>> 16) == 0) {
+				fail[entry.getValue()] = 0;
+				queue[tail++] = entry.getValue();
+			}
+		}
+		List<Map.Entry<Long, Integer>> otherEdges = new ArrayList<>(otherNext.entrySet());
+		Map<Integer, List<Map.Entry<Long, Integer>>> otherByState = new HashMap<>();
+		for (Map.Entry<Long, Integer> edge : otherEdges) {
+			int from = (int) (edge.getKey() >>> 16);
+			otherByState.computeIfAbsent(from, k -> new ArrayList<>()).add(edge);
+		}
+		while (head < tail) {
+			int state = queue[head++];
+			outputs.get(state).addAll(outputs.get(fail[state]));
+			int[] row = trieNext.get(state);
+			for (int c = 0; c < ASCII; c++) {
+				int next = row[c];
+				if (next < 0) {
+					asciiNext[state * ASCII + c] = asciiNext[fail[state] * ASCII + c];
+				}
+				else {
+					asciiNext[state * ASCII + c] = next;
+					fail[next] = asciiNext[fail[state] * ASCII + c];
+					queue[tail++] = next;
+				}
+			}
+			for (Map.Entry<Long, Integer> edge : otherByState.getOrDefault(state, List.of())) {
+				char c = (char) (edge.getKey() & 0xFFFF);
+				int next = edge.getValue();
+				fail[next] = transition(fail[state], c);
+				queue[tail++] = next;
+			}
+		}
+		for (int s = 0; s < stateCount; s++) {
+			List<Integer> out = outputs.get(s);
+			this.output[s] = out.stream().mapToInt(Integer::intValue).distinct().toArray();
+		}
+	}
+
+	/**
+	 * Returns the number of terms.
+	 * @return The number of terms recognized by this matcher.
+	 */
+	public int getTermCount() {
+		return terms.length;
+	}
+
+	/**
+	 * Returns the term at the given index.
+	 * @param index A term index.
+	 * @return The term as supplied to the constructor.
+	 */
+	public String getTerm(int index) {
+		return terms[index];
+	}
+
+	/**
+	 * Finds all occurrences of the terms in the fields of the given record.
+	 * @param record An Element representing a record (e.g. csw:Record, atom:entry).
+	 * @return A list containing the hits for each term (in the order the terms were
+	 * given); a list of hits is empty if the term does not occur.
+	 */
+	public List<List<Hit>> findAll(Element record) {
+		List<List<Hit>> hits = new ArrayList<>(terms.length);
+		for (int i = 0; i < terms.length; i++) {
+			hits.add(new ArrayList<>());
+		}
+		for (Node child = record.getFirstChild(); null != child; child = child.getNextSibling()) {
+			if (child.getNodeType() != Node.ELEMENT_NODE) {
+				continue;
+			}
+			String field = child.getNodeName();
+			for (Node node = child.getFirstChild(); null != node; node = node.getNextSibling()) {
+				short type = node.getNodeType();
+				if (type == Node.TEXT_NODE || type == Node.CDATA_SECTION_NODE) {
+					scan(node.getNodeValue(), field, hits);
+				}
+			}
+			NamedNodeMap attributes = child.getAttributes();
+			for (int i = 0; i < attributes.getLength(); i++) {
+				Attr attr = (Attr) attributes.item(i);
+				scan(attr.getValue(), field + "/@" + attr.getName(), hits);
+			}
+		}
+		return hits;
+	}
+
+	/**
+	 * Determines whether all terms occur in the fields of the given record.
+	 * @param record An Element representing a record.
+	 * @return true if every (non-empty) term occurs at least once; false otherwise.
+	 */
+	public boolean matchesAll(Element record) {
+		List<List<Hit>> hits = findAll(record);
+		for (int t = 0; t < terms.length; t++) {
+			if (!terms[t].isEmpty() && hits.get(t).isEmpty()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void scan(String text, String field, List<List<Hit>> hits) {
+		int state = 0;
+		for (int i = 0; i < text.length(); i++) {
+			state = transition(state, Character.toLowerCase(text.charAt(i)));
+			for (int t : output[state]) {
+				int start = i - terms[t].length() + 1;
+				hits.get(t).add(new Hit(field, start));
+			}
+		}
+	}
+
+	private int transition(int state, char c) {
+		if (c < ASCII) {
+			return asciiNext[state * ASCII + c];
+		}
+		while (true) {
+			Integer next = otherNext.get(key(state, c));
+			if (null != next) {
+				return next;
+			}
+			if (state == 0) {
+				return 0;
+			}
+			state = fail[state];
+		}
+	}
+
+	private int gotoState(List<int[]> trieNext, int state, char c) {
+		if (c < ASCII) {
+			return trieNext.get(state)[c];
+		}
+		Integer next = otherNext.get(key(state, c));
+		return (null != next) ? next : -1;
+	}
+
+	private static int[] newAsciiRow() {
+		int[] row = new int[ASCII];
+		Arrays.fill(row, -1);
+		return row;
+	}
+
+	private static long key(int state, char c) {
+		return ((long) state << 16) | c;
+	}
+
+	/**
+	 * An occurrence of a term in some field of a record.
+	 */
+	public static final class Hit {
+
+		private final String field;
+
+		private final int offset;
+
+		Hit(String field, int offset) {
+			this.field = field;
+			this.offset = offset;
+		}
+
+		/**
+		 * Returns the name of the field containing the term.
+		 * @return The qualified name of a child element, followed by "/@" and the
+		 * attribute name if the term occurs in an attribute value.
+		 */
+		public String getField() {
+			return field;
+		}
+
+		/**
+		 * Returns the position of the term in the field value.
+		 * @return The (zero-based) character offset of the first character.
+		 */
+		public int getOffset() {
+			return offset;
+		}
+
+		@Override
+		public String toString() {
+			return field + "[" + offset + "]";
+		}
+
+	}
+
+}
@@ -0,0 +1,174 @@
+package org.opengis.cite.cat30.util;
+
+import org.testng.ITestResult;
+import org.testng.Reporter;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Defines the Java Flight Recorder (JFR) events emitted by the test suite. The events
+ * cover the phases in which a test run spends its time: HTTP exchanges with the IUT,
+ * parsing response entities, schema and Schematron validation, and XPath evaluation.
+ * They are recorded only while a flight recording is in progress (for example, one
+ * started by means of the {@link org.opengis.cite.cat30.TestRunArg#FLIGHT_RECORDING
+ * flight_recording} test run argument), and can be inspected with standard tools such as
+ * <code>jfr print --categories "CAT 3.0"</code> or JDK Mission Control.
+ *
+ * <p>
+ * Each event records the test method that was running in the current thread, if any.
+ * </p>
+ */
+public final class TestSuiteEvents {
+
+	/** The name of the top-level category of all test suite events. */
+	public static final String CATEGORY = "CAT 3.0";
+
+	private TestSuiteEvents() {
+	}
+
+	/**
+	 * Returns the name of the test method running in the current thread.
+	 * @return The qualified name of the test method, or null if no test method is
+	 * running.
+	 */
+	static String currentTest() {
+		ITestResult result = Reporter.getCurrentTestResult();
+		return (null != result) ? result.getTestClass().getName() + "." + result.getMethod().getMethodName() : null;
+	}
+
+	/**
+	 * An HTTP request and response. The event begins when the request is submitted and
+	 * ends when the response entity has been read in full (or closed).
+	 */
+	@Name("org.opengis.cite.cat30.HttpExchange")
+	@Label("HTTP Exchange")
+	@Category({ CATEGORY, "HTTP" })
+	@StackTrace(false)
+	public static final class HttpExchange extends Event {
+
+		@Label("Test")
+		public String test;
+
+		@Label("Method")
+		public String method;
+
+		@Label("URI")
+		public String uri;
+
+		@Label("Status")
+		public int status;
+
+		@Label("Bytes")
+		@Description("The size of the response entity as received")
+		@DataAmount
+		public long bytes;
+
+		@Label("Time to First Byte")
+		@Description("The time until the response headers were received")
+		@Timespan
+		public long timeToFirstByte;
+
+	}
+
+	/**
+	 * Parsing an XML entity into a DOM Document.
+	 */
+	@Name("org.opengis.cite.cat30.EntityParse")
+	@Label("Entity Parse")
+	@Category({ CATEGORY, "XML" })
+	public static final class EntityParse extends Event {
+
+		@Label("Test")
+		public String test;
+
+		@Label("System Identifier")
+		public String systemId;
+
+	}
+
+	/**
+	 * Validating an XML entity against a grammar (XML Schema or RELAX NG).
+	 */
+	@Name("org.opengis.cite.cat30.SchemaValidation")
+	@Label("Schema Validation")
+	@Category({ CATEGORY, "Validation" })
+	public static final class SchemaValidation extends Event {
+
+		@Label("Test")
+		public String test;
+
+		@Label("Schema")
+		@Description("The namespace of the validated document element")
+		public String schema;
+
+		@Label("System Identifier")
+		public String systemId;
+
+		@Label("Error Count")
+		public int errorCount;
+
+	}
+
+	/**
+	 * Validating an XML entity against a Schematron schema (including compiling the
+	 * schema).
+	 */
+	@Name("org.opengis.cite.cat30.SchematronValidation")
+	@Label("Schematron Validation")
+	@Category({ CATEGORY, "Validation" })
+	public static final class SchematronValidation extends Event {
+
+		@Label("Test")
+		public String test;
+
+		@Label("Schema")
+		public String schema;
+
+		@Label("System Identifier")
+		public String systemId;
+
+		@Label("Rule Violations")
+		public int errorCount;
+
+	}
+
+	/**
+	 * Compiling a grammar into a Schema object.
+	 */
+	@Name("org.opengis.cite.cat30.SchemaCompilation")
+	@Label("Schema Compilation")
+	@Category({ CATEGORY, "Validation" })
+	public static final class SchemaCompilation extends Event {
+
+		@Label("Schema")
+		public String schema;
+
+	}
+
+	/**
+	 * Evaluating an XPath expression.
+	 */
+	@Name("org.opengis.cite.cat30.XPathEval")
+	@Label("XPath Evaluation")
+	@Category({ CATEGORY, "XML" })
+	public static final class XPathEval extends Event {
+
+		@Label("Test")
+		public String test;
+
+		@Label("Expression")
+		public String expression;
+
+		@Label("XPath Version")
+		public String version;
+
+	}
+
+}
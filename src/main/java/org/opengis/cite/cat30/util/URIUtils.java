@@ -78,7 +78,7 @@ public class URIUtils {
 		if (uriRef.getScheme().equalsIgnoreCase("file")) {
 			return new File(uriRef);
 		}
-		Client client = ClientUtils.buildClient();
+		Client client = ClientUtils.getSharedClient();
 		WebTarget target = client.target(uriRef);
 		Builder builder = target.request();
 		Response rsp = builder.buildGet().invoke();
@@ -7,7 +7,9 @@ import java.net.URI;
 import java.net.URL;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 
 import javax.xml.XMLConstants;
@@ -47,6 +49,10 @@ public class ValidationUtils {
 
 	private static final XMLCatalogResolver SCH_RESOLVER = initCatalogResolver();
 
+	private static final Map<String, LazySchema> SCHEMAS = new ConcurrentHashMap<>();
+
+	private static final Map<String, SchematronValidator> SCHEMATRON_VALIDATORS = new ConcurrentHashMap<>();
+
 	private static XMLCatalogResolver initCatalogResolver() {
 		return (XMLCatalogResolver) createSchemaResolver(Namespaces.SCH);
 	}
@@ -99,12 +105,15 @@ public class ValidationUtils {
 			TestSuiteLogger.log(Level.WARNING, "Error reading Schematron schema catalog.", x);
 		}
 		SchematronValidator validator = null;
+		TestSuiteEvents.SchemaCompilation event = new TestSuiteEvents.SchemaCompilation();
+		event.begin();
 		try {
 			validator = new SchematronValidator(source, phase);
 		}
 		catch (Exception e) {
 			TestSuiteLogger.log(Level.WARNING, "Error creating Schematron validator.", e);
 		}
+		commitCompilationEvent(event, schemaRef);
 		return validator;
 	}
 
@@ -165,14 +174,17 @@ public class ValidationUtils {
 		URL entityCatalog = ValidationUtils.class.getResource(ROOT_PKG + "schema-catalog.xml");
 		XmlSchemaCompiler xsdCompiler = new XmlSchemaCompiler(entityCatalog);
 		Schema appSchema = null;
+		URL schemaRef = ValidationUtils.class.getResource(ROOT_PKG + "xsd/opengis/cat/csw/3.0/csw-3.0.xsd");
+		TestSuiteEvents.SchemaCompilation event = new TestSuiteEvents.SchemaCompilation();
+		event.begin();
 		try {
-			URL schemaRef = ValidationUtils.class.getResource(ROOT_PKG + "xsd/opengis/cat/csw/3.0/csw-3.0.xsd");
 			Source xsdSource = new StreamSource(schemaRef.toString());
 			appSchema = xsdCompiler.compileXmlSchema(new Source[] { xsdSource });
 		}
 		catch (SAXException e) {
 			TestSuiteLogger.log(Level.WARNING, "Failed to create CSW Schema object.", e);
 		}
+		commitCompilationEvent(event, schemaRef.toString());
 		return appSchema;
 	}
 
@@ -189,6 +201,8 @@ public class ValidationUtils {
 		SchemaFactory factory = SchemaFactory.newInstance(Constants.RELAXNG_COMPACT_URI, FACTORY_RELAXNG_COMPACT, null);
 		URL schemaRef = ValidationUtils.class.getResource(ROOT_PKG + "rnc/atom.rnc");
 		Schema schema = null;
+		TestSuiteEvents.SchemaCompilation event = new TestSuiteEvents.SchemaCompilation();
+		event.begin();
 		try {
 			schema = factory.newSchema(schemaRef);
 		}
@@ -196,6 +210,7 @@ public class ValidationUtils {
 			TestSuiteLogger.log(Level.WARNING, "Failed to create Atom Schema object from RELAX NG (compact) grammar",
 					e);
 		}
+		commitCompilationEvent(event, schemaRef.toString());
 		return schema;
 	}
 
@@ -212,6 +227,8 @@ public class ValidationUtils {
 		SchemaFactory factory = SchemaFactory.newInstance(Constants.RELAXNG_COMPACT_URI, FACTORY_RELAXNG_COMPACT, null);
 		URL schemaRef = ValidationUtils.class.getResource(ROOT_PKG + "rnc/osd-1.1-draft5.rnc");
 		Schema schema = null;
+		TestSuiteEvents.SchemaCompilation event = new TestSuiteEvents.SchemaCompilation();
+		event.begin();
 		try {
 			schema = factory.newSchema(schemaRef);
 		}
@@ -219,7 +236,84 @@ public class ValidationUtils {
 			TestSuiteLogger.log(Level.WARNING,
 					"Failed to create OpenSearch Schema object from RELAX NG (compact) grammar", e);
 		}
+		commitCompilationEvent(event, schemaRef.toString());
 		return schema;
 	}
 
+	/**
+	 * Returns the CSW 3.0 schema (see {@link #createCSWSchema()}), compiling it when it
+	 * is first requested. Schema objects are immutable, so one is shared by all test runs
+	 * in the JVM. The schema is compiled outside the lock of the cache (concurrent
+	 * callers wait for the same compilation, see {@link LazySchema}).
+	 * @return An immutable Schema object, or <code>null</code> if it cannot be
+	 * constructed.
+	 */
+	public static Schema getCSWSchema() {
+		return SCHEMAS.computeIfAbsent("csw", key -> new LazySchema("CSW", ValidationUtils::createCSWSchema)).get();
+	}
+
+	/**
+	 * Returns the Atom schema (see {@link #createAtomSchema()}), compiling it when it is
+	 * first requested.
+	 * @return An immutable Schema object, or <code>null</code> if it cannot be
+	 * constructed.
+	 */
+	public static Schema getAtomSchema() {
+		return SCHEMAS.computeIfAbsent("atom", key -> new LazySchema("Atom", ValidationUtils::createAtomSchema)).get();
+	}
+
+	/**
+	 * Returns the OpenSearch description schema (see {@link #createOpenSearchSchema()}),
+	 * compiling it when it is first requested.
+	 * @return An immutable Schema object, or <code>null</code> if it cannot be
+	 * constructed.
+	 */
+	public static Schema getOpenSearchSchema() {
+		return SCHEMAS
+			.computeIfAbsent("osd", key -> new LazySchema("OpenSearch", ValidationUtils::createOpenSearchSchema))
+			.get();
+	}
+
+	/**
+	 * Returns a Schematron validator for the given schema and phase, compiling the
+	 * schema when it is first requested. A validator is shared by all test runs in the
+	 * JVM; since it holds the outcome of the last validation, callers must synchronize on
+	 * it while validating a resource and inspecting the outcome.
+	 * @param schemaRef A URL that denotes the location of a Schematron schema.
+	 * @param phase The name of the phase to invoke ("#ALL" checks all patterns).
+	 * @return A SchematronValidator instance.
+	 * @throws Exception If the schema cannot be compiled.
+	 */
+	public static SchematronValidator getSchematronValidator(URL schemaRef, String phase) throws Exception {
+		String key = schemaRef + " " + phase;
+		SchematronValidator validator = SCHEMATRON_VALIDATORS.get(key);
+		if (null == validator) {
+			TestSuiteEvents.SchemaCompilation event = new TestSuiteEvents.SchemaCompilation();
+			event.begin();
+			try {
+				validator = new SchematronValidator(new StreamSource(schemaRef.toString()), phase);
+			}
+			finally {
+				commitCompilationEvent(event, schemaRef.toString());
+			}
+			SchematronValidator existing = SCHEMATRON_VALIDATORS.putIfAbsent(key, validator);
+			if (null != existing) {
+				validator = existing;
+			}
+		}
+		return validator;
+	}
+
+	/**
+	 * Completes a flight recorder event for the compilation of a schema.
+	 * @param event The event (begun before the compilation).
+	 * @param schemaRef A reference to the schema.
+	 */
+	private static void commitCompilationEvent(TestSuiteEvents.SchemaCompilation event, String schemaRef) {
+		if (event.shouldCommit()) {
+			event.schema = schemaRef;
+			event.commit();
+		}
+	}
+
 }
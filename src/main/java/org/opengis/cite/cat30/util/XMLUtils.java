@@ -69,6 +69,12 @@ public class XMLUtils {
 
 	private static final XPathFactory XPATH_FACTORY = initXPathFactory();
 
+	/**
+	 * A Saxon processor shared by all threads; a processor is costly to initialize but
+	 * thread-safe (unlike the compilers and evaluators obtained from it).
+	 */
+	private static final Processor PROCESSOR = new Processor(false);
+
 	private static XPathFactory initXPathFactory() {
 		XPathFactory factory = XPathFactory.newInstance();
 		return factory;
@@ -195,8 +201,14 @@ public class XMLUtils {
 		// use the same Configuration object to avoid IllegalArgumentException
 		XPath xpath = factory.newXPath();
 		xpath.setNamespaceContext(bindings);
-		Object result = xpath.evaluate(expr, contextNode, returnType);
-		return result;
+		TestSuiteEvents.XPathEval event = new TestSuiteEvents.XPathEval();
+		event.begin();
+		try {
+			return xpath.evaluate(expr, contextNode, returnType);
+		}
+		finally {
+			commitXPathEvent(event, expr, "1.0");
+		}
 	}
 
 	/**
@@ -214,15 +226,14 @@ public class XMLUtils {
 	 */
 	public static XdmValue evaluateXPath2(Source xmlSource, String expr, Map<String, String> nsBindings)
 			throws SaxonApiException {
-		Processor proc = new Processor(false);
-		XPathCompiler compiler = proc.newXPathCompiler();
+		XPathCompiler compiler = PROCESSOR.newXPathCompiler();
 		if (null != nsBindings) {
 			for (String nsURI : nsBindings.keySet()) {
 				compiler.declareNamespace(nsBindings.get(nsURI), nsURI);
 			}
 		}
 		XPathSelector xpath = compiler.compile(expr).load();
-		DocumentBuilder builder = proc.newDocumentBuilder();
+		DocumentBuilder builder = PROCESSOR.newDocumentBuilder();
 		XdmNode node = null;
 		if (DOMSource.class.isInstance(xmlSource)) {
 			DOMSource domSource = (DOMSource) xmlSource;
@@ -232,7 +243,29 @@ public class XMLUtils {
 			node = builder.build(xmlSource);
 		}
 		xpath.setContextItem(node);
-		return xpath.evaluate();
+		TestSuiteEvents.XPathEval event = new TestSuiteEvents.XPathEval();
+		event.begin();
+		try {
+			return xpath.evaluate();
+		}
+		finally {
+			commitXPathEvent(event, expr, "2.0");
+		}
+	}
+
+	/**
+	 * Completes a flight recorder event for an XPath evaluation.
+	 * @param event The event (begun before the evaluation).
+	 * @param expr The XPath expression.
+	 * @param version The XPath version.
+	 */
+	public static void commitXPathEvent(TestSuiteEvents.XPathEval event, String expr, String version) {
+		if (event.shouldCommit()) {
+			event.test = TestSuiteEvents.currentTest();
+			event.expression = expr;
+			event.version = version;
+			event.commit();
+		}
 	}
 
 	/**
@@ -247,8 +280,7 @@ public class XMLUtils {
 	 */
 	public static XdmValue evaluateXQuery(Source source, String query, Map<String, String> nsBindings)
 			throws SaxonApiException {
-		Processor proc = new Processor(false);
-		XQueryCompiler xqCompiler = proc.newXQueryCompiler();
+		XQueryCompiler xqCompiler = PROCESSOR.newXQueryCompiler();
 		if (null != nsBindings) {
 			for (String nsURI : nsBindings.keySet()) {
 				xqCompiler.declareNamespace(nsBindings.get(nsURI), nsURI);
@@ -325,8 +357,7 @@ public class XMLUtils {
 		catch (ParserConfigurationException pce) {
 			throw new RuntimeException(pce);
 		}
-		Processor processor = new Processor(false);
-		XsltCompiler compiler = processor.newXsltCompiler();
+		XsltCompiler compiler = PROCESSOR.newXsltCompiler();
 		try {
 			XsltExecutable exec = compiler.compile(xslt);
 			XsltTransformer transformer = exec.load();
@@ -415,9 +446,18 @@ public class XMLUtils {
 	 * any reason.
 	 */
 	public static Document parse(Source source) throws TransformerException {
+		TestSuiteEvents.EntityParse event = new TestSuiteEvents.EntityParse();
+		event.begin();
+		long start = System.nanoTime();
 		Transformer idt = TransformerFactory.newInstance().newTransformer();
 		DOMResult result = new DOMResult();
 		idt.transform(source, result);
+		ResourceUsage.recordParse(System.nanoTime() - start);
+		if (event.shouldCommit()) {
+			event.test = TestSuiteEvents.currentTest();
+			event.systemId = source.getSystemId();
+			event.commit();
+		}
 		Document doc = (Document) result.getNode();
 		if (null != doc) {
 			doc.setDocumentURI(source.getSystemId());
@@ -0,0 +1,81 @@
+package org.opengis.cite.cat30;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+/**
+ * Verifies the behavior of the BatchRunner class.
+ */
+public class VerifyBatchRunner {
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	public VerifyBatchRunner() {
+	}
+
+	private static Document parse(String xml) throws Exception {
+		return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+	}
+
+	@Test
+	public void readIUTs() throws Exception {
+		File file = tempFolder.newFile("iuts.txt");
+		Files.writeString(file.toPath(), "# catalogues\nhttp://a.example.org/csw?request=GetCapabilities\n\n"
+				+ "  http://b.example.org/csw  \n", StandardCharsets.UTF_8);
+		List<String> iuts = BatchRunner.readIUTs(file);
+		assertEquals(Arrays.asList("http://a.example.org/csw?request=GetCapabilities", "http://b.example.org/csw"),
+				iuts);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void loadTestNotSupported() throws Exception {
+		Document props = parse("<properties><entry key='load_rate'>10</entry></properties>");
+		new BatchRunner(props, Collections.singletonList("http://a.example.org/csw"), tempFolder.getRoot(), 2);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void datasetNotSupported() throws Exception {
+		Document props = parse("<properties><entry key='dataset'>/tmp/records.xml</entry></properties>");
+		new BatchRunner(props, Collections.singletonList("http://a.example.org/csw"), tempFolder.getRoot(), 2);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void flightRecordingNotSupported() throws Exception {
+		Document props = parse("<properties><entry key='flight_recording'>true</entry></properties>");
+		new BatchRunner(props, Collections.singletonList("http://a.example.org/csw"), tempFolder.getRoot(), 2);
+	}
+
+	@Test
+	public void formatSummary() {
+		BatchRunner.Outcome completed = new BatchRunner.Outcome("http://a.example.org/csw", 12300);
+		completed.passed = 40;
+		completed.failed = 2;
+		completed.skipped = 5;
+		BatchRunner.Outcome failed = new BatchRunner.Outcome("http://b.example.org/csw", 800);
+		failed.error = "Failed to dereference resource";
+		String summary = BatchRunner.formatSummary(Arrays.asList(completed, failed));
+		String[] lines = summary.split("\\R");
+		assertEquals(4, lines.length);
+		assertTrue(lines[1].matches("\\s+1\\s+40\\s+2\\s+5\\s+12[.,]3\\s+http://a.example.org/csw"));
+		assertTrue(lines[3].contains("Failed to dereference resource"));
+		assertTrue(completed.hasFailures());
+		assertTrue(failed.hasFailures());
+	}
+
+}
@@ -0,0 +1,93 @@
+package org.opengis.cite.cat30;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opengis.cite.cat30.basic.BasicSearchTests;
+import org.opengis.cite.cat30.basic.GetCapabilitiesTests;
+import org.opengis.cite.cat30.util.DurationHistory;
+import org.testng.IMethodInstance;
+import org.testng.ISuite;
+import org.testng.ITestContext;
+import org.testng.ITestNGMethod;
+
+/**
+ * Verifies the behavior of the DurationScheduler class.
+ */
+public class VerifyDurationScheduler {
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	public VerifyDurationScheduler() {
+	}
+
+	private static IMethodInstance mockMethod(Class<?> testClass, String name) {
+		ITestNGMethod method = mock(ITestNGMethod.class);
+		when(method.getRealClass()).thenReturn((Class) testClass);
+		when(method.getMethodName()).thenReturn(name);
+		when(method.getMethodsDependedUpon()).thenReturn(new String[0]);
+		when(method.getGroupsDependedUpon()).thenReturn(new String[0]);
+		IMethodInstance instance = mock(IMethodInstance.class);
+		when(instance.getMethod()).thenReturn(method);
+		return instance;
+	}
+
+	private static List<String> names(List<IMethodInstance> methods) {
+		return methods.stream().map(m -> m.getMethod().getMethodName()).collect(Collectors.toList());
+	}
+
+	@Test
+	public void longestClassFirstMethodsTogether() {
+		List<IMethodInstance> methods = Arrays.asList(mockMethod(GetCapabilitiesTests.class, "caps1"),
+				mockMethod(GetCapabilitiesTests.class, "caps2"), mockMethod(BasicSearchTests.class, "search1"),
+				mockMethod(BasicSearchTests.class, "search2"), mockMethod(BasicSearchTests.class, "search3"));
+		DurationHistory history = new DurationHistory(new File(tempFolder.getRoot(), "durations.properties"));
+		history.record(GetCapabilitiesTests.class.getName() + ".caps1", 100);
+		history.record(GetCapabilitiesTests.class.getName() + ".caps2", 2000);
+		history.record(BasicSearchTests.class.getName() + ".search1", 500);
+		history.record(BasicSearchTests.class.getName() + ".search2", 1500);
+		// search3 unknown: mean of known durations (1025 ms)
+		List<IMethodInstance> schedule = DurationScheduler.schedule(methods, history);
+		assertEquals(Arrays.asList("search2", "search3", "search1", "caps2", "caps1"), names(schedule));
+	}
+
+	@Test
+	public void keepOrderWithoutHistory() {
+		List<IMethodInstance> methods = Arrays.asList(mockMethod(GetCapabilitiesTests.class, "caps1"),
+				mockMethod(BasicSearchTests.class, "search1"));
+		DurationHistory history = new DurationHistory(new File(tempFolder.getRoot(), "none.properties"));
+		assertSame(methods, DurationScheduler.schedule(methods, history));
+	}
+
+	@Test
+	public void keepOrderUnlessEnabled() {
+		List<IMethodInstance> methods = Arrays.asList(mockMethod(GetCapabilitiesTests.class, "caps1"),
+				mockMethod(BasicSearchTests.class, "search1"));
+		ISuite suite = mock(ISuite.class);
+		when(suite.getParameter(TestRunArg.IUT.toString())).thenReturn("http://a.example.org/csw");
+		ITestContext context = mock(ITestContext.class);
+		when(context.getSuite()).thenReturn(suite);
+		assertSame(methods, new DurationScheduler().intercept(methods, context));
+	}
+
+	@Test
+	public void keepOrderWithDependencies() {
+		IMethodInstance dependent = mockMethod(BasicSearchTests.class, "search2");
+		when(dependent.getMethod().getMethodsDependedUpon()).thenReturn(new String[] { "search1" });
+		List<IMethodInstance> methods = Arrays.asList(mockMethod(BasicSearchTests.class, "search1"), dependent);
+		DurationHistory history = new DurationHistory(new File(tempFolder.getRoot(), "durations.properties"));
+		history.record(BasicSearchTests.class.getName() + ".search2", 1500);
+		assertSame(methods, DurationScheduler.schedule(methods, history));
+	}
+
+}
@@ -0,0 +1,68 @@
+package org.opengis.cite.cat30;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+/**
+ * Verifies the behavior of the ShardCoordinator class.
+ */
+public class VerifyShardCoordinator {
+
+	private static final String PROPS = "<properties><entry key='iut'>http://a.example.org/csw</entry></properties>";
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	public VerifyShardCoordinator() {
+	}
+
+	private static Document parse(String xml) throws Exception {
+		return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void loadTestNotSupported() throws Exception {
+		Document props = parse("<properties><entry key='load_rate'>10</entry></properties>");
+		new ShardCoordinator(props, tempFolder.getRoot(), 2);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void flightRecordingNotSupported() throws Exception {
+		Document props = parse("<properties><entry key='flight_recording'>true</entry></properties>");
+		new ShardCoordinator(props, tempFolder.getRoot(), 2);
+	}
+
+	@Test
+	public void failIfWorkerProducedNoResults() throws Exception {
+		File shard0 = tempFolder.newFolder("shard-0");
+		File shard1 = tempFolder.newFolder("shard-1");
+		Files.writeString(new File(shard0, ShardCoordinator.TESTNG_RESULTS).toPath(),
+				"<testng-results total='1' passed='1' failed='0' skipped='0'/>", StandardCharsets.UTF_8);
+		ShardCoordinator coordinator = new ShardCoordinator(parse(PROPS), tempFolder.getRoot(), 2);
+		try {
+			coordinator.mergeResults("http://a.example.org/csw", Arrays.asList(shard0, shard1), new ArrayList<>());
+			fail("Expected IOException");
+		}
+		catch (IOException iox) {
+			assertTrue(iox.getMessage().contains("[1]"));
+		}
+		assertTrue("Partial results not written",
+				new File(tempFolder.getRoot(), ShardCoordinator.TESTNG_RESULTS).isFile());
+	}
+
+}
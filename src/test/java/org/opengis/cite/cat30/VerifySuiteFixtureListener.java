@@ -61,7 +61,12 @@ public class VerifySuiteFixtureListener {
 		params.put(TestRunArg.IUT.toString(), url.toURI().toString());
 		when(xmlSuite.getParameters()).thenReturn(params);
 		SuiteFixtureListener iut = new SuiteFixtureListener();
-		iut.onStart(suite);
+		try {
+			iut.onStart(suite);
+		}
+		finally {
+			iut.releaseClientSettings();
+		}
 		verify(suite).setAttribute(ArgumentMatchers.eq(SuiteAttribute.TEST_SUBJECT.getName()),
 				ArgumentMatchers.isA(Document.class));
 	}
@@ -0,0 +1,82 @@
+package org.opengis.cite.cat30;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.opengis.cite.cat30.util.ResourceUsage;
+import org.testng.IInvokedMethod;
+import org.testng.ITestClass;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+
+/**
+ * Verifies the behavior of the TestCostListener class.
+ */
+public class VerifyTestCostListener {
+
+	public VerifyTestCostListener() {
+	}
+
+	private static ITestResult mockResult(String methodName) {
+		ITestResult result = mock(ITestResult.class);
+		ITestClass testClass = mock(ITestClass.class);
+		when(testClass.getName()).thenReturn("org.opengis.cite.cat30.basic.GetCapabilitiesTests");
+		ITestNGMethod method = mock(ITestNGMethod.class);
+		when(method.getMethodName()).thenReturn(methodName);
+		when(result.getTestClass()).thenReturn(testClass);
+		when(result.getMethod()).thenReturn(method);
+		return result;
+	}
+
+	@Test
+	public void setCostAttributes() {
+		TestCostListener listener = new TestCostListener();
+		IInvokedMethod method = mock(IInvokedMethod.class);
+		when(method.isTestMethod()).thenReturn(true);
+		ITestResult result = mockResult("getFullCapabilities");
+		listener.beforeInvocation(method, result);
+		ResourceUsage.recordParse(2000000);
+		ResourceUsage.recordValidation(3000000);
+		listener.afterInvocation(method, result);
+		verify(result).setAttribute(eq(TestCostListener.ELAPSED_MILLIS), ArgumentMatchers.any(Long.class));
+		verify(result).setAttribute(TestCostListener.HTTP_REQUESTS, 0L);
+		verify(result).setAttribute(TestCostListener.PARSE_MILLIS, 2L);
+		verify(result).setAttribute(TestCostListener.VALIDATION_MILLIS, 3L);
+		assertNull("Accounting still active", ResourceUsage.stop());
+	}
+
+	@Test
+	public void ignoreConfigurationMethod() {
+		TestCostListener listener = new TestCostListener();
+		IInvokedMethod method = mock(IInvokedMethod.class);
+		when(method.isTestMethod()).thenReturn(false);
+		ITestResult result = mockResult("setUp");
+		listener.beforeInvocation(method, result);
+		listener.afterInvocation(method, result);
+		verify(result, never()).setAttribute(anyString(), ArgumentMatchers.any());
+	}
+
+	@Test
+	public void reportSortedByElapsedTime() {
+		ResourceUsage usage = ResourceUsage.start();
+		ResourceUsage.stop();
+		String report = TestCostListener.formatReport(Arrays.asList(new TestCostListener.TestCost("fast", 10, usage, 0),
+				new TestCostListener.TestCost("slow", 90, usage, -1)));
+		String[] lines = report.split("\\R");
+		assertEquals("Unexpected number of lines", 4, lines.length);
+		assertTrue(lines[1], lines[1].endsWith("slow"));
+		assertTrue(lines[1], lines[1].contains("90.0%"));
+		assertTrue(lines[2], lines[2].endsWith("fast"));
+		assertTrue(lines[3], lines[3].endsWith("(total)"));
+	}
+
+}
@@ -60,7 +60,17 @@ public class VerifyTestNGController {
 		XdmValue skipped = XMLUtils.evaluateXPath2(source, xpathSkipped, null);
 		// all tests should have been skipped
 		int numSkipped = Integer.parseInt(skipped.getUnderlyingValue().getStringValue());
-		assertEquals("Unexpected number of fail verdicts.", 52, numSkipped);
+		assertEquals("Unexpected number of fail verdicts.", 69, numSkipped);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectInvalidLoadRate() throws Exception {
+		this.testRunProps.setProperty(TestRunArg.LOAD_RATE.toString(), "-5");
+		ByteArrayOutputStream outStream = new ByteArrayOutputStream(1024);
+		this.testRunProps.storeToXML(outStream, "Integration test");
+		Document testRunArgs = docBuilder.parse(new ByteArrayInputStream(outStream.toByteArray()));
+		TestNGController controller = new TestNGController();
+		controller.validateTestRunArgs(testRunArgs);
 	}
 
 }
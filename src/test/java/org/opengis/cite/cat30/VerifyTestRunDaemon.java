@@ -0,0 +1,88 @@
+package org.opengis.cite.cat30;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Verifies the behavior of the TestRunDaemon class.
+ */
+public class VerifyTestRunDaemon {
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	public VerifyTestRunDaemon() {
+	}
+
+	private Path startDaemon() throws InterruptedException {
+		Path socket = new File(tempFolder.getRoot(), "ets.sock").toPath();
+		TestRunDaemon daemon = new TestRunDaemon(socket, new File(tempFolder.getRoot(), "results"), 1);
+		Thread thread = new Thread(() -> {
+			try {
+				daemon.run();
+			}
+			catch (IOException iox) {
+				throw new RuntimeException(iox);
+			}
+		});
+		thread.setDaemon(true);
+		thread.start();
+		for (int i = 0; i < 100 && !Files.exists(socket); i++) {
+			Thread.sleep(50);
+		}
+		return socket;
+	}
+
+	@Test
+	public void replyWithError() throws Exception {
+		Path socket = startDaemon();
+		File props = tempFolder.newFile("test-run-props.xml");
+		Files.writeString(props.toPath(), "<properties><entry key='iut'>http://a.example.org/csw</entry>"
+				+ "<entry key='load_rate'>10</entry></properties>", StandardCharsets.UTF_8);
+		ByteArrayOutputStream reply = new ByteArrayOutputStream();
+		assertFalse(TestRunDaemon.submit(socket, props, reply));
+		assertTrue(reply.toString(StandardCharsets.UTF_8).startsWith("ERROR Invalid argument: 'load_rate'"));
+	}
+
+	@Test
+	public void rejectDataset() throws Exception {
+		Path socket = startDaemon();
+		File props = tempFolder.newFile("test-run-props.xml");
+		Files.writeString(props.toPath(), "<properties><entry key='iut'>http://a.example.org/csw</entry>"
+				+ "<entry key='dataset'>/tmp/records.xml</entry></properties>", StandardCharsets.UTF_8);
+		ByteArrayOutputStream reply = new ByteArrayOutputStream();
+		assertFalse(TestRunDaemon.submit(socket, props, reply));
+		assertTrue(reply.toString(StandardCharsets.UTF_8).startsWith("ERROR Invalid argument: 'dataset'"));
+	}
+
+	@Test
+	public void socketIsPrivate() throws Exception {
+		Path socket = startDaemon();
+		assertTrue("Socket not created", Files.exists(socket));
+		assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(socket)));
+		String[] files = tempFolder.getRoot().list((dir, name) -> name.startsWith(".ets-cat30-"));
+		assertEquals("Private directory left behind", 0, files.length);
+	}
+
+	@Test
+	public void replyToMalformedRequest() throws Exception {
+		Path socket = startDaemon();
+		File props = tempFolder.newFile("test-run-props.xml");
+		Files.writeString(props.toPath(), "<properties>", StandardCharsets.UTF_8);
+		ByteArrayOutputStream reply = new ByteArrayOutputStream();
+		assertFalse(TestRunDaemon.submit(socket, props, reply));
+		assertTrue(reply.toString(StandardCharsets.UTF_8).startsWith("ERROR "));
+	}
+
+}
@@ -27,6 +27,7 @@ import org.opengis.cite.cat30.TestCommon;
 import org.opengis.cite.cat30.util.ClientUtils;
 import org.opengis.cite.cat30.util.ValidationUtils;
 import org.testng.ITestContext;
+import org.testng.SkipException;
 import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 
@@ -94,4 +95,13 @@ public class VerifyGetRecordByIdTests extends TestCommon {
 		// spy.getRecordByIdAsAtomEntryUsingAcceptHeader();
 	}
 
+	@Test
+	public void getEveryRecordByIdSkippedByDefault() throws InterruptedException {
+		thrown.expect(SkipException.class);
+		thrown.expectMessage("Exhaustive checks not enabled");
+		when(suite.getAttribute(SuiteAttribute.EXHAUSTIVE.getName())).thenReturn(Boolean.FALSE);
+		GetRecordByIdTests iut = new GetRecordByIdTests();
+		iut.getEveryRecordById(testContext);
+	}
+
 }
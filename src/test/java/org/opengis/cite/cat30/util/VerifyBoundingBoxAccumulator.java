@@ -0,0 +1,50 @@
+package org.opengis.cite.cat30.util;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.net.URL;
+
+import org.junit.Test;
+import org.opengis.geometry.Envelope;
+
+/**
+ * Verifies the behavior of the BoundingBoxAccumulator class.
+ */
+public class VerifyBoundingBoxAccumulator {
+
+	public VerifyBoundingBoxAccumulator() {
+	}
+
+	@Test
+	public void accumulateBoxesInSingleCRS() throws Exception {
+		URL url = getClass().getResource("/rsp/GetRecordsResponse-full.xml");
+		BoundingBoxAccumulator accumulator = new BoundingBoxAccumulator();
+		accumulator.addRecords(new File(url.toURI()));
+		assertEquals("Unexpected number of boxes", 10, accumulator.getBoxCount());
+		assertEquals("Unexpected number of CRS groups", 1, accumulator.getGroupCount());
+		Envelope env = accumulator.getTotalExtent();
+		assertArrayEquals("Unexpected coords for lower corner.", new double[] { 32.5, -117.63 },
+				env.getLowerCorner().getCoordinate(), 0.005);
+		assertArrayEquals("Unexpected coords for upper corner.", new double[] { 33.63, -116.00 },
+				env.getUpperCorner().getCoordinate(), 0.005);
+	}
+
+	@Test
+	public void emptyResponseHasNoExtent() throws Exception {
+		URL url = getClass().getResource("/rsp/GetRecordsResponse-empty.xml");
+		BoundingBoxAccumulator accumulator = new BoundingBoxAccumulator();
+		accumulator.addRecords(new File(url.toURI()));
+		assertEquals("Unexpected number of boxes", 0, accumulator.getBoxCount());
+		assertNull("Expected null extent", accumulator.getTotalExtent());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void addBoxWithMismatchedCorners() throws URISyntaxException {
+		BoundingBoxAccumulator accumulator = new BoundingBoxAccumulator();
+		accumulator.add("BoundingBox", "urn:ogc:def:crs:EPSG::4326", new double[] { 1.0, 2.0 },
+				new double[] { 3.0, 4.0, 5.0 });
+	}
+
+}
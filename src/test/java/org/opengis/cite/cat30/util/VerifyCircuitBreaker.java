@@ -0,0 +1,102 @@
+package org.opengis.cite.cat30.util;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import org.opengis.cite.cat30.util.CircuitBreaker.CircuitOpenException;
+import org.opengis.cite.cat30.util.CircuitBreaker.State;
+
+/**
+ * Verifies the behavior of the CircuitBreaker class.
+ */
+public class VerifyCircuitBreaker {
+
+	private static final String HOST = "example.org";
+
+	private final AtomicLong clock = new AtomicLong();
+
+	public VerifyCircuitBreaker() {
+	}
+
+	@Test
+	public void openAfterConsecutiveFailures() {
+		CircuitBreaker breaker = new CircuitBreaker(3, 1000, clock::get);
+		breaker.recordFailure(HOST);
+		breaker.recordFailure(HOST);
+		breaker.checkPermitted(HOST);
+		breaker.recordFailure(HOST);
+		assertEquals(State.OPEN, breaker.getState(HOST));
+		try {
+			breaker.checkPermitted(HOST);
+			fail("Expected CircuitOpenException");
+		}
+		catch (CircuitOpenException e) {
+			assertTrue(e.getMessage().contains(HOST));
+		}
+		assertEquals(1, breaker.getRejectionCount(HOST));
+	}
+
+	@Test
+	public void successResetsFailureCount() {
+		CircuitBreaker breaker = new CircuitBreaker(2, 1000, clock::get);
+		breaker.recordFailure(HOST);
+		breaker.recordSuccess(HOST);
+		breaker.recordFailure(HOST);
+		assertEquals(State.CLOSED, breaker.getState(HOST));
+	}
+
+	@Test
+	public void trialRequestClosesCircuit() {
+		CircuitBreaker breaker = new CircuitBreaker(1, 1000, clock::get);
+		breaker.recordFailure(HOST);
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+		breaker.checkPermitted(HOST);
+		assertEquals(State.HALF_OPEN, breaker.getState(HOST));
+		breaker.recordSuccess(HOST);
+		assertEquals(State.CLOSED, breaker.getState(HOST));
+	}
+
+	@Test
+	public void failedTrialReopensCircuit() {
+		CircuitBreaker breaker = new CircuitBreaker(3, 1000, clock::get);
+		for (int i = 0; i < 3; i++) {
+			breaker.recordFailure(HOST);
+		}
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1500));
+		breaker.checkPermitted(HOST);
+		breaker.recordFailure(HOST);
+		assertEquals(State.OPEN, breaker.getState(HOST));
+	}
+
+	@Test
+	public void newTrialAfterUnrecordedTrial() {
+		CircuitBreaker breaker = new CircuitBreaker(1, 1000, clock::get);
+		breaker.recordFailure(HOST);
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+		breaker.checkPermitted(HOST);
+		try {
+			breaker.checkPermitted(HOST);
+			fail("Expected CircuitOpenException");
+		}
+		catch (CircuitOpenException e) {
+			// trial request in flight
+		}
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+		breaker.checkPermitted(HOST);
+		assertEquals(State.HALF_OPEN, breaker.getState(HOST));
+	}
+
+	@Test
+	public void disabled() {
+		CircuitBreaker breaker = new CircuitBreaker(0, 1000, clock::get);
+		for (int i = 0; i < 10; i++) {
+			breaker.recordFailure(HOST);
+		}
+		breaker.checkPermitted(HOST);
+		assertEquals(State.CLOSED, breaker.getState(HOST));
+	}
+
+}
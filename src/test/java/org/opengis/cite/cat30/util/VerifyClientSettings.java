@@ -0,0 +1,70 @@
+package org.opengis.cite.cat30.util;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Verifies the behavior of the ClientSettings class.
+ */
+public class VerifyClientSettings {
+
+	public VerifyClientSettings() {
+	}
+
+	@Test
+	public void equalSettingsAreShared() throws InterruptedException {
+		ClientSettings first = new ClientSettings(null, false, 2, 5, 64);
+		ClientSettings second = new ClientSettings(" URLConnection ", false, 2, 5, 64);
+		assertEquals(first, second);
+		first.acquire();
+		try {
+			second.acquire();
+			second.release();
+		}
+		finally {
+			first.release();
+		}
+	}
+
+	@Test
+	public void otherSettingsWaitForRelease() throws InterruptedException {
+		ClientSettings first = new ClientSettings(null, false, 2, 5, 64);
+		ClientSettings second = new ClientSettings(null, false, 0, 5, 64);
+		CountDownLatch acquired = new CountDownLatch(1);
+		AtomicInteger maxRetries = new AtomicInteger(-1);
+		first.acquire();
+		Thread thread = new Thread(() -> {
+			try {
+				second.acquire();
+				maxRetries.set(ClientUtils.getRetryPolicy().getMaxRetries());
+				acquired.countDown();
+				second.release();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		try {
+			thread.start();
+			assertFalse("Settings changed during a run", acquired.await(200, TimeUnit.MILLISECONDS));
+		}
+		finally {
+			first.release();
+		}
+		assertTrue(acquired.await(5, TimeUnit.SECONDS));
+		assertEquals(0, maxRetries.get());
+		first.acquire();
+		first.release();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unsupportedTransport() {
+		new ClientSettings("carrier-pigeon", false, 2, 5, 64);
+	}
+
+}
@@ -0,0 +1,115 @@
+package org.opengis.cite.cat30.util;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import jakarta.ws.rs.client.ClientRequestContext;
+import jakarta.ws.rs.client.ClientResponseContext;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.MultivaluedMap;
+
+/**
+ * Verifies the behavior of the CompressionFilter class.
+ */
+public class VerifyCompressionFilter {
+
+	private static final byte[] CONTENT = "<feed xmlns='http://www.w3.org/2005/Atom'>".concat("<entry/>".repeat(200))
+		.concat("</feed>")
+		.getBytes(StandardCharsets.UTF_8);
+
+	public VerifyCompressionFilter() {
+	}
+
+	@Test
+	public void addAcceptEncoding() throws IOException {
+		ClientRequestContext request = mock(ClientRequestContext.class);
+		MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+		when(request.getHeaders()).thenReturn(headers);
+		new CompressionFilter(true).filter(request);
+		assertEquals("Unexpected Accept-Encoding", CompressionFilter.ACCEPT_ENCODING,
+				headers.getFirst(HttpHeaders.ACCEPT_ENCODING));
+		headers.clear();
+		new CompressionFilter(false).filter(request);
+		assertTrue("Expected no Accept-Encoding header", headers.isEmpty());
+	}
+
+	@Test
+	public void decodeGzip() throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		try (OutputStream out = new GZIPOutputStream(buffer)) {
+			out.write(CONTENT);
+		}
+		assertDecoded("gzip", buffer.toByteArray());
+	}
+
+	@Test
+	public void decodeZlibDeflate() throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		try (OutputStream out = new DeflaterOutputStream(buffer)) {
+			out.write(CONTENT);
+		}
+		assertDecoded("deflate", buffer.toByteArray());
+	}
+
+	@Test
+	public void decodeRawDeflate() throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		try (OutputStream out = new DeflaterOutputStream(buffer, new Deflater(Deflater.DEFAULT_COMPRESSION, true))) {
+			out.write(CONTENT);
+		}
+		assertDecoded("deflate", buffer.toByteArray());
+	}
+
+	@Test
+	public void countIdentity() throws IOException {
+		CompressionFilter.Transfer transfer = assertDecoded(null, CONTENT);
+		assertFalse("Identity entity reported as compressed.", transfer.isCompressed());
+		assertEquals("Unexpected ratio", 1.0, transfer.getRatio(), 0.0);
+	}
+
+	private CompressionFilter.Transfer assertDecoded(String coding, byte[] entity) throws IOException {
+		CompressionFilter filter = new CompressionFilter(true);
+		ClientRequestContext request = mock(ClientRequestContext.class);
+		when(request.getUri()).thenReturn(URI.create("http://example.org/csw?q=alpha"));
+		ClientResponseContext response = mock(ClientResponseContext.class);
+		MultivaluedMap<String, String> headers = new MultivaluedHashMap<>();
+		if (null != coding) {
+			headers.putSingle(HttpHeaders.CONTENT_ENCODING, coding);
+		}
+		when(response.hasEntity()).thenReturn(true);
+		when(response.getHeaders()).thenReturn(headers);
+		when(response.getHeaderString(HttpHeaders.CONTENT_ENCODING)).thenReturn(coding);
+		when(response.getEntityStream()).thenReturn(new ByteArrayInputStream(entity));
+		filter.filter(request, response);
+		ArgumentCaptor<InputStream> captor = ArgumentCaptor.forClass(InputStream.class);
+		Mockito.verify(response).setEntityStream(captor.capture());
+		try (InputStream decoded = captor.getValue()) {
+			assertArrayEquals("Unexpected decoded content", CONTENT, decoded.readAllBytes());
+		}
+		assertNull("Content-Encoding not removed", headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+		assertEquals("Unexpected number of transfers", 1, filter.getTransfers().size());
+		CompressionFilter.Transfer transfer = filter.getTransfers().get(0);
+		assertEquals("Unexpected encoded size", entity.length, transfer.getEncodedBytes());
+		assertEquals("Unexpected decoded size", CONTENT.length, transfer.getDecodedBytes());
+		assertEquals("Unexpected total", CONTENT.length, filter.getDecodedByteCount());
+		return transfer;
+	}
+
+}
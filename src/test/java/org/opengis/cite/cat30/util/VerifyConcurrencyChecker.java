@@ -0,0 +1,99 @@
+package org.opengis.cite.cat30.util;
+
+import static org.junit.Assert.*;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.opengis.cite.cat30.util.ConcurrencyChecker.Probe;
+import org.opengis.cite.cat30.util.ConcurrencyChecker.Snapshot;
+
+import jakarta.ws.rs.core.MediaType;
+
+/**
+ * Verifies the behavior of the ConcurrencyChecker class.
+ */
+public class VerifyConcurrencyChecker {
+
+	public VerifyConcurrencyChecker() {
+	}
+
+	@Test
+	public void snapshotIgnoresSearchStatus() throws Exception {
+		String entity = readResource("/rsp/GetRecordsResponse-full.xml");
+		Snapshot snapshot = Snapshot.read(200, entity.getBytes(StandardCharsets.UTF_8));
+		assertEquals("Unexpected numberOfRecordsMatched", 171, snapshot.getNumberOfRecordsMatched());
+		assertEquals("Unexpected number of identifiers", 10, snapshot.getRecordIds().size());
+		Snapshot later = Snapshot.read(200,
+				entity.replace("2015-03-05T10:56:48Z", "2015-03-05T11:02:00Z").getBytes(StandardCharsets.UTF_8));
+		assertNull(later.describeDifference(snapshot));
+	}
+
+	@Test
+	public void snapshotDetectsChangedContent() throws Exception {
+		String entity = readResource("/rsp/GetRecordsResponse-full.xml")
+			.replace("nextRecord=\"11\" numberOfRecordsMatched=\"171\"",
+					"nextRecord=\"0\" numberOfRecordsMatched=\"10\"");
+		Snapshot snapshot = Snapshot.read(200, entity.getBytes(StandardCharsets.UTF_8));
+		Snapshot changed = Snapshot.read(200,
+				entity.replace("<dc:title>Lakes</dc:title>", "<dc:title>Ponds</dc:title>")
+					.getBytes(StandardCharsets.UTF_8));
+		assertEquals("record content differs", changed.describeDifference(snapshot));
+	}
+
+	@Test
+	public void ignoreRecordsOfPartialResultSet() {
+		Snapshot baseline = new Snapshot(200, 171, new TreeSet<>(List.of("id-1", "id-2")), 1);
+		Snapshot other = new Snapshot(200, 171, new TreeSet<>(List.of("id-1", "id-3")), 2);
+		assertFalse(baseline.isComplete());
+		assertNull(other.describeDifference(baseline));
+		Snapshot fewerHits = new Snapshot(200, 170, new TreeSet<>(List.of("id-1", "id-2")), 1);
+		assertEquals("numberOfRecordsMatched 170 (expected 171)", fewerHits.describeDifference(baseline));
+	}
+
+	@Test
+	public void reportsDiscrepanciesUnderLoad() throws InterruptedException {
+		Probe probe = new Probe("GetRecords", URI.create("http://example.org/csw"), Collections.emptyMap(),
+				MediaType.APPLICATION_XML_TYPE);
+		AtomicInteger calls = new AtomicInteger();
+		// every fifth response (after the baseline) omits a record
+		ConcurrencyChecker checker = new ConcurrencyChecker(List.of(probe), p -> {
+			int n = calls.getAndIncrement();
+			TreeSet<String> ids = new TreeSet<>(List.of("id-1", "id-2"));
+			if (n > 0 && n % 5 == 0) {
+				ids.remove("id-2");
+			}
+			return new Snapshot(200, 2, ids, 0);
+		});
+		ConcurrencyChecker.Report report = checker.run(new int[] { 2, 4 }, 5);
+		assertEquals("Unexpected number of requests", 31, calls.get());
+		assertEquals("Unexpected number of discrepancies", 6, report.getDiscrepancyCount());
+		assertFalse(report.isConsistent());
+		assertTrue(report.toString(), report.toString().contains("missing [id-2]"));
+	}
+
+	@Test
+	public void consistentResponses() throws InterruptedException {
+		Probe probe = new Probe("GetRecordById", URI.create("http://example.org/csw"), Collections.emptyMap(),
+				MediaType.APPLICATION_XML_TYPE);
+		ConcurrencyChecker checker = new ConcurrencyChecker(List.of(probe),
+				p -> new Snapshot(200, 1, new TreeSet<>(List.of("id-1")), 42));
+		ConcurrencyChecker.Report report = checker.run(new int[] { 2 }, 3);
+		assertTrue(report.isConsistent());
+		assertFalse(Double.isNaN(report.getLatencyInflation(2)));
+		assertTrue(Double.isNaN(report.getLatencyInflation(8)));
+	}
+
+	private String readResource(String path) throws Exception {
+		try (InputStream inStream = getClass().getResourceAsStream(path)) {
+			return new String(inStream.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+}
@@ -0,0 +1,108 @@
+package org.opengis.cite.cat30.util;
+
+import static org.junit.Assert.*;
+
+import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Verifies the behavior of the ConcurrencyLimiter class.
+ */
+public class VerifyConcurrencyLimiter {
+
+	private static final String HOST = "example.org";
+
+	public VerifyConcurrencyLimiter() {
+	}
+
+	@Test
+	public void hostOfURI() {
+		assertEquals("example.org:8080", ConcurrencyLimiter.hostOf(URI.create("http://Example.org:8080/csw?q=1")));
+	}
+
+	@Test
+	public void growWhenSaturated() throws InterruptedException {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 8);
+		for (int i = 0; i < 50; i++) {
+			int limit = limiter.getLimit(HOST);
+			for (int j = 0; j < limit; j++) {
+				limiter.acquire(HOST);
+			}
+			for (int j = 0; j < limit; j++) {
+				limiter.release(HOST, 10000, false);
+			}
+		}
+		assertEquals("Unexpected limit", 8, limiter.getLimit(HOST));
+		assertEquals(0, limiter.getInFlight(HOST));
+	}
+
+	@Test
+	public void doNotGrowWhenSequential() throws InterruptedException {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 64);
+		for (int i = 0; i < 100; i++) {
+			limiter.acquire(HOST);
+			limiter.release(HOST, 10000, false);
+		}
+		assertEquals("Unexpected limit", 4, limiter.getLimit(HOST));
+	}
+
+	@Test
+	public void backOffOnFailure() throws InterruptedException {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(8, 64);
+		limiter.acquire(HOST);
+		limiter.release(HOST, 10000, true);
+		assertEquals("Unexpected limit", 6, limiter.getLimit(HOST));
+		for (int i = 0; i < 20; i++) {
+			limiter.acquire(HOST);
+			limiter.release(HOST, 10000, true);
+		}
+		assertEquals("Limit must not fall below 1", 1, limiter.getLimit(HOST));
+	}
+
+	@Test
+	public void backOffOnLatencyIncrease() throws InterruptedException {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(8, 64);
+		limiter.acquire(HOST);
+		limiter.release(HOST, 20000, false);
+		limiter.acquire(HOST);
+		limiter.release(HOST, 30000, false);
+		assertEquals("Jitter should be tolerated", 8, limiter.getLimit(HOST));
+		limiter.acquire(HOST);
+		limiter.release(HOST, 500000, false);
+		assertEquals("Unexpected limit", 6, limiter.getLimit(HOST));
+	}
+
+	@Test
+	public void waitForPermit() throws InterruptedException {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1);
+		limiter.acquire(HOST);
+		CountDownLatch acquired = new CountDownLatch(1);
+		Thread waiter = new Thread(() -> {
+			try {
+				limiter.acquire(HOST);
+				acquired.countDown();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		waiter.start();
+		assertFalse("Permit should not be available", acquired.await(200, TimeUnit.MILLISECONDS));
+		limiter.release(HOST, 1000, false);
+		assertTrue("Permit should be available", acquired.await(5, TimeUnit.SECONDS));
+		waiter.join();
+		assertEquals(1, limiter.getInFlight(HOST));
+	}
+
+	@Test
+	public void maxLimitCapsLimit() {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(8, 64);
+		limiter.setMaxLimit(2);
+		assertEquals(2, limiter.getLimit(HOST));
+		assertTrue(limiter.toString().startsWith("Host"));
+	}
+
+}
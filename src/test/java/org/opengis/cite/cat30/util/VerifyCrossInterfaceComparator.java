@@ -0,0 +1,82 @@
+package org.opengis.cite.cat30.util;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BiFunction;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Test;
+import org.opengis.cite.cat30.Namespaces;
+
+/**
+ * Verifies the behavior of the CrossInterfaceComparator class.
+ */
+public class VerifyCrossInterfaceComparator {
+
+	public VerifyCrossInterfaceComparator() {
+	}
+
+	@Test
+	public void sameRecordsInDifferentOrder() throws Exception {
+		CrossInterfaceComparator comparator = new CrossInterfaceComparator(3, Integer.MAX_VALUE, 4);
+		comparator.addSource("KVP", feedOf("a", "b", "c", "d", "e", "f", "g"));
+		comparator.addSource("OpenSearch", feedOf("g", "e", "c", "a", "b", "d", "f"));
+		CrossInterfaceComparator.Result result = comparator.compare();
+		assertTrue(result.toString(), result.isConsistent());
+		assertEquals("Unexpected number of distinct ids", 7, result.getDistinctIds());
+		assertEquals("Unexpected number of compared sources", 2, result.getComparedSources().size());
+	}
+
+	@Test
+	public void reportMissingRecords() throws Exception {
+		CrossInterfaceComparator comparator = new CrossInterfaceComparator(2, Integer.MAX_VALUE, 2);
+		comparator.addSource("KVP", feedOf("a", "b", "c", "d"));
+		comparator.addSource("OpenSearch", feedOf("d", "a", "x"));
+		CrossInterfaceComparator.Result result = comparator.compare();
+		assertFalse("Expected discrepancies", result.isConsistent());
+		assertEquals("Unexpected number of discrepancies", 3, result.getDiscrepancies());
+		assertEquals("Unexpected missing count (OpenSearch)", 2, result.getMissingCount("OpenSearch"));
+		assertEquals("Unexpected missing count (KVP)", 1, result.getMissingCount("KVP"));
+		assertEquals("b found by [KVP] but not by [OpenSearch]", result.getExamples().get(0));
+	}
+
+	@Test
+	public void excludeIncompleteSource() throws Exception {
+		CrossInterfaceComparator comparator = new CrossInterfaceComparator(2, 3);
+		comparator.addSource("KVP", feedOf("a", "b"));
+		comparator.addSource("OpenSearch", feedOf("a", "b", "c", "d"));
+		CrossInterfaceComparator.Result result = comparator.compare();
+		assertTrue("Expected consistent result", result.isConsistent());
+		assertTrue("Expected OpenSearch to be excluded", result.getExcludedSources().containsKey("OpenSearch"));
+		assertEquals("Unexpected number of compared sources", 1, result.getComparedSources().size());
+	}
+
+	/**
+	 * Creates a page source that presents the given records as an Atom feed.
+	 */
+	private static BiFunction<Integer, Integer, RecordPage> feedOf(String... ids) {
+		return (startIndex, count) -> {
+			int end = Math.min(ids.length, startIndex - 1 + count);
+			StringBuilder xml = new StringBuilder();
+			xml.append("<feed xmlns='").append(Namespaces.ATOM).append("' xmlns:os='").append(Namespaces.OSD11);
+			xml.append("' xmlns:dc='").append(Namespaces.DCMES).append("'>");
+			xml.append("<os:totalResults>").append(ids.length).append("</os:totalResults>");
+			for (int i = startIndex - 1; i < end; i++) {
+				xml.append("<entry><id>urn:uuid:").append(i).append("</id><dc:identifier>").append(ids[i]);
+				xml.append("</dc:identifier></entry>");
+			}
+			xml.append("</feed>");
+			try {
+				return RecordPage.read(startIndex,
+						new ByteArrayInputStream(xml.toString().getBytes(StandardCharsets.UTF_8)));
+			}
+			catch (XMLStreamException xse) {
+				throw new RuntimeException(xse);
+			}
+		};
+	}
+
+}
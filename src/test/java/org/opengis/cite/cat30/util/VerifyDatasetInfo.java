@@ -65,4 +65,18 @@ public class VerifyDatasetInfo {
 				env.getUpperCorner().getCoordinate(), 0.005);
 	}
 
+	@Test
+	public void selectQueryBoxWithPredictedHits() throws URISyntaxException {
+		URL url = getClass().getResource("/rsp/GetRecordsResponse-3.xml");
+		File dataFile = new File(url.toURI());
+		DatasetInfo dataset = new DatasetInfo(dataFile);
+		RecordFootprints footprints = dataset.getRecordFootprints();
+		assertEquals("Unexpected number of footprints", 3, footprints.size());
+		assertEquals("Unexpected CRS reference", "http://www.opengis.net/def/crs/EPSG/0/4326",
+				footprints.getCrsRef());
+		double[] box = footprints.selectQueryBox(1);
+		List<String> idList = footprints.search(box);
+		assertEquals("Unexpected number of matching records", 1, idList.size());
+	}
+
 }
@@ -0,0 +1,206 @@
+package org.opengis.cite.cat30.util;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.intThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.SocketTimeoutException;
+import java.net.URI;
+
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.ClientRequest;
+import org.glassfish.jersey.client.ClientResponse;
+import org.glassfish.jersey.client.spi.Connector;
+import org.junit.After;
+import org.junit.Test;
+
+import jakarta.ws.rs.ProcessingException;
+
+/**
+ * Verifies the behavior of the Deadline class.
+ */
+public class VerifyDeadline {
+
+	public VerifyDeadline() {
+	}
+
+	@After
+	public void clearDeadlines() {
+		Deadline.endTest();
+		Deadline.setTestBudget(0);
+		Deadline.startRun(0);
+	}
+
+	private static ClientRequest mockRequest() {
+		ClientRequest request = mock(ClientRequest.class);
+		when(request.getMethod()).thenReturn("GET");
+		when(request.getUri()).thenReturn(URI.create("http://localhost/csw"));
+		return request;
+	}
+
+	private static Connector decorate(Connector delegate) {
+		return Deadline.decorate((client, config) -> delegate).getConnector(null, null);
+	}
+
+	@Test
+	public void noDeadline() {
+		assertEquals(Long.MAX_VALUE, Deadline.remainingMillis());
+		assertFalse(Deadline.isRunExpired());
+	}
+
+	@Test
+	public void testDeadline() {
+		Deadline.setTestBudget(1000);
+		Deadline.startTest();
+		long remaining = Deadline.remainingMillis();
+		assertTrue("Unexpected remaining time: " + remaining, remaining > 0 && remaining <= 1000);
+		Deadline.endTest();
+		assertEquals(Long.MAX_VALUE, Deadline.remainingMillis());
+	}
+
+	@Test
+	public void runDeadlineExpired() throws InterruptedException {
+		Deadline.startRun(1);
+		Thread.sleep(10);
+		assertTrue(Deadline.isRunExpired());
+		assertTrue(Deadline.remainingMillis() <= 0);
+	}
+
+	@Test
+	public void endRunDeadline() throws InterruptedException {
+		Deadline.startRun(1);
+		Thread.sleep(10);
+		Deadline.endRun();
+		assertFalse(Deadline.isRunExpired());
+		assertEquals(Long.MAX_VALUE, Deadline.remainingMillis());
+	}
+
+	@Test
+	public void runDeadlineOfOtherThreadNotApplied() throws InterruptedException {
+		Thread other = new Thread(() -> Deadline.startRun(1));
+		other.start();
+		other.join();
+		Thread.sleep(10);
+		assertFalse(Deadline.isRunExpired());
+		assertEquals(Long.MAX_VALUE, Deadline.remainingMillis());
+	}
+
+	@Test
+	public void completeBeforeDeadline() {
+		Connector delegate = mock(Connector.class);
+		ClientResponse response = mock(ClientResponse.class);
+		when(delegate.apply(any(ClientRequest.class))).thenReturn(response);
+		Deadline.setTestBudget(5000);
+		Deadline.startTest();
+		assertSame(response, decorate(delegate).apply(mockRequest()));
+	}
+
+	@Test
+	public void limitTimeoutsToRemainingTime() {
+		Connector delegate = mock(Connector.class);
+		when(delegate.apply(any(ClientRequest.class))).thenReturn(mock(ClientResponse.class));
+		Deadline.setTestBudget(1000);
+		Deadline.startTest();
+		ClientRequest request = mockRequest();
+		decorate(delegate).apply(request);
+		verify(request).setProperty(eq(ClientProperties.CONNECT_TIMEOUT), intThat(t -> t > 0 && t <= 1000));
+		verify(request).setProperty(eq(ClientProperties.READ_TIMEOUT), intThat(t -> t > 0 && t <= 1000));
+	}
+
+	@Test
+	public void keepShorterConfiguredTimeout() {
+		Connector delegate = mock(Connector.class);
+		when(delegate.apply(any(ClientRequest.class))).thenReturn(mock(ClientResponse.class));
+		Deadline.setTestBudget(5000);
+		Deadline.startTest();
+		ClientRequest request = mockRequest();
+		when(request.resolveProperty(ClientProperties.CONNECT_TIMEOUT, Integer.class)).thenReturn(100);
+		decorate(delegate).apply(request);
+		verify(request, never()).setProperty(eq(ClientProperties.CONNECT_TIMEOUT), any());
+		verify(request).setProperty(eq(ClientProperties.READ_TIMEOUT), any());
+	}
+
+	@Test
+	public void timeoutAtDeadline() {
+		Connector delegate = mock(Connector.class);
+		when(delegate.apply(any(ClientRequest.class))).thenAnswer(invocation -> {
+			Thread.sleep(100);
+			throw new ProcessingException(new SocketTimeoutException("Read timed out"));
+		});
+		Deadline.setTestBudget(50);
+		Deadline.startTest();
+		try {
+			decorate(delegate).apply(mockRequest());
+			fail("Expected ExceededException");
+		}
+		catch (Deadline.ExceededException e) {
+			assertTrue(e.getMessage().contains("http://localhost/csw"));
+			assertTrue(e.getCause().getCause() instanceof SocketTimeoutException);
+		}
+	}
+
+	@Test
+	public void timeoutBeforeDeadline() {
+		Connector delegate = mock(Connector.class);
+		ProcessingException timeout = new ProcessingException(new SocketTimeoutException("connect timed out"));
+		when(delegate.apply(any(ClientRequest.class))).thenThrow(timeout);
+		Deadline.setTestBudget(5000);
+		Deadline.startTest();
+		try {
+			decorate(delegate).apply(mockRequest());
+			fail("Expected ProcessingException");
+		}
+		catch (ProcessingException e) {
+			assertSame(timeout, e);
+		}
+	}
+
+	@Test
+	public void rejectRequestAfterDeadline() throws InterruptedException {
+		Connector delegate = mock(Connector.class);
+		Deadline.startRun(1);
+		Thread.sleep(10);
+		try {
+			decorate(delegate).apply(mockRequest());
+			fail("Expected ExceededException");
+		}
+		catch (Deadline.ExceededException e) {
+			verify(delegate, never()).apply(any(ClientRequest.class));
+		}
+	}
+
+	@Test
+	public void testBudgetOfOtherThreadNotApplied() throws InterruptedException {
+		Thread other = new Thread(() -> Deadline.setTestBudget(1));
+		other.start();
+		other.join();
+		assertEquals(0, Deadline.getTestBudget());
+		Deadline.startTest();
+		assertEquals(Long.MAX_VALUE, Deadline.remainingMillis());
+	}
+
+	@Test
+	public void testBudgetIsInherited() throws InterruptedException {
+		Deadline.setTestBudget(1000);
+		long[] budget = new long[1];
+		Thread child = new Thread(() -> budget[0] = Deadline.getTestBudget());
+		child.start();
+		child.join();
+		assertEquals(1000, budget[0]);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void propagateFailure() {
+		Connector delegate = mock(Connector.class);
+		when(delegate.apply(any(ClientRequest.class))).thenThrow(new IllegalStateException());
+		Deadline.setTestBudget(5000);
+		Deadline.startTest();
+		decorate(delegate).apply(mockRequest());
+	}
+
+}
@@ -0,0 +1,54 @@
+package org.opengis.cite.cat30.util;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Verifies the behavior of the DeepPagingProfile class.
+ */
+public class VerifyDeepPagingProfile {
+
+	public VerifyDeepPagingProfile() {
+	}
+
+	@Test
+	public void constantLatency() {
+		DeepPagingProfile profile = new DeepPagingProfile();
+		for (long pos : new long[] { 1, 1000, 10000, 100000 }) {
+			profile.add(pos, 10, 5000, 20000);
+		}
+		assertEquals("Unexpected slowdown", 1.0, profile.getSlowdown(), 0.001);
+		assertEquals("Unexpected marginal cost", 0.0, profile.getMicrosPerThousandSkipped(), 0.001);
+		assertFalse("Constant latency flagged as degraded.", profile.isDegraded(10, 500000));
+	}
+
+	@Test
+	public void linearOffsetCost() {
+		DeepPagingProfile profile = new DeepPagingProfile();
+		for (long pos : new long[] { 1, 1000, 10000, 100000 }) {
+			profile.add(pos, 10, 5000, 20000 + (pos - 1) * 20);
+		}
+		assertEquals("Unexpected marginal cost", 20000.0, profile.getMicrosPerThousandSkipped(), 0.1);
+		assertTrue("Expected slowdown > 10", profile.getSlowdown() > 10);
+		assertTrue("Linear offset cost not flagged.", profile.isDegraded(10, 500000));
+	}
+
+	@Test
+	public void insignificantGrowthIsIgnored() {
+		DeepPagingProfile profile = new DeepPagingProfile();
+		profile.add(1, 10, 5000, 1000);
+		profile.add(171, 10, 5000, 50000);
+		assertEquals("Unexpected slowdown", 50.0, profile.getSlowdown(), 0.001);
+		assertFalse("Growth of 49 ms flagged as significant.", profile.isDegraded(10, 500000));
+	}
+
+	@Test
+	public void singlePage() {
+		DeepPagingProfile profile = new DeepPagingProfile();
+		profile.add(1, 10, 5000, 20000);
+		assertTrue("Expected NaN", Double.isNaN(profile.getSlowdown()));
+		assertFalse(profile.isDegraded(10, 0));
+	}
+
+}
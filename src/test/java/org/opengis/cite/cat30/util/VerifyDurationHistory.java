@@ -0,0 +1,110 @@
+package org.opengis.cite.cat30.util;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+/**
+ * Verifies the behavior of the DurationHistory class.
+ */
+public class VerifyDurationHistory {
+
+	private static final String RESULTS = "<testng-results><suite><test name='Basic-Catalogue'>"
+			+ "<class name='org.opengis.cite.cat30.basic.BasicSearchTests'>"
+			+ "<test-method status='PASS' is-config='true' name='findRequestEndpoints' duration-ms='900'/>"
+			+ "<test-method status='PASS' name='getBriefRecordsByBBOX' duration-ms='1200'/>"
+			+ "<test-method status='SKIP' name='getRecordsByTitle' duration-ms='0'/>"
+			+ "<test-method status='FAIL' name='getSummaryRecordsInAtomFeed' duration-ms='300'/>"
+			+ "</class></test></suite></testng-results>";
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	public VerifyDurationHistory() {
+	}
+
+	private static Document parse(String xml) throws Exception {
+		return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+	}
+
+	@Test
+	public void recordResults() throws Exception {
+		DurationHistory history = new DurationHistory(new File(tempFolder.getRoot(), "none.properties"));
+		assertTrue(history.isEmpty());
+		assertEquals(2, history.recordResults(parse(RESULTS)));
+		assertEquals(Long.valueOf(1200), history.get("org.opengis.cite.cat30.basic.BasicSearchTests.getBriefRecordsByBBOX"));
+		assertNull("Config method recorded", history.get("org.opengis.cite.cat30.basic.BasicSearchTests.findRequestEndpoints"));
+		assertNull("Skipped test recorded", history.get("org.opengis.cite.cat30.basic.BasicSearchTests.getRecordsByTitle"));
+	}
+
+	@Test
+	public void averageObservations() {
+		DurationHistory history = new DurationHistory(new File(tempFolder.getRoot(), "none.properties"));
+		history.record("a.B.c", 1000);
+		history.record("a.B.c", 2000);
+		assertEquals(Long.valueOf(1500), history.get("a.B.c"));
+	}
+
+	@Test
+	public void saveAndReload() throws IOException {
+		File file = new File(tempFolder.getRoot(), "sub/durations.properties");
+		DurationHistory history = new DurationHistory(file);
+		history.record("a.B.c", 250);
+		history.save();
+		assertTrue(file.isFile());
+		assertEquals(Long.valueOf(250), new DurationHistory(file).get("a.B.c"));
+	}
+
+	@Test
+	public void ignoreInvalidEntry() throws IOException {
+		File file = tempFolder.newFile("invalid.properties");
+		Files.writeString(file.toPath(), "a.B.c=fast\na.B.d=42\n");
+		DurationHistory history = new DurationHistory(file);
+		assertNull(history.get("a.B.c"));
+		assertEquals(Long.valueOf(42), history.get("a.B.d"));
+	}
+
+	@Test
+	public void ignoreMalformedFile() throws IOException {
+		File file = tempFolder.newFile("malformed.properties");
+		Files.writeString(file.toPath(), "a.B.c=\\u00zz\n");
+		DurationHistory history = new DurationHistory(file);
+		assertTrue(history.isEmpty());
+		history.record("a.B.c", 100);
+		history.save();
+		assertEquals(Long.valueOf(100), new DurationHistory(file).get("a.B.c"));
+	}
+
+	@Test
+	public void replaceFileOnSave() throws IOException {
+		File file = tempFolder.newFile("durations.properties");
+		Files.writeString(file.toPath(), "a.B.c=10\n");
+		DurationHistory history = new DurationHistory(file);
+		history.record("a.B.d", 20);
+		history.save();
+		DurationHistory saved = new DurationHistory(file);
+		assertEquals(Long.valueOf(10), saved.get("a.B.c"));
+		assertEquals(Long.valueOf(20), saved.get("a.B.d"));
+		assertEquals("Temporary file left behind", 1, tempFolder.getRoot().list().length);
+	}
+
+	@Test
+	public void fileNamePerIUT() {
+		String name = DurationHistory.fileName("http://localhost/csw?service=CSW");
+		assertTrue(name.matches("[0-9a-f]{16}\\.properties"));
+		assertEquals(name, DurationHistory.fileName(" http://localhost/csw?service=CSW\n"));
+		assertNotEquals(name, DurationHistory.fileName("http://example.org/csw"));
+	}
+
+}
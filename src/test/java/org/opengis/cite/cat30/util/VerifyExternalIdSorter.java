@@ -0,0 +1,59 @@
+package org.opengis.cite.cat30.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Verifies the behavior of the ExternalIdSorter class.
+ */
+public class VerifyExternalIdSorter {
+
+	public VerifyExternalIdSorter() {
+	}
+
+	@Test
+	public void sortInMemory() throws Exception {
+		try (ExternalIdSorter sorter = new ExternalIdSorter(10)) {
+			sorter.add("c");
+			sorter.add("a");
+			sorter.add("b");
+			assertEquals("Unexpected run count", 0, sorter.getRunCount());
+			assertEquals("Unexpected order", List.of("a", "b", "c"), readAll(sorter));
+		}
+	}
+
+	@Test
+	public void mergeSortedRuns() throws Exception {
+		List<String> ids = new ArrayList<>();
+		Random random = new Random(7);
+		for (int i = 0; i < 1000; i++) {
+			ids.add("id-" + random.nextInt(500));
+		}
+		try (ExternalIdSorter sorter = new ExternalIdSorter(64)) {
+			for (String id : ids) {
+				sorter.add(id);
+			}
+			assertEquals("Unexpected run count", 15, sorter.getRunCount());
+			assertEquals("Unexpected size", 1000, sorter.size());
+			Collections.sort(ids);
+			assertEquals("Unexpected order", ids, readAll(sorter));
+		}
+	}
+
+	private static List<String> readAll(ExternalIdSorter sorter) throws Exception {
+		List<String> sorted = new ArrayList<>();
+		try (ExternalIdSorter.Cursor cursor = sorter.open()) {
+			for (String id = cursor.next(); null != id; id = cursor.next()) {
+				sorted.add(id);
+			}
+		}
+		return sorted;
+	}
+
+}
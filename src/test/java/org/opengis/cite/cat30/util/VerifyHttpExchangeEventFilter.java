@@ -0,0 +1,103 @@
+package org.opengis.cite.cat30.util;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import jakarta.ws.rs.client.ClientRequestContext;
+import jakarta.ws.rs.client.ClientResponseContext;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Verifies the behavior of the HttpExchangeEventFilter class.
+ */
+public class VerifyHttpExchangeEventFilter {
+
+	private static final URI TARGET = URI.create("http://localhost/csw?request=GetCapabilities");
+
+	public VerifyHttpExchangeEventFilter() {
+	}
+
+	private static ClientRequestContext mockRequest() {
+		ClientRequestContext request = mock(ClientRequestContext.class);
+		Map<String, Object> properties = new HashMap<>();
+		when(request.getMethod()).thenReturn("GET");
+		when(request.getUri()).thenReturn(TARGET);
+		doAnswer(invocation -> properties.put(invocation.getArgument(0), invocation.getArgument(1))).when(request)
+			.setProperty(anyString(), any());
+		when(request.getProperty(anyString())).thenAnswer(invocation -> properties.get(invocation.getArgument(0)));
+		return request;
+	}
+
+	private static List<RecordedEvent> readEvents(Recording recording) throws IOException {
+		Path file = Files.createTempFile("ets-cat30-", ".jfr");
+		try {
+			recording.dump(file);
+			return RecordingFile.readAllEvents(file);
+		}
+		finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test
+	public void commitEventWhenEntityClosed() throws IOException {
+		HttpExchangeEventFilter filter = new HttpExchangeEventFilter();
+		ClientRequestContext request = mockRequest();
+		ClientResponseContext response = mock(ClientResponseContext.class);
+		when(response.getStatus()).thenReturn(200);
+		when(response.hasEntity()).thenReturn(true);
+		when(response.getEntityStream()).thenReturn(new ByteArrayInputStream(new byte[1024]));
+		List<RecordedEvent> events;
+		try (Recording recording = new Recording()) {
+			recording.enable(TestSuiteEvents.HttpExchange.class);
+			recording.start();
+			filter.filter(request);
+			filter.filter(request, response);
+			ArgumentCaptor<InputStream> entity = ArgumentCaptor.forClass(InputStream.class);
+			verify(response).setEntityStream(entity.capture());
+			try (InputStream in = entity.getValue()) {
+				in.readAllBytes();
+			}
+			recording.stop();
+			events = readEvents(recording);
+		}
+		assertEquals("Unexpected number of events", 1, events.size());
+		RecordedEvent event = events.get(0);
+		assertEquals("org.opengis.cite.cat30.HttpExchange", event.getEventType().getName());
+		assertEquals(TARGET.toString(), event.getString("uri"));
+		assertEquals(200, event.getInt("status"));
+		assertEquals(1024, event.getLong("bytes"));
+		assertTrue(event.getDuration("timeToFirstByte").compareTo(event.getDuration()) <= 0);
+	}
+
+	@Test
+	public void noRecording() throws IOException {
+		HttpExchangeEventFilter filter = new HttpExchangeEventFilter();
+		ClientRequestContext request = mockRequest();
+		ClientResponseContext response = mock(ClientResponseContext.class);
+		filter.filter(request);
+		filter.filter(request, response);
+		assertNull(request.getProperty(HttpExchangeEventFilter.class.getName() + ".event"));
+	}
+
+}
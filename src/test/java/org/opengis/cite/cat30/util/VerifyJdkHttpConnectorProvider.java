@@ -0,0 +1,130 @@
+package org.opengis.cite.cat30.util;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.client.ClientBuilder;
+import jakarta.ws.rs.client.Entity;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Verifies the behavior of the JdkHttpConnectorProvider class using a local HTTP server.
+ */
+public class VerifyJdkHttpConnectorProvider {
+
+	private HttpServer server;
+
+	private URI baseURI;
+
+	private Client client;
+
+	public VerifyJdkHttpConnectorProvider() {
+	}
+
+	@Before
+	public void startServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/echo", exchange -> {
+			byte[] body = exchange.getRequestBody().readAllBytes();
+			String accept = exchange.getRequestHeaders().getFirst(HttpHeaders.ACCEPT);
+			String content = String.format("<echo method='%s' accept='%s'>%s</echo>", exchange.getRequestMethod(),
+					accept, new String(body, StandardCharsets.UTF_8));
+			respond(exchange, 200, content);
+		});
+		server.createContext("/moved", exchange -> {
+			exchange.getResponseHeaders().add(HttpHeaders.LOCATION, "/echo");
+			exchange.sendResponseHeaders(302, -1);
+			exchange.close();
+		});
+		server.start();
+		baseURI = URI.create("http://localhost:" + server.getAddress().getPort());
+		ClientConfig config = new ClientConfig();
+		config.connectorProvider(new JdkHttpConnectorProvider());
+		client = ClientBuilder.newClient(config);
+	}
+
+	@After
+	public void stopServer() {
+		client.close();
+		server.stop(0);
+	}
+
+	private static void respond(HttpExchange exchange, int status, String content) throws IOException {
+		byte[] entity = content.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_XML);
+		exchange.getResponseHeaders().add(HttpHeaders.ETAG, "\"v1\"");
+		exchange.sendResponseHeaders(status, entity.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(entity);
+		}
+	}
+
+	@Test
+	public void getWithAcceptHeader() {
+		Response rsp = client.target(baseURI.resolve("/echo")).request(MediaType.APPLICATION_XML_TYPE).get();
+		assertEquals(200, rsp.getStatus());
+		assertEquals(MediaType.APPLICATION_XML_TYPE, ClientUtils.removeParameters(rsp.getMediaType()));
+		assertEquals("\"v1\"", rsp.getHeaderString(HttpHeaders.ETAG));
+		assertEquals("<echo method='GET' accept='application/xml'></echo>", rsp.readEntity(String.class));
+	}
+
+	@Test
+	public void postEntity() {
+		Response rsp = client.target(baseURI.resolve("/echo"))
+			.request()
+			.post(Entity.entity("<q/>", MediaType.APPLICATION_XML_TYPE));
+		assertEquals(200, rsp.getStatus());
+		assertTrue(rsp.readEntity(String.class).endsWith("><q/></echo>"));
+	}
+
+	@Test
+	public void followRedirect() {
+		Response rsp = client.target(baseURI.resolve("/moved")).request().get();
+		assertEquals(200, rsp.getStatus());
+		assertTrue(rsp.readEntity(String.class).startsWith("<echo method='GET'"));
+	}
+
+	@Test
+	public void doNotFollowRedirect() {
+		Response rsp = client.target(baseURI.resolve("/moved"))
+			.property(ClientProperties.FOLLOW_REDIRECTS, false)
+			.request()
+			.get();
+		assertEquals(302, rsp.getStatus());
+		assertTrue(rsp.getHeaderString(HttpHeaders.LOCATION).endsWith("/echo"));
+	}
+
+	@Test
+	public void asyncGet() throws Exception {
+		Future<Response> future = client.target(baseURI.resolve("/echo")).request().async().get();
+		Response rsp = future.get(10, TimeUnit.SECONDS);
+		assertEquals(200, rsp.getStatus());
+		assertTrue(rsp.readEntity(String.class).startsWith("<echo"));
+	}
+
+	@Test
+	public void notFound() {
+		Response rsp = client.target(baseURI.resolve("/missing")).request().get();
+		assertEquals(404, rsp.getStatus());
+	}
+
+}
@@ -0,0 +1,53 @@
+package org.opengis.cite.cat30.util;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Verifies the behavior of the LatencyHistogram class.
+ */
+public class VerifyLatencyHistogram {
+
+	public VerifyLatencyHistogram() {
+	}
+
+	@Test
+	public void emptyHistogram() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals("Unexpected count", 0, histogram.getCount());
+		assertEquals("Unexpected percentile", 0, histogram.getValueAtPercentile(99));
+	}
+
+	@Test
+	public void smallValuesAreExact() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 50; i++) {
+			histogram.record(i);
+		}
+		assertEquals("Unexpected median", 25, histogram.getValueAtPercentile(50));
+		assertEquals("Unexpected max", 50, histogram.getValueAtPercentile(100));
+	}
+
+	@Test
+	public void percentilesWithinPrecision() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 10000; i++) {
+			histogram.record(i * 100L);
+		}
+		long p99 = histogram.getValueAtPercentile(99);
+		assertTrue("p99 too small: " + p99, p99 >= 990000);
+		assertTrue("p99 too large: " + p99, p99 <= 990000 * 1.04);
+		assertEquals("Unexpected max", 1000000, histogram.getMax());
+	}
+
+	@Test
+	public void bucketBoundsAreContiguous() {
+		for (int i = 0; i < 1000; i++) {
+			long upper = LatencyHistogram.upperBoundOf(i);
+			assertEquals("Unexpected index of upper bound", i, LatencyHistogram.indexOf(upper));
+			assertEquals("Unexpected index of next value", i + 1, LatencyHistogram.indexOf(upper + 1));
+		}
+	}
+
+}
@@ -0,0 +1,78 @@
+package org.opengis.cite.cat30.util;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.validation.Schema;
+
+import org.junit.Test;
+
+/**
+ * Verifies the behavior of the LazySchema class.
+ */
+public class VerifyLazySchema {
+
+	public VerifyLazySchema() {
+	}
+
+	@Test
+	public void compileOnFirstUseOnly() {
+		Schema schema = mock(Schema.class);
+		AtomicInteger compilations = new AtomicInteger();
+		LazySchema lazySchema = new LazySchema("test", () -> {
+			compilations.incrementAndGet();
+			return schema;
+		});
+		assertEquals(0, compilations.get());
+		assertFalse(lazySchema.isDone());
+		assertSame(schema, lazySchema.get());
+		assertSame(schema, lazySchema.get());
+		assertEquals(1, compilations.get());
+		assertTrue(lazySchema.isDone());
+	}
+
+	@Test
+	public void waitForBackgroundCompilation() throws InterruptedException {
+		Schema schema = mock(Schema.class);
+		CountDownLatch compiling = new CountDownLatch(1);
+		AtomicInteger compilations = new AtomicInteger();
+		LazySchema lazySchema = new LazySchema("test", () -> {
+			compilations.incrementAndGet();
+			compiling.countDown();
+			try {
+				Thread.sleep(100);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return schema;
+		});
+		lazySchema.prefetch();
+		compiling.await();
+		assertSame(schema, lazySchema.get());
+		lazySchema.prefetch();
+		assertEquals(1, compilations.get());
+	}
+
+	@Test
+	public void compilationFailed() {
+		LazySchema lazySchema = new LazySchema("test", () -> {
+			throw new IllegalStateException("invalid schema");
+		});
+		assertNull(lazySchema.get());
+		assertTrue(lazySchema.isDone());
+	}
+
+	@Test
+	public void wrapCompiledSchema() {
+		Schema schema = mock(Schema.class);
+		LazySchema lazySchema = LazySchema.of("test", schema);
+		assertTrue(lazySchema.isDone());
+		assertSame(schema, lazySchema.get());
+		assertEquals("test", lazySchema.getName());
+	}
+
+}
@@ -0,0 +1,60 @@
+package org.opengis.cite.cat30.util;
+
+import static org.junit.Assert.*;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.opengis.cite.cat30.util.RequestCatalog.RecordedRequest;
+
+/**
+ * Verifies the behavior of the LoadGenerator class.
+ */
+public class VerifyLoadGenerator {
+
+	public VerifyLoadGenerator() {
+	}
+
+	@Test
+	public void operationNames() {
+		assertEquals("GetRecordById",
+				RequestCatalog.getOperation(URI.create("http://example.org/csw?service=CSW&request=GetRecordById")));
+		assertEquals("OpenSearch", RequestCatalog.getOperation(URI.create("http://example.org/csw?q=alpha")));
+	}
+
+	@Test
+	public void latencyIncludesQueueingDelay() throws InterruptedException {
+		List<RecordedRequest> requests = List.of(
+				new RecordedRequest(URI.create("http://example.org/csw?request=GetRecords"), null),
+				new RecordedRequest(URI.create("http://example.org/csw?request=GetCapabilities"), null));
+		// a single worker takes twice as long as the interval between requests
+		LoadGenerator generator = new LoadGenerator(requests, req -> {
+			sleep(40);
+			return !req.getOperation().equals("GetCapabilities");
+		}, 1);
+		LoadGenerator.Report report = generator.run(50, 400);
+		assertEquals("Unexpected number of requests", 20, report.getScheduledCount());
+		LoadGenerator.OperationStats stats = report.getOperationStats().get("GetRecords");
+		assertEquals("Unexpected request count", 10, stats.getLatency().getCount());
+		assertEquals("Unexpected error count", 0, stats.getErrorCount());
+		assertEquals("Unexpected error count", 10,
+				report.getOperationStats().get("GetCapabilities").getErrorCount());
+		long serviceTime = stats.getServiceTime().getValueAtPercentile(99);
+		long latency = stats.getLatency().getValueAtPercentile(99);
+		assertTrue("Expected latency to exceed service time: " + latency + " <= " + serviceTime,
+				latency > 3 * serviceTime);
+		assertTrue(report.toString(), report.toString().contains("GetCapabilities"));
+	}
+
+	private static void sleep(long millis) {
+		try {
+			TimeUnit.MILLISECONDS.sleep(millis);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
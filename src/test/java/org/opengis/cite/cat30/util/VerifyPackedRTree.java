@@ -0,0 +1,71 @@
+package org.opengis.cite.cat30.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Verifies the behavior of the PackedRTree class.
+ */
+public class VerifyPackedRTree {
+
+	public VerifyPackedRTree() {
+	}
+
+	@Test
+	public void searchEmptyTree() {
+		PackedRTree tree = new PackedRTree(new double[0], new double[0], new double[0], new double[0]);
+		assertEquals("Unexpected size", 0, tree.size());
+		assertEquals("Unexpected number of hits", 0, tree.search(-180, -90, 180, 90).length);
+		assertNull("Expected null bounds", tree.getBounds());
+	}
+
+	@Test
+	public void searchMatchesLinearScan() {
+		Random random = new Random(42);
+		int n = 1000;
+		double[] minX = new double[n];
+		double[] minY = new double[n];
+		double[] maxX = new double[n];
+		double[] maxY = new double[n];
+		for (int i = 0; i < n; i++) {
+			minX[i] = random.nextDouble() * 100;
+			minY[i] = random.nextDouble() * 100;
+			maxX[i] = minX[i] + random.nextDouble() * 5;
+			maxY[i] = minY[i] + random.nextDouble() * 5;
+		}
+		PackedRTree tree = new PackedRTree(minX, minY, maxX, maxY, 8);
+		for (int q = 0; q < 50; q++) {
+			double x = random.nextDouble() * 100;
+			double y = random.nextDouble() * 100;
+			double size = random.nextDouble() * 20;
+			int[] hits = tree.search(x, y, x + size, y + size);
+			Arrays.sort(hits);
+			List<Integer> expected = new ArrayList<>();
+			for (int i = 0; i < n; i++) {
+				if (minX[i] <= x + size && maxX[i] >= x && minY[i] <= y + size && maxY[i] >= y) {
+					expected.add(i);
+				}
+			}
+			assertEquals("Unexpected number of hits", expected.size(), hits.length);
+			for (int i = 0; i < hits.length; i++) {
+				assertEquals("Unexpected hit", expected.get(i).intValue(), hits[i]);
+			}
+		}
+	}
+
+	@Test
+	public void touchingBoxesIntersect() {
+		PackedRTree tree = new PackedRTree(new double[] { 0, 10 }, new double[] { 0, 10 }, new double[] { 5, 15 },
+				new double[] { 5, 15 });
+		int[] hits = tree.search(5, 5, 6, 6);
+		assertArrayEquals("Unexpected hits", new int[] { 0 }, hits);
+		assertArrayEquals("Unexpected bounds", new double[] { 0, 0, 15, 15 }, tree.getBounds(), 0);
+	}
+
+}
@@ -0,0 +1,101 @@
+package org.opengis.cite.cat30.util;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BiFunction;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Test;
+import org.opengis.cite.cat30.Namespaces;
+
+/**
+ * Verifies the behavior of the PaginationChecker class.
+ */
+public class VerifyPaginationChecker {
+
+	public VerifyPaginationChecker() {
+	}
+
+	@Test
+	public void consistentResultSet() {
+		String[] ids = createIds(95);
+		PaginationChecker checker = new PaginationChecker(pagesOf(ids, ids.length), 10);
+		PaginationChecker.Report report = checker.walk(Integer.MAX_VALUE);
+		assertTrue(report.toString(), report.isConsistent());
+		assertTrue("Expected complete walk", report.isComplete());
+		assertEquals("Unexpected number of pages", 10, report.getPageCount());
+		assertEquals("Unexpected number of distinct ids", 95, report.getDistinctIds());
+	}
+
+	@Test
+	public void walkStopsAtLimit() {
+		String[] ids = createIds(95);
+		PaginationChecker checker = new PaginationChecker(pagesOf(ids, ids.length), 10);
+		PaginationChecker.Report report = checker.walk(25);
+		assertTrue(report.toString(), report.isConsistent());
+		assertFalse("Expected incomplete walk", report.isComplete());
+		assertEquals("Unexpected number of records", 25, report.getRecordsSeen());
+	}
+
+	@Test
+	public void detectDuplicateInLaterPage() {
+		String[] ids = createIds(40);
+		ids[33] = ids[4];
+		PaginationChecker checker = new PaginationChecker(pagesOf(ids, ids.length), 10);
+		PaginationChecker.Report report = checker.walk(Integer.MAX_VALUE);
+		assertFalse("Expected inconsistency", report.isConsistent());
+		assertEquals("Unexpected number of duplicates", 1, report.getDuplicates());
+		assertTrue(report.getIssues().get(0), report.getIssues().get(0).contains("position 34 duplicates position 5"));
+	}
+
+	@Test
+	public void detectMissingRecordsAtEnd() {
+		String[] ids = createIds(30);
+		PaginationChecker checker = new PaginationChecker(pagesOf(ids, 32), 10);
+		PaginationChecker.Report report = checker.walk(Integer.MAX_VALUE);
+		assertFalse("Expected inconsistency", report.isConsistent());
+		assertEquals("Unexpected number of gaps", 2, report.getGaps());
+	}
+
+	private static String[] createIds(int count) {
+		String[] ids = new String[count];
+		for (int i = 0; i < count; i++) {
+			ids[i] = "urn:example:record-" + i;
+		}
+		return ids;
+	}
+
+	/**
+	 * Creates a page source for the given records.
+	 * @param ids The record identifiers, in result set order.
+	 * @param matched The reported numberOfRecordsMatched value.
+	 */
+	private static BiFunction<Integer, Integer, RecordPage> pagesOf(String[] ids, int matched) {
+		return (startPosition, maxRecords) -> {
+			int end = Math.min(ids.length, startPosition - 1 + maxRecords);
+			int returned = Math.max(0, end - startPosition + 1);
+			int nextRecord = (end >= matched || end >= ids.length) ? 0 : end + 1;
+			StringBuilder xml = new StringBuilder();
+			xml.append("<csw:GetRecordsResponse xmlns:csw='").append(Namespaces.CSW);
+			xml.append("' xmlns:dc='").append(Namespaces.DCMES).append("'>");
+			xml.append(String.format("<csw:SearchResults numberOfRecordsMatched='%d' numberOfRecordsReturned='%d'"
+					+ " nextRecord='%d'>", matched, returned, nextRecord));
+			for (int i = startPosition - 1; i < end; i++) {
+				xml.append("<csw:BriefRecord><dc:identifier>").append(ids[i]);
+				xml.append("</dc:identifier></csw:BriefRecord>");
+			}
+			xml.append("</csw:SearchResults></csw:GetRecordsResponse>");
+			try {
+				return RecordPage.read(startPosition,
+						new ByteArrayInputStream(xml.toString().getBytes(StandardCharsets.UTF_8)));
+			}
+			catch (XMLStreamException xse) {
+				throw new RuntimeException(xse);
+			}
+		};
+	}
+
+}
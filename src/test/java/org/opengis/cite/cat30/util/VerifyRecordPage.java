@@ -0,0 +1,62 @@
+package org.opengis.cite.cat30.util;
+
+import static org.junit.Assert.*;
+
+import java.io.InputStream;
+
+import org.junit.Test;
+
+/**
+ * Verifies the behavior of the RecordPage class.
+ */
+public class VerifyRecordPage {
+
+	public VerifyRecordPage() {
+	}
+
+	@Test
+	public void readPageOfFullRecords() throws Exception {
+		try (InputStream inStream = getClass().getResourceAsStream("/rsp/GetRecordsResponse-full.xml")) {
+			RecordPage page = RecordPage.read(1, inStream);
+			assertEquals("Unexpected numberOfRecordsMatched", 171, page.getNumberOfRecordsMatched());
+			assertEquals("Unexpected numberOfRecordsReturned", 10, page.getNumberOfRecordsReturned());
+			assertEquals("Unexpected nextRecord", 11, page.getNextRecord());
+			assertEquals("Unexpected number of records", 10, page.getRecordCount());
+			assertEquals("Unexpected number of identifiers", 10, page.getRecordIds().size());
+			assertEquals("Unexpected identifier", "urn:uuid:b1254954-f765-11e1-bf69-aa0000ae6bfc",
+					page.getRecordIds().get(9));
+		}
+	}
+
+	@Test
+	public void readEmptyPage() throws Exception {
+		try (InputStream inStream = getClass().getResourceAsStream("/rsp/GetRecordsResponse-empty.xml")) {
+			RecordPage page = RecordPage.read(1, inStream);
+			assertEquals("Unexpected numberOfRecordsMatched", 0, page.getNumberOfRecordsMatched());
+			assertEquals("Expected missing nextRecord", -1, page.getNextRecord());
+			assertTrue("Expected no identifiers", page.getRecordIds().isEmpty());
+		}
+	}
+
+	@Test
+	public void readAtomFeed() throws Exception {
+		try (InputStream inStream = getClass().getResourceAsStream("/rsp/feed-1.xml")) {
+			RecordPage page = RecordPage.read(1, inStream);
+			assertEquals("Unexpected totalResults", 2, page.getNumberOfRecordsMatched());
+			assertEquals("Unexpected number of entries", 2, page.getRecordCount());
+			assertEquals("Unexpected startIndex", 1, page.getStartIndex());
+			assertEquals("Unexpected identifier", "rec-91234", page.getRecordIds().get(1));
+		}
+	}
+
+	@Test
+	public void readSingleRecord() throws Exception {
+		try (InputStream inStream = getClass().getResourceAsStream("/atom/entry-invalid.xml")) {
+			RecordPage page = RecordPage.read(1, inStream);
+			assertEquals("Unexpected number of records", 1, page.getRecordCount());
+			assertEquals("Unexpected nextRecord", 0, page.getNextRecord());
+			assertEquals("Unexpected identifier", "id-01", page.getRecordIds().get(0));
+		}
+	}
+
+}
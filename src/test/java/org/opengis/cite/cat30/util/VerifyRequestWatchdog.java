@@ -0,0 +1,194 @@
+package org.opengis.cite.cat30.util;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.glassfish.jersey.client.ClientRequest;
+import org.glassfish.jersey.client.ClientResponse;
+import org.glassfish.jersey.client.spi.Connector;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import jakarta.ws.rs.ProcessingException;
+
+/**
+ * Verifies the behavior of the RequestWatchdog class.
+ */
+public class VerifyRequestWatchdog {
+
+	private static final URI TARGET = URI.create("http://localhost/csw?request=GetRecords");
+
+	public VerifyRequestWatchdog() {
+	}
+
+	@After
+	public void endRun() {
+		RequestWatchdog.endRun();
+	}
+
+	private static ClientRequest mockRequest() {
+		ClientRequest request = mock(ClientRequest.class);
+		when(request.getMethod()).thenReturn("GET");
+		when(request.getUri()).thenReturn(TARGET);
+		return request;
+	}
+
+	private static Connector decorate(Connector delegate) {
+		return RequestWatchdog.decorate((client, config) -> delegate).getConnector(null, null);
+	}
+
+	private static Thread submit(Connector delegate, AtomicReference<Throwable> failure) {
+		Connector connector = decorate(delegate);
+		Thread thread = new Thread(() -> {
+			try {
+				connector.apply(mockRequest());
+			}
+			catch (Throwable t) {
+				failure.set(t);
+			}
+		});
+		thread.start();
+		return thread;
+	}
+
+	private static void awaitInFlight(RequestWatchdog watchdog) throws InterruptedException {
+		for (int i = 0; i < 100 && watchdog.getInFlightRequests().isEmpty(); i++) {
+			Thread.sleep(10);
+		}
+	}
+
+	@Test
+	public void reportStalledRequestOnce() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		Connector delegate = mock(Connector.class);
+		when(delegate.apply(any(ClientRequest.class))).thenAnswer(invocation -> {
+			release.await();
+			return mock(ClientResponse.class);
+		});
+		File reportFile = File.createTempFile("stalled-", ".txt");
+		reportFile.deleteOnExit();
+		RequestWatchdog watchdog = new RequestWatchdog(50, false, reportFile);
+		RequestWatchdog.startRun(watchdog);
+		Thread thread = submit(delegate, new AtomicReference<>());
+		awaitInFlight(watchdog);
+		Thread.sleep(100);
+		List<String> reports = watchdog.check();
+		assertEquals("Unexpected number of reports", 1, reports.size());
+		assertTrue(reports.get(0).contains("GET " + TARGET));
+		assertTrue(reports.get(0).contains("Test: (none)"));
+		assertTrue(reports.get(0).contains("Phase: awaiting response"));
+		assertTrue("Expected stack of waiting thread", reports.get(0).contains("\tat "));
+		assertTrue("Expected no further reports", watchdog.check().isEmpty());
+		assertEquals(1, watchdog.getStallCount());
+		String content = new String(Files.readAllBytes(reportFile.toPath()), StandardCharsets.UTF_8);
+		assertTrue(content.contains(TARGET.toString()));
+		release.countDown();
+		thread.join(5000);
+		assertTrue(watchdog.getInFlightRequests().isEmpty());
+	}
+
+	@Test
+	public void abortStalledRequest() throws Exception {
+		Connector delegate = mock(Connector.class);
+		when(delegate.apply(any(ClientRequest.class))).thenAnswer(invocation -> {
+			try {
+				Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+			}
+			catch (InterruptedException e) {
+				throw new ProcessingException(e);
+			}
+			return mock(ClientResponse.class);
+		});
+		RequestWatchdog watchdog = new RequestWatchdog(50, true, null);
+		RequestWatchdog.startRun(watchdog);
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		Thread thread = submit(delegate, failure);
+		awaitInFlight(watchdog);
+		Thread.sleep(100);
+		assertEquals(1, watchdog.check().size());
+		thread.join(5000);
+		assertFalse("Request was not aborted", thread.isAlive());
+		assertTrue("Expected AbortedException", failure.get() instanceof RequestWatchdog.AbortedException);
+	}
+
+	@Test
+	public void trackUntilEntityIsRead() throws Exception {
+		ClientResponse response = mock(ClientResponse.class);
+		when(response.getStatus()).thenReturn(200);
+		when(response.getLength()).thenReturn(-1);
+		when(response.getEntityStream()).thenReturn(new ByteArrayInputStream(new byte[] { 1, 2 }));
+		Connector delegate = mock(Connector.class);
+		when(delegate.apply(any(ClientRequest.class))).thenReturn(response);
+		RequestWatchdog watchdog = new RequestWatchdog(50, false, null);
+		RequestWatchdog.startRun(watchdog);
+		decorate(delegate).apply(mockRequest());
+		ArgumentCaptor<InputStream> entityStream = ArgumentCaptor.forClass(InputStream.class);
+		verify(response).setEntityStream(entityStream.capture());
+		assertEquals(1, watchdog.getInFlightRequests().size());
+		assertTrue(watchdog.getInFlightRequests().get(0).isReceivingEntity());
+		Thread.sleep(100);
+		List<String> reports = watchdog.check();
+		assertEquals("Stalled entity not reported", 1, reports.size());
+		assertTrue(reports.get(0).contains("Phase: reading response entity"));
+		entityStream.getValue().readAllBytes();
+		assertTrue(watchdog.getInFlightRequests().isEmpty());
+	}
+
+	@Test
+	public void endTrackingWhenEntityIsClosed() throws Exception {
+		ClientResponse response = mock(ClientResponse.class);
+		when(response.getStatus()).thenReturn(200);
+		when(response.getLength()).thenReturn(100);
+		when(response.getEntityStream()).thenReturn(new ByteArrayInputStream(new byte[100]));
+		Connector delegate = mock(Connector.class);
+		when(delegate.apply(any(ClientRequest.class))).thenReturn(response);
+		RequestWatchdog watchdog = new RequestWatchdog(50, false, null);
+		RequestWatchdog.startRun(watchdog);
+		decorate(delegate).apply(mockRequest());
+		ArgumentCaptor<InputStream> entityStream = ArgumentCaptor.forClass(InputStream.class);
+		verify(response).setEntityStream(entityStream.capture());
+		entityStream.getValue().close();
+		assertTrue(watchdog.getInFlightRequests().isEmpty());
+	}
+
+	@Test
+	public void trackRequestsOfRunOnly() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		Connector delegate = mock(Connector.class);
+		when(delegate.apply(any(ClientRequest.class))).thenAnswer(invocation -> {
+			release.await();
+			return mock(ClientResponse.class);
+		});
+		RequestWatchdog watchdog = new RequestWatchdog(50, false, null);
+		RequestWatchdog other = new RequestWatchdog(50, false, null);
+		RequestWatchdog.startRun(watchdog);
+		Thread thread = submit(delegate, new AtomicReference<>());
+		awaitInFlight(watchdog);
+		assertEquals(1, watchdog.getInFlightRequests().size());
+		assertTrue(other.getInFlightRequests().isEmpty());
+		release.countDown();
+		thread.join(5000);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidThreshold() throws IOException {
+		new RequestWatchdog(0, false, null);
+	}
+
+}
@@ -0,0 +1,120 @@
+package org.opengis.cite.cat30.util;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.opengis.cite.cat30.util.ResponseCache.CachedResponse;
+
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Verifies the behavior of the ResponseCache class.
+ */
+public class VerifyResponseCache {
+
+	private static final URI CAPABILITIES_URI = URI.create("http://example.org/csw?service=CSW&request=GetCapabilities");
+
+	private static final byte[] ENTITY = "<Capabilities xmlns='http://www.opengis.net/cat/csw/3.0'/>"
+		.getBytes(StandardCharsets.UTF_8);
+
+	public VerifyResponseCache() {
+	}
+
+	@Test
+	public void revalidateWithEntityTag() {
+		List<String> conditions = new ArrayList<>();
+		ResponseCache cache = new ResponseCache((uri, entityTag, lastModified, mediaTypes) -> {
+			conditions.add(entityTag);
+			return (null == entityTag) ? okResponse("\"v1\"", null) : notModified();
+		}, 4);
+		CachedResponse first = cache.get(CAPABILITIES_URI, MediaType.APPLICATION_XML_TYPE);
+		assertFalse("First response revalidated.", first.isRevalidated());
+		assertEquals("Unexpected received bytes", ENTITY.length, first.getReceivedBytes());
+		CachedResponse second = cache.get(CAPABILITIES_URI, MediaType.APPLICATION_XML_TYPE);
+		assertTrue("Second response not revalidated.", second.isRevalidated());
+		assertEquals("Unexpected status", 200, second.getStatus());
+		assertEquals("Unexpected received bytes", 0, second.getReceivedBytes());
+		assertArrayEquals("Unexpected entity", ENTITY, second.getEntity());
+		assertEquals("Unexpected document element", "Capabilities",
+				second.getEntityAsDocument(CAPABILITIES_URI).getDocumentElement().getLocalName());
+		assertEquals("Unexpected conditions", Arrays.asList(null, "\"v1\""), conditions);
+		assertEquals("Unexpected revalidation count", 1, cache.getRevalidationCount());
+		assertEquals("Unexpected bytes saved", ENTITY.length, cache.getBytesSaved());
+	}
+
+	@Test
+	public void responseWithoutValidatorIsNotCached() {
+		List<String> conditions = new ArrayList<>();
+		ResponseCache cache = new ResponseCache((uri, entityTag, lastModified, mediaTypes) -> {
+			conditions.add(lastModified);
+			return okResponse(null, null);
+		}, 4);
+		cache.get(CAPABILITIES_URI, MediaType.APPLICATION_XML_TYPE);
+		CachedResponse second = cache.get(CAPABILITIES_URI, MediaType.APPLICATION_XML_TYPE);
+		assertFalse("Response revalidated.", second.isRevalidated());
+		assertFalse(second.hasValidator());
+		assertNull("Unexpected condition", conditions.get(1));
+		assertEquals("Unexpected request count", 2, cache.getRequestCount());
+	}
+
+	@Test
+	public void changedRepresentationReplacesCachedOne() {
+		List<String> conditions = new ArrayList<>();
+		String date = "Tue, 15 Sep 2026 08:00:00 GMT";
+		ResponseCache cache = new ResponseCache((uri, entityTag, lastModified, mediaTypes) -> {
+			conditions.add(lastModified);
+			return okResponse(null, (conditions.size() == 1) ? date : "Wed, 16 Sep 2026 08:00:00 GMT");
+		}, 4);
+		cache.get(CAPABILITIES_URI, MediaType.APPLICATION_XML_TYPE);
+		CachedResponse second = cache.get(CAPABILITIES_URI, MediaType.APPLICATION_XML_TYPE);
+		assertFalse("Changed response revalidated.", second.isRevalidated());
+		cache.get(CAPABILITIES_URI, MediaType.APPLICATION_XML_TYPE);
+		assertEquals("Unexpected conditions", date, conditions.get(1));
+		assertEquals("Unexpected conditions", "Wed, 16 Sep 2026 08:00:00 GMT", conditions.get(2));
+	}
+
+	@Test
+	public void runCacheIsInherited() throws InterruptedException {
+		ResponseCache cache = new ResponseCache((uri, entityTag, lastModified, mediaTypes) -> notModified(), 4);
+		ResponseCache.startRun(cache);
+		try {
+			assertSame(cache, ResponseCache.forRun());
+			ResponseCache[] inherited = new ResponseCache[1];
+			Thread thread = new Thread(() -> inherited[0] = ResponseCache.forRun());
+			thread.start();
+			thread.join();
+			assertSame("Cache not inherited by new thread", cache, inherited[0]);
+		}
+		finally {
+			ResponseCache.endRun();
+		}
+	}
+
+	private static Response okResponse(String entityTag, String lastModified) {
+		Response rsp = mock(Response.class);
+		when(rsp.getStatus()).thenReturn(Response.Status.OK.getStatusCode());
+		when(rsp.hasEntity()).thenReturn(true);
+		when(rsp.readEntity(byte[].class)).thenReturn(ENTITY);
+		when(rsp.getMediaType()).thenReturn(MediaType.APPLICATION_XML_TYPE);
+		when(rsp.getHeaderString(HttpHeaders.ETAG)).thenReturn(entityTag);
+		when(rsp.getHeaderString(HttpHeaders.LAST_MODIFIED)).thenReturn(lastModified);
+		return rsp;
+	}
+
+	private static Response notModified() {
+		Response rsp = mock(Response.class);
+		when(rsp.getStatus()).thenReturn(Response.Status.NOT_MODIFIED.getStatusCode());
+		return rsp;
+	}
+
+}
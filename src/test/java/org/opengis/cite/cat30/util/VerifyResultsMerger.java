@@ -0,0 +1,95 @@
+package org.opengis.cite.cat30.util;
+
+import static org.junit.Assert.*;
+
+import java.io.StringReader;
+import java.util.Arrays;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+/**
+ * Verifies the behavior of the ResultsMerger class.
+ */
+public class VerifyResultsMerger {
+
+	private static final String RESULTS_0 = "<testng-results total='2' passed='1' failed='1' skipped='0'>"
+			+ "<suite name='cat30' started-at='2026-10-19T10:00:05 UTC' finished-at='2026-10-19T10:01:00 UTC' duration-ms='55000'>"
+			+ "<test name='Basic-Catalogue' started-at='2026-10-19T10:00:05 UTC' finished-at='2026-10-19T10:01:00 UTC'>"
+			+ "<class name='a.B'><test-method status='PASS' name='b1' duration-ms='100'/>"
+			+ "<test-method status='FAIL' name='b2' duration-ms='200'/></class>"
+			+ "</test></suite></testng-results>";
+
+	private static final String RESULTS_1 = "<testng-results total='1' passed='1' failed='0' skipped='0'>"
+			+ "<suite name='cat30' started-at='2026-10-19T10:00:00 UTC' finished-at='2026-10-19T10:00:50 UTC' duration-ms='50000'>"
+			+ "<test name='Basic-Catalogue' started-at='2026-10-19T10:00:00 UTC' finished-at='2026-10-19T10:00:50 UTC'>"
+			+ "<class name='a.C'><test-method status='PASS' name='c1' duration-ms='300'/></class>"
+			+ "</test><test name='OpenSearch'><class name='a.D'/></test></suite></testng-results>";
+
+	private static final String EARL = "<rdf:RDF xmlns:rdf='http://www.w3.org/1999/02/22-rdf-syntax-ns#'>"
+			+ "<rdf:Description rdf:nodeID='b0'><rdf:value>%s</rdf:value></rdf:Description></rdf:RDF>";
+
+	private static final String EARL_RUN = "<rdf:RDF xmlns:rdf='http://www.w3.org/1999/02/22-rdf-syntax-ns#'"
+			+ " xmlns:cite='http://cite.opengeospatial.org/'>"
+			+ "<cite:TestRun rdf:about='http://example.org/run'><cite:testsPassed rdf:datatype="
+			+ "'http://www.w3.org/2001/XMLSchema#int'>%d</cite:testsPassed>"
+			+ "<cite:testsFailed>%d</cite:testsFailed></cite:TestRun></rdf:RDF>";
+
+	public VerifyResultsMerger() {
+	}
+
+	private static Document parse(String xml) throws Exception {
+		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+		factory.setNamespaceAware(true);
+		return factory.newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+	}
+
+	@Test
+	public void mergeTestNGResults() throws Exception {
+		Document merged = ResultsMerger.mergeTestNGResults(Arrays.asList(parse(RESULTS_0), parse(RESULTS_1)));
+		Element root = merged.getDocumentElement();
+		assertEquals("3", root.getAttribute("total"));
+		assertEquals("2", root.getAttribute("passed"));
+		assertEquals("1", root.getAttribute("failed"));
+		assertEquals(1, merged.getElementsByTagName("suite").getLength());
+		NodeList tests = merged.getElementsByTagName("test");
+		assertEquals(2, tests.getLength());
+		Element basic = (Element) tests.item(0);
+		assertEquals(2, basic.getElementsByTagName("class").getLength());
+		assertEquals("2026-10-19T10:00:00 UTC", basic.getAttribute("started-at"));
+		assertEquals("2026-10-19T10:01:00 UTC", basic.getAttribute("finished-at"));
+		assertEquals("55000", ((Element) merged.getElementsByTagName("suite").item(0)).getAttribute("duration-ms"));
+	}
+
+	@Test
+	public void mergeEarlResultsKeepsBlankNodesDistinct() throws Exception {
+		Document merged = ResultsMerger.mergeEarlResults(
+				Arrays.asList(parse(String.format(EARL, "first")), parse(String.format(EARL, "second"))));
+		NodeList descriptions = merged.getElementsByTagNameNS("http://www.w3.org/1999/02/22-rdf-syntax-ns#",
+				"Description");
+		assertEquals(2, descriptions.getLength());
+		String id0 = ((Element) descriptions.item(0)).getAttributeNS("http://www.w3.org/1999/02/22-rdf-syntax-ns#",
+				"nodeID");
+		String id1 = ((Element) descriptions.item(1)).getAttributeNS("http://www.w3.org/1999/02/22-rdf-syntax-ns#",
+				"nodeID");
+		assertNotEquals(id0, id1);
+	}
+
+	@Test
+	public void mergeEarlResultsSumsCounts() throws Exception {
+		Document merged = ResultsMerger.mergeEarlResults(
+				Arrays.asList(parse(String.format(EARL_RUN, 3, 1)), parse(String.format(EARL_RUN, 4, 0))));
+		NodeList passed = merged.getElementsByTagNameNS("http://cite.opengeospatial.org/", "testsPassed");
+		assertEquals(1, passed.getLength());
+		assertEquals("7", passed.item(0).getTextContent());
+		NodeList failed = merged.getElementsByTagNameNS("http://cite.opengeospatial.org/", "testsFailed");
+		assertEquals(1, failed.getLength());
+		assertEquals("1", failed.item(0).getTextContent());
+	}
+
+}
@@ -0,0 +1,190 @@
+package org.opengis.cite.cat30.util;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+import org.glassfish.jersey.client.ClientRequest;
+import org.glassfish.jersey.client.ClientResponse;
+import org.glassfish.jersey.client.spi.Connector;
+import org.junit.Test;
+
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.ProcessingException;
+
+/**
+ * Verifies the behavior of the RetryPolicy class.
+ */
+public class VerifyRetryPolicy {
+
+	public VerifyRetryPolicy() {
+	}
+
+	private static ClientRequest mockRequest(String method) {
+		ClientRequest request = mock(ClientRequest.class);
+		when(request.getMethod()).thenReturn(method);
+		when(request.getUri()).thenReturn(URI.create("http://localhost/csw"));
+		return request;
+	}
+
+	private static ClientResponse mockResponse(int status) {
+		ClientResponse response = mock(ClientResponse.class);
+		when(response.getStatus()).thenReturn(status);
+		return response;
+	}
+
+	private static Connector decorate(RetryPolicy policy, Connector delegate, CircuitBreaker breaker) {
+		return policy.decorate((client, config) -> delegate, breaker).getConnector(null, null);
+	}
+
+	@Test
+	public void parseRetryAfterSeconds() {
+		assertEquals(3000, RetryPolicy.parseRetryAfter("3"));
+		assertEquals(0, RetryPolicy.parseRetryAfter("soon"));
+		assertEquals(0, RetryPolicy.parseRetryAfter(null));
+	}
+
+	@Test
+	public void parseRetryAfterDate() {
+		String date = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(60));
+		long delay = RetryPolicy.parseRetryAfter(date);
+		assertTrue("Unexpected delay: " + delay, delay > 50000 && delay <= 60000);
+	}
+
+	@Test
+	public void delayIsBounded() {
+		RetryPolicy policy = new RetryPolicy(5, 100, 1000);
+		for (int retry = 1; retry <= 5; retry++) {
+			long delay = policy.delayMillis(retry, null);
+			assertTrue("Unexpected delay: " + delay, delay >= 0 && delay <= Math.min(1000, 100 << (retry - 1)));
+		}
+		assertTrue("Invalid Retry-After ignored", policy.delayMillis(1, "0.5") <= 100);
+		assertTrue(policy.delayMillis(1, "1") >= 1000);
+		assertTrue("Retry-After beyond maximum delay", policy.delayMillis(1, "2") < 0);
+	}
+
+	@Test
+	public void transientFailures() {
+		assertTrue(RetryPolicy.isTransient(new ProcessingException(new ConnectException("Connection refused"))));
+		assertFalse(RetryPolicy.isTransient(new ProcessingException(new SocketTimeoutException("Read timed out"))));
+		assertFalse(RetryPolicy.isTransient(
+				new Deadline.ExceededException("GET", 10, new ConnectException("Connection refused"))));
+		assertFalse(RetryPolicy.isTransient(
+				new RequestWatchdog.AbortedException("GET", new SocketException("Socket closed"))));
+		assertTrue(RetryPolicy.isTransient(503));
+		assertFalse(RetryPolicy.isTransient(500));
+	}
+
+	@Test
+	public void retryUnavailableResponse() {
+		Connector delegate = mock(Connector.class);
+		ClientResponse unavailable = mockResponse(503);
+		ClientResponse ok = mockResponse(200);
+		when(delegate.apply(any(ClientRequest.class))).thenReturn(unavailable, ok);
+		CircuitBreaker breaker = new CircuitBreaker();
+		ClientResponse response = decorate(new RetryPolicy(2, 1, 10), delegate, breaker)
+			.apply(mockRequest(HttpMethod.GET));
+		assertSame(ok, response);
+		verify(unavailable).close();
+		verify(delegate, times(2)).apply(any(ClientRequest.class));
+	}
+
+	@Test
+	public void retryConnectionError() {
+		Connector delegate = mock(Connector.class);
+		ClientResponse ok = mockResponse(200);
+		when(delegate.apply(any(ClientRequest.class)))
+			.thenThrow(new ProcessingException(new ConnectException("Connection refused")))
+			.thenReturn(ok);
+		ClientResponse response = decorate(new RetryPolicy(2, 1, 10), delegate, new CircuitBreaker())
+			.apply(mockRequest(HttpMethod.GET));
+		assertSame(ok, response);
+	}
+
+	@Test
+	public void doNotRetryPastDeadline() {
+		Connector delegate = mock(Connector.class);
+		ClientResponse unavailable = mockResponse(503);
+		when(unavailable.getHeaderString("Retry-After")).thenReturn("1");
+		when(delegate.apply(any(ClientRequest.class))).thenReturn(unavailable);
+		Deadline.setTestBudget(500);
+		Deadline.startTest();
+		try {
+			ClientResponse response = decorate(new RetryPolicy(2, 1, 2000), delegate, new CircuitBreaker())
+				.apply(mockRequest(HttpMethod.GET));
+			assertSame(unavailable, response);
+			verify(delegate, times(1)).apply(any(ClientRequest.class));
+		}
+		finally {
+			Deadline.endTest();
+			Deadline.setTestBudget(0);
+		}
+	}
+
+	@Test
+	public void interruptedBackOffReopensCircuit() {
+		Connector delegate = mock(Connector.class);
+		when(delegate.apply(any(ClientRequest.class)))
+			.thenThrow(new ProcessingException(new ConnectException("Connection refused")));
+		long[] now = { 0 };
+		CircuitBreaker breaker = new CircuitBreaker(1, 1000, () -> now[0]);
+		breaker.recordFailure("localhost");
+		now[0] = TimeUnit.MILLISECONDS.toNanos(1000);
+		Thread.currentThread().interrupt();
+		try {
+			decorate(new RetryPolicy(2, 1000, 1000), delegate, breaker).apply(mockRequest(HttpMethod.GET));
+			fail("Expected ProcessingException");
+		}
+		catch (ProcessingException e) {
+			assertTrue(e.getCause() instanceof InterruptedException);
+		}
+		finally {
+			Thread.interrupted();
+		}
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState("localhost"));
+	}
+
+	@Test
+	public void doNotRetryPost() {
+		Connector delegate = mock(Connector.class);
+		ClientResponse unavailable = mockResponse(503);
+		when(delegate.apply(any(ClientRequest.class))).thenReturn(unavailable);
+		ClientResponse response = decorate(new RetryPolicy(2, 1, 10), delegate, new CircuitBreaker())
+			.apply(mockRequest(HttpMethod.POST));
+		assertSame(unavailable, response);
+		verify(delegate, times(1)).apply(any(ClientRequest.class));
+	}
+
+	@Test
+	public void giveUpAfterMaxRetries() {
+		Connector delegate = mock(Connector.class);
+		ClientResponse unavailable = mockResponse(502);
+		when(delegate.apply(any(ClientRequest.class))).thenReturn(unavailable);
+		CircuitBreaker breaker = new CircuitBreaker(1, 60000, System::nanoTime);
+		Connector connector = decorate(new RetryPolicy(2, 1, 10), delegate, breaker);
+		ClientResponse response = connector.apply(mockRequest(HttpMethod.GET));
+		assertEquals(502, response.getStatus());
+		verify(delegate, times(3)).apply(any(ClientRequest.class));
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState("localhost"));
+		try {
+			connector.apply(mockRequest(HttpMethod.GET));
+			fail("Expected CircuitOpenException");
+		}
+		catch (CircuitBreaker.CircuitOpenException e) {
+			verify(delegate, times(3)).apply(any(ClientRequest.class));
+		}
+	}
+
+}
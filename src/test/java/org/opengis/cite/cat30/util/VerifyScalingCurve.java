@@ -0,0 +1,55 @@
+package org.opengis.cite.cat30.util;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Verifies the behavior of the ScalingCurve class.
+ */
+public class VerifyScalingCurve {
+
+	public VerifyScalingCurve() {
+	}
+
+	@Test
+	public void linearGrowth() {
+		ScalingCurve curve = new ScalingCurve();
+		for (int n : new int[] { 1, 10, 100, 1000 }) {
+			curve.add(n, n, n * 500L, 20000 + n * 100L);
+		}
+		assertEquals("Unexpected exponent", 1.0, curve.getExponent(), 0.01);
+		assertFalse("Linear growth flagged as super-linear.", curve.isSuperLinear(1.25, 50000));
+	}
+
+	@Test
+	public void quadraticGrowth() {
+		ScalingCurve curve = new ScalingCurve();
+		for (int n : new int[] { 1, 10, 100, 1000 }) {
+			curve.add(n, n, n * 500L, 20000 + (long) (n - 1) * (n - 1));
+		}
+		assertEquals("Unexpected exponent", 2.0, curve.getExponent(), 0.01);
+		assertTrue("Quadratic growth not flagged.", curve.isSuperLinear(1.25, 50000));
+	}
+
+	@Test
+	public void insignificantGrowthIsIgnored() {
+		ScalingCurve curve = new ScalingCurve();
+		for (int n : new int[] { 1, 10, 100 }) {
+			curve.add(n, n, n * 500L, 20000 + (long) n * n);
+		}
+		assertTrue("Expected exponent > 1.25", curve.getExponent() > 1.25);
+		assertFalse("Growth of 10 ms flagged as significant.", curve.isSuperLinear(1.25, 50000));
+	}
+
+	@Test
+	public void tooFewDistinctSizes() {
+		ScalingCurve curve = new ScalingCurve();
+		curve.add(1, 1, 500, 20000);
+		curve.add(10, 5, 2500, 21000);
+		curve.add(100, 5, 2500, 21500);
+		assertTrue("Expected NaN", Double.isNaN(curve.getExponent()));
+		assertFalse(curve.isSuperLinear(1.25, 0));
+	}
+
+}
@@ -0,0 +1,80 @@
+package org.opengis.cite.cat30.util;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Verifies the behavior of the Shard class.
+ */
+public class VerifyShard {
+
+	private static final List<String> CLASSES = Arrays.asList("a.A", "a.B", "a.C", "a.D", "a.E");
+
+	public VerifyShard() {
+	}
+
+	@Test
+	public void parseSpec() {
+		Shard shard = Shard.parse(" 1/4 ");
+		assertEquals(1, shard.getIndex());
+		assertEquals(4, shard.getCount());
+		assertEquals("1/4", shard.toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void parseIndexOutOfRange() {
+		Shard.parse("4/4");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void parseInvalidSpec() {
+		Shard.parse("two");
+	}
+
+	@Test
+	public void shardsPartitionClasses() {
+		Map<String, Long> durations = new HashMap<>();
+		durations.put("a.A", 500L);
+		durations.put("a.C", 100L);
+		Set<String> all = new HashSet<>();
+		int total = 0;
+		for (int i = 0; i < 3; i++) {
+			Set<String> selected = new Shard(i, 3).select(CLASSES, durations);
+			total += selected.size();
+			all.addAll(selected);
+		}
+		assertEquals(CLASSES.size(), total);
+		assertEquals(new HashSet<>(CLASSES), all);
+	}
+
+	@Test
+	public void balanceByDuration() {
+		Map<String, Long> durations = new HashMap<>();
+		durations.put("a.A", 1000L);
+		durations.put("a.B", 400L);
+		durations.put("a.C", 300L);
+		durations.put("a.D", 200L);
+		durations.put("a.E", 100L);
+		assertEquals(Collections.singleton("a.A"), new Shard(0, 2).select(CLASSES, durations));
+		assertEquals(new HashSet<>(Arrays.asList("a.B", "a.C", "a.D", "a.E")),
+				new Shard(1, 2).select(CLASSES, durations));
+	}
+
+	@Test
+	public void selectionIndependentOfOrder() {
+		List<String> reversed = Arrays.asList("a.E", "a.D", "a.C", "a.B", "a.A");
+		Shard shard = new Shard(1, 2);
+		assertEquals(shard.select(CLASSES, Collections.emptyMap()),
+				shard.select(reversed, Collections.emptyMap()));
+	}
+
+}
@@ -0,0 +1,67 @@
+package org.opengis.cite.cat30.util;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Verifies the behavior of the TermIndex class.
+ */
+public class VerifyTermIndex {
+
+	private static TermIndex termIndex;
+
+	public VerifyTermIndex() {
+	}
+
+	@BeforeClass
+	public static void buildIndex() throws URISyntaxException {
+		URL url = VerifyTermIndex.class.getResource("/rsp/GetRecordsResponse-full.xml");
+		termIndex = TermIndex.read(new File(url.toURI()));
+	}
+
+	@Test
+	public void tokenizeMixedCaseText() {
+		List<String> terms = TermIndex.tokenize("Topo (1:24,000) SanGIS-Lakes");
+		assertEquals("Unexpected terms", List.of("topo", "1", "24", "000", "sangis", "lakes"), terms);
+	}
+
+	@Test
+	public void indexAllRecords() {
+		assertEquals("Unexpected number of records", 10, termIndex.getRecordCount());
+	}
+
+	@Test
+	public void findTitleWordInThreeRecords() {
+		List<String> idList = termIndex.getRecordIds("Topo", TermIndex.TITLE);
+		assertEquals("Unexpected number of records", 3, idList.size());
+		assertEquals("Unexpected id of last record", "urn:uuid:b1254954-f765-11e1-bf69-aa0000ae6bfc",
+				idList.get(idList.size() - 1));
+	}
+
+	@Test
+	public void selectTermByDocumentFrequency() {
+		String term = termIndex.selectTerm(3, TermIndex.TITLE);
+		assertNotNull("No term selected", term);
+		assertEquals("Unexpected document frequency", 3, termIndex.getDocumentFrequency(term));
+	}
+
+	@Test
+	public void intersectPostingLists() {
+		List<String> idList = termIndex.getRecordIdsWithAllTerms("sangis", "topo");
+		assertEquals("Unexpected number of records", 3, idList.size());
+	}
+
+	@Test
+	public void unknownTermHasNoPostings() {
+		assertTrue("Expected no records", termIndex.getRecordIds("xyzzy").isEmpty());
+		assertTrue("Expected no records", termIndex.getRecordIdsWithAllTerms("topo", "xyzzy").isEmpty());
+	}
+
+}
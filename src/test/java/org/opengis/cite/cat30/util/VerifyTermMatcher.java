@@ -0,0 +1,88 @@
+package org.opengis.cite.cat30.util;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * Verifies the behavior of the TermMatcher class.
+ */
+public class VerifyTermMatcher {
+
+	private static DocumentBuilder docBuilder;
+
+	public VerifyTermMatcher() {
+	}
+
+	@BeforeClass
+	public static void initParser() throws ParserConfigurationException {
+		DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+		dbf.setNamespaceAware(true);
+		docBuilder = dbf.newDocumentBuilder();
+	}
+
+	@Test
+	public void findOverlappingTermsIgnoringCase() throws SAXException, IOException {
+		Element record = parse("<Record><title>San Diego Shoreline</title></Record>");
+		TermMatcher matcher = new TermMatcher("shore", "SHORELINE", "line", "diego");
+		List<List<TermMatcher.Hit>> hits = matcher.findAll(record);
+		assertEquals("Unexpected offset of 'shore'", 10, hits.get(0).get(0).getOffset());
+		assertEquals("Unexpected offset of 'shoreline'", 10, hits.get(1).get(0).getOffset());
+		assertEquals("Unexpected offset of 'line'", 15, hits.get(2).get(0).getOffset());
+		assertEquals("Unexpected offset of 'diego'", 4, hits.get(3).get(0).getOffset());
+		assertTrue(matcher.matchesAll(record));
+	}
+
+	@Test
+	public void findTermInAttribute() throws SAXException, IOException {
+		Element record = parse("<Record><link href='http://example.org/Robotics'/></Record>");
+		List<List<TermMatcher.Hit>> hits = new TermMatcher("robotics").findAll(record);
+		assertEquals("Unexpected number of hits", 1, hits.get(0).size());
+		assertEquals("Unexpected field", "link/@href", hits.get(0).get(0).getField());
+	}
+
+	@Test
+	public void matchNonASCIITerm() throws SAXException, IOException {
+		Element record = parse("<Record><subject>Données géographiques</subject></Record>");
+		TermMatcher matcher = new TermMatcher("DONNÉES", "géo", "données");
+		assertTrue(matcher.matchesAll(record));
+		assertEquals("Unexpected offset of 'géo'", 8, matcher.findAll(record).get(1).get(0).getOffset());
+	}
+
+	@Test
+	public void ignoreTextOfRecordAndDescendants() throws SAXException, IOException {
+		Element record = parse("<Record>water<source><name>water</name></source></Record>");
+		assertFalse(new TermMatcher("water").matchesAll(record));
+	}
+
+	@Test
+	public void termDoesNotSpanFields() throws SAXException, IOException {
+		Element record = parse("<Record><title>ab</title><subject>cd</subject></Record>");
+		assertFalse(new TermMatcher("abcd").matchesAll(record));
+	}
+
+	@Test
+	public void ignoreEmptyTerm() throws SAXException, IOException {
+		Element record = parse("<Record><title>Lake Ontario</title></Record>");
+		TermMatcher matcher = new TermMatcher("", "lake");
+		assertTrue("Expected no hits for empty term", matcher.findAll(record).get(0).isEmpty());
+		assertTrue(matcher.matchesAll(record));
+	}
+
+	private static Element parse(String xml) throws SAXException, IOException {
+		return docBuilder.parse(new InputSource(new StringReader(xml))).getDocumentElement();
+	}
+
+}